@@ -65,11 +65,23 @@
 import org.apache.commons.lang3.ArrayUtils;
 import org.junit.Test;
 import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.meta.DistinctCountMetaData;
 import org.knime.core.data.meta.TestDataColumnMetaData;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
 
 /**
  * Testcases for {@link DataTableDomainCreator}.
@@ -613,6 +625,89 @@ private static TestDataColumnMetaData getMetaData(final DataTableDomainCreator d
         return optMetaData.get();
     }
 
+    /**
+     * Tests that updating the domain with a batch of rows (column-wise, on primitive values for numeric columns)
+     * yields the same domain as updating it row by row, including missing values, NaN and mixed column contents.
+     */
+    @Test
+    public void testUpdateDomainBatch() {
+        DataTableSpec tableSpec = new DataTableSpec(new String[]{"Double", "Int", "Long", "String"},
+            new DataType[]{DoubleCell.TYPE, IntCell.TYPE, LongCell.TYPE, StringCell.TYPE});
+        DataCell missing = DataType.getMissingCell();
+        List<DataRow> rows = Arrays.asList( //
+            new DefaultRow("1", missing, missing, missing, missing), //
+            new DefaultRow("2", new DoubleCell(Double.NaN), new IntCell(4), new LongCell(-7), new StringCell("b")), //
+            new DefaultRow("3", new DoubleCell(2.5), new IntCell(-3), new LongCell(Long.MAX_VALUE),
+                new StringCell("a")), //
+            new DefaultRow("4", new DoubleCell(-0.5), new IntCell(9), new LongCell(0), new StringCell("b")), //
+            new DefaultRow("5", new IntCell(-2), missing, new IntCell(12), new StringCell("c")));
+
+        DataTableDomainCreator rowWise = new DataTableDomainCreator(tableSpec, false);
+        rows.forEach(rowWise::updateDomain);
+        DataTableDomainCreator batchWise = new DataTableDomainCreator(tableSpec, false);
+        batchWise.updateDomain(rows.subList(0, 2));
+        batchWise.updateDomain(rows.subList(2, rows.size()));
+
+        DataTableSpec expected = rowWise.createSpec();
+        assertThat("Unexpected domain after batch update", batchWise.createSpec(), is(expected));
+        assertThat("Unexpected lower bound", expected.getColumnSpec(0).getDomain().getLowerBound(),
+            is(new IntCell(-2)));
+        assertThat("Unexpected upper bound", expected.getColumnSpec(2).getDomain().getUpperBound(),
+            is(new LongCell(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Tests that no estimate of the number of distinct values is attached to the column specs by default (it is
+     * opt-in as it changes every column spec).
+     */
+    @Test
+    public void testNoDistinctCountMetaDataByDefault() {
+        DataTableSpec tableSpec = new DataTableSpec(new String[]{"Int"}, new DataType[]{IntCell.TYPE});
+        DataTableDomainCreator domainCreator = new DataTableDomainCreator(tableSpec, false);
+        domainCreator.updateDomain(Arrays.asList(new DefaultRow("1", new IntCell(1)), new DefaultRow("2", 2)));
+        assertThat("Unexpected distinct count meta data", domainCreator.createSpec().getColumnSpec(0)
+            .getMetaDataOfType(DistinctCountMetaData.class).isPresent(), is(false));
+    }
+
+    /**
+     * Tests that scanning a table with several threads yields the same domain as a sequential scan, in particular
+     * that the possible values keep the order of their first occurrence.
+     *
+     * @throws Exception if the scan fails
+     */
+    @Test
+    public void testUpdateDomainInParallel() throws Exception {
+        DataTableSpec tableSpec = new DataTableSpec(new String[]{"Int", "Double", "String"},
+            new DataType[]{IntCell.TYPE, DoubleCell.TYPE, StringCell.TYPE});
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        ExecutionContext exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+            new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+        BufferedDataContainer container = exec.createDataContainer(tableSpec, false, 0);
+        final int rowCount = 20000;
+        for (int i = 0; i < rowCount; i++) {
+            // the possible values occur in an order different from their natural one
+            DataCell string = i % 11 == 0 ? DataType.getMissingCell() : new StringCell("v" + (i * 7 % 53) / 3);
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell((i * 31) % 9973 - 5000),
+                new DoubleCell(i == rowCount - 1 ? 1e9 : (i % 17) / 3.0), string));
+        }
+        container.close();
+        BufferedDataTable table = container.getTable();
+
+        DataTableDomainCreator sequential = new DataTableDomainCreator(tableSpec, false);
+        sequential.updateDomain(table, null, table.size());
+        DataTableDomainCreator parallel = new DataTableDomainCreator(tableSpec, false);
+        parallel.updateDomainInParallel(table, exec, 4);
+
+        DataTableSpec expected = sequential.createSpec();
+        assertThat("Unexpected domain after parallel scan", parallel.createSpec(), is(expected));
+        assertThat("Unexpected possible values order",
+            new ArrayList<>(parallel.createSpec().getColumnSpec(2).getDomain().getValues()),
+            is(new ArrayList<>(expected.getColumnSpec(2).getDomain().getValues())));
+        assertThat("Unexpected upper bound", expected.getColumnSpec(1).getDomain().getUpperBound(),
+            is(new DoubleCell(1e9)));
+    }
+
     /**
      * Tests whether the initialization with existing meta data works correctly.
      */
@@ -0,0 +1,103 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Tests the caching of {@link DataType#getCommonSuperType(DataType, DataType)} and the interning of types.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DataTypeTest {
+
+    /** Repeated calls return the identical common super type. */
+    @Test
+    public void testCommonSuperTypeIdentity() {
+        DataType superType = DataType.getCommonSuperType(IntCell.TYPE, StringCell.TYPE);
+        assertNull(superType.getCellClass());
+        assertSame(superType, DataType.getCommonSuperType(IntCell.TYPE, StringCell.TYPE));
+        // same value classes, hence the same (interned) instance
+        assertSame(superType, DataType.getCommonSuperType(DoubleCell.TYPE, StringCell.TYPE));
+        assertSame(DoubleCell.TYPE, DataType.getCommonSuperType(DoubleCell.TYPE, IntCell.TYPE));
+        assertSame(DoubleCell.TYPE, DataType.getCommonSuperType(IntCell.TYPE, DoubleCell.TYPE));
+        assertSame(IntCell.TYPE, DataType.getCommonSuperType(IntCell.TYPE, DataType.getMissingCell().getType()));
+        assertSame(superType, DataType.getCommonSuperType(superType, IntCell.TYPE));
+    }
+
+    /** Common super types of collection types are interned including their element type. */
+    @Test
+    public void testCommonSuperTypeOfCollections() {
+        DataType intList = ListCell.getCollectionType(IntCell.TYPE);
+        DataType stringList = ListCell.getCollectionType(StringCell.TYPE);
+        DataType superType = DataType.getCommonSuperType(intList, stringList);
+        assertEquals(ListCell.getCollectionType(DataType.getCommonSuperType(IntCell.TYPE, StringCell.TYPE)),
+            superType);
+        assertSame(superType, DataType.getCommonSuperType(stringList, intList));
+        assertTrue(superType.isASuperTypeOf(intList));
+    }
+
+    /** Loading a saved non-native type returns the instance created by the super type computation. */
+    @Test
+    public void testLoadInternsNonNativeType() throws InvalidSettingsException {
+        DataType superType = DataType.getCommonSuperType(IntCell.TYPE, StringCell.TYPE);
+        NodeSettings config = new NodeSettings("type");
+        superType.save(config);
+        assertSame(superType, DataType.load(config));
+        assertSame(IntCell.TYPE, DataType.getType(IntCell.class));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests the numeric representation of {@link RowKey}s, e.g. as created by {@link RowKey#createRowKey(long)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowKeyTest {
+
+    /** Numeric keys are equal to string keys with the same content, incl. their hash code. */
+    @Test
+    public void testNumericEqualsString() {
+        for (long index : new long[]{0, 1, 9, 10, 12345, 999_999_999_999_999_999L, Long.MAX_VALUE, -1, -42}) {
+            RowKey numeric = RowKey.createRowKey(index);
+            RowKey string = new RowKey("Row" + index);
+            assertEquals(string.getString(), numeric.getString());
+            assertEquals(string, numeric);
+            assertEquals(numeric, string);
+            assertEquals(string.hashCode(), numeric.hashCode());
+        }
+        assertNotEquals(RowKey.createRowKey(1), RowKey.createRowKey(2));
+        assertNotEquals(RowKey.createRowKey("Row", 1), RowKey.createRowKey("Raw", 1));
+        assertEquals(RowKey.createRowKey("Row1", 5), RowKey.createRowKey("Row", 15));
+    }
+
+    /** The decomposition into prefix and index is unique. */
+    @Test
+    public void testSequenceDecomposition() {
+        assertEquals(17L, new RowKey("Row17").getSequenceIndex());
+        assertEquals("Row", new RowKey("Row17").getSequencePrefix());
+        assertEquals(17L, RowKey.createRowKey(17).getSequenceIndex());
+        assertEquals(0L, new RowKey("0").getSequenceIndex());
+        assertEquals("", new RowKey("0").getSequencePrefix());
+        assertEquals(15L, RowKey.createRowKey("Row1", 5).getSequenceIndex());
+        assertEquals("Row", RowKey.createRowKey("Row1", 5).getSequencePrefix());
+        assertEquals(-1L, new RowKey("Row007").getSequenceIndex());
+        assertEquals(-1L, new RowKey("Row").getSequenceIndex());
+        assertEquals(-1L, RowKey.createRowKey(-5).getSequenceIndex());
+        assertNull(new RowKey("Row1x").getSequencePrefix());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the primitive array based list cells, e.g. {@link DoubleListCell}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrimitiveListCellTest {
+
+    /** Primitive lists are equal to list cells with the same elements, incl. their hash code. */
+    @Test
+    public void testEqualToListCell() {
+        List<DataCell> cells = Arrays.asList(new DoubleCell(1.5), new DoubleCell(-3), new DoubleCell(Double.NaN));
+        ListCell listCell = CollectionCellFactory.createListCell(cells);
+        DoubleListCell doubleListCell = CollectionCellFactory.createDoubleListCell(new double[]{1.5, -3, Double.NaN});
+
+        assertEquals(listCell, doubleListCell);
+        assertEquals(doubleListCell, listCell);
+        assertEquals(listCell.hashCode(), doubleListCell.hashCode());
+        assertEquals(listCell.toString(), doubleListCell.toString());
+        assertEquals(DoubleCell.TYPE, doubleListCell.getElementType());
+        assertEquals(cells, Arrays.asList(doubleListCell.stream().toArray()));
+        assertTrue(ListCell.getCollectionType(DoubleCell.TYPE).isASuperTypeOf(DoubleListCell.TYPE));
+    }
+
+    /** Primitive lists of different element classes are equal only if their elements are. */
+    @Test
+    public void testEqualAmongPrimitiveLists() {
+        DataCell ints = CollectionCellFactory.createIntListCell(new int[]{4, 2});
+        ListCell intListCell = CollectionCellFactory.createListCell(Arrays.asList(new IntCell(4), new IntCell(2)));
+        assertEquals(intListCell, ints);
+        assertEquals(ints, CollectionCellFactory.createIntListCell(new int[]{4, 2}));
+        assertFalse(ints.equals(CollectionCellFactory.createLongListCell(new long[]{4, 2})));
+        assertFalse(CollectionCellFactory.createLongListCell(new long[]{4, 2}).equals(ints));
+    }
+
+    /** {@link CollectionCellFactory#createCompactListCell(java.util.Collection)} picks the primitive list. */
+    @Test
+    public void testCreateCompactListCell() {
+        DataCell ints = CollectionCellFactory.createCompactListCell(Arrays.asList(new IntCell(4), new IntCell(2)));
+        assertTrue(ints instanceof IntListCell);
+        assertArrayEquals(new int[]{4, 2}, ((IntListCell)ints).getIntArray());
+
+        DataCell strings =
+            CollectionCellFactory.createCompactListCell(Arrays.asList(new StringCell("a"), new StringCell("b")));
+        assertTrue(strings instanceof StringListCell);
+        assertEquals("b", ((StringListCell)strings).getString(1));
+
+        DataCell mixed = CollectionCellFactory.createCompactListCell(
+            Arrays.asList(new IntCell(4), DataType.getMissingCell(), new DoubleCell(2)));
+        assertTrue(mixed instanceof ListCell);
+        assertEquals(3, ((ListDataValue)mixed).size());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link BlobSegmentStore}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class BlobSegmentStoreTest {
+
+    /** Directory holding the segment files. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    /**
+     * Appends blobs to two columns, reads them back while appending and after re-opening the directory.
+     *
+     * @throws IOException if reading or writing fails
+     */
+    @Test
+    public void testAppendAndRead() throws IOException {
+        final File dir = new File(m_tempFolder.getRoot(), "blobs");
+        final BlobSegmentStore store = new BlobSegmentStore(dir);
+        final byte[][] col0 = {createBlob(0, 1000), createBlob(1, 0), createBlob(2, 70000)};
+        final byte[][] col1 = {createBlob(3, 42)};
+        append(store, 0, 0, col0[0]);
+        append(store, 1, 0, col1[0]);
+        assertArrayEquals("First blob of column 0", col0[0], read(store, 0, 0));
+        append(store, 0, 1, col0[1]);
+        append(store, 0, 2, col0[2]);
+        for (int i = 0; i < col0.length; i++) {
+            assertArrayEquals("Blob " + i + " of column 0", col0[i], read(store, 0, i));
+        }
+        assertArrayEquals("Blob 0 of column 1", col1[0], read(store, 1, 0));
+        store.closeForWriting();
+        store.close();
+
+        assertThat("Number of files", dir.list().length, is(4));
+        final BlobSegmentStore reopened = new BlobSegmentStore(dir);
+        for (int i = col0.length - 1; i >= 0; i--) {
+            assertArrayEquals("Blob " + i + " of column 0 after re-open", col0[i], read(reopened, 0, i));
+        }
+        final byte[] appended = createBlob(4, 123);
+        append(reopened, 1, 1, appended);
+        assertArrayEquals("Blob appended after re-open", appended, read(reopened, 1, 1));
+        assertArrayEquals("Blob 0 of column 1 after re-open", col1[0], read(reopened, 1, 0));
+        reopened.close();
+    }
+
+    /**
+     * With deduplication, identical blobs of a column are stored once but remain addressable by their own index.
+     *
+     * @throws IOException if reading or writing fails
+     */
+    @Test
+    public void testDeduplicate() throws IOException {
+        final File dir = new File(m_tempFolder.getRoot(), "blobs");
+        final BlobSegmentStore store = new BlobSegmentStore(dir, true);
+        final byte[] blob = createBlob(0, 5000);
+        final byte[] other = createBlob(1, 5000);
+        append(store, 0, 0, blob);
+        append(store, 0, 1, other);
+        append(store, 0, 2, blob);
+        append(store, 0, 3, other);
+        append(store, 1, 0, blob);
+        final byte[] appended = createBlob(2, 100);
+        append(store, 0, 4, appended);
+        store.closeForWriting();
+        assertThat("Segment length of column 0", new File(dir, "col_0.blobs").length(), is(10100L));
+        assertThat("Segment length of column 1", new File(dir, "col_1.blobs").length(), is(5000L));
+        store.close();
+
+        final BlobSegmentStore reopened = new BlobSegmentStore(dir, true);
+        final byte[][] expected = {blob, other, blob, other, appended};
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals("Blob " + i + " of column 0", expected[i], read(reopened, 0, i));
+        }
+        final byte[] afterReopen = createBlob(3, 10);
+        append(reopened, 0, 5, afterReopen);
+        assertArrayEquals("Blob appended after re-open", afterReopen, read(reopened, 0, 5));
+        assertArrayEquals("Last blob before re-open", appended, read(reopened, 0, 4));
+        reopened.close();
+    }
+
+    /**
+     * Blobs of a column need to be appended in order, reading non-existing blobs fails.
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testInvalidIndices() throws IOException {
+        final BlobSegmentStore store = new BlobSegmentStore(m_tempFolder.getRoot());
+        append(store, 0, 0, createBlob(0, 10));
+        try {
+            store.append(0, 2);
+            fail("Appending blob with gap in index expected to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            store.openInputStream(0, 1);
+            fail("Reading non-existing blob expected to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        store.close();
+    }
+
+    /**
+     * Read channels of segments without open streams are closed once more than
+     * {@link BlobSegmentStore#MAX_IDLE_READ_CHANNELS} of them are idle; an open stream keeps its channel.
+     *
+     * @throws IOException if reading or writing fails
+     */
+    @Test
+    public void testIdleReadChannelsAreClosed() throws IOException {
+        final BlobSegmentStore store = new BlobSegmentStore(m_tempFolder.getRoot());
+        final int nrColumns = 3 * BlobSegmentStore.MAX_IDLE_READ_CHANNELS;
+        for (int col = 0; col < nrColumns; col++) {
+            append(store, col, 0, createBlob(col, 1000));
+        }
+        store.closeForWriting();
+
+        final InputStream pending = store.openInputStream(0, 0);
+        assertThat("Open read channels with pending stream", store.getNrOpenReadChannels(), is(1));
+        for (int col = 1; col < nrColumns; col++) {
+            assertArrayEquals("Blob of column " + col, createBlob(col, 1000), read(store, col, 0));
+            assertThat("Open read channels after reading column " + col, store.getNrOpenReadChannels(),
+                is(Math.min(col, BlobSegmentStore.MAX_IDLE_READ_CHANNELS) + 1));
+        }
+        final byte[] pendingBlob = new byte[1000];
+        int offset = 0;
+        int read;
+        while ((read = pending.read(pendingBlob, offset, pendingBlob.length - offset)) > 0) {
+            offset += read;
+        }
+        assertArrayEquals("Blob read by pending stream", createBlob(0, 1000), pendingBlob);
+        pending.close();
+        pending.close();
+        assertThat("Open read channels after closing pending stream", store.getNrOpenReadChannels(),
+            is(BlobSegmentStore.MAX_IDLE_READ_CHANNELS));
+
+        assertArrayEquals("Blob of column 0 read again", createBlob(0, 1000), read(store, 0, 0));
+        store.close();
+        assertThat("Open read channels after close", store.getNrOpenReadChannels(), is(0));
+    }
+
+    private static byte[] createBlob(final int seed, final int length) {
+        final byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte)(seed * 31 + i);
+        }
+        return result;
+    }
+
+    private static void append(final BlobSegmentStore store, final int column, final int index, final byte[] blob)
+        throws IOException {
+        try (OutputStream out = store.append(column, index)) {
+            out.write(blob);
+        }
+    }
+
+    private static byte[] read(final BlobSegmentStore store, final int column, final int index) throws IOException {
+        try (InputStream in = store.openInputStream(column, index)) {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                result.write(buffer, 0, read);
+            }
+            return result.toByteArray();
+        }
+    }
+}
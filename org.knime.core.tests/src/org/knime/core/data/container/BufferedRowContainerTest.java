@@ -0,0 +1,212 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.data.v2.RowKeyType;
+import org.knime.core.data.v2.RowWrite;
+import org.knime.core.data.v2.ValueSchema;
+import org.knime.core.data.v2.value.BooleanValueFactory.BooleanWriteValue;
+import org.knime.core.data.v2.value.DoubleValueFactory.DoubleWriteValue;
+import org.knime.core.data.v2.value.IntValueFactory.IntWriteValue;
+import org.knime.core.data.v2.value.StringValueFactory.StringWriteValue;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BufferedRowContainer}, i.e. that rows are collected column by column and only passed to the underlying
+ * container in batches.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BufferedRowContainerTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new DataColumnSpecCreator("double", DoubleCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("boolean", BooleanCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+
+    private static final VirtualParallelizedChunkPortObjectInNodeFactory FACTORY =
+        new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final ExecutionContext EXEC = new ExecutionContext(new DefaultNodeProgressMonitor(),
+        new Node((NodeFactory)FACTORY), SingleNodeContainer.MemoryPolicy.CacheSmallInMemory,
+        NotInWorkflowDataRepository.newInstance());
+
+    private static BufferedRowContainer createContainer(final BufferedDataContainer delegate) {
+        return new BufferedRowContainer(delegate, ValueSchema.create(SPEC, RowKeyType.CUSTOM, null));
+    }
+
+    private static void write(final RowWrite row, final int i) {
+        row.setRowKey("Row" + i);
+        row.<DoubleWriteValue> getWriteValue(0).setDoubleValue(i + 0.5);
+        if (i % 3 == 0) {
+            row.setMissing(1);
+        } else {
+            row.<IntWriteValue> getWriteValue(1).setIntValue(-i);
+        }
+        row.<BooleanWriteValue> getWriteValue(2).setBooleanValue(i % 2 == 0);
+        if (i % 4 == 0) {
+            row.setMissing(3);
+        } else {
+            row.<StringWriteValue> getWriteValue(3).setStringValue("s" + i);
+        }
+    }
+
+    /** Forwarding does not pass rows to the container until the batch is full or the cursor is finished. */
+    @Test
+    public void testForwardDoesNotCreateRows() throws Exception {
+        final BufferedDataContainer delegate = EXEC.createDataContainer(SPEC);
+        final int batchSize = PrimitiveColumnBlock.getRowGroupSize(SPEC.getNumColumns());
+        final BufferedRowContainer container = createContainer(delegate);
+        // the last forward commits the row written before
+        for (int i = 0; i < batchSize - 1; i++) {
+            write(container.forward(), i);
+        }
+        container.forward();
+        assertThat("Rows in container before the batch is full", delegate.size(), is(0L));
+
+        write(container.forward(), batchSize - 1);
+        container.forward();
+        assertThat("Rows in container after a full batch", delegate.size(), is((long)batchSize));
+        container.finish().clear();
+    }
+
+    /** Forwarding rows of primitive values does not allocate memory per row. */
+    @Test
+    public void testForwardDoesNotAllocate() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+        final BufferedDataContainer delegate = EXEC.createDataContainer(SPEC);
+        final int rowCount = PrimitiveColumnBlock.getRowGroupSize(SPEC.getNumColumns()) - 1;
+        final BufferedRowContainer container = createContainer(delegate);
+        final String key = "Row";
+        final long threadId = Thread.currentThread().getId();
+        final long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < rowCount; i++) {
+            final RowWrite row = container.forward();
+            row.setRowKey(key);
+            row.<DoubleWriteValue> getWriteValue(0).setDoubleValue(i);
+            row.<IntWriteValue> getWriteValue(1).setIntValue(i);
+            row.<BooleanWriteValue> getWriteValue(2).setBooleanValue(true);
+            row.setMissing(3);
+        }
+        final long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        // a row (key, cell array and three cells) takes more than 64 bytes
+        assertThat("Bytes allocated by " + rowCount + " forwards", allocated, is(lessThan(64L * rowCount)));
+        container.close();
+    }
+
+    /** Values and missing values written through the cursor are contained in the finished table. */
+    @Test
+    public void testWriteRead() throws Exception {
+        final BufferedDataContainer delegate = EXEC.createDataContainer(SPEC);
+        // more than one batch, the last one partially filled
+        final int rowCount = 2 * PrimitiveColumnBlock.getRowGroupSize(SPEC.getNumColumns()) + 17;
+        final BufferedRowContainer container = createContainer(delegate);
+        for (int i = 0; i < rowCount; i++) {
+            write(container.forward(), i);
+        }
+        container.forward();
+        final BufferedDataTable table = container.finish();
+        try {
+            assertThat("Row count", table.size(), is((long)rowCount));
+            int i = 0;
+            for (final DataRow row : table) {
+                final String message = "Row " + i;
+                assertThat(message + " key", row.getKey().getString(), is("Row" + i));
+                assertThat(message + " double", ((DoubleValue)row.getCell(0)).getDoubleValue(), is(i + 0.5));
+                final DataCell intCell = row.getCell(1);
+                assertThat(message + " int missing", intCell.isMissing(), is(i % 3 == 0));
+                if (!intCell.isMissing()) {
+                    assertThat(message + " int", ((IntValue)intCell).getIntValue(), is(-i));
+                }
+                assertThat(message + " boolean", ((BooleanValue)row.getCell(2)).getBooleanValue(), is(i % 2 == 0));
+                final DataCell stringCell = row.getCell(3);
+                assertThat(message + " string missing", stringCell.isMissing(), is(i % 4 == 0));
+                if (!stringCell.isMissing()) {
+                    assertThat(message + " string", ((StringValue)stringCell).getStringValue(), is("s" + i));
+                }
+                i++;
+            }
+            assertThat("Rows read", i, is(rowCount));
+        } finally {
+            table.clear();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.Test;
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.v2.RowCursor;
+import org.knime.core.data.v2.RowRead;
+
+/**
+ * Tests {@link BufferedRowCursor}, i.e. cursors on tables read from disk, against the row iterator of the same table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BufferedRowCursorTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new DataColumnSpecCreator("double", DoubleCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("long", LongCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("boolean", BooleanCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+
+    /** Creates a table that is written to disk right away (no in-memory cache). */
+    private static Buffer createTable(final int rowCount) {
+        final DataContainerSettings settings = DataContainerSettings.getDefault().withMaxCellsInMemory(0)
+            .withBufferSettings(BufferSettings.getDefault().withLRU(false));
+        final DataContainer container = new DataContainer(SPEC, settings);
+        for (int i = 0; i < rowCount; i++) {
+            final DataCell[] cells = new DataCell[]{new DoubleCell(i + 0.5), new IntCell(-i), new LongCell(i * 1000L),
+                BooleanCell.get(i % 2 == 0), new StringCell("s" + i)};
+            // every column has missing values, at different rows
+            for (int c = 0; c < cells.length; c++) {
+                if ((i + c) % 5 == 0) {
+                    cells[c] = DataType.getMissingCell();
+                }
+            }
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), cells));
+        }
+        container.close();
+        return ((BufferedContainerTable)container.getBufferedTable()).getBuffer();
+    }
+
+    private static void assertSameValue(final String message, final DataCell expected, final RowRead read,
+        final int column) {
+        assertThat(message + " missing", read.isMissing(column), is(expected.isMissing()));
+        if (expected.isMissing()) {
+            return;
+        }
+        if (expected instanceof BooleanCell) {
+            assertThat(message, read.<BooleanValue> getValue(column).getBooleanValue(),
+                is(((BooleanValue)expected).getBooleanValue()));
+        } else if (expected instanceof IntCell) {
+            assertThat(message, read.<IntValue> getValue(column).getIntValue(), is(((IntValue)expected).getIntValue()));
+        } else if (expected instanceof LongCell) {
+            assertThat(message, read.<LongValue> getValue(column).getLongValue(),
+                is(((LongValue)expected).getLongValue()));
+        } else if (expected instanceof DoubleCell) {
+            assertThat(message, read.<DoubleValue> getValue(column).getDoubleValue(),
+                is(((DoubleValue)expected).getDoubleValue()));
+        } else {
+            assertThat(message, read.getValue(column), is(expected));
+        }
+    }
+
+    /** The cursor returns the same keys, values and missing values as the row iterator, for all column types. */
+    @Test
+    public void testCursorMatchesIterator() {
+        assertCursorMatchesIterator(100);
+    }
+
+    /** Same as {@link #testCursorMatchesIterator()} with several row groups, the last one incomplete. */
+    @Test
+    public void testCursorMatchesIteratorAcrossRowGroups() {
+        assertCursorMatchesIterator(2 * PrimitiveColumnBlock.getRowGroupSize(SPEC.getNumColumns()) + 10);
+    }
+
+    private static void assertCursorMatchesIterator(final int rowCount) {
+        final Buffer buffer = createTable(rowCount);
+        try (RowCursor cursor = buffer.cursor(); CloseableRowIterator it = buffer.iterator()) {
+            assertThat("Cursor on table on disk", cursor, is(instanceOf(BufferedRowCursor.class)));
+            assertThat(cursor.getNumColumns(), is(SPEC.getNumColumns()));
+            long rowIndex = 0;
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                assertThat("Cursor can forward at row " + rowIndex, cursor.canForward(), is(true));
+                final RowRead read = cursor.forward();
+                assertThat("Key of row " + rowIndex, read.getRowKey().getString(), is(row.getKey().getString()));
+                for (int c = 0; c < row.getNumCells(); c++) {
+                    assertSameValue("Row " + rowIndex + ", column " + c, row.getCell(c), read, c);
+                }
+                rowIndex++;
+            }
+            assertThat("Rows read", rowIndex, is((long)rowCount));
+            assertThat("Cursor at end", cursor.canForward(), is(false));
+            assertThat("Forward at end", cursor.forward(), is(nullValue()));
+        }
+        buffer.clear();
+    }
+
+    /** Forwarding past the last row releases the underlying file stream without closing the cursor. */
+    @Test
+    public void testForwardToEndClosesStream() {
+        final Buffer buffer = createTable(3);
+        final RowCursor cursor = buffer.cursor();
+        while (cursor.forward() != null) {
+            // consume all rows
+        }
+        assertThat("Open streams after last row", buffer.getNrOpenInputStreams(), is(0));
+        assertThat("Open resources after last row", buffer.getNrOpenResources(), is(0));
+        assertThat("Forward after end", cursor.forward(), is(nullValue()));
+        cursor.close();
+        buffer.clear();
+    }
+
+    /** A cursor that is closed before the end releases the file stream; closing twice is fine. */
+    @Test
+    public void testCloseBeforeEnd() {
+        final Buffer buffer = createTable(10);
+        final RowCursor cursor = buffer.cursor();
+        assertThat(cursor.forward() != null, is(true));
+        cursor.close();
+        cursor.close();
+        assertThat("Open streams after close", buffer.getNrOpenInputStreams(), is(0));
+        assertThat("Forward after close", cursor.forward(), is(nullValue()));
+        buffer.clear();
+    }
+}
@@ -53,9 +53,11 @@
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
@@ -67,12 +69,14 @@
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
 import org.knime.core.data.MissingValue;
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.ObjectToDataCellConverter;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
@@ -775,6 +779,135 @@ public void testWriteRead() throws IOException, CanceledExecutionException, Inte
         }
     }
 
+    /**
+     * Writes primitive cells (which are stored without block end, see {@link Buffer#IVERSION_COMPACT_FORMAT})
+     * interleaved with missing cells, cells with escaped bytes and cells of other types to a file and reads them back.
+     *
+     * @throws Exception if writing or reading fails
+     */
+    @Test(timeout = 5000)
+    public void testWriteReadUnblockedPrimitives() throws Exception {
+        final DataTableSpec spec = new DataTableSpec(new String[]{"Double", "Int", "Long", "String", "Mixed"},
+            new DataType[]{DoubleCell.TYPE, IntCell.TYPE, LongCell.TYPE, StringCell.TYPE,
+                DataType.getType(DataCell.class)});
+        final DataContainer container = new DataContainer(spec, true, 0, false);
+        final int count = 500;
+        for (int i = 0; i < count; i++) {
+            // 0x61 and 0x62 are the block terminate and escape bytes
+            final DataCell doubleCell = i % 7 == 0 ? DataType.getMissingCell()
+                : new DoubleCell(Double.longBitsToDouble(0x6162616261626162L + i));
+            final DataCell intCell = i % 5 == 0 ? new MissingCell("error " + i) : new IntCell(0x61626162 + i);
+            final DataCell longCell = i % 3 == 0 ? DataType.getMissingCell() : new LongCell(0x6100000000000062L * i);
+            final DataCell stringCell = new StringCell("Row " + i);
+            final DataCell mixedCell = i % 2 == 0 ? new IntCell(i) : new StringCell("ab" + i);
+            container.addRowToTable(
+                new DefaultRow(RowKey.createRowKey((long)i), doubleCell, intCell, longCell, stringCell, mixedCell));
+        }
+        container.close();
+        final ContainerTable writeTable = container.getBufferedTable();
+
+        final File file = FileUtil.createTempFile("testWriteReadUnblockedPrimitives", ".zip");
+        file.deleteOnExit();
+        DataContainer.writeToZip(writeTable, file, new ExecutionMonitor());
+        final ContainerTable readTable = DataContainer.readFromZip(file);
+        try (final CloseableRowIterator writeIt = writeTable.iterator();
+                final CloseableRowIterator readIt = readTable.iterator()) {
+            int i = 0;
+            while (writeIt.hasNext() && readIt.hasNext()) {
+                final DataRow refRow = writeIt.next();
+                final DataRow dataRow = readIt.next();
+                org.junit.Assert.assertEquals("Row key in row " + i, refRow.getKey(), dataRow.getKey());
+                for (int j = 0; j < refRow.getNumCells(); j++) {
+                    final DataCell refCell = refRow.getCell(j);
+                    final DataCell dataCell = dataRow.getCell(j);
+                    if (refCell.isMissing()) {
+                        org.junit.Assert.assertTrue("Cell " + j + " in Row " + i + " is missing",
+                            dataCell.isMissing());
+                        org.junit.Assert.assertEquals("Error message of missing cell " + j + " in Row " + i,
+                            ((MissingValue)refCell).getError(), ((MissingValue)dataCell).getError());
+                    } else {
+                        org.junit.Assert.assertEquals("Cell " + j + " in Row " + i, refCell, dataCell);
+                    }
+                }
+                i++;
+            }
+            org.junit.Assert.assertEquals("Number of rows read", count, i);
+            org.junit.Assert.assertFalse("Read table has " + count + " rows", writeIt.hasNext() || readIt.hasNext());
+        }
+    }
+
+    /**
+     * Writes a table of several row groups, with columns in primitive encoding (including one without any value in
+     * the first group) and a column that changes between primitive and generic encoding from group to group (see
+     * {@link PrimitiveColumnBlock}), and reads it back.
+     *
+     * @throws Exception if writing or reading fails
+     */
+    @Test(timeout = 5000)
+    public void testWriteReadRowGroups() throws Exception {
+        final DataTableSpec spec = new DataTableSpec(new String[]{"Double", "Int", "Long", "Mixed"},
+            new DataType[]{DoubleCell.TYPE, IntCell.TYPE, LongCell.TYPE, DataType.getType(DataCell.class)});
+        final int groupSize = PrimitiveColumnBlock.getRowGroupSize(spec.getNumColumns());
+        final int count = 2 * groupSize + groupSize / 2;
+        final List<DataRow> expectedRows = new ArrayList<>();
+        final DataContainer container = new DataContainer(spec, true, 0, false);
+        for (int i = 0; i < count; i++) {
+            final int group = i / groupSize;
+            // 0x61 and 0x62 are the block terminate and escape bytes
+            final DataCell doubleCell = i % 7 == 0 ? DataType.getMissingCell()
+                : new DoubleCell(Double.longBitsToDouble(0x6162616261626162L + i));
+            final DataCell intCell = new IntCell(0x61626162 + i);
+            final DataCell longCell = group == 0 ? DataType.getMissingCell() : new LongCell(-0x6100000000000062L * i);
+            final DataCell mixedCell;
+            if (group == 0) {
+                mixedCell = new IntCell(i);
+            } else if (group == 1) {
+                mixedCell = i == groupSize + groupSize / 2 ? new StringCell("ab" + i) : new IntCell(i);
+            } else {
+                mixedCell = i % 3 == 0 ? new MissingCell("error " + i) : new LongCell(i);
+            }
+            final DataRow row =
+                new DefaultRow(RowKey.createRowKey((long)i), doubleCell, intCell, longCell, mixedCell);
+            expectedRows.add(row);
+            container.addRowToTable(row);
+        }
+        container.close();
+        final ContainerTable writeTable = container.getBufferedTable();
+
+        final File file = FileUtil.createTempFile("testWriteReadRowGroups", ".zip");
+        file.deleteOnExit();
+        DataContainer.writeToZip(writeTable, file, new ExecutionMonitor());
+        assertSameRows(expectedRows, writeTable);
+        assertSameRows(expectedRows, DataContainer.readFromZip(file));
+    }
+
+    private static void assertSameRows(final List<DataRow> expectedRows, final ContainerTable table) {
+        try (final CloseableRowIterator it = table.iterator()) {
+            int i = 0;
+            for (DataRow refRow : expectedRows) {
+                org.junit.Assert.assertTrue("Table has row " + i, it.hasNext());
+                final DataRow dataRow = it.next();
+                org.junit.Assert.assertEquals("Row key in row " + i, refRow.getKey(), dataRow.getKey());
+                for (int j = 0; j < refRow.getNumCells(); j++) {
+                    final DataCell refCell = refRow.getCell(j);
+                    final DataCell dataCell = dataRow.getCell(j);
+                    if (refCell.isMissing()) {
+                        org.junit.Assert.assertTrue("Cell " + j + " in Row " + i + " is missing",
+                            dataCell.isMissing());
+                        org.junit.Assert.assertEquals("Error message of missing cell " + j + " in Row " + i,
+                            ((MissingValue)refCell).getError(), ((MissingValue)dataCell).getError());
+                    } else {
+                        org.junit.Assert.assertEquals("Cell " + j + " in Row " + i, refCell, dataCell);
+                        org.junit.Assert.assertEquals("Class of cell " + j + " in Row " + i, refCell.getClass(),
+                            dataCell.getClass());
+                    }
+                }
+                i++;
+            }
+            org.junit.Assert.assertFalse("Table has " + expectedRows.size() + " rows", it.hasNext());
+        }
+    }
+
     /**
      * Generate a small-sized table. Medium-sized means smaller than a container's maximum number of cells.
      *
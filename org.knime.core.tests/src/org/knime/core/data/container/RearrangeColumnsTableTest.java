@@ -0,0 +1,196 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link RearrangeColumnsTable}, in particular the concurrent computation of new columns in batches.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RearrangeColumnsTableTest {
+
+    private static final int ROW_COUNT = 3000;
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final ExecutionContext EXEC = new ExecutionContext(new DefaultNodeProgressMonitor(),
+        new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+        SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+
+    private static BufferedDataTable createTable() {
+        final BufferedDataContainer container =
+            EXEC.createDataContainer(new DataTableSpec(new DataColumnSpecCreator("index", IntCell.TYPE).createSpec()));
+        for (int i = 0; i < ROW_COUNT; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    /**
+     * Appends a column computed by a parallel cell factory whose cost per row varies (so that the batch size changes
+     * while processing) and checks that the output keeps the order of the input.
+     */
+    private static void testRowOrder(final int workerCount, final int maxQueueSize) throws Exception {
+        final AbstractCellFactory factory = new AbstractCellFactory(true, workerCount, maxQueueSize,
+            new DataColumnSpecCreator("square", IntCell.TYPE).createSpec()) {
+            @Override
+            public DataCell[] getCells(final DataRow row) {
+                final int index = ((IntValue)row.getCell(0)).getIntValue();
+                if ((index >= 1000 && index < 1100) || index % 500 == 0) {
+                    try {
+                        // expensive rows, the batch size drops
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return new DataCell[]{new IntCell(index * index)};
+            }
+        };
+        final BufferedDataTable in = createTable();
+        final ColumnRearranger rearranger = new ColumnRearranger(in.getDataTableSpec());
+        rearranger.append(factory);
+        final BufferedDataTable out = EXEC.createColumnRearrangeTable(in, rearranger, EXEC.createSubProgress(1.0));
+
+        assertThat("Row count", out.size(), is((long)ROW_COUNT));
+        int i = 0;
+        for (final DataRow row : out) {
+            assertThat("Key of row " + i, row.getKey(), is(RowKey.createRowKey((long)i)));
+            assertThat("Input value of row " + i, ((IntValue)row.getCell(0)).getIntValue(), is(i));
+            assertThat("New value of row " + i, ((IntValue)row.getCell(1)).getIntValue(), is(i * i));
+            i++;
+        }
+    }
+
+    /**
+     * Tests the output order with a large queue, which allows for the largest batches.
+     *
+     * @throws Exception if the computation fails
+     */
+    @Test
+    public void testRowOrderConcurrentLargeQueue() throws Exception {
+        testRowOrder(4, 4 * 1024);
+    }
+
+    /**
+     * Tests the output order with a queue that holds fewer rows than the maximum batch size per worker, i.e. batches
+     * are bounded by it.
+     *
+     * @throws Exception if the computation fails
+     */
+    @Test
+    public void testRowOrderConcurrentSmallQueue() throws Exception {
+        testRowOrder(2, 7);
+    }
+
+    /**
+     * A failing calculation ends the processing with the error, also if the submitting thread is waiting for queued
+     * rows to be finished.
+     *
+     * @throws Exception if creating the table fails
+     */
+    @Test(timeout = 60000)
+    public void testFailingCalculation() throws Exception {
+        final AbstractCellFactory factory = new AbstractCellFactory(true, 2, 8,
+            new DataColumnSpecCreator("failing", IntCell.TYPE).createSpec()) {
+            @Override
+            public DataCell[] getCells(final DataRow row) {
+                final int index = ((IntValue)row.getCell(0)).getIntValue();
+                if (index == ROW_COUNT / 2) {
+                    throw new IllegalStateException("Failing row (expected by test)");
+                }
+                return new DataCell[]{new IntCell(index)};
+            }
+        };
+        final BufferedDataTable in = createTable();
+        final ColumnRearranger rearranger = new ColumnRearranger(in.getDataTableSpec());
+        rearranger.append(factory);
+        try {
+            EXEC.createColumnRearrangeTable(in, rearranger, EXEC.createSubProgress(1.0));
+            fail("Failing calculation expected to fail the table creation");
+        } catch (RuntimeException e) {
+            Throwable cause = e;
+            while (!(cause instanceof IllegalStateException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertThat("Error message", cause.getMessage(), is("Failing row (expected by test)"));
+        }
+    }
+
+    /**
+     * Tests the output order with a single worker and a queue of size 1, i.e. batches of single rows.
+     *
+     * @throws Exception if the computation fails
+     */
+    @Test
+    public void testRowOrderConcurrentSingleWorker() throws Exception {
+        testRowOrder(1, 1);
+    }
+}
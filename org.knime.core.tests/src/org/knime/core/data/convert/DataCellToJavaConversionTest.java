@@ -77,6 +77,8 @@
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.convert.java.DataCellToDoubleConverter;
+import org.knime.core.data.convert.java.DataCellToIntConverter;
 import org.knime.core.data.convert.java.DataCellToJavaConverter;
 import org.knime.core.data.convert.java.DataCellToJavaConverterFactory;
 import org.knime.core.data.convert.java.DataCellToJavaConverterRegistry;
@@ -176,6 +178,69 @@ public void testDouble() throws Exception {
         testSimpleConverter(DoubleCell.TYPE, Double.class, new DoubleCell(Math.PI), new Double(Math.PI));
     }
 
+    /**
+     * Test that converters created from {@link DataValueAccessMethod} annotations on methods returning primitives
+     * implement the primitive converter interfaces.
+     *
+     * @throws Exception When something went wrong
+     */
+    @Test
+    public void testPrimitiveAccessMethodConverter() throws Exception {
+        final Optional<DataCellToJavaConverterFactory<? extends DataValue, Double>> factory =
+            DataCellToJavaConverterRegistry.getInstance().getConverterFactories(DoubleCell.TYPE, Double.class).stream()
+                .filter(f -> f.create() instanceof DataCellToDoubleConverter).findFirst();
+        assertTrue("No primitive converter for DoubleCell", factory.isPresent());
+        @SuppressWarnings("unchecked")
+        final DataCellToDoubleConverter<DataValue> converter =
+            (DataCellToDoubleConverter<DataValue>)factory.get().create();
+        assertEquals(Math.E, converter.convertIntoDouble(new DoubleCell(Math.E)), 0.0);
+        assertEquals(Math.E, converter.convert(new DoubleCell(Math.E)), 0.0);
+    }
+
+    /**
+     * Test that the (cached) result of {@link DataCellToJavaConverterRegistry#getConverterFactories(DataType, Class)}
+     * can be modified by the caller without affecting later queries.
+     */
+    @Test
+    public void testConverterFactoriesCached() {
+        final DataCellToJavaConverterRegistry registry = DataCellToJavaConverterRegistry.getInstance();
+        final Collection<DataCellToJavaConverterFactory<? extends DataValue, Integer>> first =
+            registry.getConverterFactories(IntCell.TYPE, Integer.class);
+        assertFalse(first.isEmpty());
+        final ArrayList<DataCellToJavaConverterFactory<? extends DataValue, Integer>> expected = new ArrayList<>(first);
+        first.clear();
+        assertEquals(expected, new ArrayList<>(registry.getConverterFactories(IntCell.TYPE, Integer.class)));
+    }
+
+    /**
+     * Test that access methods returning primitives also yield factories for the primitive destination type, whose
+     * converters don't box the value.
+     *
+     * @throws Exception When something went wrong
+     */
+    @Test
+    public void testPrimitiveDestinationType() throws Exception {
+        final DataCellToJavaConverterFactory<? extends DataValue, Double> factory = DataCellToJavaConverterRegistry
+            .getInstance().getConverterFactories(DoubleCell.TYPE, double.class).stream().findFirst().get();
+        assertEquals(double.class, factory.getDestinationType());
+        assertEquals("double", factory.getName());
+        @SuppressWarnings("unchecked")
+        final DataCellToDoubleConverter<DataValue> converter = (DataCellToDoubleConverter<DataValue>)factory.create();
+        assertEquals(Math.E, converter.convertIntoDouble(new DoubleCell(Math.E)), 0.0);
+
+        final DataCellToJavaConverterFactory<? extends DataValue, Integer> intFactory = DataCellToJavaConverterRegistry
+            .getInstance().getConverterFactories(IntCell.TYPE, int.class).stream().findFirst().get();
+        assertEquals("int", intFactory.getName());
+        assertTrue(intFactory.create() instanceof DataCellToIntConverter);
+
+        // they are not wrapped into collection converters, which would fail for missing elements
+        final DataType listType = ListCell.getCollectionType(DoubleCell.TYPE);
+        for (final DataCellToJavaConverterFactory<?, ?> f : DataCellToJavaConverterRegistry.getInstance()
+            .getFactoriesForSourceType(listType)) {
+            assertFalse(f.getIdentifier(), f.getDestinationType() == double[].class);
+        }
+    }
+
     /**
      * Test BinaryObjectDataCell -> InputStream conversion.
      *
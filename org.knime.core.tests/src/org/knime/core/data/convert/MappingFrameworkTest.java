@@ -53,6 +53,7 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -68,6 +69,7 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
+import org.knime.core.data.DoubleValue;
 import org.knime.core.data.IntValue;
 import org.knime.core.data.LongValue;
 import org.knime.core.data.MissingCell;
@@ -82,7 +84,9 @@
 import org.knime.core.data.convert.map.CellValueProducer;
 import org.knime.core.data.convert.map.CellValueProducerFactory;
 import org.knime.core.data.convert.map.ConsumptionPath;
+import org.knime.core.data.convert.map.DefaultDataRowConsumer;
 import org.knime.core.data.convert.map.Destination;
+import org.knime.core.data.convert.map.DoubleCellValueConsumer;
 import org.knime.core.data.convert.map.MappingFramework;
 import org.knime.core.data.convert.map.ProducerRegistry;
 import org.knime.core.data.convert.map.ProductionPath;
@@ -91,6 +95,7 @@
 import org.knime.core.data.convert.map.Source;
 import org.knime.core.data.convert.util.SerializeUtil;
 import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
@@ -347,6 +352,46 @@ public void consumerTest() throws Exception {
         assertArrayEquals(new Object[]{"KNIME", new Integer(42), new Long(42L), null}, testSink.h2oFrame.get(0));
     }
 
+    /**
+     * Tests that a consumer of primitive {@code double} values is paired with the primitive converter of
+     * {@link DoubleValue#getDoubleValue()}, i.e. that {@link DefaultDataRowConsumer} passes the value without boxing.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void primitiveConsumerTest() throws Exception {
+        final DataCellToJavaConverterFactory<? extends DataValue, Double> converterFactory =
+            DataCellToJavaConverterRegistry.getInstance().getConverterFactories(DoubleCell.TYPE, double.class).stream()
+                .findFirst().get();
+        final List<Double> consumed = new ArrayList<>();
+        final class H2ODoubleConsumer implements DoubleCellValueConsumer<H2ODestination, H2OParameters> {
+            @Override
+            public void consumeDoubleCellValue(final H2ODestination destination, final double value,
+                final H2OParameters params) {
+                consumed.add(value);
+            }
+
+            @Override
+            public void consumeMissingCellValue(final H2ODestination destination, final H2OParameters params) {
+                consumed.add(null);
+            }
+
+            @Override
+            public void consumeCellValue(final H2ODestination destination, final Double value,
+                final H2OParameters params) {
+                fail("Value must not be passed boxed");
+            }
+        }
+        final ConsumptionPath path = new ConsumptionPath(converterFactory,
+            new SimpleCellValueConsumerFactory<>(double.class, "DOUBLE", new H2ODoubleConsumer()));
+        final DefaultDataRowConsumer<H2ODestination, H2OParameters> rowConsumer =
+            new DefaultDataRowConsumer<>(new H2ODestination(), new ConsumptionPath[]{path});
+        final H2OParameters[] parameters = new H2OParameters[]{new H2OParameters()};
+        rowConsumer.consumeDataRow(new DefaultRow(RowKey.createRowKey(0L), new DoubleCell(Math.PI)), parameters);
+        rowConsumer.consumeDataRow(new DefaultRow(RowKey.createRowKey(1L), new MissingCell("missing")), parameters);
+        assertEquals(Arrays.asList(Math.PI, null), consumed);
+    }
+
     /**
      * @throws Exception
      */
@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ContentDeduplicationIndex}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class ContentDeduplicationIndexTest {
+
+    /** Holds source and target file stores. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    /**
+     * Copies a directory with two identical files twice, each content is registered once and the copies hold the
+     * source content.
+     *
+     * @throws IOException if copying fails
+     */
+    @Test
+    public void testCopyDirectory() throws IOException {
+        final File source = m_tempFolder.newFolder("source");
+        final byte[] content = "file store content".getBytes("UTF-8");
+        Files.write(new File(source, "a.txt").toPath(), content);
+        Files.write(new File(source, "b.txt").toPath(), content);
+        Files.write(new File(source, "c.txt").toPath(), "other".getBytes("UTF-8"));
+
+        final ContentDeduplicationIndex index = new ContentDeduplicationIndex();
+        final File target1 = new File(m_tempFolder.getRoot(), "target1");
+        final File target2 = new File(m_tempFolder.getRoot(), "target2");
+        index.copy(source, target1);
+        index.copy(source, target2);
+        assertEquals("Number of distinct contents", 2, index.getContentCount());
+        for (File target : new File[]{target1, target2}) {
+            for (String name : source.list()) {
+                assertArrayEquals("Content of " + name + " in " + target.getName(),
+                    Files.readAllBytes(new File(source, name).toPath()),
+                    Files.readAllBytes(new File(target, name).toPath()));
+            }
+        }
+
+        index.release(target1);
+        assertEquals("Number of distinct contents after releasing one copy", 2, index.getContentCount());
+        index.release(target2);
+        assertEquals("Number of distinct contents after releasing all copies", 0, index.getContentCount());
+    }
+
+    /**
+     * Files deleted without being released are not used as link target.
+     *
+     * @throws IOException if copying fails
+     */
+    @Test
+    public void testCopyAfterDelete() throws IOException {
+        final File source = m_tempFolder.newFile("source.bin");
+        final byte[] content = new byte[10000];
+        content[42] = 42;
+        Files.write(source.toPath(), content);
+
+        final ContentDeduplicationIndex index = new ContentDeduplicationIndex();
+        final File target1 = new File(m_tempFolder.getRoot(), "target1.bin");
+        index.copy(source, target1);
+        assertTrue("Deleting first copy", target1.delete());
+        final File target2 = new File(m_tempFolder.getRoot(), "target2.bin");
+        index.copy(source, target2);
+        assertArrayEquals("Content of second copy", content, Files.readAllBytes(target2.toPath()));
+        assertEquals("Number of distinct contents", 1, index.getContentCount());
+    }
+
+    /**
+     * Copies are read-only so that modifying one can't change the content of the others; released copies can be
+     * deleted and replacing a copy doesn't change the other copies.
+     *
+     * @throws IOException if copying fails
+     */
+    @Test
+    public void testCopiesAreImmutable() throws IOException {
+        final File source = m_tempFolder.newFile("source.txt");
+        Files.write(source.toPath(), "content".getBytes("UTF-8"));
+
+        final ContentDeduplicationIndex index = new ContentDeduplicationIndex();
+        final File target1 = new File(m_tempFolder.getRoot(), "target1.txt");
+        final File target2 = new File(m_tempFolder.getRoot(), "target2.txt");
+        index.copy(source, target1);
+        index.copy(source, target2);
+        assertFalse("First copy is writable", isWritable(target1));
+        assertFalse("Second copy is writable", isWritable(target2));
+
+        final File other = m_tempFolder.newFile("other.txt");
+        Files.write(other.toPath(), "other".getBytes("UTF-8"));
+        index.copy(other, target2);
+        assertArrayEquals("Content of replaced copy", "other".getBytes("UTF-8"), Files.readAllBytes(target2.toPath()));
+        assertArrayEquals("Content of first copy after replacing second", "content".getBytes("UTF-8"),
+            Files.readAllBytes(target1.toPath()));
+
+        index.release(target1);
+        assertTrue("Released copy is writable", !target1.exists() || isWritable(target1));
+        assertTrue("Deleting released copy", !target1.exists() || target1.delete());
+        assertFalse("Second copy is writable after releasing the first", isWritable(target2));
+    }
+
+    /** Checks the permission rather than {@link File#canWrite()}, which is always true for a privileged user. */
+    private static boolean isWritable(final File file) throws IOException {
+        if (Files.getFileStore(file.toPath()).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return Files.getPosixFilePermissions(file.toPath()).contains(PosixFilePermission.OWNER_WRITE);
+        }
+        return file.canWrite();
+    }
+}
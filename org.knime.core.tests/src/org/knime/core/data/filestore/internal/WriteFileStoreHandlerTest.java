@@ -0,0 +1,231 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.filestore.FileStore;
+import org.knime.core.data.filestore.FileStoreKey;
+import org.knime.core.data.filestore.FileStoreUtil;
+
+/**
+ * Tests concurrent and batch creation of file stores in {@link WriteFileStoreHandler}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class WriteFileStoreHandlerTest {
+
+    private NotInWorkflowWriteFileStoreHandler m_handler;
+
+    /** Creates and opens the handler. */
+    @Before
+    public void setUp() {
+        m_handler = NotInWorkflowWriteFileStoreHandler.create();
+        m_handler.open();
+    }
+
+    /** Disposes the handler. */
+    @After
+    public void tearDown() {
+        m_handler.close();
+        m_handler.clearAndDispose();
+    }
+
+    /**
+     * Creates file stores from multiple threads and checks that all indices are distinct and their folders exist.
+     *
+     * @throws Exception if creation fails
+     */
+    @Test
+    public void testConcurrentCreation() throws Exception {
+        final int nrThreads = 4;
+        final int perThread = 1500;
+        final ExecutorService executor = Executors.newFixedThreadPool(nrThreads);
+        try {
+            final List<Future<List<FileStore>>> futures = new ArrayList<>();
+            for (int t = 0; t < nrThreads; t++) {
+                final int thread = t;
+                futures.add(executor.submit((Callable<List<FileStore>>)() -> {
+                    final List<FileStore> stores = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        stores.add(m_handler.createFileStore("file_" + thread + "_" + i));
+                    }
+                    return stores;
+                }));
+            }
+            final Set<Integer> indices = new HashSet<>();
+            for (Future<List<FileStore>> future : futures) {
+                for (FileStore fs : future.get()) {
+                    indices.add(FileStoreUtil.getFileStoreKey(fs).getIndex());
+                    assertTrue("Parent folder of " + fs + " exists", fs.getFile().getParentFile().isDirectory());
+                }
+            }
+            assertEquals("Distinct file store indices", nrThreads * perThread, indices.size());
+            assertEquals("Next index", nrThreads * perThread, m_handler.getNextIndex());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates file stores in a batch that spans multiple folders.
+     *
+     * @throws IOException if creation fails
+     */
+    @Test
+    public void testBatchCreation() throws IOException {
+        m_handler.createFileStore("single");
+        final String[] names = new String[2500];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "batch_" + i;
+        }
+        final FileStore[] stores = m_handler.createFileStores(names);
+        assertEquals("Number of file stores", names.length, stores.length);
+        for (int i = 0; i < stores.length; i++) {
+            final FileStoreKey key = FileStoreUtil.getFileStoreKey(stores[i]);
+            assertEquals("Index of file store " + i, i + 1, key.getIndex());
+            assertEquals("Name of file store " + i, names[i], key.getName());
+            assertTrue("Parent folder of file store " + i, stores[i].getFile().getParentFile().isDirectory());
+        }
+        assertEquals("Next index", names.length + 1, m_handler.getNextIndex());
+    }
+
+    /**
+     * Translates a file store of another handler from multiple threads; it's copied once and all threads get the key
+     * of the copy.
+     *
+     * @throws Exception if copying fails
+     */
+    @Test
+    public void testConcurrentCopy() throws Exception {
+        final NotInWorkflowWriteFileStoreHandler other = NotInWorkflowWriteFileStoreHandler.create();
+        other.open();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final FileStore fs = other.createFileStore("foreign");
+            Files.write(fs.getFile().toPath(), "content".getBytes(StandardCharsets.UTF_8));
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<FileStoreKey>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit((Callable<FileStoreKey>)() -> {
+                    start.await();
+                    return m_handler.translateToLocal(fs, null);
+                }));
+            }
+            start.countDown();
+            final FileStoreKey copyKey = futures.get(0).get();
+            for (Future<FileStoreKey> future : futures) {
+                assertEquals("Key of copied file store", copyKey, future.get());
+            }
+            assertEquals("Store of copied file store", m_handler.getStoreUUID(), copyKey.getStoreUUID());
+            assertEquals("Number of copies", 1, m_handler.getNextIndex());
+            assertEquals("Content of copy", "content", new String(
+                Files.readAllBytes(m_handler.getFileStore(copyKey).getFile().toPath()), StandardCharsets.UTF_8));
+        } finally {
+            executor.shutdownNow();
+            other.close();
+            other.clearAndDispose();
+        }
+    }
+
+    /**
+     * A failed copy isn't cached, translating the file store again copies it.
+     *
+     * @throws IOException if writing the file store fails
+     */
+    @Test
+    public void testFailedCopyIsRetried() throws IOException {
+        final NotInWorkflowWriteFileStoreHandler other = NotInWorkflowWriteFileStoreHandler.create();
+        other.open();
+        try {
+            final FileStore fs = other.createFileStore("foreign");
+            try {
+                m_handler.translateToLocal(fs, null);
+                fail("Copying a file store without file expected to fail");
+            } catch (RuntimeException e) {
+                // expected, file store file wasn't written
+            }
+            Files.write(fs.getFile().toPath(), "content".getBytes(StandardCharsets.UTF_8));
+            final FileStoreKey copyKey = m_handler.translateToLocal(fs, null);
+            assertTrue("Copied file exists", m_handler.getFileStore(copyKey).getFile().isFile());
+        } finally {
+            other.close();
+            other.clearAndDispose();
+        }
+    }
+
+    /**
+     * Invalid names in a batch are rejected before any file store is created.
+     *
+     * @throws IOException not expected
+     */
+    @Test(expected = IOException.class)
+    public void testBatchCreationInvalidName() throws IOException {
+        try {
+            m_handler.createFileStores(new String[]{"valid", ".invalid"});
+        } finally {
+            assertEquals("Next index", 0, m_handler.getNextIndex());
+        }
+    }
+}
@@ -133,4 +133,17 @@ public void testGetSerializerWithClassName() {
             assertTrue(serializer.isPresent());
             assertThat(serializer.get(), Matchers.instanceOf(NominalDistributionValueMetaDataSerializer.class));
     }
+
+    /**
+     * Tests that {@link DistinctCountMetaData} is registered (so that specs carrying it can be read) but not created
+     * along with the domain unless enabled.
+     */
+    @Test
+    public void testDistinctCountIsOptIn() {
+        assertTrue("DistinctCountMetaData must be registered",
+            DataColumnMetaDataRegistry.INSTANCE.getSerializer(DistinctCountMetaData.class.getName()).isPresent());
+        assertEquals("DistinctCountMetaDataCreator must not be created by default", 0L,
+            DataColumnMetaDataRegistry.INSTANCE.getCreators(IntCell.TYPE).stream()
+                .filter(c -> c instanceof DistinctCountMetaDataCreator).count());
+    }
 }
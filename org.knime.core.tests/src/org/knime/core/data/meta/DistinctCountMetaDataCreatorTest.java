@@ -0,0 +1,107 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.meta;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Unit tests for {@link DistinctCountMetaDataCreator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DistinctCountMetaDataCreatorTest {
+
+    private static void assertEstimate(final long expected, final DistinctCountMetaDataCreator creator) {
+        final long estimate = creator.create().getEstimate();
+        assertThat("Estimate too far off: " + estimate, Math.abs(estimate - expected) <= expected / 10, is(true));
+    }
+
+    /**
+     * Tests the estimate for small and large numbers of distinct values; duplicates and missing cells are ignored.
+     */
+    @Test
+    public void testEstimate() {
+        final DistinctCountMetaDataCreator creator = new DistinctCountMetaDataCreator();
+        assertThat(creator.create().getEstimate(), is(0L));
+        for (int i = 0; i < 20000; i++) {
+            creator.update(new IntCell(i % 50));
+            creator.update(DataType.getMissingCell());
+        }
+        assertEstimate(50, creator);
+        for (int i = 0; i < 20000; i++) {
+            creator.update(new StringCell("s" + (i % 5000)));
+        }
+        assertEstimate(5050, creator);
+    }
+
+    /**
+     * Tests that merging creators of disjoint parts yields the same estimate as one creator over all values.
+     */
+    @Test
+    public void testMerge() {
+        final DistinctCountMetaDataCreator all = new DistinctCountMetaDataCreator();
+        final DistinctCountMetaDataCreator first = new DistinctCountMetaDataCreator();
+        final DistinctCountMetaDataCreator second = new DistinctCountMetaDataCreator();
+        for (int i = 0; i < 10000; i++) {
+            final IntCell cell = new IntCell(i % 3000);
+            all.update(cell);
+            (i < 1000 ? first : second).update(cell);
+        }
+        final DistinctCountMetaDataCreator copy = first.copy();
+        assertThat(first.merge(second).create().getEstimate(), is(all.create().getEstimate()));
+        assertThat("Copy must not be affected by merge", copy.create().getEstimate() < all.create().getEstimate(),
+            is(true));
+        // merging meta data only bounds the estimate from below
+        assertThat(new DistinctCountMetaDataCreator().merge(all.create()).create().getEstimate(),
+            is(all.create().getEstimate()));
+    }
+}
@@ -194,6 +194,87 @@ public void testBitVectorUtilAndThrowsNullpointer2() {
         BitVectorUtil.and(EMPTY_VECTOR, null);
     }
 
+    @Test(expected = NullPointerException.class)
+    public void testCardinalityOfUnionThrowsNullpointer() {
+        BitVectorUtil.cardinalityOfUnion(null, EMPTY_VECTOR);
+    }
+
+    @Test
+    public void testCardinalityOfUnion() {
+        Assert.assertEquals(0, BitVectorUtil.cardinalityOfUnion(EMPTY_VECTOR, EMPTY_VECTOR));
+
+        assertCardinalityOfUnion(DENSE_VECTOR_FACTORY);
+        assertCardinalityOfUnion(SPARSE_VECTOR_FACTORY);
+        assertCardinalityOfUnion(MIXED_VECTOR_FACTORY);
+    }
+
+    @Test
+    public void testTanimotoSimilarity() {
+        Assert.assertEquals(0.0, BitVectorUtil.tanimotoSimilarity(EMPTY_VECTOR, EMPTY_VECTOR), 0.0);
+
+        assertTanimotoSimilarity(DENSE_VECTOR_FACTORY);
+        assertTanimotoSimilarity(SPARSE_VECTOR_FACTORY);
+        assertTanimotoSimilarity(MIXED_VECTOR_FACTORY);
+    }
+
+    @Test
+    public void testTanimotoSimilaritiesOnPackedBlock() throws InterruptedException {
+        DenseBitVectorCell[] cells = new DenseBitVectorCell[10000];
+        for (int i = 0; i < cells.length; i++) {
+            String hex = new BigInteger(RANDOM.nextInt(1100), RANDOM).toString(16);
+            cells[i] = new DenseBitVectorCellFactory(hex).createDataCell();
+        }
+        DenseBitVectorCell query =
+            new DenseBitVectorCellFactory(new BigInteger(1024, RANDOM).toString(16)).createDataCell();
+        long[][] block = BitVectorUtil.pack(cells);
+
+        double[] sequential = BitVectorUtil.tanimotoSimilarities(query, block, 1);
+        double[] parallel = BitVectorUtil.tanimotoSimilarities(query, block, 4);
+        for (int i = 0; i < cells.length; i++) {
+            double expected = BitVectorUtil.tanimotoSimilarity(query, cells[i]);
+            Assert.assertEquals("Wrong similarity at row " + i, expected, sequential[i], 0.0);
+            Assert.assertEquals("Wrong similarity at row " + i, expected, parallel[i], 0.0);
+        }
+    }
+
+    private static void assertCardinalityOfUnion(final TestVectorFactory vectorFactory) {
+        for (int i = 1; i < 1000; i++) {
+            String first = new BigInteger(RANDOM.nextInt(800), RANDOM).toString(16);
+
+            String second = new BigInteger(RANDOM.nextInt(i % 5 == 0 ? i * 5 : 150), RANDOM).toString(16);
+            Pair<BitVectorValue, BitVectorValue> createVectorPair = vectorFactory.createVectorPair(first, second);
+
+            BitVectorValue a = createVectorPair.getFirst();
+
+            BitVectorValue b = createVectorPair.getSecond();
+
+            Assert.assertEquals("Broken union: " + a.toHexString() + "|" + b.toHexString(),
+                DenseBitVectorCellFactory.or(a, b).cardinality(), BitVectorUtil.cardinalityOfUnion(a, b));
+
+            Assert.assertEquals("Broken union: " + b.toHexString() + "|" + a.toHexString(),
+                DenseBitVectorCellFactory.or(a, b).cardinality(), BitVectorUtil.cardinalityOfUnion(b, a));
+        }
+    }
+
+    private static void assertTanimotoSimilarity(final TestVectorFactory vectorFactory) {
+        for (int i = 1; i < 1000; i++) {
+            String first = new BigInteger(RANDOM.nextInt(800), RANDOM).toString(16);
+
+            String second = new BigInteger(RANDOM.nextInt(i % 5 == 0 ? i * 5 : 150), RANDOM).toString(16);
+            Pair<BitVectorValue, BitVectorValue> createVectorPair = vectorFactory.createVectorPair(first, second);
+
+            BitVectorValue a = createVectorPair.getFirst();
+
+            BitVectorValue b = createVectorPair.getSecond();
+
+            long union = DenseBitVectorCellFactory.or(a, b).cardinality();
+            double expected = union == 0 ? 0.0 : DenseBitVectorCellFactory.and(a, b).cardinality() / (double)union;
+
+            Assert.assertEquals("Broken similarity: " + a.toHexString() + "|" + b.toHexString(), expected,
+                BitVectorUtil.tanimotoSimilarity(a, b), 1e-12);
+        }
+    }
+
     private static void assertCardinalityOfAnd(final TestVectorFactory vectorFactory) {
         for (int i = 1; i < 1000; i++) {
             String first = new BigInteger(RANDOM.nextInt(800), RANDOM).toString(16);
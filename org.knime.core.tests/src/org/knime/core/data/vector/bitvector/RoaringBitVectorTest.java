@@ -0,0 +1,179 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RoaringBitVector} and its interplay with the other bit vector cells.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RoaringBitVectorTest {
+
+    private static RoaringBitVector create(final BitSet bits, final long length) {
+        RoaringBitVector result = new RoaringBitVector(length);
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.set(i);
+        }
+        return result;
+    }
+
+    private static void assertSameBits(final String msg, final BitSet expected, final RoaringBitVector actual) {
+        assertEquals(msg, expected.cardinality(), actual.cardinality());
+        long idx = actual.nextSetBit(0);
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertEquals(msg, i, idx);
+            idx = actual.nextSetBit(idx + 1);
+        }
+        assertEquals(msg, -1, idx);
+    }
+
+    /** Set operations on random vectors with sparse and dense regions. */
+    @Test
+    public void testSetOperations() {
+        Random rand = new Random(42);
+        for (int t = 0; t < 50; t++) {
+            int length = 1 + rand.nextInt(300000);
+            BitSet a = new BitSet();
+            BitSet b = new BitSet();
+            int denseStart = rand.nextInt(length);
+            int denseEnd = Math.min(length, denseStart + rand.nextInt(150000));
+            for (int i = denseStart; i < denseEnd; i++) {
+                if (rand.nextInt(4) == 0) {
+                    a.set(i);
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                if (rand.nextInt(50) == 0) {
+                    b.set(i);
+                }
+            }
+            RoaringBitVector ra = create(a, length);
+            RoaringBitVector rb = create(b, length);
+
+            BitSet expected = (BitSet)a.clone();
+            expected.and(b);
+            assertSameBits("and", expected, ra.and(rb));
+            assertEquals(expected.cardinality(), ra.cardinalityOfIntersection(rb));
+
+            expected = (BitSet)a.clone();
+            expected.or(b);
+            assertSameBits("or", expected, ra.or(rb));
+
+            expected = (BitSet)a.clone();
+            expected.xor(b);
+            assertSameBits("xor", expected, ra.xor(rb));
+
+            expected = (BitSet)a.clone();
+            expected.andNot(b);
+            assertEquals(expected.cardinality(), ra.cardinalityOfRelativeComplement(rb));
+        }
+    }
+
+    /** Setting and clearing bits converts blocks between the sorted-array and bitmap representation. */
+    @Test
+    public void testContainerConversion() {
+        RoaringBitVector bv = new RoaringBitVector(1L << 20);
+        for (int i = 0; i < 10000; i++) {
+            bv.set(2L * i);
+        }
+        assertEquals(10000, bv.cardinality());
+        assertTrue(bv.get(19998));
+        assertFalse(bv.get(19999));
+        for (int i = 0; i < 10000; i++) {
+            bv.clear(2L * i);
+        }
+        assertTrue(bv.isEmpty());
+        assertEquals(0, bv.sizeInBytes());
+
+        bv.set(0, true);
+        for (long i = 1; i < 70000; i++) {
+            bv.set(i);
+        }
+        assertEquals(70000, bv.nextClearBit(0));
+        assertEquals(69999, bv.nextSetBit(69999));
+        assertEquals(-1, bv.nextSetBit(70000));
+    }
+
+    /** Hex representation and construction from indices. */
+    @Test
+    public void testHexStringAndIndices() {
+        RoaringBitVector bv = new RoaringBitVector("0F1A");
+        assertEquals(16, bv.length());
+        assertEquals("0F1A", bv.toHexString());
+        assertEquals("0000111100011010", bv.toBinaryString());
+        assertArrayEquals(new long[]{1, 3, 4, 8, 9, 10, 11}, bv.getAllOneIndices());
+        assertEquals(bv, new RoaringBitVector(16, bv.getAllOneIndices()));
+        assertEquals(bv.hashCode(), new RoaringBitVector(16, bv.getAllOneIndices()).hashCode());
+    }
+
+    /** Operations with other bit vector cells via {@link BitVectorUtil}. */
+    @Test
+    public void testInteroperability() {
+        RoaringBitVectorCell roaring = new RoaringBitVectorCellFactory("F0F0F0F0F0F0F0F0F0").createDataCell();
+        SparseBitVectorCell sparse = new SparseBitVectorCellFactory("0FF00FF00FF00FF00F").createDataCell();
+        DenseBitVectorCell dense = new DenseBitVectorCellFactory("0FF00FF00FF00FF00F").createDataCell();
+
+        BitVectorValue and = BitVectorUtil.and(roaring, sparse);
+        assertTrue(and instanceof RoaringBitVectorCell);
+        assertEquals(DenseBitVectorCellFactory.and(roaring, sparse).toHexString(), and.toHexString());
+        assertEquals(DenseBitVectorCellFactory.or(roaring, dense).toHexString(),
+            BitVectorUtil.or(roaring, dense).toHexString());
+        assertEquals(DenseBitVectorCellFactory.xor(roaring, dense).cardinality(),
+            RoaringBitVectorCellFactory.xor(roaring, dense).cardinality());
+        assertEquals(and.cardinality(), BitVectorUtil.cardinalityOfIntersection(roaring, dense));
+        assertTrue(RoaringBitVectorCellFactory.create(dense).equalContent(dense));
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Category;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.SimpleLayout;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+import org.knime.core.node.AsyncLogWriter.OverflowPolicy;
+
+/**
+ * Tests {@link AsyncLogWriter}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class AsyncLogWriterTest {
+
+    private static final String FQCN = Category.class.getName();
+
+    /**
+     * Events of concurrent logging threads are all written, each thread's events in order.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test(timeout = 20000)
+    public void testConcurrentAppend() throws InterruptedException {
+        final CollectingAppender appender = new CollectingAppender(null);
+        final Logger logger = createLogger("concurrent", appender);
+        final AsyncLogWriter writer = new AsyncLogWriter(16, OverflowPolicy.BLOCK);
+        writer.start();
+        final int threads = 4;
+        final int events = 5000;
+        final List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final String prefix = t + ":";
+            final Thread producer = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    writer.append(new LoggingEvent(FQCN, logger, Level.INFO, prefix + i, null));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        writer.flush();
+        final List<String> messages = appender.getMessages();
+        assertThat("Number of written events", messages.size(), is(threads * events));
+        final int[] next = new int[threads];
+        for (String message : messages) {
+            final String[] parts = message.split(":");
+            final int thread = Integer.parseInt(parts[0]);
+            assertThat("Event of thread " + thread, Integer.parseInt(parts[1]), is(next[thread]++));
+        }
+        writer.stop();
+    }
+
+    /**
+     * With the discard policy events are dropped instead of waiting for a blocked appender, unless they are severe
+     * and the policy only discards debug and info events.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test(timeout = 20000)
+    public void testDiscard() throws InterruptedException {
+        for (OverflowPolicy policy : new OverflowPolicy[]{OverflowPolicy.DISCARD, OverflowPolicy.DISCARD_BELOW_WARN}) {
+            final CountDownLatch blocker = new CountDownLatch(1);
+            final CollectingAppender appender = new CollectingAppender(blocker);
+            final Logger logger = createLogger("discard" + policy, appender);
+            final AsyncLogWriter writer = new AsyncLogWriter(2, policy);
+            writer.start();
+            for (int i = 0; i < 10; i++) {
+                writer.append(new LoggingEvent(FQCN, logger, Level.DEBUG, "debug" + i, null));
+            }
+            assertThat("Discarded events", writer.getDiscardedCount(), greaterThan(0L));
+            final Thread warner = new Thread(
+                () -> writer.append(new LoggingEvent(FQCN, logger, Level.WARN, "warn", null)));
+            warner.start();
+            blocker.countDown();
+            warner.join();
+            writer.flush();
+            final List<String> messages = appender.getMessages();
+            // at most the event blocked in the appender, the two buffered ones and the warning
+            assertThat("Events written", messages.size() <= 4, is(true));
+            if (policy == OverflowPolicy.DISCARD_BELOW_WARN) {
+                assertThat("Warning written", messages.get(messages.size() - 1), is("warn"));
+            }
+            writer.stop();
+        }
+    }
+
+    /**
+     * Stopping writes the remaining events, afterwards events aren't accepted anymore.
+     */
+    @Test(timeout = 20000)
+    public void testStop() {
+        final CollectingAppender appender = new CollectingAppender(null);
+        final Logger logger = createLogger("stop", appender);
+        final AsyncLogWriter writer = new AsyncLogWriter(1024, OverflowPolicy.BLOCK);
+        writer.start();
+        for (int i = 0; i < 1000; i++) {
+            assertThat("Event appended", writer.append(new LoggingEvent(FQCN, logger, Level.INFO, "" + i, null)),
+                is(true));
+        }
+        writer.stop();
+        assertThat("Events written on stop", appender.getMessages().size(), is(1000));
+        assertThat("Event appended after stop",
+            writer.append(new LoggingEvent(FQCN, logger, Level.INFO, "late", null)), is(false));
+    }
+
+    /**
+     * Events appended while the writer is stopped concurrently are either written by the writer or rejected (so that
+     * the caller writes them), none is lost.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test(timeout = 20000)
+    public void testAppendDuringStop() throws InterruptedException {
+        for (int run = 0; run < 20; run++) {
+            final CollectingAppender appender = new CollectingAppender(null);
+            final Logger logger = createLogger("appendDuringStop", appender);
+            final AsyncLogWriter writer = new AsyncLogWriter(1024, OverflowPolicy.BLOCK);
+            writer.start();
+            final int[] rejected = new int[1];
+            final Thread producer = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (!writer.append(new LoggingEvent(FQCN, logger, Level.INFO, "" + i, null))) {
+                        rejected[0]++;
+                    }
+                }
+            });
+            producer.start();
+            writer.stop();
+            producer.join();
+            assertThat("Written and rejected events", appender.getMessages().size() + rejected[0], is(500));
+        }
+    }
+
+    /**
+     * The message is rendered when the event is appended, later changes to the message object are not written.
+     */
+    @Test(timeout = 20000)
+    public void testMessageRenderedOnAppend() {
+        final CollectingAppender appender = new CollectingAppender(null);
+        final Logger logger = createLogger("rendered", appender);
+        final AsyncLogWriter writer = new AsyncLogWriter(16, OverflowPolicy.BLOCK);
+        final StringBuilder message = new StringBuilder("appended");
+        // not started yet, the event waits in the buffer
+        writer.append(new LoggingEvent(FQCN, logger, Level.INFO, message, null));
+        message.setLength(0);
+        message.append("changed");
+        writer.start();
+        writer.flush();
+        assertThat("Written message", appender.getMessages(), is(Collections.singletonList("appended")));
+        writer.stop();
+    }
+
+    /**
+     * The location of the logging call is captured by the logging thread if a layout outputs it.
+     */
+    @Test(timeout = 20000)
+    public void testLocationInfo() {
+        assertThat("Location of %m", AsyncLogWriter.needsLocationInfo(new PatternLayout("%-5p %c{1} %m%n")), is(false));
+        assertThat("Location of %C", AsyncLogWriter.needsLocationInfo(new PatternLayout("%C{1} %m%n")), is(true));
+        assertThat("Location of %-4L", AsyncLogWriter.needsLocationInfo(new PatternLayout("%-4L %m%n")), is(true));
+        assertThat("Location of %l", AsyncLogWriter.needsLocationInfo(new PatternLayout("%l - %m%n")), is(true));
+        assertThat("Location of simple layout", AsyncLogWriter.needsLocationInfo(new SimpleLayout()), is(false));
+        assertThat("Location of no layout", AsyncLogWriter.needsLocationInfo(null), is(false));
+
+        final CollectingAppender appender = new CollectingAppender(null);
+        appender.setLayout(new PatternLayout("%M"));
+        final Logger logger = createLogger("location", appender);
+        final AsyncLogWriter writer = new AsyncLogWriter(16, OverflowPolicy.BLOCK);
+        writer.checkLocationInfo(appender.getLayout());
+        writer.start();
+        // the location is the caller of the event's class, i.e. of the writer's append method
+        writer.append(new LoggingEvent(AsyncLogWriter.class.getName(), logger, Level.INFO, "location", null));
+        writer.flush();
+        assertThat("Method of the logging call", appender.getFormatted(),
+            is(Collections.singletonList("testLocationInfo")));
+        writer.stop();
+    }
+
+    private static Logger createLogger(final String name, final CollectingAppender appender) {
+        final Logger logger = Logger.getLogger(AsyncLogWriterTest.class.getName() + "." + name);
+        logger.setAdditivity(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    /** Collects the messages, optionally waits for a latch before the first one. */
+    private static final class CollectingAppender extends AppenderSkeleton {
+
+        private final List<String> m_messages = new ArrayList<>();
+
+        private final List<String> m_formatted = new ArrayList<>();
+
+        private final CountDownLatch m_blocker;
+
+        private CollectingAppender(final CountDownLatch blocker) {
+            m_blocker = blocker;
+        }
+
+        @Override
+        protected void append(final LoggingEvent event) {
+            if (m_blocker != null) {
+                try {
+                    m_blocker.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (m_messages) {
+                m_messages.add(event.getRenderedMessage());
+                if (getLayout() != null) {
+                    m_formatted.add(getLayout().format(event));
+                }
+            }
+        }
+
+        private List<String> getFormatted() {
+            synchronized (m_messages) {
+                return new ArrayList<>(m_formatted);
+            }
+        }
+
+        private List<String> getMessages() {
+            synchronized (m_messages) {
+                return new ArrayList<>(m_messages);
+            }
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Tests {@link BinaryConfigSerializer}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class BinaryConfigSerializerTest {
+
+    /**
+     * Writes a tree with all supported entry types and compares it with the tree read back.
+     *
+     * @throws IOException if reading or writing fails
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final NodeSettings settings = new NodeSettings("settings.xml");
+        settings.addString("string", "value ä€");
+        settings.addString("null-string", null);
+        settings.addInt("int", -42);
+        settings.addLong("long", Long.MAX_VALUE);
+        settings.addDouble("double", Math.PI);
+        settings.addFloat("float", 1.5f);
+        settings.addShort("short", (short)-3);
+        settings.addByte("byte", (byte)7);
+        settings.addChar("char", 'x');
+        settings.addBoolean("boolean", true);
+        final NodeSettings model = (NodeSettings)settings.addNodeSettings("model");
+        model.addIntArray("array", new int[300]);
+        model.addNodeSettings("empty");
+        model.addString("string", "");
+
+        assertTrue("Tree expected to be supported", BinaryConfigSerializer.isSupported(settings));
+        final NodeSettings read = BinaryConfigSerializer.load(new ByteArrayInputStream(write(settings)),
+            NodeSettings::new);
+        assertThat("Root key", read.getKey(), is("settings.xml"));
+        assertTrue("Tree read back expected to be identical", settings.isIdentical(read));
+    }
+
+    /**
+     * Passwords can't be written in binary form.
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testUnsupportedEntries() throws IOException {
+        final NodeSettings settings = new NodeSettings("settings.xml");
+        settings.addNodeSettings("model").addPassword("password", "secret", "the-real-password");
+        assertFalse("Tree with password expected to be unsupported", BinaryConfigSerializer.isSupported(settings));
+        try {
+            write(settings);
+            fail("Writing password expected to fail");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Reading anything but a binary config fails.
+     */
+    @Test
+    public void testInvalidStream() {
+        final byte[] xml = "<?xml version=\"1.0\"?>".getBytes(StandardCharsets.UTF_8);
+        try {
+            BinaryConfigSerializer.load(new ByteArrayInputStream(xml), NodeSettings::new);
+            fail("Reading XML expected to fail");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Strings longer than the initially allocated buffer are read completely, lengths and counts exceeding the stream
+     * fail without allocating them upfront.
+     *
+     * @throws IOException if reading or writing fails
+     */
+    @Test
+    public void testLengths() throws IOException {
+        final NodeSettings settings = new NodeSettings("settings.xml");
+        final char[] chars = new char[100000];
+        Arrays.fill(chars, '€');
+        settings.addString("long", new String(chars));
+        final NodeSettings read = BinaryConfigSerializer.load(new ByteArrayInputStream(write(settings)),
+            NodeSettings::new);
+        assertTrue("Tree with long string read back expected to be identical", settings.isIdentical(read));
+
+        final byte[] header = Arrays.copyOf(write(new NodeSettings("settings.xml")), Integer.BYTES + 1);
+        final byte[] maxVarInt = {(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07};
+        try {
+            BinaryConfigSerializer.load(new ByteArrayInputStream(concat(header, maxVarInt)), NodeSettings::new);
+            fail("Reading corrupt key count expected to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            BinaryConfigSerializer.load(new ByteArrayInputStream(concat(header, new byte[]{1}, maxVarInt)),
+                NodeSettings::new);
+            fail("Reading corrupt string length expected to fail");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static byte[] concat(final byte[]... arrays) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            out.write(array, 0, array.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] write(final Config config) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryConfigSerializer.save(config, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NodeView;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.workflow.ConnectionContainer;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.SubNodeContainer;
+import org.knime.core.node.workflow.WorkflowCreationHelper;
+import org.knime.core.node.workflow.WorkflowManager;
+
+/**
+ * Tests that consecutive streamable nodes of a component executed by the {@link StreamingNodeExecutionJobManager} are
+ * chained into one pipeline.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StreamingComponentExecutionTest {
+
+    private static final int ROW_COUNT = 1000;
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+
+    /** Rows pushed by all increment operators. */
+    private static final AtomicInteger PUSHED = new AtomicInteger();
+
+    /** Calls of the (non-streamed) execute method of the increment nodes. */
+    private static final AtomicInteger EXECUTE_COUNT = new AtomicInteger();
+
+    private WorkflowManager m_wfm;
+
+    /** Creates a table with the integers 0 to {@link #ROW_COUNT} - 1. */
+    private static final class SourceNodeModel extends NodeModel {
+
+        SourceNodeModel() {
+            super(0, 1);
+        }
+
+        @Override
+        protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) {
+            return new DataTableSpec[]{SPEC};
+        }
+
+        @Override
+        protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec) {
+            final BufferedDataContainer container = exec.createDataContainer(SPEC);
+            for (int i = 0; i < ROW_COUNT; i++) {
+                container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+            }
+            container.close();
+            return new BufferedDataTable[]{container.getTable()};
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveSettingsTo(final NodeSettingsWO settings) {
+        }
+
+        @Override
+        protected void validateSettings(final NodeSettingsRO settings) {
+        }
+
+        @Override
+        protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) {
+        }
+
+        @Override
+        protected void reset() {
+        }
+    }
+
+    /** Streamable node incrementing the values of its input. */
+    private static final class IncrementNodeModel extends NodeModel {
+
+        /** Rows pushed by any operator when this node read its first row, -1 if not read yet. */
+        private final AtomicInteger m_pushedAtFirstRow = new AtomicInteger(-1);
+
+        IncrementNodeModel() {
+            super(1, 1);
+        }
+
+        @Override
+        protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) {
+            return new DataTableSpec[]{inSpecs[0]};
+        }
+
+        @Override
+        protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
+            throws Exception {
+            EXECUTE_COUNT.incrementAndGet();
+            final BufferedDataContainer container = exec.createDataContainer(SPEC);
+            try (CloseableRowIterator it = inData[0].iterator()) {
+                while (it.hasNext()) {
+                    container.addRowToTable(increment(it.next()));
+                }
+            }
+            container.close();
+            return new BufferedDataTable[]{container.getTable()};
+        }
+
+        private static DataRow increment(final DataRow row) {
+            return new DefaultRow(row.getKey(), new IntCell(((IntCell)row.getCell(0)).getIntValue() + 1));
+        }
+
+        @Override
+        public InputPortRole[] getInputPortRoles() {
+            return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE};
+        }
+
+        @Override
+        public OutputPortRole[] getOutputPortRoles() {
+            return new OutputPortRole[]{OutputPortRole.NONDISTRIBUTED};
+        }
+
+        @Override
+        public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) {
+            return new StreamableOperator() {
+                @Override
+                public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+                    final ExecutionContext exec) throws Exception {
+                    final RowInput in = (RowInput)inputs[0];
+                    final RowOutput out = (RowOutput)outputs[0];
+                    DataRow row;
+                    while ((row = in.poll()) != null) {
+                        m_pushedAtFirstRow.compareAndSet(-1, PUSHED.get());
+                        out.push(increment(row));
+                        PUSHED.incrementAndGet();
+                    }
+                    in.close();
+                    out.close();
+                }
+            };
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveSettingsTo(final NodeSettingsWO settings) {
+        }
+
+        @Override
+        protected void validateSettings(final NodeSettingsRO settings) {
+        }
+
+        @Override
+        protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) {
+        }
+
+        @Override
+        protected void reset() {
+        }
+    }
+
+    private abstract static class TestNodeFactory<T extends NodeModel> extends NodeFactory<T> {
+
+        @Override
+        protected int getNrNodeViews() {
+            return 0;
+        }
+
+        @Override
+        public NodeView<T> createNodeView(final int viewIndex, final T nodeModel) {
+            return null;
+        }
+
+        @Override
+        protected boolean hasDialog() {
+            return false;
+        }
+
+        @Override
+        protected NodeDialogPane createNodeDialogPane() {
+            return null;
+        }
+    }
+
+    /** Factory of the source node, public so that the node can be copied into the component. */
+    public static final class SourceNodeFactory extends TestNodeFactory<SourceNodeModel> {
+        @Override
+        public SourceNodeModel createNodeModel() {
+            return new SourceNodeModel();
+        }
+    }
+
+    /** Factory of the increment node, public so that the node can be copied into the component. */
+    public static final class IncrementNodeFactory extends TestNodeFactory<IncrementNodeModel> {
+        @Override
+        public IncrementNodeModel createNodeModel() {
+            return new IncrementNodeModel();
+        }
+    }
+
+    /** Creates the workflow. */
+    @Before
+    public void createWorkflow() {
+        PUSHED.set(0);
+        EXECUTE_COUNT.set(0);
+        m_wfm = WorkflowManager.ROOT.createAndAddProject("streaming component test", new WorkflowCreationHelper());
+    }
+
+    /** Removes the workflow. */
+    @After
+    public void removeWorkflow() {
+        WorkflowManager.ROOT.removeProject(m_wfm.getID());
+    }
+
+    /**
+     * Source -&gt; [Increment -&gt; Increment] with the component streamed: the first increment node passes its rows
+     * on, the second one reads them while they are computed and only its output is materialized.
+     */
+    @Test(timeout = 60000)
+    public void testChainedNodes() throws InvalidSettingsException {
+        final NodeID source = m_wfm.createAndAddNode(new SourceNodeFactory());
+        final NodeID inc1 = m_wfm.createAndAddNode(new IncrementNodeFactory());
+        final NodeID inc2 = m_wfm.createAndAddNode(new IncrementNodeFactory());
+        m_wfm.addConnection(source, 1, inc1, 1);
+        m_wfm.addConnection(inc1, 1, inc2, 1);
+        final NodeID metanode =
+            m_wfm.collapseIntoMetaNode(new NodeID[]{inc1, inc2}, null, "component").getCollapsedMetanodeID();
+        m_wfm.convertMetaNodeToSubNode(metanode);
+        final SubNodeContainer component = (SubNodeContainer)m_wfm.getNodeContainer(metanode);
+
+        final NodeSettings settings = new NodeSettings("job manager");
+        settings.addInt(StreamingNodeExecutionJobManager.CFG_MAX_PARTITION_COUNT, 4);
+        // small channel, the first node has to wait for the second one
+        settings.addInt(StreamingNodeExecutionJobManager.CFG_CHANNEL_CAPACITY, 4);
+        final StreamingNodeExecutionJobManager jobManager = new StreamingNodeExecutionJobManager();
+        jobManager.load(settings);
+        m_wfm.setJobManager(metanode, jobManager);
+
+        assertTrue("workflow executed", m_wfm.executeAllAndWaitUntilDone());
+
+        final BufferedDataTable result = (BufferedDataTable)component.getOutPort(1).getPortObject();
+        assertThat("component row count", result.size(), is((long)ROW_COUNT));
+        int i = 0;
+        try (CloseableRowIterator it = result.iterator()) {
+            while (it.hasNext()) {
+                assertThat("incremented twice", ((IntCell)it.next().getCell(0)).getIntValue(), is(i + 2));
+                i++;
+            }
+        }
+        assertThat("execute methods called", EXECUTE_COUNT.get(), is(0));
+
+        final WorkflowManager inner = component.getWorkflowManager();
+        NativeNodeContainer first = null;
+        NativeNodeContainer second = null;
+        for (NodeContainer nc : inner.getNodeContainers()) {
+            if (nc instanceof NativeNodeContainer
+                && ((NativeNodeContainer)nc).getNodeModel() instanceof IncrementNodeModel) {
+                final ConnectionContainer out = inner.getOutgoingConnectionsFor(nc.getID(), 1).iterator().next();
+                if (inner.getNodeContainer(out.getDest()) instanceof NativeNodeContainer && ((NativeNodeContainer)inner
+                    .getNodeContainer(out.getDest())).getNodeModel() instanceof IncrementNodeModel) {
+                    first = (NativeNodeContainer)nc;
+                } else {
+                    second = (NativeNodeContainer)nc;
+                }
+            }
+        }
+        assertTrue("increment nodes found", first != null && second != null);
+        assertThat("rows passed on, not retained",
+            ((BufferedDataTable)first.getOutPort(1).getPortObject()).size(), is(0L));
+        final int pushedAtFirstRow = ((IncrementNodeModel)second.getNodeModel()).m_pushedAtFirstRow.get();
+        assertTrue("second node read rows while the first one computed them (" + pushedAtFirstRow + ")",
+            pushedAtFirstRow >= 0 && pushedAtFirstRow < ROW_COUNT);
+    }
+}
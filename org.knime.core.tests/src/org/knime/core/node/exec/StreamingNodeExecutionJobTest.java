@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Tests the input handling of {@link StreamingNodeExecutionJob}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StreamingNodeExecutionJobTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+
+    /** Iterator over the rows [from, to), counts how often it is closed. */
+    private static final class RangeIterator extends CloseableRowIterator {
+
+        private final int m_to;
+
+        private final AtomicInteger m_closeCount;
+
+        private int m_next;
+
+        RangeIterator(final int from, final int to, final AtomicInteger closeCount) {
+            m_next = from;
+            m_to = to;
+            m_closeCount = closeCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_next < m_to;
+        }
+
+        @Override
+        public DataRow next() {
+            final int i = m_next++;
+            return new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i));
+        }
+
+        @Override
+        public void close() {
+            m_closeCount.incrementAndGet();
+        }
+    }
+
+    private static List<Integer> readAll(final RowInput input) throws InterruptedException {
+        final List<Integer> values = new ArrayList<>();
+        DataRow r;
+        while ((r = input.poll()) != null) {
+            values.add(((IntCell)r.getCell(0)).getIntValue());
+        }
+        input.close();
+        return values;
+    }
+
+    /**
+     * More partitions than pool threads, all threads taken by partitions that wait for their input -- readers must not
+     * be queued behind the partitions (which would deadlock) but the partitions read their rows themselves.
+     */
+    @Test(timeout = 20000)
+    public void testPartitionCountExceedsPoolSize() throws Exception {
+        final ThreadPool pool = new ThreadPool(2);
+        final int partitionCount = 4;
+        final int rowsPerPartition = 10000;
+        final AtomicInteger closeCount = new AtomicInteger();
+        final List<Future<List<Integer>>> partitions = new ArrayList<>();
+        for (int p = 0; p < partitionCount; p++) {
+            final int from = p * rowsPerPartition;
+            partitions.add(pool.enqueue(() -> readAll(StreamingNodeExecutionJob.openRowInput(SPEC,
+                () -> new RangeIterator(from, from + rowsPerPartition, closeCount), pool, 16))));
+        }
+        for (int p = 0; p < partitionCount; p++) {
+            final List<Integer> values = partitions.get(p).get(10, TimeUnit.SECONDS);
+            assertEquals(rowsPerPartition, values.size());
+            for (int i = 0; i < rowsPerPartition; i++) {
+                assertEquals(p * rowsPerPartition + i, values.get(i).intValue());
+            }
+        }
+        pool.waitForTermination();
+        assertEquals("iterators closed", partitionCount, closeCount.get());
+    }
+
+    /** With a free thread the rows are read by a separate reader task. */
+    @Test(timeout = 20000)
+    public void testReaderTaskIfThreadAvailable() throws Exception {
+        final ThreadPool pool = new ThreadPool(4);
+        final AtomicInteger closeCount = new AtomicInteger();
+        final Thread caller = Thread.currentThread();
+        final List<Thread> readerThreads = new ArrayList<>();
+        final RowInput input = StreamingNodeExecutionJob.openRowInput(SPEC, () -> {
+            synchronized (readerThreads) {
+                readerThreads.add(Thread.currentThread());
+            }
+            return new RangeIterator(0, 1000, closeCount);
+        }, pool, 8);
+        final List<Integer> values = readAll(input);
+        assertEquals(1000, values.size());
+        pool.waitForTermination();
+        assertEquals(1, readerThreads.size());
+        assertTrue("read in separate thread", readerThreads.get(0) != caller);
+        assertEquals(1, closeCount.get());
+    }
+}
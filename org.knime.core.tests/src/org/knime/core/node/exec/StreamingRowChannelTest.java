@@ -0,0 +1,155 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+
+/**
+ * Tests {@link StreamingRowChannel}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StreamingRowChannelTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+
+    private static DataRow row(final int i) {
+        return new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i));
+    }
+
+    /** Producer and consumer in different threads, channel much smaller than the number of rows. */
+    @Test(timeout = 20000)
+    public void testConcurrentTransferKeepsOrder() throws Exception {
+        final StreamingRowChannel channel = new StreamingRowChannel(SPEC, 16);
+        final int rowCount = 100000;
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> producer = service.submit(() -> {
+                RowOutput out = channel.getRowOutput();
+                for (int i = 0; i < rowCount; i++) {
+                    out.push(row(i));
+                }
+                out.close();
+                return null;
+            });
+            RowInput in = channel.getRowInput();
+            assertEquals(SPEC, in.getDataTableSpec());
+            int count = 0;
+            DataRow r;
+            while ((r = in.poll()) != null) {
+                assertEquals(count, ((IntCell)r.getCell(0)).getIntValue());
+                count++;
+            }
+            producer.get();
+            assertEquals(rowCount, count);
+            assertNull("poll after end of stream", in.poll());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    /** Capacity is rounded to the next power of two; closing the input unblocks a waiting producer. */
+    @Test(timeout = 20000)
+    public void testConsumerCloseUnblocksProducer() throws Exception {
+        final StreamingRowChannel channel = new StreamingRowChannel(SPEC, 3);
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> producer = service.submit(() -> {
+                RowOutput out = channel.getRowOutput();
+                int pushed = 0;
+                try {
+                    while (true) {
+                        out.push(row(pushed));
+                        pushed++;
+                    }
+                } catch (RowOutput.OutputClosedException e) {
+                    return pushed;
+                }
+            });
+            while (channel.size() < 4) {
+                Thread.sleep(1);
+            }
+            channel.getRowInput().close();
+            assertEquals(4, producer.get(10, TimeUnit.SECONDS).intValue());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    /** Failures of the producer are reported to the consumer. */
+    @Test
+    public void testFailurePropagation() throws Exception {
+        final StreamingRowChannel channel = new StreamingRowChannel(SPEC);
+        channel.getRowOutput().push(row(0));
+        channel.fail(new RuntimeException("reader broken"));
+        try {
+            channel.getRowInput().poll();
+            fail("Expected exception not thrown");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("reader broken"));
+        }
+    }
+
+}
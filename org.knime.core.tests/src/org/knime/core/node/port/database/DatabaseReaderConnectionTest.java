@@ -0,0 +1,155 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Test;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.port.database.DatabaseReaderConnection.RowIteratorConnection;
+import org.knime.core.node.port.database.connection.DBConnectionPool;
+import org.knime.core.node.port.database.connection.DBConnectionPool.Statistics;
+
+/**
+ * Tests that the {@link RowIteratorConnection} of {@link DatabaseReaderConnection} keeps a pooled connection until it
+ * is closed.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class DatabaseReaderConnectionTest {
+
+    /**
+     * Closing commits and restores the auto-commit flag on the still leased connection and returns it to the pool
+     * afterwards.
+     *
+     * @throws SQLException if closing fails
+     */
+    @Test
+    public void testLeasedConnectionReturnedOnClose() throws SQLException {
+        final FakeConnection fake = new FakeConnection();
+        final DBConnectionPool pool = new DBConnectionPool("test", 1, 0, 0, () -> fake.m_proxy, c -> true);
+        final Connection conn = pool.getConnection();
+        conn.setAutoCommit(false);
+        final Statement stmt = mock(Statement.class);
+        final RowIteratorConnection ric = new DatabaseReaderConnection(null).new RowIteratorConnection(conn, stmt,
+            mock(ResultSet.class), new DataTableSpec(), true, false, true);
+        Statistics stats = pool.getStatistics();
+        assertThat("Active connections while reading", stats.getActiveConnections(), is(1));
+
+        ric.close();
+        assertThat("Commits", fake.m_commits, is(1));
+        assertThat("Auto-commit restored", fake.m_autoCommit, is(true));
+        verify(stmt).close();
+        assertThat("Lease closed", conn.isClosed(), is(true));
+        stats = pool.getStatistics();
+        assertThat("Active connections after close", stats.getActiveConnections(), is(0));
+        assertThat("Idle connections after close", stats.getIdleConnections(), is(1));
+        assertThat("Physical connection open", fake.m_isClosed, is(false));
+        pool.close();
+    }
+
+    /**
+     * A shared connection is not closed with the iterator.
+     *
+     * @throws SQLException if closing fails
+     */
+    @Test
+    public void testSharedConnectionKeptOpen() throws SQLException {
+        final FakeConnection fake = new FakeConnection();
+        final RowIteratorConnection ric = new DatabaseReaderConnection(null).new RowIteratorConnection(fake.m_proxy,
+            mock(Statement.class), mock(ResultSet.class), new DataTableSpec(), true, false);
+        ric.close();
+        assertThat("Shared connection closed", fake.m_isClosed, is(false));
+    }
+
+    /** A connection that only supports transactions and closing. */
+    private static final class FakeConnection {
+
+        private final Connection m_proxy;
+
+        private boolean m_autoCommit = true;
+
+        private int m_commits;
+
+        private boolean m_isClosed;
+
+        private FakeConnection() {
+            m_proxy = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "getAutoCommit":
+                            return m_autoCommit;
+                        case "setAutoCommit":
+                            m_autoCommit = (Boolean)args[0];
+                            return null;
+                        case "commit":
+                            m_commits++;
+                            return null;
+                        case "close":
+                            m_isClosed = true;
+                            return null;
+                        case "isClosed":
+                            return m_isClosed;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+    }
+}
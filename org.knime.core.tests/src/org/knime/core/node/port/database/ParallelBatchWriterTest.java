@@ -0,0 +1,375 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.port.database.connection.DBConnectionFactory;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * Tests {@link ParallelBatchWriter} with fake connections that commit the written row numbers into a shared set.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class ParallelBatchWriterTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    private static final String INSERT = "INSERT INTO t VALUES (?)";
+
+    /** Row numbers committed by any of the connections. */
+    private final Set<Long> m_committed = Collections.synchronizedSet(new TreeSet<>());
+
+    /** Rows whose batch fails on execution. */
+    private final Set<Long> m_failingRows = new HashSet<>();
+
+    /** Rows whose batch is executed with a delay, so that it completes after later batches. */
+    private final Set<Long> m_slowRows = new HashSet<>();
+
+    private final List<FakeConnection> m_opened = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * All rows are committed, the additional connections are closed afterwards and the auto-commit flag of the given
+     * connection is restored.
+     *
+     * @throws Exception if writing fails
+     */
+    @Test
+    public void testWriteAll() throws Exception {
+        final FakeConnection conn = new FakeConnection();
+        final ParallelBatchWriter writer = create(conn, 3, -1);
+        assertThat("Errors", writer.write(new CountingRowInput(95), 95, new RecordingMonitor(-1)), is(nullValue()));
+        assertThat("Committed rows", new ArrayList<>(m_committed),
+            is(LongStream.rangeClosed(1, 95).boxed().collect(Collectors.toList())));
+        assertThat("Additional connections", m_opened.size(), is(2));
+        for (FakeConnection opened : m_opened) {
+            assertThat("Additional connection closed", opened.m_isClosed, is(true));
+            assertThat("Statement closed", opened.m_closedStatements, is(1));
+        }
+        assertThat("Given connection closed", conn.m_isClosed, is(false));
+        assertThat("Auto-commit of given connection", conn.m_autoCommit, is(true));
+    }
+
+    /**
+     * Errors are reported in the order of the rows, even if a later range fails first, and the rows of failed ranges
+     * are rolled back.
+     *
+     * @throws Exception if writing fails
+     */
+    @Test
+    public void testErrorOrderAndRollback() throws Exception {
+        m_failingRows.add(5L);
+        m_failingRows.add(27L);
+        m_slowRows.add(1L);
+        final RecordingMonitor exec = new RecordingMonitor(-1);
+        final FakeConnection conn = new FakeConnection();
+        final String error = create(conn, 3, -1).write(new CountingRowInput(50), 50, exec);
+        assertThat("Error message", error, is("Errors \"2\" writing 50 rows."));
+        assertThat("Reported errors", exec.m_messages, contains(
+            "Error while adding rows #1 - #10, reason: Failing row 5",
+            "Error while adding rows #21 - #30, reason: Failing row 27"));
+        final List<Long> expected = LongStream.rangeClosed(1, 50).filter(r -> (r > 10 && r <= 20) || r > 30).boxed()
+            .collect(Collectors.toList());
+        assertThat("Committed rows", new ArrayList<>(m_committed), is(expected));
+        final int rollbacks = m_opened.stream().mapToInt(c -> c.m_rollbacks).sum() + conn.m_rollbacks;
+        assertThat("Rollbacks", rollbacks, is(2));
+    }
+
+    /**
+     * Canceling stops reading the input, ranges in progress are completed or skipped as a whole and all additional
+     * connections are closed.
+     *
+     * @throws Exception if writing fails
+     */
+    @Test
+    public void testCancel() throws Exception {
+        final ParallelBatchWriter writer = create(new FakeConnection(), 3, -1);
+        final CountingRowInput input = new CountingRowInput(1000);
+        try {
+            writer.write(input, 1000, new RecordingMonitor(35));
+            fail("Writing expected to be canceled");
+        } catch (CanceledExecutionException e) {
+            // expected
+        }
+        assertThat("Rows read", input.m_next - 1, is(36L));
+        final Set<Long> committed = new TreeSet<>(m_committed);
+        for (long first = 1; first <= 30; first += BATCH_SIZE) {
+            final long start = first;
+            final long count = LongStream.range(start, start + BATCH_SIZE).filter(committed::contains).count();
+            assertThat("Range starting at " + start + " written as a whole", count % BATCH_SIZE, is(0L));
+        }
+        assertThat("Committed rows", committed.size(), is(lessThanOrEqualTo(30)));
+        for (FakeConnection opened : m_opened) {
+            assertThat("Additional connection closed", opened.m_isClosed, is(true));
+        }
+    }
+
+    /**
+     * If not all additional connections can be opened, the ones opened are used; if none can be opened there is no
+     * parallel writer.
+     *
+     * @throws Exception if writing fails
+     */
+    @Test
+    public void testFallbackIfConnectionFails() throws Exception {
+        final ParallelBatchWriter writer = create(new FakeConnection(), 4, 1);
+        assertThat("Additional connections", m_opened.size(), is(1));
+        assertThat("Errors", writer.write(new CountingRowInput(42), 42, new RecordingMonitor(-1)), is(nullValue()));
+        assertThat("Committed rows", m_committed.size(), is(42));
+        assertThat("Additional connection closed", m_opened.get(0).m_isClosed, is(true));
+
+        m_opened.clear();
+        final FakeConnection conn = new FakeConnection();
+        assertThat("Writer without additional connections", create(conn, 4, 0), is(nullValue()));
+        assertThat("Statements prepared on given connection", conn.m_prepared, is(0));
+    }
+
+    /** Creates a writer, the factory fails after the given number of additional connections (-1: never). */
+    private ParallelBatchWriter create(final FakeConnection conn, final int connections, final int failAfter)
+        throws Exception {
+        final DBConnectionFactory factory = mock(DBConnectionFactory.class);
+        when(factory.createUnsharedConnection(any(), any())).thenAnswer(i -> {
+            if (failAfter >= 0 && m_opened.size() >= failAfter) {
+                throw new SQLException("Too many connections");
+            }
+            final FakeConnection opened = new FakeConnection();
+            m_opened.add(opened);
+            return opened.m_proxy;
+        });
+        final DatabaseUtility utility = mock(DatabaseUtility.class);
+        when(utility.getConnectionFactory()).thenReturn(factory);
+        final DatabaseConnectionSettings settings = mock(DatabaseConnectionSettings.class);
+        when(settings.getUtility()).thenReturn(utility);
+        return ParallelBatchWriter.create(settings, null, conn.m_proxy, INSERT, BATCH_SIZE,
+            (stmt, row) -> stmt.setLong(1, ((LongCell)row.getCell(0)).getLongValue()), connections);
+    }
+
+    /** Provides the rows 1 to n with their row number as only cell. */
+    private static final class CountingRowInput extends RowInput {
+
+        private final long m_rowCount;
+
+        private long m_next = 1;
+
+        CountingRowInput(final long rowCount) {
+            m_rowCount = rowCount;
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return new DataTableSpec();
+        }
+
+        @Override
+        public DataRow poll() {
+            if (m_next > m_rowCount) {
+                return null;
+            }
+            final long row = m_next++;
+            return new DefaultRow(RowKey.createRowKey(row), new LongCell(row));
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    /** Records the messages, cancels after the given number of rows (-1: never). */
+    private static final class RecordingMonitor extends ExecutionMonitor {
+
+        private final List<String> m_messages = new ArrayList<>();
+
+        private final int m_cancelAfter;
+
+        private int m_checks;
+
+        RecordingMonitor(final int cancelAfter) {
+            m_cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void checkCanceled() throws CanceledExecutionException {
+            if (m_checks++ == m_cancelAfter) {
+                throw new CanceledExecutionException();
+            }
+        }
+
+        @Override
+        public void setMessage(final String message) {
+            m_messages.add(message);
+        }
+    }
+
+    /** A connection that executes batches of row numbers, failing batches are rolled back. */
+    private final class FakeConnection {
+
+        private final Connection m_proxy;
+
+        private final List<Long> m_uncommitted = new ArrayList<>();
+
+        private boolean m_autoCommit = true;
+
+        private int m_prepared;
+
+        private int m_closedStatements;
+
+        private int m_rollbacks;
+
+        private boolean m_isClosed;
+
+        private FakeConnection() {
+            m_proxy = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "prepareStatement":
+                            m_prepared++;
+                            return createStatement();
+                        case "getAutoCommit":
+                            return m_autoCommit;
+                        case "setAutoCommit":
+                            m_autoCommit = (Boolean)args[0];
+                            return null;
+                        case "commit":
+                            m_committed.addAll(m_uncommitted);
+                            m_uncommitted.clear();
+                            return null;
+                        case "rollback":
+                            m_rollbacks++;
+                            m_uncommitted.clear();
+                            return null;
+                        case "close":
+                            m_isClosed = true;
+                            return null;
+                        case "isClosed":
+                            return m_isClosed;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+
+        private PreparedStatement createStatement() {
+            final List<Long> batch = new ArrayList<>();
+            final long[] current = new long[1];
+            return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "getConnection":
+                            return m_proxy;
+                        case "setLong":
+                            current[0] = (Long)args[1];
+                            return null;
+                        case "addBatch":
+                            batch.add(current[0]);
+                            return null;
+                        case "clearBatch":
+                            batch.clear();
+                            return null;
+                        case "executeBatch":
+                            return executeBatch(batch);
+                        case "close":
+                            m_closedStatements++;
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+
+        private int[] executeBatch(final List<Long> batch) throws SQLException, InterruptedException {
+            if (batch.stream().anyMatch(m_slowRows::contains)) {
+                Thread.sleep(500);
+            }
+            for (Long row : batch) {
+                if (m_failingRows.contains(row)) {
+                    throw new SQLException("Failing row " + row);
+                }
+                // rows before the failing one are executed but not committed
+                m_uncommitted.add(row);
+            }
+            return new int[batch.size()];
+        }
+    }
+}
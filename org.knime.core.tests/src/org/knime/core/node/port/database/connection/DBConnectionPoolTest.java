@@ -0,0 +1,331 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+import org.knime.core.node.port.database.connection.DBConnectionPool.Statistics;
+
+/**
+ * Tests {@link DBConnectionPool} with fake connections that count the prepared statements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class DBConnectionPoolTest {
+
+    private final List<FakeConnection> m_opened = new ArrayList<>();
+
+    /**
+     * Statements closed by the caller are reused for the same SQL, also after the connection was returned.
+     *
+     * @throws SQLException if the pool fails
+     */
+    @Test
+    public void testStatementCache() throws SQLException {
+        final DBConnectionPool pool = createPool(2, 0, 2);
+        try (Connection conn = pool.getConnection()) {
+            final PreparedStatement first = conn.prepareStatement("SELECT 1");
+            final PreparedStatement nested = conn.prepareStatement("SELECT 1");
+            nested.close();
+            first.close();
+            assertThat("Statement closed", first.isClosed(), is(true));
+            conn.prepareStatement("SELECT 1").close();
+            assertThat("Connection of statement", conn.prepareStatement("SELECT 2").getConnection() == conn, is(true));
+        }
+        try (Connection conn = pool.getConnection()) {
+            conn.prepareStatement("SELECT 1");
+            conn.prepareStatement("SELECT 3");
+        }
+        assertThat("Connections opened", m_opened.size(), is(1));
+        // SELECT 1 twice (one in use by the nested call), SELECT 2, SELECT 3
+        assertThat("Statements prepared", m_opened.get(0).m_prepared, is(4));
+        // SELECT 3 evicted SELECT 2 from the cache of size 2, the nested statement isn't cached
+        assertThat("Statements closed", m_opened.get(0).m_closedStatements, is(2));
+        final Statistics stats = pool.getStatistics();
+        assertThat("Cache hits", stats.getStatementCacheHits(), is(2L));
+        assertThat("Cache misses", stats.getStatementCacheMisses(), is(4L));
+        assertThat("Borrowed", stats.getBorrowCount(), is(2L));
+        pool.close();
+        assertThat("Connection closed with pool", m_opened.get(0).m_isClosed, is(true));
+    }
+
+    /**
+     * A connection returned to the pool can't be used anymore by the previous borrower.
+     *
+     * @throws SQLException if the pool fails
+     */
+    @Test
+    public void testReturnedConnectionUnusable() throws SQLException {
+        final DBConnectionPool pool = createPool(1, 0, 2);
+        final Connection conn = pool.getConnection();
+        final PreparedStatement stmt = conn.prepareStatement("SELECT 1");
+        conn.close();
+        assertThat("Connection closed", conn.isClosed(), is(true));
+        assertThat("Statement closed", stmt.isClosed(), is(true));
+        try {
+            conn.createStatement();
+            fail("Using a returned connection expected to fail");
+        } catch (SQLException e) {
+            // expected
+        }
+        assertThat("Physical connection open", m_opened.get(0).m_isClosed, is(false));
+        assertThat("Idle connections", pool.getStatistics().getIdleConnections(), is(1));
+    }
+
+    /**
+     * Callers wait if all connections are in use.
+     *
+     * @throws Exception if the pool fails
+     */
+    @Test(timeout = 10000)
+    public void testBoundedSize() throws Exception {
+        final DBConnectionPool pool = createPool(1, 0, 2);
+        final Connection conn = pool.getConnection();
+        final CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            waiting.get(200, TimeUnit.MILLISECONDS);
+            fail("Second connection expected to wait for the first one");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        conn.close();
+        waiting.get().close();
+        final Statistics stats = pool.getStatistics();
+        assertThat("Connections opened", stats.getCreatedConnections(), is(1L));
+        assertThat("Waits", stats.getWaitCount(), is(1L));
+        assertThat("Active connections", stats.getActiveConnections(), is(0));
+    }
+
+    /**
+     * Invalid connections are replaced, idle connections are closed after the timeout.
+     *
+     * @throws Exception if the pool fails
+     */
+    @Test
+    public void testValidationAndIdleEviction() throws Exception {
+        final DBConnectionPool pool = createPool(2, 50, 2);
+        pool.getConnection().close();
+        m_opened.get(0).m_isValid = false;
+        pool.getConnection().close();
+        assertThat("Connections opened", m_opened.size(), is(2));
+        assertThat("Invalid connection closed", m_opened.get(0).m_isClosed, is(true));
+
+        pool.evictIdleConnections();
+        assertThat("Recently used connection kept", pool.getStatistics().getIdleConnections(), is(1));
+        Thread.sleep(100);
+        pool.evictIdleConnections();
+        final Statistics stats = pool.getStatistics();
+        assertThat("Open connections", stats.getOpenConnections(), is(0));
+        assertThat("Closed connections", stats.getClosedConnections(), is(2L));
+        assertThat("Idle connection closed", m_opened.get(1).m_isClosed, is(true));
+    }
+
+    /**
+     * An open transaction is rolled back and the auto-commit flag restored when the connection is returned.
+     *
+     * @throws SQLException if the pool fails
+     */
+    @Test
+    public void testTransactionRolledBackOnRelease() throws SQLException {
+        final DBConnectionPool pool = createPool(1, 0, 2);
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.prepareStatement("INSERT 1").close();
+        }
+        final FakeConnection physical = m_opened.get(0);
+        assertThat("Rollbacks", physical.m_rollbacks, is(1));
+        assertThat("Auto-commit restored", physical.m_autoCommit, is(true));
+        try (Connection conn = pool.getConnection()) {
+            conn.prepareStatement("SELECT 1").close();
+        }
+        assertThat("Rollbacks in auto-commit mode", physical.m_rollbacks, is(1));
+        assertThat("Connections opened", m_opened.size(), is(1));
+    }
+
+    /**
+     * Statements of {@link Connection#createStatement()} and of an unwrapped connection are closed when the connection
+     * is returned.
+     *
+     * @throws SQLException if the pool fails
+     */
+    @Test
+    public void testCreatedStatementsClosedOnRelease() throws SQLException {
+        final DBConnectionPool pool = createPool(1, 0, 2);
+        final Connection conn = pool.getConnection();
+        final Statement stmt = conn.createStatement();
+        assertThat("Connection of statement", stmt.getConnection() == conn, is(true));
+        assertThat("Unwrapped connection", conn.unwrap(Connection.class) == conn, is(true));
+        assertThat("Unwrapped statement", stmt.unwrap(Statement.class) == stmt, is(true));
+        conn.createStatement().close();
+        assertThat("Statements closed by the caller", m_opened.get(0).m_closedStatements, is(1));
+        conn.close();
+        assertThat("Statements closed with the connection", m_opened.get(0).m_closedStatements, is(2));
+        assertThat("Statement closed", stmt.isClosed(), is(true));
+    }
+
+    /**
+     * A pool without open connections is closed once it has been unused for longer than the idle timeout.
+     *
+     * @throws Exception if the pool fails
+     */
+    @Test
+    public void testUnusedPoolExpires() throws Exception {
+        final DBConnectionPool pool = createPool(1, 50, 2);
+        final Connection conn = pool.getConnection();
+        Thread.sleep(100);
+        assertThat("Pool with connection in use expired", pool.expireIfUnused(), is(false));
+        conn.close();
+        Thread.sleep(100);
+        assertThat("Pool with idle connection expired", pool.expireIfUnused(), is(false));
+        pool.evictIdleConnections();
+        assertThat("Unused pool expired", pool.expireIfUnused(), is(true));
+        try {
+            pool.getConnection();
+            fail("Expired pool expected to be closed");
+        } catch (SQLException e) {
+            // expected
+        }
+        assertThat("Connections opened", m_opened.size(), is(1));
+    }
+
+    private DBConnectionPool createPool(final int maxSize, final long idleTimeoutMillis,
+        final int statementCacheSize) {
+        return new DBConnectionPool("test", maxSize, idleTimeoutMillis, statementCacheSize, () -> {
+            final FakeConnection conn = new FakeConnection();
+            synchronized (m_opened) {
+                m_opened.add(conn);
+            }
+            return conn.m_proxy;
+        }, conn -> m_opened.stream().filter(c -> c.m_proxy == conn).findFirst().get().m_isValid);
+    }
+
+    /** A connection that only supports preparing, creating and closing statements and transactions. */
+    private static final class FakeConnection {
+
+        private final Connection m_proxy;
+
+        private int m_prepared;
+
+        private int m_closedStatements;
+
+        private boolean m_isClosed;
+
+        private boolean m_isValid = true;
+
+        private boolean m_autoCommit = true;
+
+        private int m_rollbacks;
+
+        private FakeConnection() {
+            m_proxy = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "prepareStatement":
+                            m_prepared++;
+                            return createStatement();
+                        case "createStatement":
+                            return createStatement();
+                        case "close":
+                            m_isClosed = true;
+                            return null;
+                        case "isClosed":
+                            return m_isClosed;
+                        case "getAutoCommit":
+                            return m_autoCommit;
+                        case "setAutoCommit":
+                            m_autoCommit = (Boolean)args[0];
+                            return null;
+                        case "rollback":
+                            m_rollbacks++;
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+
+        private PreparedStatement createStatement() {
+            return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            m_closedStatements++;
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+        }
+    }
+}
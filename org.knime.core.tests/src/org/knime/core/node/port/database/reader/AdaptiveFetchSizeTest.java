@@ -0,0 +1,181 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+
+/**
+ * Tests {@link AdaptiveFetchSize} with mocked result sets.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class AdaptiveFetchSizeTest {
+
+    /** The fetch size is never adapted if it's set by the user. */
+    @Before
+    public void checkFetchSizeNotSet() {
+        Assume.assumeThat("Fetch size set by user", DatabaseConnectionSettings.FETCH_SIZE, is(nullValue()));
+    }
+
+    /**
+     * The fetch size is doubled each time the rows of a fetch have been read.
+     *
+     * @throws SQLException not expected
+     */
+    @Test
+    public void testGrowth() throws SQLException {
+        final ResultSet result = createResult(10, Types.INTEGER, Types.VARCHAR);
+        final AdaptiveFetchSize fetchSize = AdaptiveFetchSize.create(result, 2);
+        assertThat("Adaptive fetch size", fetchSize, is(notNullValue()));
+        readRows(fetchSize, 9);
+        assertThat("Fetch size before first fetch is read", fetchSize.getFetchSize(), is(10));
+        verify(result, never()).setFetchSize(anyInt());
+        readRows(fetchSize, 1);
+        assertThat("Fetch size after first fetch", fetchSize.getFetchSize(), is(20));
+        verify(result).setFetchSize(20);
+        readRows(fetchSize, 19);
+        assertThat("Fetch size before second fetch is read", fetchSize.getFetchSize(), is(20));
+        readRows(fetchSize, 1);
+        assertThat("Fetch size after second fetch", fetchSize.getFetchSize(), is(40));
+        verify(result).setFetchSize(40);
+    }
+
+    /**
+     * The fetch size grows up to the number of cells per fetch and {@link AdaptiveFetchSize#MAX_FETCH_SIZE}.
+     *
+     * @throws SQLException not expected
+     */
+    @Test
+    public void testCap() throws SQLException {
+        final int wideColumns = 100;
+        final int wideMax = AdaptiveFetchSize.MAX_CELLS_PER_FETCH / wideColumns;
+        final ResultSet wideResult = createResult(10, new int[wideColumns]);
+        final AdaptiveFetchSize wide = AdaptiveFetchSize.create(wideResult, wideColumns);
+        readRows(wide, 100000);
+        assertThat("Fetch size of wide result", wide.getFetchSize(), is(wideMax));
+        verify(wideResult, times(1)).setFetchSize(wideMax);
+
+        final ResultSet narrowResult = createResult(10, Types.INTEGER);
+        final AdaptiveFetchSize narrow = AdaptiveFetchSize.create(narrowResult, 1);
+        readRows(narrow, 1000000);
+        assertThat("Fetch size of narrow result", narrow.getFetchSize(), is(AdaptiveFetchSize.MAX_FETCH_SIZE));
+        verify(narrowResult, times(1)).setFetchSize(AdaptiveFetchSize.MAX_FETCH_SIZE);
+
+        assertThat("Fetch size already at maximum",
+            AdaptiveFetchSize.create(createResult(AdaptiveFetchSize.MAX_FETCH_SIZE, Types.INTEGER), 1),
+            is(nullValue()));
+    }
+
+    /**
+     * If the driver rejects the new fetch size, the current one is kept and no further attempt is made.
+     *
+     * @throws SQLException not expected
+     */
+    @Test
+    public void testRejection() throws SQLException {
+        final ResultSet result = createResult(10, Types.INTEGER);
+        doThrow(new SQLException("Not supported")).when(result).setFetchSize(anyInt());
+        final AdaptiveFetchSize fetchSize = AdaptiveFetchSize.create(result, 1);
+        readRows(fetchSize, 1000);
+        verify(result, times(1)).setFetchSize(anyInt());
+    }
+
+    /**
+     * The fetch size isn't adapted if the driver decides on its own, if the fetch size can't be determined or if the
+     * result contains large objects.
+     *
+     * @throws SQLException not expected
+     */
+    @Test
+    public void testNotAdapted() throws SQLException {
+        assertThat("Driver decides", AdaptiveFetchSize.create(createResult(0, Types.INTEGER), 1), is(nullValue()));
+        final ResultSet failing = createResult(10, Types.INTEGER);
+        when(failing.getFetchSize()).thenThrow(new SQLException("Closed"));
+        assertThat("Unknown fetch size", AdaptiveFetchSize.create(failing, 1), is(nullValue()));
+        for (int type : new int[]{Types.BLOB, Types.CLOB, Types.LONGVARBINARY, Types.ARRAY}) {
+            assertThat("Result with large objects of type " + type,
+                AdaptiveFetchSize.create(createResult(10, Types.INTEGER, type), 2), is(nullValue()));
+        }
+    }
+
+    private static ResultSet createResult(final int fetchSize, final int... columnTypes) throws SQLException {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(columnTypes.length);
+        for (int i = 0; i < columnTypes.length; i++) {
+            when(metaData.getColumnType(i + 1)).thenReturn(columnTypes[i]);
+        }
+        final ResultSet result = mock(ResultSet.class);
+        when(result.getFetchSize()).thenReturn(fetchSize);
+        when(result.getMetaData()).thenReturn(metaData);
+        return result;
+    }
+
+    private static void readRows(final AdaptiveFetchSize fetchSize, final int rowCount) {
+        for (int i = 0; i < rowCount; i++) {
+            fetchSize.rowRead();
+        }
+    }
+}
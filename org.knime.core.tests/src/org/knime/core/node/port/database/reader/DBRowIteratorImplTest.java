@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.blob.BinaryObjectCellFactory;
+import org.knime.core.data.blob.BinaryObjectDataCell;
+import org.knime.core.data.blob.BinaryObjectDataValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+
+/**
+ * Tests that {@link DBRowIteratorImpl} reads each column with the reader for its KNIME and JDBC type, which is resolved
+ * once with the first row.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class DBRowIteratorImplTest {
+
+    private static final DataType[] KNIME_TYPES = {IntCell.TYPE, IntCell.TYPE, IntCell.TYPE, DoubleCell.TYPE,
+        DoubleCell.TYPE, LongCell.TYPE, BooleanCell.TYPE, StringCell.TYPE, StringCell.TYPE, BinaryObjectDataCell.TYPE};
+
+    private static final int[] JDBC_TYPES = {Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.REAL, Types.DOUBLE,
+        Types.BIGINT, Types.BIT, Types.VARCHAR, Types.NVARCHAR, Types.VARBINARY};
+
+    /**
+     * Reads two rows and checks that the getter matching the column's types is called.
+     *
+     * @throws SQLException not expected
+     */
+    @Test
+    public void testReaderPerType() throws SQLException {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(JDBC_TYPES.length);
+        for (int i = 0; i < JDBC_TYPES.length; i++) {
+            when(metaData.getColumnType(i + 1)).thenReturn(JDBC_TYPES[i]);
+        }
+        final ResultSet result = mock(ResultSet.class);
+        when(result.getMetaData()).thenReturn(metaData);
+        when(result.next()).thenReturn(true, true, false);
+        when(result.getByte(1)).thenReturn((byte)1);
+        when(result.getShort(2)).thenReturn((short)2);
+        when(result.getInt(3)).thenReturn(3);
+        when(result.getFloat(4)).thenReturn(4.5f);
+        when(result.getDouble(5)).thenReturn(5.5);
+        when(result.getLong(6)).thenReturn(6L);
+        when(result.getBoolean(7)).thenReturn(true);
+        when(result.getString(8)).thenReturn("eight");
+        when(result.getNString(9)).thenReturn("nine");
+        when(result.getBinaryStream(10)).thenAnswer(i -> new ByteArrayInputStream(new byte[]{10}));
+
+        final DBRowIteratorImpl it = new DBRowIteratorImpl(createSpec(), mock(DatabaseConnectionSettings.class),
+            new BinaryObjectCellFactory(), result, false);
+        for (int row = 0; row < 2; row++) {
+            assertThat("Has row " + row, it.hasNext(), is(true));
+            final DataRow dataRow = it.next();
+            assertThat("Tiny int", ((IntValue)dataRow.getCell(0)).getIntValue(), is(1));
+            assertThat("Small int", ((IntValue)dataRow.getCell(1)).getIntValue(), is(2));
+            assertThat("Integer", ((IntValue)dataRow.getCell(2)).getIntValue(), is(3));
+            assertThat("Real", ((DoubleValue)dataRow.getCell(3)).getDoubleValue(), is(4.5));
+            assertThat("Double", ((DoubleValue)dataRow.getCell(4)).getDoubleValue(), is(5.5));
+            assertThat("Big int", ((LongValue)dataRow.getCell(5)).getLongValue(), is(6L));
+            assertThat("Bit", dataRow.getCell(6), is(BooleanCell.TRUE));
+            assertThat("Varchar", ((StringValue)dataRow.getCell(7)).getStringValue(), is("eight"));
+            assertThat("NVarchar", ((StringValue)dataRow.getCell(8)).getStringValue(), is("nine"));
+            assertThat("Varbinary", dataRow.getCell(9), is(instanceOf(BinaryObjectDataValue.class)));
+        }
+        assertThat("No more rows", it.hasNext(), is(false));
+
+        for (int i = 0; i < JDBC_TYPES.length; i++) {
+            verify(metaData, times(1)).getColumnType(i + 1);
+        }
+        // the generic getters are not used for columns that have a more specific reader
+        verify(result, never()).getInt(1);
+        verify(result, never()).getInt(2);
+        verify(result, never()).getDouble(4);
+        verify(result, never()).getString(9);
+        verify(result, never()).getString(10);
+        verify(result, never()).getObject(anyInt());
+        verify(result, times(2)).getBinaryStream(10);
+        verify(result).close();
+    }
+
+    private static DataTableSpec createSpec() {
+        final DataColumnSpec[] columns = new DataColumnSpec[KNIME_TYPES.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new DataColumnSpecCreator("col" + i, KNIME_TYPES[i]).createSpec();
+        }
+        return new DataTableSpec(columns);
+    }
+}
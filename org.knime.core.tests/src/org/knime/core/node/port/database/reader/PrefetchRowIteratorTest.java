@@ -0,0 +1,138 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * Tests {@link PrefetchRowIterator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class PrefetchRowIteratorTest {
+
+    /** All rows are returned in order, also if the last batch is incomplete. */
+    @Test
+    public void testAllRowsInOrder() {
+        final long rowCount = 5L * PrefetchRowIterator.BATCH_SIZE + 17;
+        final PrefetchRowIterator it = new PrefetchRowIterator(new CountingIterator(rowCount, -1));
+        for (long i = 0; i < rowCount; i++) {
+            assertThat("Has row " + i, it.hasNext(), is(true));
+            assertThat("Row " + i, ((LongCell)it.next().getCell(0)).getLongValue(), is(i));
+        }
+        assertFalse("No more rows", it.hasNext());
+        assertFalse("Still no more rows", it.hasNext());
+        it.close();
+    }
+
+    /** An exception of the source is thrown after the rows read before it. */
+    @Test
+    public void testFailure() {
+        final PrefetchRowIterator it = new PrefetchRowIterator(new CountingIterator(1000, 100));
+        for (long i = 0; i < 100; i++) {
+            assertThat("Row " + i, ((LongCell)it.next().getCell(0)).getLongValue(), is(i));
+        }
+        try {
+            it.hasNext();
+            fail("Exception of source expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        it.close();
+    }
+
+    /** Closing stops reading from the source. */
+    @Test
+    public void testClose() {
+        final CountingIterator source = new CountingIterator(Long.MAX_VALUE, -1);
+        final PrefetchRowIterator it = new PrefetchRowIterator(source);
+        it.next();
+        it.close();
+        final long read = source.m_next.get();
+        assertFalse("No rows after close", it.hasNext());
+        assertThat("Rows read from source after close", source.m_next.get(), is(read));
+    }
+
+    private static final class CountingIterator extends RowIterator {
+
+        private final long m_rowCount;
+
+        private final long m_failAt;
+
+        private final AtomicLong m_next = new AtomicLong();
+
+        CountingIterator(final long rowCount, final long failAt) {
+            m_rowCount = rowCount;
+            m_failAt = failAt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_next.get() < m_rowCount;
+        }
+
+        @Override
+        public DataRow next() {
+            final long i = m_next.getAndIncrement();
+            if (i == m_failAt) {
+                throw new IllegalStateException("Failing at row " + i);
+            }
+            return new DefaultRow(RowKey.createRowKey(i), new LongCell(i));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.NodeSettingsRO;
+
+/**
+ * Tests {@link BinarySettingsFile}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class BinarySettingsFileTest {
+
+    /** Folder for the settings files. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    /**
+     * Settings saved the way the persistors save them are read back from the binary copy.
+     *
+     * @throws IOException if reading or writing fails
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final File xmlFile = m_tempFolder.newFile("settings.xml");
+        final NodeSettings settings = createSettings("value1");
+        BinarySettingsFile.saveXML(settings, xmlFile, out -> out, true);
+        assertTrue("Binary copy expected to exist", BinarySettingsFile.getBinaryFile(xmlFile).isFile());
+
+        final NodeSettings copy = BinarySettingsFile.load(xmlFile);
+        assertThat("Root key of the copy", copy.getKey(), is("settings.xml"));
+        assertTrue("Copy expected to be identical", settings.isIdentical(copy));
+        final NodeSettingsRO loaded = BinarySettingsFile.loadXML(xmlFile, in -> in);
+        assertTrue("Loaded settings expected to be identical", settings.isIdentical((NodeSettings)loaded));
+    }
+
+    /**
+     * The copy is ignored once the XML file is changed, whether its length changes or only its content.
+     *
+     * @throws IOException if reading or writing fails
+     * @throws InvalidSettingsException if the XML file lacks the setting
+     */
+    @Test
+    public void testStaleCopyIsIgnored() throws IOException, InvalidSettingsException {
+        final File xmlFile = m_tempFolder.newFile("settings.xml");
+        BinarySettingsFile.saveXML(createSettings("value1"), xmlFile, out -> out, true);
+
+        // same length, different checksum
+        final String xml = new String(Files.readAllBytes(xmlFile.toPath()), StandardCharsets.UTF_8);
+        Files.write(xmlFile.toPath(), xml.replace("value1", "value2").getBytes(StandardCharsets.UTF_8));
+        assertThat("Length of the changed XML file", xmlFile.length(), is((long)xml.length()));
+        assertThat("Copy of XML file with different content", BinarySettingsFile.load(xmlFile), is(nullValue()));
+        assertThat("Value read from the changed XML file",
+            BinarySettingsFile.loadXML(xmlFile, in -> in).getString("string"), is("value2"));
+
+        // different length
+        BinarySettingsFile.saveXML(createSettings("value1"), xmlFile, out -> out, true);
+        Files.write(xmlFile.toPath(), (xml + "\n").getBytes(StandardCharsets.UTF_8));
+        assertThat("Copy of XML file with different length", BinarySettingsFile.load(xmlFile), is(nullValue()));
+    }
+
+    /**
+     * A corrupt copy is ignored and the XML file is read instead.
+     *
+     * @throws IOException if reading or writing fails
+     * @throws InvalidSettingsException if the XML file lacks the setting
+     */
+    @Test
+    public void testCorruptCopyIsIgnored() throws IOException, InvalidSettingsException {
+        final File xmlFile = m_tempFolder.newFile("settings.xml");
+        BinarySettingsFile.saveXML(createSettings("value1"), xmlFile, out -> out, true);
+        final File binaryFile = BinarySettingsFile.getBinaryFile(xmlFile);
+        try (RandomAccessFile raf = new RandomAccessFile(binaryFile, "rw")) {
+            // keep the header with length and checksum of the XML file, claim a huge number of keys
+            raf.seek(2 * Long.BYTES + Integer.BYTES + 1);
+            raf.write(new byte[]{(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07});
+            raf.setLength(raf.getFilePointer());
+        }
+        assertThat("Corrupt copy", BinarySettingsFile.load(xmlFile), is(nullValue()));
+        assertThat("Value read from the XML file",
+            BinarySettingsFile.loadXML(xmlFile, in -> in).getString("string"), is("value1"));
+    }
+
+    /**
+     * No copy is written if binary settings are disabled or the XML file is ciphered, an existing copy is removed.
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testNoCopy() throws IOException {
+        final File xmlFile = m_tempFolder.newFile("settings.xml");
+        final File binaryFile = BinarySettingsFile.getBinaryFile(xmlFile);
+        BinarySettingsFile.saveXML(createSettings("value1"), xmlFile, out -> out, true);
+        BinarySettingsFile.saveXML(createSettings("value1"), xmlFile, out -> out, false);
+        assertThat("Copy exists if disabled", binaryFile.exists(), is(false));
+
+        BinarySettingsFile.saveXML(createSettings("value1"), xmlFile, out -> out, true);
+        BinarySettingsFile.saveXML(createSettings("value1"), xmlFile, FilterOutputStream::new, true);
+        assertThat("Copy exists if ciphered", binaryFile.exists(), is(false));
+    }
+
+    private static NodeSettings createSettings(final String value) {
+        final NodeSettings settings = new NodeSettings("settings.xml");
+        settings.addString("string", value);
+        settings.addInt("int", 42);
+        final NodeSettings model = (NodeSettings)settings.addNodeSettings("model");
+        model.addDoubleArray("array", 1.0, 2.0, 3.0);
+        model.addBoolean("boolean", true);
+        return settings;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.knime.core.node.workflow.NodeEventDispatcher.Coalescer;
+
+/**
+ * Tests {@link NodeEventDispatcher}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeEventDispatcherTest {
+
+    private final List<String> m_delivered = Collections.synchronizedList(new ArrayList<>());
+
+    private Runnable record(final String s) {
+        return () -> m_delivered.add(s);
+    }
+
+    private static void await(final CountDownLatch latch) throws InterruptedException {
+        assertThat("Notifications delivered in time", latch.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    /** Posts a notification that blocks the dispatcher until the returned latch is counted down. */
+    private static CountDownLatch blockDispatcher(final NodeEventDispatcher dispatcher) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        dispatcher.post(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        await(started);
+        return release;
+    }
+
+    /** Notifications are delivered in the order they were posted. */
+    @Test
+    public void testOrder() throws Exception {
+        final NodeEventDispatcher dispatcher = new NodeEventDispatcher();
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            dispatcher.post(record("e" + i));
+            expected.add("e" + i);
+        }
+        dispatcher.post(done::countDown);
+        await(done);
+        assertThat(m_delivered, is(expected));
+    }
+
+    private Coalescer<String, String> createCoalescer(final NodeEventDispatcher dispatcher) {
+        return dispatcher.createCoalescer((key, value) -> m_delivered.add(value));
+    }
+
+    /**
+     * Only the latest value of a key is delivered; the values of all keys are delivered by one drain task, at the
+     * position of the first value posted.
+     */
+    @Test
+    public void testCoalescing() throws Exception {
+        final NodeEventDispatcher dispatcher = new NodeEventDispatcher();
+        final Coalescer<String, String> coalescer = createCoalescer(dispatcher);
+        final CountDownLatch release = blockDispatcher(dispatcher);
+        final CountDownLatch done = new CountDownLatch(1);
+        dispatcher.post(record("a"));
+        for (int i = 0; i < 100; i++) {
+            coalescer.post("progress", "progress" + i);
+        }
+        dispatcher.post(record("b"));
+        coalescer.post("other", "other");
+        dispatcher.post(done::countDown);
+        release.countDown();
+        await(done);
+        assertThat("Delivered notifications", m_delivered.size(), is(4));
+        assertThat("First notification", m_delivered.get(0), is("a"));
+        assertThat("Drained values", m_delivered.subList(1, 3), containsInAnyOrder("progress99", "other"));
+        assertThat("Last notification", m_delivered.get(3), is("b"));
+    }
+
+    /** A value posted after the previous one of the same key was delivered is delivered, too. */
+    @Test
+    public void testCoalescingAfterDelivery() throws Exception {
+        final NodeEventDispatcher dispatcher = new NodeEventDispatcher();
+        final Coalescer<String, String> coalescer = createCoalescer(dispatcher);
+        final CountDownLatch first = new CountDownLatch(1);
+        coalescer.post("progress", "progress1");
+        dispatcher.post(first::countDown);
+        await(first);
+        final CountDownLatch second = new CountDownLatch(1);
+        coalescer.post("progress", "progress2");
+        dispatcher.post(second::countDown);
+        await(second);
+        assertThat(m_delivered, contains("progress1", "progress2"));
+    }
+
+    /** A value posted by the consumer of a drained value (i.e. during the drain) is delivered by another drain. */
+    @Test
+    public void testCoalescingDuringDrain() throws Exception {
+        final NodeEventDispatcher dispatcher = new NodeEventDispatcher();
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Coalescer<String, String>> self = new ArrayList<>();
+        final Coalescer<String, String> coalescer = dispatcher.createCoalescer((key, value) -> {
+            m_delivered.add(value);
+            if ("progress1".equals(value)) {
+                self.get(0).post(key, "progress2");
+            } else {
+                done.countDown();
+            }
+        });
+        self.add(coalescer);
+        coalescer.post("progress", "progress1");
+        await(done);
+        assertThat(m_delivered, contains("progress1", "progress2"));
+    }
+
+    /** A failing listener doesn't stop the delivery of further notifications. */
+    @Test
+    public void testFailingNotification() throws Exception {
+        final NodeEventDispatcher dispatcher = new NodeEventDispatcher();
+        final CountDownLatch done = new CountDownLatch(1);
+        dispatcher.post(() -> {
+            throw new IllegalStateException("Failing listener (expected by test)");
+        });
+        dispatcher.post(record("after failure"));
+        dispatcher.post(done::countDown);
+        await(done);
+        assertThat(m_delivered, contains("after failure"));
+    }
+
+    /** Notifications posted by a listener (i.e. in the dispatcher thread) are delivered after the current one. */
+    @Test
+    public void testPostFromListener() throws Exception {
+        final NodeEventDispatcher dispatcher = new NodeEventDispatcher();
+        final CountDownLatch done = new CountDownLatch(1);
+        dispatcher.post(() -> {
+            dispatcher.post(record("nested"));
+            dispatcher.post(done::countDown);
+            m_delivered.add("outer");
+        });
+        await(done);
+        assertThat(m_delivered, contains("outer", "nested"));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.NodeTimer.ResourceUsage;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Tests the per-thread resource profiling of {@link NodeTimer}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeTimerTest {
+
+    private static final PortObject[] NO_PORTS = new PortObject[0];
+
+    /** Makes sure a failing test doesn't leave counters installed in the test thread. */
+    @After
+    public void tearDown() {
+        assertThat("Counters left in thread", ResourceUsage.current(), is(nullValue()));
+    }
+
+    /** Counters are installed while profiling and removed afterwards. */
+    @Test
+    public void testProfiling() {
+        final NodeTimer timer = new NodeTimer(null);
+        timer.startProfiling();
+        assertThat("Counters during profiling", ResourceUsage.current(), is(not(nullValue())));
+        ResourceUsage.current().addBytesWritten(42);
+        timer.endProfiling(NO_PORTS, NO_PORTS);
+        assertThat("Bytes written", timer.getLastExecutionProfile().getBytesWritten(), is(42L));
+    }
+
+    /** A node executing another node in the same thread gets its counters back when the inner node is done. */
+    @Test
+    public void testNestedProfilingRestoresOuterCounters() {
+        final NodeTimer outer = new NodeTimer(null);
+        final NodeTimer inner = new NodeTimer(null);
+        outer.startProfiling();
+        final ResourceUsage outerUsage = ResourceUsage.current();
+        outerUsage.addBytesWritten(1);
+
+        inner.startProfiling();
+        assertThat("Inner counters installed", ResourceUsage.current(), is(not(sameInstance(outerUsage))));
+        ResourceUsage.current().addBytesWritten(10);
+        inner.endProfiling(NO_PORTS, NO_PORTS);
+
+        assertThat("Outer counters restored", ResourceUsage.current(), is(sameInstance(outerUsage)));
+        ResourceUsage.current().addBytesWritten(100);
+        outer.endProfiling(NO_PORTS, NO_PORTS);
+
+        assertThat("Bytes written by inner node", inner.getLastExecutionProfile().getBytesWritten(), is(10L));
+        assertThat("Bytes written by outer node", outer.getLastExecutionProfile().getBytesWritten(), is(101L));
+    }
+
+    /** Repeated nesting (e.g. a loop of synchronous executions) restores the outer counters each time. */
+    @Test
+    public void testRepeatedNestedProfiling() {
+        final NodeTimer outer = new NodeTimer(null);
+        final NodeTimer inner = new NodeTimer(null);
+        outer.startProfiling();
+        final ResourceUsage outerUsage = ResourceUsage.current();
+        for (int i = 0; i < 3; i++) {
+            inner.startProfiling();
+            inner.endProfiling(NO_PORTS, NO_PORTS);
+            assertThat("Outer counters restored after execution " + i, ResourceUsage.current(),
+                is(sameInstance(outerUsage)));
+        }
+        outer.endProfiling(NO_PORTS, NO_PORTS);
+    }
+
+    /** Tasks created via {@link ThreadUtils} run with the counters of the submitting node and report their CPU time. */
+    @Test
+    public void testWorkerThreadCharged() throws InterruptedException {
+        final NodeTimer timer = new NodeTimer(null);
+        timer.startProfiling();
+        final ResourceUsage usage = ResourceUsage.current();
+        final AtomicReference<ResourceUsage> workerUsage = new AtomicReference<>();
+        final Thread worker = ThreadUtils.threadWithContext(() -> {
+            workerUsage.set(ResourceUsage.current());
+            ResourceUsage.current().addBytesWritten(5);
+        });
+        worker.start();
+        worker.join();
+        ThreadUtils.runnableWithContext(() -> ResourceUsage.current().addBytesWritten(1)).run();
+        assertThat("Counters kept after task in executing thread", ResourceUsage.current(), is(sameInstance(usage)));
+        timer.endProfiling(NO_PORTS, NO_PORTS);
+
+        final NodeTimer.ExecutionProfile profile = timer.getLastExecutionProfile();
+        assertThat("Counters in worker thread", workerUsage.get(), is(sameInstance(usage)));
+        assertThat("Bytes written by node and worker", profile.getBytesWritten(), is(6L));
+        assertThat("Worker CPU time", profile.getWorkerCpuTimeNanos(), is(greaterThanOrEqualTo(0L)));
+    }
+}
@@ -54,6 +54,7 @@
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.knime.core.data.RowKey;
 import org.knime.core.node.NodeLogger;
 
 import junit.framework.Assert;
@@ -232,6 +233,42 @@ private void internalTestArbitraryStrings(final boolean isAddDuplicates, final l
         }
     }
 
+    /**
+     * Sequential keys added in shuffled batches are tracked as ranges, duplicates are detected immediately.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSequentialKeysInBatches() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker();
+        for (int batch : new int[]{2, 0, 3, 1}) {
+            for (int i = batch * 1000; i < (batch + 1) * 1000; i++) {
+                checker.addKey(RowKey.createRowKey(i));
+            }
+        }
+        checker.addKey("Row01"); // not part of the sequence (leading zero)
+        checker.addKey("Other1");
+        checker.checkForDuplicates();
+        expectedException.expect(DuplicateKeyException.class);
+        checker.addKey(new RowKey("Row2500"));
+    }
+
+    /**
+     * Keys that don't fit into the ranges once their limit is hit are still checked against them.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSequentialKeysRangeLimit() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker(10);
+        for (int i = 0; i < 100; i += 2) {
+            checker.addKey(RowKey.createRowKey(i));
+        }
+        checker.addKey(RowKey.createRowKey(1));
+        expectedException.expect(DuplicateKeyException.class);
+        checker.addKey(RowKey.createRowKey(4));
+    }
+
     private static char getRandomSpecialChar(final Random rand) {
         switch (rand.nextInt(3)) {
         case 0 : return '%';
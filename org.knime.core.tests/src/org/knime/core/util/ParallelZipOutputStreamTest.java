@@ -0,0 +1,264 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ParallelZipOutputStream}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class ParallelZipOutputStreamTest {
+
+    /** Holds the written archives. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    /**
+     * Writes entries spanning several blocks, empty, stored and uncompressed entries and reads them back with
+     * {@link ZipInputStream} and {@link ZipFile}.
+     *
+     * @throws IOException if writing or reading fails
+     */
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final Random random = new Random(42);
+        final byte[] text = new byte[3 * ParallelZipOutputStream.BLOCK_SIZE + 12345];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte)('a' + random.nextInt(10));
+        }
+        final byte[] noise = new byte[2 * ParallelZipOutputStream.BLOCK_SIZE + 7];
+        random.nextBytes(noise);
+        final byte[] stored = "stored content".getBytes(StandardCharsets.UTF_8);
+        final CRC32 storedCrc = new CRC32();
+        storedCrc.update(stored);
+
+        final Map<String, byte[]> expected = new LinkedHashMap<>();
+        final File file = m_tempFolder.newFile("test.zip");
+        try (ParallelZipOutputStream zipOut = new ParallelZipOutputStream(new FileOutputStream(file), 4)) {
+            zipOut.putNextEntry(new ZipEntry("dir/"));
+            expected.put("dir/", new byte[0]);
+            zipOut.putNextEntry(new ZipEntry("dir/text.txt"));
+            for (int i = 0; i < text.length; i += 1000) {
+                zipOut.write(text, i, Math.min(1000, text.length - i));
+            }
+            expected.put("dir/text.txt", text);
+            zipOut.putNextEntry(new ZipEntry("empty"));
+            expected.put("empty", new byte[0]);
+            zipOut.setLevel(Deflater.NO_COMPRESSION);
+            zipOut.putNextEntry(new ZipEntry("noise.bin"));
+            zipOut.write(noise);
+            expected.put("noise.bin", noise);
+            zipOut.setLevel(Deflater.DEFAULT_COMPRESSION);
+            final ZipEntry storedEntry = new ZipEntry("stored.txt");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            storedEntry.setCrc(storedCrc.getValue());
+            zipOut.putNextEntry(storedEntry);
+            zipOut.write(stored);
+            expected.put("stored.txt", stored);
+            zipOut.putNextEntry(new ZipEntry("single_byte"));
+            zipOut.write(7);
+            expected.put("single_byte", new byte[]{7});
+            zipOut.setComment("archive comment");
+        }
+
+        try (ZipInputStream in = new ZipInputStream(new FileInputStream(file))) {
+            int count = 0;
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                assertArrayEquals("Content of " + entry.getName(), expected.get(entry.getName()), readFully(in));
+                count++;
+            }
+            assertEquals("Number of entries", expected.size(), count);
+        }
+        try (ZipFile zipFile = new ZipFile(file)) {
+            assertEquals("Number of entries", expected.size(), zipFile.size());
+            assertEquals("Archive comment", "archive comment", zipFile.getComment());
+            for (Map.Entry<String, byte[]> e : expected.entrySet()) {
+                final ZipEntry entry = zipFile.getEntry(e.getKey());
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    assertArrayEquals("Content of " + e.getKey(), e.getValue(), readFully(in));
+                }
+            }
+            assertEquals("Method of stored entry", ZipEntry.STORED, zipFile.getEntry("stored.txt").getMethod());
+            assertTrue("Text is compressed", zipFile.getEntry("dir/text.txt").getCompressedSize() < text.length / 2);
+        }
+    }
+
+    /**
+     * Writes many small and large entries, some with their size declared (correctly or not), so that blocks are
+     * grown and reused across entries.
+     *
+     * @throws IOException if writing or reading fails
+     */
+    @Test
+    public void testReusedBlocks() throws IOException {
+        final Random random = new Random(7);
+        final Map<String, byte[]> expected = new LinkedHashMap<>();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ParallelZipOutputStream zipOut = new ParallelZipOutputStream(bytes, 3)) {
+            for (int i = 0; i < 40; i++) {
+                final int size = i % 4 == 0 ? random.nextInt(3 * ParallelZipOutputStream.BLOCK_SIZE)
+                    : random.nextInt(20000);
+                final byte[] content = new byte[size];
+                for (int j = 0; j < size; j++) {
+                    content[j] = (byte)('a' + random.nextInt(i % 2 == 0 ? 4 : 26));
+                }
+                final ZipEntry entry = new ZipEntry("entry" + i);
+                if (i % 3 == 1) {
+                    entry.setSize(i % 2 == 0 ? size : size / 2);
+                }
+                zipOut.putNextEntry(entry);
+                for (int offset = 0; offset < size; offset += 70000) {
+                    zipOut.write(content, offset, Math.min(70000, size - offset));
+                }
+                expected.put(entry.getName(), content);
+            }
+        }
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            int count = 0;
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                assertArrayEquals("Content of " + entry.getName(), expected.get(entry.getName()), readFully(in));
+                count++;
+            }
+            assertEquals("Number of entries", expected.size(), count);
+        }
+    }
+
+    /**
+     * Entry names need to be unique, stored entries need to declare size and CRC.
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testInvalidEntries() throws IOException {
+        try (ParallelZipOutputStream zipOut =
+            new ParallelZipOutputStream(new FileOutputStream(m_tempFolder.newFile("invalid.zip")), 2)) {
+            zipOut.putNextEntry(new ZipEntry("a"));
+            try {
+                zipOut.putNextEntry(new ZipEntry("a"));
+                fail("Duplicate entry expected to fail");
+            } catch (ZipException e) {
+                // expected
+            }
+            final ZipEntry stored = new ZipEntry("b");
+            stored.setMethod(ZipEntry.STORED);
+            try {
+                zipOut.putNextEntry(stored);
+                fail("Stored entry without size and CRC expected to fail");
+            } catch (ZipException e) {
+                // expected
+            }
+        }
+    }
+
+    /** Tests combination of the CRC-32 of consecutive byte ranges. */
+    @Test
+    public void testCrc32Combine() {
+        final byte[] data = new byte[100000];
+        new Random(7).nextBytes(data);
+        final CRC32 first = new CRC32();
+        first.update(data, 0, 1234);
+        final CRC32 second = new CRC32();
+        second.update(data, 1234, data.length - 1234);
+        final CRC32 all = new CRC32();
+        all.update(data);
+        assertEquals("Combined CRC", all.getValue(),
+            ParallelZipOutputStream.crc32Combine(first.getValue(), second.getValue(), data.length - 1234));
+        assertEquals("Combined CRC with empty first range", second.getValue(),
+            ParallelZipOutputStream.crc32Combine(0L, second.getValue(), data.length - 1234));
+    }
+
+    /** Tests the detection of already compressed content by entry name. */
+    @Test
+    public void testIsCompressedFileName() {
+        assertTrue(ParallelZipOutputStream.isCompressedFileName("workflow/node (#1)/port_1/data.zip"));
+        assertTrue(ParallelZipOutputStream.isCompressedFileName("image.PNG"));
+        assertTrue(ParallelZipOutputStream.isCompressedFileName("table.bin.snappy"));
+        assertFalse(ParallelZipOutputStream.isCompressedFileName("settings.xml"));
+        assertFalse(ParallelZipOutputStream.isCompressedFileName("data.zip/content"));
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            result.write(buffer, 0, read);
+        }
+        return result.toByteArray();
+    }
+}
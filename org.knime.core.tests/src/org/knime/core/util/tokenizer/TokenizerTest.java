@@ -1585,4 +1585,148 @@ public void testAddWhiteSpaceCharacter() throws TokenizerException {
         token = ft.nextToken();
         assertNull(token);
     }
+    /**
+     * Tests that characters beyond 0xFF are not taken for special characters
+     * sharing the low byte.
+     *
+     * @throws TokenizerException if somethings goes wrong.
+     */
+    public void testNonLatinCharacters() throws TokenizerException {
+        // \u015C has the low byte of the backslash, \u0120 the one of space
+        String inputString = "a\u015C\nb, \u0120c\n\u00e4\u6f22\u5b57";
+        StringReader strReader = new StringReader(inputString);
+        TokenizerSettings fts = new TokenizerSettings();
+        Tokenizer ft = new Tokenizer(strReader);
+        fts.addDelimiterPattern(",", false, false, false);
+        fts.addDelimiterPattern("\n", false, false, false);
+        fts.setLineContinuationCharacter('\\');
+        fts.addWhiteSpaceCharacter(' ');
+        ft.setSettings(fts);
+
+        assertEquals("a\u015C", ft.nextToken());
+        assertEquals("b", ft.nextToken());
+        assertEquals("\u0120c", ft.nextToken());
+        assertEquals("\u00e4\u6f22\u5b57", ft.nextToken());
+        assertNull(ft.nextToken());
+        assertEquals(3, ft.getLineNumber());
+    }
+
+    /**
+     * Tests that the parallel tokenization returns the same tokens (and line
+     * numbers, read bytes, quotes and errors) as the sequential one.
+     *
+     * @throws TokenizerException if somethings goes wrong.
+     */
+    public void testParallelTokenization() throws TokenizerException {
+        StringBuilder input = new StringBuilder("header line, to skip\r\n");
+        for (int i = 0; i < 60000; i++) {
+            input.append(i).append(", \"quoted ").append(i % 97).append('"');
+            input.append(",'esc\\'aped',\"line\\\nbreak\",end\r\n");
+            if (i % 10000 == 5000) {
+                // new line in quotes, causes an exception
+                input.append("\"broken\nline,").append(i).append('\n');
+            }
+            if (i == 30000) {
+                // a line longer than the chunks read
+                for (int c = 0; c < 1500000; c++) {
+                    input.append((char)('a' + c % 26));
+                }
+                input.append('\n');
+            }
+        }
+        input.append("last, token");
+
+        TokenizerSettings fts = new TokenizerSettings();
+        fts.addDelimiterPattern(",", false, false, false);
+        fts.addDelimiterPattern("\n", false, false, false);
+        fts.addQuotePattern("\"", "\"", '\\');
+        fts.addQuotePattern("'", "'", '\\');
+        fts.addWhiteSpaceCharacter(' ');
+        fts.setSkipFirstLines(1);
+
+        Tokenizer sequential = new Tokenizer(new StringReader(input.toString()));
+        sequential.setSettings(fts);
+        Tokenizer parallel = new Tokenizer(new StringReader(input.toString()));
+        parallel.setSettings(fts);
+        parallel.setParallelTokenization(true);
+
+        int errors = 0;
+        boolean done = false;
+        for (int tokens = 0; !done; tokens++) {
+            String token;
+            String error = null;
+            try {
+                token = sequential.nextToken();
+            } catch (TokenizerException e) {
+                error = e.getMessage();
+                token = null;
+            }
+            try {
+                String parallelToken = parallel.nextToken();
+                assertNull("Expected exception: " + error, error);
+                assertEquals(token, parallelToken);
+            } catch (TokenizerException e) {
+                assertEquals(error, e.getMessage());
+                errors++;
+            }
+            assertEquals(sequential.getLineNumber(), parallel.getLineNumber());
+            assertEquals(sequential.getReadBytes(), parallel.getReadBytes());
+            assertEquals(sequential.getLastQuoteBeginPattern(),
+                    parallel.getLastQuoteBeginPattern());
+            assertEquals(sequential.lastTokenWasDelimited(),
+                    parallel.lastTokenWasDelimited());
+            if (tokens % 1000 == 0) {
+                sequential.pushBack();
+                parallel.pushBack();
+                assertEquals(sequential.nextToken(), parallel.nextToken());
+            }
+            done = token == null && error == null;
+        }
+        assertEquals(6, errors);
+        try {
+            parallel.setParallelTokenization(false);
+            fail("Settings must not be changed after reading");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that by default the tokenizer doesn't read beyond the characters
+     * it needs, and that reading ahead returns the same tokens.
+     *
+     * @throws Exception if somethings goes wrong.
+     */
+    public void testReadAhead() throws Exception {
+        StringReader strReader = new StringReader("a,b\nrest of the stream");
+        TokenizerSettings fts = new TokenizerSettings();
+        fts.addDelimiterPattern(",", false, false, false);
+        fts.addDelimiterPattern("\n", false, false, false);
+        Tokenizer ft = new Tokenizer(strReader);
+        ft.setSettings(fts);
+        assertEquals("a", ft.nextToken());
+        assertEquals("b", ft.nextToken());
+        char[] rest = new char[100];
+        int read = strReader.read(rest);
+        assertEquals("rest of the stream", new String(rest, 0, read));
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            input.append("token").append(i).append(",\"quoted, ").append(i);
+            input.append("\",\u00e4\u6f22\u5b57").append(i % 7).append('\n');
+        }
+        fts.addQuotePattern("\"", "\"");
+        Tokenizer charwise = new Tokenizer(new StringReader(input.toString()));
+        charwise.setSettings(fts);
+        Tokenizer blockwise =
+            new Tokenizer(new StringReader(input.toString()), true);
+        blockwise.setSettings(fts);
+        String token;
+        do {
+            token = charwise.nextToken();
+            assertEquals(token, blockwise.nextToken());
+            assertEquals(charwise.getLineNumber(), blockwise.getLineNumber());
+            assertEquals(charwise.getReadBytes(), blockwise.getReadBytes());
+        } while (token != null);
+    }
 } // TokenizerTest
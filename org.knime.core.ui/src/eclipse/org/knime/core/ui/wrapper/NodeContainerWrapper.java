@@ -84,6 +84,11 @@
 /**
  * UI-interface implementation that wraps a {@link NodeContainer}.
  *
+ * <p>
+ * Progress, message and state listeners (i.e. the figures of the workflow editor) are registered as asynchronous
+ * listeners of the node, they are notified by the dispatcher thread of the workflow rather than by the executing
+ * thread.
+ *
  * @author Martin Horn, University of Konstanz
  */
 public abstract class NodeContainerWrapper<W extends NodeContainer> extends AbstractWrapper<W>
@@ -173,22 +178,22 @@ public void clearWaitingLoopList() {
 
     @Override
     public boolean addProgressListener(final NodeProgressListener listener) {
-        return unwrap().addProgressListener(listener);
+        return unwrap().addAsyncProgressListener(listener);
     }
 
     @Override
     public boolean removeNodeProgressListener(final NodeProgressListener listener) {
-        return unwrap().removeNodeProgressListener(listener);
+        return unwrap().removeAsyncProgressListener(listener);
     }
 
     @Override
     public boolean addNodeMessageListener(final NodeMessageListener listener) {
-        return unwrap().addNodeMessageListener(listener);
+        return unwrap().addAsyncNodeMessageListener(listener);
     }
 
     @Override
     public boolean removeNodeMessageListener(final NodeMessageListener listener) {
-        return unwrap().removeNodeMessageListener(listener);
+        return unwrap().removeAsyncNodeMessageListener(listener);
     }
 
     @Override
@@ -231,12 +236,12 @@ public void setUIInformationForCorrection(final NodeUIInformation uiInfo) {
 
     @Override
     public boolean addNodeStateChangeListener(final NodeStateChangeListener listener) {
-        return unwrap().addNodeStateChangeListener(listener);
+        return unwrap().addAsyncNodeStateChangeListener(listener);
     }
 
     @Override
     public boolean removeNodeStateChangeListener(final NodeStateChangeListener listener) {
-        return unwrap().removeNodeStateChangeListener(listener);
+        return unwrap().removeAsyncNodeStateChangeListener(listener);
     }
 
     @Override
@@ -0,0 +1,211 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Saves an executed workflow with several dirty native nodes (and metanodes) concurrently, see
+ * {@link WorkflowSaveHelper#setNodeSaveThreadCount(int)}, and checks that the written settings and the reloaded
+ * workflow are the same as for a sequentially saved copy, and that failures and cancellation of the save propagate.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ConcurrentNodeSaveTest extends WorkflowTestCase {
+
+    private File m_sequentialDir;
+
+    private File m_concurrentDir;
+
+    private File m_saveAsDir;
+
+    /**
+     * Copies the test workflow twice.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        final File source = getWorkflowDirectory("enhWEBP269_DepthFirstNodeAndSuccessors");
+        m_sequentialDir = FileUtil.createTempDir(getClass().getSimpleName() + "-sequential");
+        m_concurrentDir = FileUtil.createTempDir(getClass().getSimpleName() + "-concurrent");
+        FileUtil.copyDir(source, m_sequentialDir);
+        FileUtil.copyDir(source, m_concurrentDir);
+        m_saveAsDir = FileUtil.createTempDir(getClass().getSimpleName() + "-saveAs");
+    }
+
+    /**
+     * Executes and saves both copies, one with a single thread and one with four threads.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testSaveExecutedNodesConcurrently() throws Exception {
+        final Map<Integer, InternalNodeContainerState> sequential = executeSaveAndReload(m_sequentialDir, 1);
+        final Map<Integer, InternalNodeContainerState> concurrent = executeSaveAndReload(m_concurrentDir, 4);
+        assertThat("Node states after concurrent save", concurrent, is(sequential));
+        assertThat("Number of saved nodes", concurrent.size() > 10, is(true));
+
+        final Map<String, String> sequentialSettings = readSettingsFiles(m_sequentialDir);
+        assertThat("Number of settings files", sequentialSettings.size() > concurrent.size(), is(true));
+        assertThat("Settings files after concurrent save", readSettingsFiles(m_concurrentDir), is(sequentialSettings));
+    }
+
+    /**
+     * A node that can't be written fails the concurrent save with the node's exception.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testSaveFailurePropagates() throws Exception {
+        setManager(loadWorkflow(m_concurrentDir, new ExecutionMonitor()).getWorkflowManager());
+        executeAllAndWait();
+        // a file where the node directory is to be created
+        Files.createFile(new File(m_saveAsDir, "Data Generator (#1)").toPath());
+        try {
+            getManager().save(m_saveAsDir, new WorkflowSaveHelper(true, false).setNodeSaveThreadCount(4),
+                new ExecutionMonitor());
+            fail("Save into a directory with a file in place of a node directory is expected to fail");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Canceling the monitor cancels the concurrent save.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testSaveCancellationPropagates() throws Exception {
+        setManager(loadWorkflow(m_concurrentDir, new ExecutionMonitor()).getWorkflowManager());
+        executeAllAndWait();
+        getManager().setDirty();
+        final ExecutionMonitor exec = new ExecutionMonitor();
+        exec.getProgressMonitor().setExecuteCanceled();
+        try {
+            getManager().save(m_concurrentDir, new WorkflowSaveHelper(true, false).setNodeSaveThreadCount(4), exec);
+            fail("Save with canceled monitor is expected to be canceled");
+        } catch (CanceledExecutionException e) {
+            // expected
+        }
+    }
+
+    private Map<Integer, InternalNodeContainerState> executeSaveAndReload(final File workflowDir,
+        final int threadCount) throws Exception {
+        setManager(loadWorkflow(workflowDir, new ExecutionMonitor()).getWorkflowManager());
+        executeAllAndWait();
+        final Map<Integer, InternalNodeContainerState> statesBeforeSave = getStates(getManager());
+        getManager().setDirty();
+        final WorkflowSaveHelper saveHelper =
+            new WorkflowSaveHelper(true, false).setNodeSaveThreadCount(threadCount);
+        getManager().save(workflowDir, saveHelper, new ExecutionMonitor());
+        closeWorkflow();
+
+        setManager(loadWorkflow(workflowDir, new ExecutionMonitor()).getWorkflowManager());
+        final Map<Integer, InternalNodeContainerState> statesAfterLoad = getStates(getManager());
+        assertThat("Node states after reload (" + threadCount + " thread(s))", statesAfterLoad, is(statesBeforeSave));
+        closeWorkflow();
+        return statesAfterLoad;
+    }
+
+    /** Node states by node index. */
+    private static Map<Integer, InternalNodeContainerState> getStates(final WorkflowManager wfm) {
+        final Map<Integer, InternalNodeContainerState> states = new TreeMap<>();
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            states.put(nc.getID().getIndex(), nc.getInternalState());
+        }
+        return states;
+    }
+
+    /**
+     * The workflow.knime and node settings.xml files below the argument directory by relative path. File store IDs
+     * are random per execution and therefore masked.
+     */
+    private static Map<String, String> readSettingsFiles(final File workflowDir) throws IOException {
+        final Path root = workflowDir.toPath();
+        final Map<String, String> result = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>)files::iterator) {
+                final String name = file.getFileName().toString();
+                if (name.equals(WorkflowPersistor.WORKFLOW_FILE) || name.equals("settings.xml")) {
+                    final String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                    result.put(root.relativize(file).toString(),
+                        content.replaceAll("<entry key=\"file_store_id\" [^>]*>", ""));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        FileUtil.deleteRecursively(m_sequentialDir);
+        FileUtil.deleteRecursively(m_concurrentDir);
+        FileUtil.deleteRecursively(m_saveAsDir);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Executes a parallel chunk loop with fewer loop body copies than chunks (see
+ * {@link KNIMEConstants#PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT}), i.e. the copies are reset and reused for the
+ * remaining chunks, and checks that the result is the same as with one copy per chunk and that file stores created
+ * by a reused copy remain available.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelChunkBodyReuseTest extends WorkflowTestCase {
+
+    private File m_tmpWorkflowDir;
+
+    /**
+     * Copies the test workflow and sets a fixed number of chunks.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_tmpWorkflowDir = FileUtil.createTempDir(getClass().getSimpleName());
+        FileUtil.copyDir(getWorkflowDirectory("bug6432_ParallelLoops"), m_tmpWorkflowDir);
+        final Path startSettings = m_tmpWorkflowDir.toPath().resolve("Parallel Chunk Start (#14)/settings.xml");
+        final String settings = new String(Files.readAllBytes(startSettings), StandardCharsets.UTF_8);
+        Files.write(startSettings, settings.replace("key=\"chunkCount\" type=\"xint\" value=\"-1\"",
+            "key=\"chunkCount\" type=\"xint\" value=\"6\"").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Two body copies for six chunks.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testReuseBodyCopies() throws Exception {
+        final List<String> expected = executeAndGetResult(null);
+        assertThat("Rows in result", expected.isEmpty(), is(false));
+        assertThat("Result with reused body copies", executeAndGetResult(2), is(expected));
+    }
+
+    /**
+     * A single body copy processing all chunks one after the other.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testSingleBodyCopy() throws Exception {
+        final List<String> expected = executeAndGetResult(null);
+        assertThat("Result with a single body copy", executeAndGetResult(1), is(expected));
+    }
+
+    /**
+     * The loop body creates file store cells. Their file stores must still be readable after the body copy that
+     * created them was reset and reused for another chunk, i.e. when the end node concatenates the chunks and when
+     * the node after the loop reads the cells.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testReusedBodyCreatesFileStores() throws Exception {
+        final File workflowDir = FileUtil.createTempDir(getClass().getSimpleName());
+        try {
+            FileUtil.copyDir(getWorkflowDirectory("parallelChunkFileStores"), workflowDir);
+            System.setProperty(KNIMEConstants.PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT, "2");
+            final NodeID baseID = loadAndSetWorkflow(workflowDir);
+            final NodeID testFileStores = new NodeID(baseID, 19);
+            executeAllAndWait();
+            checkState(testFileStores, InternalNodeContainerState.EXECUTED);
+            checkState(getManager(), InternalNodeContainerState.EXECUTED);
+            // read the file stores once more, they are only disposed when the loop start is reset
+            reset(testFileStores);
+            executeAllAndWait();
+            checkState(testFileStores, InternalNodeContainerState.EXECUTED);
+            closeWorkflow();
+        } finally {
+            FileUtil.deleteRecursively(workflowDir);
+        }
+    }
+
+    private List<String> executeAndGetResult(final Integer maxConcurrentChunks) throws Exception {
+        if (maxConcurrentChunks == null) {
+            System.clearProperty(KNIMEConstants.PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT);
+        } else {
+            System.setProperty(KNIMEConstants.PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT,
+                Integer.toString(maxConcurrentChunks));
+        }
+        final NodeID baseID = loadAndSetWorkflow(m_tmpWorkflowDir);
+        final NodeID loopEnd = new NodeID(baseID, 10);
+        executeAllAndWait();
+        checkState(getManager(), InternalNodeContainerState.EXECUTED);
+        final BufferedDataTable table =
+            (BufferedDataTable)getManager().getNodeContainer(loopEnd).getOutPort(1).getPortObject();
+        final List<String> rows = new ArrayList<>();
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                rows.add(row.toString());
+            }
+        }
+        closeWorkflow();
+        return rows;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(KNIMEConstants.PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT);
+        super.tearDown();
+        FileUtil.deleteRecursively(m_tmpWorkflowDir);
+    }
+}
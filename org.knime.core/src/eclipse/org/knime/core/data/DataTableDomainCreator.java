@@ -46,23 +46,31 @@
  */
 package org.knime.core.data;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.knime.core.data.DataColumnMetaDataCalculators.MetaDataCalculator;
 import org.knime.core.data.container.BlobWrapperDataCell;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.DataContainerSettings;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.util.CheckUtils;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Create or recreate domain of a data table. The original spec has to be given in the constructor. The possible values
@@ -99,6 +107,9 @@ public class DataTableDomainCreator {
 
     private final MetaDataCalculator[] m_metaDataCalculators;
 
+    /** Number of rows per batch if a table is scanned in parallel. */
+    private static final int PARALLEL_BATCH_SIZE = 2048;
+
     /** The batch id. */
     private long m_batchId;
 
@@ -285,12 +296,7 @@ private void updateMinMax(final int col, final DataCell cell, final DataCell[] m
         final DataValueComparator[] comparators) {
         final boolean isMissing = cell.isMissing();
 
-        if (!isMissing && m_possVals[col] != null) {
-            if (m_possVals[col].putIfAbsent(cell, m_batchId) == null
-                && (m_possVals[col].size() > m_maxPossibleValues)) {
-                m_possVals[col] = null;
-            }
-        }
+        updatePossibleValues(col, cell);
 
         if (mins[col] == null || isMissing) {
             return;
@@ -307,6 +313,15 @@ private void updateMinMax(final int col, final DataCell cell, final DataCell[] m
         updateMax(col, maxs, unwrapped, comparator);
     }
 
+    private void updatePossibleValues(final int col, final DataCell cell) {
+        if (!cell.isMissing() && m_possVals[col] != null) {
+            if (m_possVals[col].putIfAbsent(cell, m_batchId) == null
+                && (m_possVals[col].size() > m_maxPossibleValues)) {
+                m_possVals[col] = null;
+            }
+        }
+    }
+
     private void updateMin(final int col, final DataCell[] mins, final DataCell cell,
         final Comparator<DataCell> comparator) {
         if (m_minsMissing[col] || (comparator.compare(cell, mins[col]) < 0)) {
@@ -398,6 +413,131 @@ public void updateDomain(final DataRow row) {
         }
     }
 
+    /**
+     * Updates the domain values with a batch of rows, processing one column at a time. For columns whose cells are
+     * compared as double, int or long values (e.g. columns of {@link org.knime.core.data.def.DoubleCell}s) min and max
+     * are determined on the primitive values without calling the comparator. The result is the same as calling
+     * {@link #updateDomain(DataRow)} for each row.
+     *
+     * @param rows the rows, whose structure must match the table spec that has been provided to the constructor
+     * @since 4.4
+     */
+    public void updateDomain(final List<? extends DataRow> rows) {
+        for (int col = 0; col < m_inputSpec.getNumColumns(); col++) {
+            final Class<?> comparatorClass = m_mins[col] == null ? null : m_comparators[col].getClass();
+            int processed = 0;
+            if (comparatorClass == DoubleValueComparator.class) {
+                processed = updateDoubleColumn(col, rows);
+            } else if (comparatorClass == IntValueComparator.class || comparatorClass == LongValueComparator.class) {
+                processed = updateIntegralColumn(col, rows, comparatorClass == IntValueComparator.class);
+            }
+            // remaining rows, e.g. after a cell whose value is not of the column's primitive type
+            final MetaDataCalculator metaDataCalculator = m_metaDataCalculators[col];
+            for (int r = processed; r < rows.size(); r++) {
+                final DataCell cell = rows.get(r).getCell(col);
+                updateMinMax(col, cell, m_mins, m_maxs, m_comparators);
+                metaDataCalculator.update(cell);
+            }
+        }
+    }
+
+    /**
+     * Updates a column compared by {@link DoubleValueComparator}, i.e. by {@link Double#compare(double, double)}.
+     *
+     * @return the number of rows processed, less than the number of rows if a cell is not a {@link DoubleValue}
+     */
+    private int updateDoubleColumn(final int col, final List<? extends DataRow> rows) {
+        boolean hasMin = !m_minsMissing[col];
+        boolean hasMax = !m_maxs[col].isMissing();
+        if ((hasMin && (!(m_mins[col] instanceof DoubleValue) || isNaN(m_mins[col])))
+            || (hasMax && (!(m_maxs[col] instanceof DoubleValue) || isNaN(m_maxs[col])))) {
+            return 0;
+        }
+        double min = hasMin ? ((DoubleValue)m_mins[col]).getDoubleValue() : 0;
+        double max = hasMax ? ((DoubleValue)m_maxs[col]).getDoubleValue() : 0;
+        final MetaDataCalculator metaDataCalculator = m_metaDataCalculators[col];
+        for (int r = 0; r < rows.size(); r++) {
+            final DataCell cell = rows.get(r).getCell(col);
+            final DataCell unwrapped = (cell instanceof BlobWrapperDataCell) ? ((BlobWrapperDataCell)cell).getCell() : cell;
+            if (!cell.isMissing() && !(unwrapped instanceof DoubleValue)) {
+                return r;
+            }
+            updatePossibleValues(col, cell);
+            metaDataCalculator.update(cell);
+            if (cell.isMissing()) {
+                continue;
+            }
+            final double value = ((DoubleValue)unwrapped).getDoubleValue();
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (!hasMin || Double.compare(value, min) < 0) {
+                min = value;
+                hasMin = true;
+                m_mins[col] = unwrapped;
+                m_minsMissing[col] = false;
+            }
+            if (!hasMax || Double.compare(value, max) > 0) {
+                max = value;
+                hasMax = true;
+                m_maxs[col] = unwrapped;
+                m_maxsMissing[col] = false;
+            }
+        }
+        return rows.size();
+    }
+
+    /**
+     * Updates a column compared by {@link IntValueComparator} or {@link LongValueComparator}.
+     *
+     * @return the number of rows processed, less than the number of rows if a cell is not an {@link IntValue}
+     *         (respectively {@link LongValue})
+     */
+    private int updateIntegralColumn(final int col, final List<? extends DataRow> rows, final boolean isInt) {
+        boolean hasMin = !m_minsMissing[col];
+        boolean hasMax = !m_maxs[col].isMissing();
+        if ((hasMin && !isIntegral(m_mins[col], isInt)) || (hasMax && !isIntegral(m_maxs[col], isInt))) {
+            return 0;
+        }
+        long min = hasMin ? getIntegral(m_mins[col], isInt) : 0;
+        long max = hasMax ? getIntegral(m_maxs[col], isInt) : 0;
+        final MetaDataCalculator metaDataCalculator = m_metaDataCalculators[col];
+        for (int r = 0; r < rows.size(); r++) {
+            final DataCell cell = rows.get(r).getCell(col);
+            final DataCell unwrapped = (cell instanceof BlobWrapperDataCell) ? ((BlobWrapperDataCell)cell).getCell() : cell;
+            if (!cell.isMissing() && !isIntegral(unwrapped, isInt)) {
+                return r;
+            }
+            updatePossibleValues(col, cell);
+            metaDataCalculator.update(cell);
+            if (cell.isMissing()) {
+                continue;
+            }
+            final long value = getIntegral(unwrapped, isInt);
+            if (!hasMin || value < min) {
+                min = value;
+                hasMin = true;
+                m_mins[col] = unwrapped;
+                m_minsMissing[col] = false;
+            }
+            if (!hasMax || value > max) {
+                max = value;
+                hasMax = true;
+                m_maxs[col] = unwrapped;
+                m_maxsMissing[col] = false;
+            }
+        }
+        return rows.size();
+    }
+
+    private static boolean isIntegral(final DataCell cell, final boolean isInt) {
+        return isInt ? cell instanceof IntValue : cell instanceof LongValue;
+    }
+
+    private static long getIntegral(final DataCell cell, final boolean isInt) {
+        return isInt ? ((IntValue)cell).getIntValue() : ((LongValue)cell).getLongValue();
+    }
+
     /**
      * Updates the domain values by scanning a whole table. Note that the table's structure must match the table spec
      * that has been provided to the constructor.
@@ -467,7 +607,130 @@ public void updateDomain(final DataTable table, final ExecutionMonitor exec, fin
      */
     public void updateDomain(final BufferedDataTable table, final ExecutionMonitor exec)
         throws CanceledExecutionException {
-        updateDomain(table, exec, table.size());
+        final int nrThreads =
+            Math.min(Runtime.getRuntime().availableProcessors(), KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads());
+        if (nrThreads < 2 || table.size() < 2L * PARALLEL_BATCH_SIZE) {
+            updateDomain(table, exec, table.size());
+        } else {
+            updateDomainInParallel(table, exec, nrThreads);
+        }
+    }
+
+    /**
+     * Scans the table with several copies of this instance, each of which processes whole batches of rows. The rows
+     * are still read by a single iterator (reading is sequential anyway), batch ids are handed out in reading order
+     * so that the possible values keep the order of their occurrence after merging. Package-private for tests.
+     */
+    void updateDomainInParallel(final BufferedDataTable table, final ExecutionMonitor exec,
+        final int nrThreads) throws CanceledExecutionException {
+        if (!m_inputSpec.equalStructure(table.getDataTableSpec())) {
+            throw new IllegalArgumentException("Spec of table to scan does not match spec given in constructor");
+        }
+        final DataTableDomainCreator[] creators = new DataTableDomainCreator[nrThreads];
+        for (int i = 0; i < nrThreads; i++) {
+            creators[i] = new DataTableDomainCreator(this);
+        }
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(nrThreads - 1);
+        final List<Future<?>> futures = new ArrayList<>(nrThreads - 1);
+        try (final BatchReader reader = new BatchReader(table, exec, m_batchId)) {
+            for (int i = 1; i < nrThreads; i++) {
+                final DataTableDomainCreator creator = creators[i];
+                futures.add(pool.enqueue(() -> {
+                    reader.processAll(creator);
+                    return null;
+                }));
+            }
+            final Callable<Void> processAndWait = () -> {
+                reader.processAll(creators[0]);
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+                return null;
+            };
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null) {
+                // don't block a slot of the pool we are running in
+                currentPool.runInvisible(processAndWait);
+            } else {
+                processAndWait.call();
+            }
+            for (final DataTableDomainCreator creator : creators) {
+                merge(creator);
+            }
+            m_batchId = reader.m_nextBatchId;
+        } catch (Exception e) { // NOSONAR all exceptions are unwrapped and rethrown
+            futures.forEach(f -> f.cancel(true));
+            Throwable cause = e;
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException("Interrupted while computing domain");
+            }
+            throw new IllegalStateException("Computing domain failed: " + cause.getMessage(), cause);
+        }
+        if (exec != null) {
+            exec.setProgress(1.0);
+        }
+    }
+
+    /** Hands out consecutive batches of rows of a table to the threads computing the domain. */
+    private static final class BatchReader implements AutoCloseable {
+
+        private final CloseableRowIterator m_iterator;
+
+        private final ExecutionMonitor m_exec;
+
+        private final long m_rowCount;
+
+        private long m_rowIndex;
+
+        private long m_nextBatchId;
+
+        BatchReader(final BufferedDataTable table, final ExecutionMonitor exec, final long firstBatchId) {
+            m_iterator = table.iterator();
+            m_exec = exec;
+            m_rowCount = table.size();
+            m_nextBatchId = firstBatchId;
+        }
+
+        /**
+         * Fills the list with the next batch of rows and sets the batch id of the creator accordingly.
+         *
+         * @return whether there were any rows left
+         */
+        private synchronized boolean next(final List<DataRow> batch, final DataTableDomainCreator creator)
+            throws CanceledExecutionException {
+            if (m_exec != null) {
+                m_exec.checkCanceled();
+                final long row = m_rowIndex;
+                m_exec.setProgress(row / (double)m_rowCount, () -> String.format("Row %,d/%,d", row, m_rowCount));
+            }
+            batch.clear();
+            while (batch.size() < PARALLEL_BATCH_SIZE && m_iterator.hasNext()) {
+                batch.add(m_iterator.next());
+            }
+            m_rowIndex += batch.size();
+            creator.setBatchId(m_nextBatchId++);
+            return !batch.isEmpty();
+        }
+
+        void processAll(final DataTableDomainCreator creator) throws CanceledExecutionException {
+            final List<DataRow> batch = new ArrayList<>(PARALLEL_BATCH_SIZE);
+            while (next(batch, creator)) {
+                creator.updateDomain(batch);
+            }
+        }
+
+        @Override
+        public void close() {
+            m_iterator.close();
+        }
     }
 
     /**
@@ -222,7 +222,28 @@ public String toString() {
      * {@link org.knime.core.data.DataValue} implementation.
      */
     private static final Map<ClassAndSubDataTypePair, DataType>
-        CLASS_TO_TYPE_MAP = new HashMap<ClassAndSubDataTypePair, DataType>();
+        CLASS_TO_TYPE_MAP = new ConcurrentHashMap<ClassAndSubDataTypePair, DataType>();
+
+    /**
+     * Canonical instances of non-native types, i.e. types without cell class that are created by
+     * {@link #getCommonSuperType(DataType, DataType)} or {@link #load(ConfigRO)}. Interning them lets equal types share
+     * the subtype cache ({@link #m_subTypes}) and the entries in {@link #COMMON_SUPER_TYPE_CACHE}. Interning is only an
+     * optimization (equality doesn't depend on it), the map is cleared once it holds
+     * {@value #MAX_NON_NATIVE_TYPES} entries so that it doesn't grow with every type ever loaded.
+     */
+    private static final Map<NonNativeTypeKey, DataType> NON_NATIVE_TYPES = new ConcurrentHashMap<>();
+
+    /** Maximum number of entries in {@link #NON_NATIVE_TYPES}, the map is cleared when exceeded. */
+    private static final int MAX_NON_NATIVE_TYPES = 4096;
+
+    /** Maximum number of entries in {@link #COMMON_SUPER_TYPE_CACHE}, the cache is cleared when exceeded. */
+    private static final int MAX_COMMON_SUPER_TYPE_CACHE_SIZE = 4096;
+
+    /**
+     * Results of {@link #getCommonSuperType(DataType, DataType)}, which is called for each column whenever specs are
+     * merged (e.g. in loop ends that concatenate many iterations).
+     */
+    private static final Map<TypePair, DataType> COMMON_SUPER_TYPE_CACHE = new ConcurrentHashMap<>();
 
     /**
      * The String representation comparator. Fall back comparator if no other is
@@ -381,14 +402,37 @@ public static DataType getCommonSuperType(final DataType type1,
             return type1;
         }
 
-        // handles also the equals case
-        if (type1.isASuperTypeOf(type2)) {
+        if (type1 == type2) {
             return type1;
         }
-        if (type2.isASuperTypeOf(type1)) {
-            return type2;
+
+        final TypePair key = new TypePair(type1, type2);
+        DataType result = COMMON_SUPER_TYPE_CACHE.get(key);
+        if (result == null) {
+            // handles also the equals case
+            if (type1.isASuperTypeOf(type2)) {
+                result = type1;
+            } else if (type2.isASuperTypeOf(type1)) {
+                result = type2;
+            } else {
+                result = intern(new DataType(type1, type2));
+            }
+            if (COMMON_SUPER_TYPE_CACHE.size() >= MAX_COMMON_SUPER_TYPE_CACHE_SIZE) {
+                COMMON_SUPER_TYPE_CACHE.clear();
+            }
+            COMMON_SUPER_TYPE_CACHE.put(key, result);
+        }
+        return result;
+    }
+
+    /** @return the canonical instance of a non-native type that is equal (in all its fields) to the argument */
+    private static DataType intern(final DataType nonNativeType) {
+        assert nonNativeType.m_cellClass == null;
+        if (NON_NATIVE_TYPES.size() >= MAX_NON_NATIVE_TYPES) {
+            NON_NATIVE_TYPES.clear();
         }
-        return new DataType(type1, type2);
+        final DataType existing = NON_NATIVE_TYPES.putIfAbsent(new NonNativeTypeKey(nonNativeType), nonNativeType);
+        return existing == null ? nonNativeType : existing;
     }
 
     /**
@@ -501,8 +545,10 @@ public static DataType getType(final Class<? extends DataCell> cell) {
         ClassAndSubDataTypePair key = new ClassAndSubDataTypePair(cell, null, null);
         DataType result = CLASS_TO_TYPE_MAP.get(key);
         if (result == null) {
+            // no computeIfAbsent, creating a type may request other types
             result = new DataType(cell, null, Collections.EMPTY_LIST);
-            CLASS_TO_TYPE_MAP.put(key, result);
+            final DataType existing = CLASS_TO_TYPE_MAP.putIfAbsent(key, result);
+            result = existing == null ? result : existing;
         }
         return result;
     }
@@ -556,7 +602,8 @@ public static DataType getType(final Class<? extends DataCell> cellClass,
         DataType result = CLASS_TO_TYPE_MAP.get(key);
         if (result == null) {
             result = new DataType(cellClass, collectionElementType, adapterList);
-            CLASS_TO_TYPE_MAP.put(key, result);
+            final DataType existing = CLASS_TO_TYPE_MAP.putIfAbsent(key, result);
+            result = existing == null ? result : existing;
         }
         return result;
     }
@@ -665,7 +712,7 @@ public static DataType load(final ConfigRO config)
         String[] valueClassNames = config.getStringArray(CFG_VALUE_CLASSES);
         List<Class<? extends DataValue>> valueClasses = getClasses(valueClassNames);
         try {
-            return new DataType(valueClasses, collectionElementType, adapterClasses);
+            return intern(new DataType(valueClasses, collectionElementType, adapterClasses));
         } catch (IllegalArgumentException iae) {
             throw new InvalidSettingsException(iae);
         }
@@ -1426,6 +1473,63 @@ private static String stripEnd(final String toStrip, final String... ends) {
         return result;
     }
 
+    /** Key of {@link #COMMON_SUPER_TYPE_CACHE}, compares the types by identity as equal types may differ in cell class. */
+    private static final class TypePair {
+        private final DataType m_type1;
+        private final DataType m_type2;
+
+        TypePair(final DataType type1, final DataType type2) {
+            m_type1 = type1;
+            m_type2 = type2;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(m_type1) + System.identityHashCode(m_type2);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof TypePair)) {
+                return false;
+            }
+            final TypePair p = (TypePair)obj;
+            return p.m_type1 == m_type1 && p.m_type2 == m_type2;
+        }
+    }
+
+    /**
+     * Key of {@link #NON_NATIVE_TYPES}. Unlike {@link DataType#equals(Object)} it respects the order of the value
+     * classes (which determines the order of renderers) and compares the element types by identity.
+     */
+    private static final class NonNativeTypeKey {
+        private final List<Class<? extends DataValue>> m_valueClasses;
+        private final List<Class<? extends DataValue>> m_adapterList;
+        private final DataType m_elementDataType;
+
+        NonNativeTypeKey(final DataType type) {
+            m_valueClasses = type.m_valueClasses;
+            m_adapterList = type.m_adapterValueList;
+            m_elementDataType = type.m_collectionElementType;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * m_valueClasses.hashCode() + m_adapterList.hashCode()) * 31
+                + System.identityHashCode(m_elementDataType);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof NonNativeTypeKey)) {
+                return false;
+            }
+            final NonNativeTypeKey k = (NonNativeTypeKey)obj;
+            return k.m_elementDataType == m_elementDataType && k.m_valueClasses.equals(m_valueClasses)
+                && k.m_adapterList.equals(m_adapterList);
+        }
+    }
+
     private static final class ClassAndSubDataTypePair {
         private final Class<? extends DataCell> m_cellClass;
         private final DataType m_elementDataType;
@@ -52,6 +52,7 @@
 import java.util.UUID;
 
 import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.filestore.internal.ContentDeduplicationIndex;
 import org.knime.core.data.filestore.internal.IFileStoreHandler;
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 
@@ -152,4 +153,15 @@ public interface IDataRepository {
      */
     void printValidFileStoreHandlersToLogDebug();
 
+    /**
+     * The index used to store identical file store content only once, present if content deduplication is enabled
+     * and the repository spans a workflow.
+     *
+     * @return the index, empty if file stores are to be copied as is
+     * @since 4.4
+     */
+    default Optional<ContentDeduplicationIndex> getContentDeduplicationIndex() {
+        return Optional.empty();
+    }
+
 }
\ No newline at end of file
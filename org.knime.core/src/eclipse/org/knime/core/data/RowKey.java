@@ -55,13 +55,33 @@
 /**
  * Key for a specific row which holds an identifier of type {@link String}.
  *
+ * <p>
+ * Keys of the form <i>prefix + index</i> (as created by {@link #createRowKey(long)}) are held in a numeric
+ * representation; their string is only materialized when requested. Equality and hash code are the same as for the
+ * key created from the materialized string.
+ *
  * @see DataRow
  * @author Michael Berthold, University of Konstanz
  */
 public final class RowKey implements RowKeyValue {
 
-    /** Private member holding non-null row id. */
-    private final String m_id;
+    /** Maximum number of digits in a sequence index, guarantees that the index fits into a long. */
+    private static final int MAX_SEQUENCE_DIGITS = 18;
+
+    /** Largest index with {@link #MAX_SEQUENCE_DIGITS} digits. */
+    private static final long MAX_SEQUENCE_INDEX = 999_999_999_999_999_999L;
+
+    /** Private member holding row id, non-null unless the key is numeric and not yet materialized. */
+    private String m_id;
+
+    /** Prefix of a numeric key, never ends with a digit; null if the key was created from a string. */
+    private final String m_prefix;
+
+    /** Index of a numeric key, non-negative; -1 if the key was created from a string. */
+    private final long m_index;
+
+    /** Cached hash code of a numeric key, 0 if not yet computed (same idiom as in {@link String}). */
+    private int m_hash;
 
     /**
      * Creates a row key based on a {@link String}.
@@ -74,12 +94,25 @@ public RowKey(final String id) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_id = id;
+        m_prefix = null;
+        m_index = -1L;
+    }
+
+    /** Numeric key, arguments are validated in {@link #createRowKey(String, long)}. */
+    private RowKey(final String prefix, final long index) {
+        m_prefix = prefix;
+        m_index = index;
     }
 
     /** @return Underlying string of this row key. */
     @Override
     public String getString() {
-        return m_id;
+        String id = m_id;
+        if (id == null) {
+            id = m_prefix.concat(Long.toString(m_index));
+            m_id = id;
+        }
+        return id;
     }
 
     /** {@inheritDoc} */
@@ -88,6 +121,55 @@ public String toString() {
         return getString();
     }
 
+    /**
+     * Returns the index of this key if it is of the form <i>prefix + index</i>, whereby the index is a non-negative
+     * number without leading zeros (and at most {@value #MAX_SEQUENCE_DIGITS} digits) and the prefix does not end with
+     * a digit. This decomposition is unique, e.g. <code>"Row17"</code> has prefix <code>"Row"</code> and index 17.
+     *
+     * @return the index or -1 if the key is not of that form
+     * @since 4.4
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public long getSequenceIndex() {
+        if (m_prefix != null) {
+            return m_index;
+        }
+        final int prefixLength = getSequencePrefixLength(m_id);
+        return prefixLength < 0 ? -1L : Long.parseLong(m_id.substring(prefixLength));
+    }
+
+    /**
+     * Returns the prefix of this key if it is of the form <i>prefix + index</i>, see {@link #getSequenceIndex()}.
+     *
+     * @return the prefix or null if the key is not of that form
+     * @since 4.4
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public String getSequencePrefix() {
+        if (m_prefix != null) {
+            return m_prefix;
+        }
+        final int prefixLength = getSequencePrefixLength(m_id);
+        return prefixLength < 0 ? null : m_id.substring(0, prefixLength);
+    }
+
+    /** Length of the prefix if the argument is of the form prefix + index, or -1. */
+    private static int getSequencePrefixLength(final String id) {
+        int prefixLength = id.length();
+        while (prefixLength > 0 && isDigit(id.charAt(prefixLength - 1))) {
+            prefixLength--;
+        }
+        final int digits = id.length() - prefixLength;
+        if (digits == 0 || digits > MAX_SEQUENCE_DIGITS || (digits > 1 && id.charAt(prefixLength) == '0')) {
+            return -1;
+        }
+        return prefixLength;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean equals(final Object obj) {
@@ -95,9 +177,14 @@ public boolean equals(final Object obj) {
             return true;
         }
         if (obj instanceof RowKey) {
-            return ((RowKey)obj).m_id.equals(m_id);
+            final RowKey other = (RowKey)obj;
+            if (m_prefix != null && other.m_prefix != null) {
+                // the decomposition into prefix and index is unique
+                return m_index == other.m_index && m_prefix.equals(other.m_prefix);
+            }
+            return other.getString().equals(getString());
         } else if (obj instanceof RowKeyValue) {
-            return ((RowKeyValue)obj).getString().equals(m_id);
+            return ((RowKeyValue)obj).getString().equals(getString());
         }
         return false;
     }
@@ -107,7 +194,23 @@ public boolean equals(final Object obj) {
      */
     @Override
     public int hashCode() {
-        return m_id.hashCode();
+        if (m_prefix == null) {
+            return m_id.hashCode();
+        }
+        int h = m_hash;
+        if (h == 0) {
+            // same as getString().hashCode(), without materializing the string
+            h = m_prefix.hashCode();
+            long pow = 1;
+            while (pow <= m_index / 10) {
+                pow *= 10;
+            }
+            for (; pow > 0; pow /= 10) {
+                h = 31 * h + ('0' + (int)(m_index / pow % 10));
+            }
+            m_hash = h;
+        }
+        return h;
     }
 
     /**
@@ -159,7 +262,7 @@ public static RowKey[] toRowKeys(final String... strs) {
      */
     @Deprecated
     public static RowKey createRowKey(final int rowIndex) {
-        return new RowKey("Row" + rowIndex);
+        return createRowKey((long)rowIndex);
     }
 
     /**
@@ -176,6 +279,26 @@ public static RowKey createRowKey(final int rowIndex) {
      * @since 3.0
      */
     public static RowKey createRowKey(final long rowIndex) {
-        return new RowKey("Row" + rowIndex);
+        return createRowKey("Row", rowIndex);
+    }
+
+    /**
+     * Creates a key of the form <code>prefix + index</code>. If the index is non-negative and the prefix does not end
+     * with a digit, the key is held in a numeric representation and its string is only created when requested.
+     *
+     * @param prefix the prefix, not null
+     * @param index the index
+     * @return A new key of the form <code>prefix + index</code>
+     * @throws NullPointerException if the prefix is <code>null</code>
+     * @since 4.4
+     */
+    public static RowKey createRowKey(final String prefix, final long index) {
+        if (prefix == null) {
+            throw new NullPointerException("Prefix must not be null.");
+        }
+        if (index < 0 || index > MAX_SEQUENCE_INDEX || (!prefix.isEmpty() && isDigit(prefix.charAt(prefix.length() - 1)))) {
+            return new RowKey(prefix + index);
+        }
+        return new RowKey(prefix, index);
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataValue;
+
+/**
+ * Common base of the list cells that store their elements in a primitive array (e.g. {@link DoubleListCell}). Such
+ * lists can't contain missing values; the {@link DataCell} elements are created on access only. They are equal to
+ * {@link ListCell}s and to each other if the elements are, other list implementations are never equal to them.
+ * <p>
+ * There are no such variants of {@link SetCell}: a set needs the element cells for hashing and de-duplication
+ * anyway, so a primitive array would not save the per-element cell objects.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class AbstractPrimitiveListCell extends DataCell implements ListDataValue {
+
+    @Override
+    public Iterator<DataCell> iterator() {
+        return new Iterator<DataCell>() {
+            private int m_index;
+
+            @Override
+            public boolean hasNext() {
+                return m_index < size();
+            }
+
+            @Override
+            public DataCell next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(m_index++);
+            }
+        };
+    }
+
+    @Override
+    public boolean containsBlobWrapperCells() {
+        return false;
+    }
+
+    /** Equal to {@link ListCell}s and other primitive list cells with the same elements. */
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        return (otherValue instanceof ListCell || otherValue instanceof AbstractPrimitiveListCell)
+            && equalElements(this, (ListDataValue)otherValue);
+    }
+
+    /**
+     * @param v1 the first list
+     * @param v2 the second list
+     * @return whether both lists have the same size and equal elements at all positions
+     */
+    static boolean equalElements(final ListDataValue v1, final ListDataValue v2) {
+        if (v1 == v2) {
+            return true;
+        }
+        final int size = v1.size();
+        if (size != v2.size()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!v1.get(i).equals(v2.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder("[");
+        for (int i = 0, size = size(); i < size; i++) {
+            b.append(i == 0 ? "" : ", ").append(get(i));
+        }
+        return b.append(']').toString();
+    }
+}
@@ -53,6 +53,10 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.container.BlobSupportDataRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.node.BufferedDataTable;
 
 import java.util.ArrayList;
@@ -210,6 +214,118 @@ public static SparseListCell createSparseListCell(
                 elementIdxs, defaultElement);
     }
 
+    /**
+     * Creates a {@link DoubleListCell}, a list cell that stores its elements in
+     * a primitive array.
+     *
+     * @param values the elements, the array is copied
+     * @return a new list cell
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static DoubleListCell createDoubleListCell(final double[] values) {
+        return DoubleListCell.create(values);
+    }
+
+    /**
+     * Creates an {@link IntListCell}, a list cell that stores its elements in
+     * a primitive array.
+     *
+     * @param values the elements, the array is copied
+     * @return a new list cell
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static IntListCell createIntListCell(final int[] values) {
+        return IntListCell.create(values);
+    }
+
+    /**
+     * Creates a {@link LongListCell}, a list cell that stores its elements in
+     * a primitive array.
+     *
+     * @param values the elements, the array is copied
+     * @return a new list cell
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static LongListCell createLongListCell(final long[] values) {
+        return LongListCell.create(values);
+    }
+
+    /**
+     * Creates a {@link StringListCell}, a list cell that stores its elements in
+     * a string array.
+     *
+     * @param values the elements, the array is copied
+     * @return a new list cell
+     * @throws NullPointerException If the argument is null.
+     * @throws IllegalArgumentException If any element is null.
+     * @since 4.4
+     */
+    public static StringListCell createStringListCell(final String[] values) {
+        return StringListCell.create(values);
+    }
+
+    /**
+     * Creates a list cell for the elements in the collection, using one of the
+     * primitive array based list cells ({@link DoubleListCell},
+     * {@link IntListCell}, {@link LongListCell}, {@link StringListCell}) if
+     * all elements are of the same corresponding cell class (and none is
+     * missing), otherwise a {@link ListCell} as per
+     * {@link #createListCell(Collection)}. The type of the returned cell
+     * therefore depends on the content; the column type should be determined
+     * from the created cells or declared as the more general
+     * {@link ListCell#getCollectionType(DataType)}, which all of them are
+     * compatible to.
+     *
+     * @param coll The underlying collection.
+     * @return The newly created list cell.
+     * @throws NullPointerException If the argument is null or contains null
+     *             values.
+     * @since 4.4
+     */
+    public static DataCell createCompactListCell(
+            final Collection<? extends DataCell> coll) {
+        if (coll.isEmpty()) {
+            return createListCell(coll);
+        }
+        final Class<? extends DataCell> cellClass =
+            coll.iterator().next().getClass();
+        for (DataCell c : coll) {
+            if (c.getClass() != cellClass) {
+                return createListCell(coll);
+            }
+        }
+        int i = 0;
+        if (cellClass == DoubleCell.class) {
+            final double[] values = new double[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((DoubleCell)c).getDoubleValue();
+            }
+            return DoubleListCell.wrap(values);
+        } else if (cellClass == IntCell.class) {
+            final int[] values = new int[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((IntCell)c).getIntValue();
+            }
+            return IntListCell.wrap(values);
+        } else if (cellClass == LongCell.class) {
+            final long[] values = new long[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((LongCell)c).getLongValue();
+            }
+            return LongListCell.wrap(values);
+        } else if (cellClass == StringCell.class) {
+            final String[] values = new String[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((StringCell)c).getStringValue();
+            }
+            return StringListCell.wrap(values);
+        }
+        return createListCell(coll);
+    }
+
     /**
      * Factory method to create a {@link SetCell} that contains a data cell set
      * based on a collection.
@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * {@link ListDataValue} of {@link IntCell} elements that stores the values in a <code>int[]</code>. Compared to a
+ * {@link ListCell} no cell object is kept per element and the serialized form has no per-element header. Elements
+ * are returned as new {@link IntCell}s by {@link #get(int)} and {@link #iterator()}; use the typed accessors to
+ * avoid that. The list can't contain missing values.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ * @see CollectionCellFactory#createIntListCell(int[])
+ */
+public final class IntListCell extends AbstractPrimitiveListCell {
+
+    /** The type of this cell, a collection type with element type {@link IntCell#TYPE}. */
+    public static final DataType TYPE = DataType.getType(IntListCell.class, IntCell.TYPE);
+
+    private final int[] m_values;
+
+    private IntListCell(final int[] values) {
+        m_values = values;
+    }
+
+    /**
+     * Creates a new cell with a copy of the argument array.
+     *
+     * @param values the elements of the list
+     * @return a new cell
+     */
+    static IntListCell create(final int[] values) {
+        return new IntListCell(values.clone());
+    }
+
+    /** Creates a new cell that takes ownership of the argument array. */
+    static IntListCell wrap(final int[] values) {
+        return new IntListCell(values);
+    }
+
+    @Override
+    public DataType getElementType() {
+        return IntCell.TYPE;
+    }
+
+    @Override
+    public DataCell get(final int index) {
+        return new IntCell(m_values[index]);
+    }
+
+    @Override
+    public int size() {
+        return m_values.length;
+    }
+
+    /**
+     * @param index the index of the element
+     * @return the element at the given position
+     * @throws ArrayIndexOutOfBoundsException if the index is invalid
+     */
+    public int getInt(final int index) {
+        return m_values[index];
+    }
+
+    /**
+     * @return a copy of the elements
+     */
+    public int[] getIntArray() {
+        return m_values.clone();
+    }
+
+    /**
+     * @return an iterator over the int elements
+     */
+    public PrimitiveIterator.OfInt intIterator() {
+        return Arrays.stream(m_values).iterator();
+    }
+
+    @Override
+    protected boolean equalsDataCell(final DataCell dc) {
+        return Arrays.equals(m_values, ((IntListCell)dc).m_values);
+    }
+
+    /** Same as the hash code of a {@link ListCell} with the same elements. */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(m_values);
+    }
+
+    /**
+     * Serializer for {@link IntListCell}s, writes the number of elements followed by the values.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class IntListCellSerializer implements DataCellSerializer<IntListCell> {
+
+        @Override
+        public void serialize(final IntListCell cell, final DataCellDataOutput output) throws IOException {
+            output.writeInt(cell.m_values.length);
+            for (int v : cell.m_values) {
+                output.writeInt(v);
+            }
+        }
+
+        @Override
+        public IntListCell deserialize(final DataCellDataInput input) throws IOException {
+            final int[] values = new int[input.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = input.readInt();
+            }
+            return new IntListCell(values);
+        }
+    }
+}
@@ -58,6 +58,7 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.DataValue;
 
 /**
  * Default implementation of a {@link CollectionDataValue}, whereby the
@@ -143,6 +144,16 @@ protected boolean equalsDataCell(final DataCell dc) {
         return m_list.equals(((ListCell)dc).m_list);
     }
 
+    /**
+     * A list cell is equal to the primitive array based list cells (e.g. {@link DoubleListCell}) with the same
+     * elements; all other list implementations are compared by class as before.
+     */
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        return otherValue instanceof AbstractPrimitiveListCell
+            && AbstractPrimitiveListCell.equalElements(this, (ListDataValue)otherValue);
+    }
+
     /** {@inheritDoc} */
     @Override
     public int hashCode() {
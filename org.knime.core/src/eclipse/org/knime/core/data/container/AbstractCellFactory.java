@@ -62,7 +62,9 @@
  * <p>As of v2.5 the input table can be processed concurrently. This property
  * should only be set if (i) the processing of an individual row is expensive,
  * i.e. takes significantly longer than pure I/O and (ii) there are no
- * interdependency between the row calculations.
+ * interdependency between the row calculations. As of v4.4 consecutive rows
+ * are processed in batches whose size is adapted to the measured cost per row,
+ * which reduces the overhead for rather cheap calculations.
  *
  * @see SingleCellFactory
  * @author Bernd Wiswedel, University of Konstanz
@@ -175,8 +177,9 @@ public final boolean isParallelProcessing() {
      * @param maxParallelWorkers The number of parallel execution threads to
      * process the rows. This value may be overruled by the global thread pool
      * limit.
-     * @param maxQueueSize The number of finished calculations that are stored
-     * in memory before further executions are paused. (Background: The rows
+     * @param maxQueueSize The number of rows that are submitted for calculation
+     * or finished but not yet added to the output before further executions are
+     * paused; it also bounds the batch size per worker. (Background: The rows
      * are processed in the order defined by the input table's iterator. If a
      * certain row computation takes long the framework needs to temporarily
      * cache the results of the following rows - the cache size is determined
@@ -0,0 +1,511 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.core.data.container.BlobDataCell.BlobAddress;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Append-only store for the blobs of a {@link Buffer}. The serialized (and possibly compressed) blobs of a column are
+ * appended to a single segment file <code>col_&lt;i&gt;.blobs</code>; the index file <code>col_&lt;i&gt;.index</code>
+ * next to it lists the start and end offset of each blob, so that a {@link BlobAddress} is resolved via its index in
+ * the column. Blobs are read with positional reads, which may run concurrently to each other and to appending further
+ * blobs. Read channels are shared by the streams of a segment and closed again once too many of them are idle.
+ *
+ * <p>
+ * If {@link KNIMEConstants#PROPERTY_CONTENT_DEDUPLICATION content deduplication} is enabled, a blob whose serialized
+ * bytes equal those of a blob written before to the same column is not stored again; its index entry refers to the
+ * byte range of the earlier blob instead.
+ *
+ * <p>
+ * Replaces the layout of one file per blob as written by versions prior to {@link Buffer#IVERSION_COMPACT_FORMAT},
+ * which for tables with many blobs is dominated by the cost of creating, zipping and deleting files.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlobSegmentStore {
+
+    private static final String SEGMENT_SUFFIX = ".blobs";
+
+    private static final String INDEX_SUFFIX = ".index";
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final boolean DEF_DEDUPLICATE = Boolean.getBoolean(KNIMEConstants.PROPERTY_CONTENT_DEDUPLICATION);
+
+    /**
+     * Maximum number of read channels kept open while no blob is read from them, so that reading the blobs of a table
+     * column by column doesn't reopen the segment file for each blob, but a table with many blob columns doesn't keep
+     * a file handle per column.
+     */
+    static final int MAX_IDLE_READ_CHANNELS = 4;
+
+    /** The directory containing the segment and index files. */
+    private final File m_dir;
+
+    /** The segments by column index, guarded by the store. */
+    private final Map<Integer, Segment> m_segments = new HashMap<>();
+
+    /** Whether identical blobs of a column share their byte range in the segment. */
+    private final boolean m_deduplicate;
+
+    /** Segments with an open read channel but no open stream, least recently used first; guarded by the store. */
+    private final Set<Segment> m_idleReadSegments = new LinkedHashSet<>();
+
+    /**
+     * @param dir the directory containing the segment and index files, not null (it does not need to exist if blobs
+     *            are only written)
+     */
+    BlobSegmentStore(final File dir) {
+        this(dir, DEF_DEDUPLICATE);
+    }
+
+    /**
+     * @param dir the directory containing the segment and index files, not null (it does not need to exist if blobs
+     *            are only written)
+     * @param deduplicate whether blobs with the same content as a blob written before to the same column are stored
+     *            only once
+     */
+    BlobSegmentStore(final File dir, final boolean deduplicate) {
+        m_dir = CheckUtils.checkArgumentNotNull(dir);
+        m_deduplicate = deduplicate;
+    }
+
+    /**
+     * Opens a stream to which the next blob of the argument column is to be written. The blob is added to the index
+     * when the stream is closed; blobs of a column need to be written one after the other.
+     *
+     * @param column the column of the blob
+     * @param indexInColumn the index of the blob in the column, needs to be the number of blobs written so far
+     * @return a stream to write the serialized blob to
+     * @throws IOException if the segment file can't be opened or the blob is not the next one in the column
+     */
+    synchronized OutputStream append(final int column, final int indexInColumn) throws IOException {
+        return getSegment(column).append(indexInColumn);
+    }
+
+    /**
+     * Opens a stream on the serialized blob with the given coordinates.
+     *
+     * @param column the column of the blob
+     * @param indexInColumn the index of the blob in the column
+     * @return a stream on the blob's bytes, to be closed by the caller
+     * @throws IOException if the blob doesn't exist or the segment file can't be opened
+     */
+    InputStream openInputStream(final int column, final int indexInColumn) throws IOException {
+        final Segment segment;
+        final long start;
+        final long end;
+        final FileChannel channel;
+        synchronized (this) {
+            segment = getSegment(column);
+            start = segment.getStartOffset(indexInColumn);
+            end = segment.getEndOffset(indexInColumn);
+            channel = segment.acquireReadChannel();
+            m_idleReadSegments.remove(segment);
+        }
+        return new SegmentInputStream(segment, channel, start, end);
+    }
+
+    /**
+     * Called when a stream returned by {@link #openInputStream(int, int)} is closed. If no other stream reads from the
+     * segment its channel becomes idle; the least recently used idle channels are closed if there are more than
+     * {@value #MAX_IDLE_READ_CHANNELS}.
+     */
+    private synchronized void releaseReadChannel(final Segment segment) {
+        if (!segment.releaseReadChannel()) {
+            return;
+        }
+        m_idleReadSegments.remove(segment);
+        m_idleReadSegments.add(segment);
+        while (m_idleReadSegments.size() > MAX_IDLE_READ_CHANNELS) {
+            final Iterator<Segment> eldest = m_idleReadSegments.iterator();
+            eldest.next().closeForReading();
+            eldest.remove();
+        }
+    }
+
+    /** @return the number of segment files currently open for reading (for tests) */
+    synchronized int getNrOpenReadChannels() {
+        return (int)m_segments.values().stream().filter(Segment::isOpenForReading).count();
+    }
+
+    /** Closes the files used for writing, they are re-opened when further blobs are appended. */
+    synchronized void closeForWriting() {
+        for (Segment segment : m_segments.values()) {
+            segment.closeForWriting();
+        }
+    }
+
+    /** Closes all files, pending reads will fail. */
+    synchronized void close() {
+        for (Segment segment : m_segments.values()) {
+            segment.closeForWriting();
+            segment.closeForReading();
+        }
+        m_segments.clear();
+        m_idleReadSegments.clear();
+    }
+
+    private Segment getSegment(final int column) {
+        return m_segments.computeIfAbsent(column, c -> new Segment(new File(m_dir, "col_" + c + SEGMENT_SUFFIX),
+            new File(m_dir, "col_" + c + INDEX_SUFFIX)));
+    }
+
+    /** The segment and index file of a single column. All methods are called while holding the store's lock. */
+    private final class Segment {
+
+        private final File m_segmentFile;
+
+        private final File m_indexFile;
+
+        /** Start and end offsets of the blobs in the segment (two entries per blob), lazily read from the index. */
+        private long[] m_offsets;
+
+        private int m_blobCount;
+
+        /** The end of the data in the segment file, where the next blob is appended. */
+        private long m_dataEnd;
+
+        /** Blob index by content digest of the blobs written in this session, only used when deduplicating. */
+        private Map<ByteBuffer, Integer> m_blobsByDigest;
+
+        private FileChannel m_readChannel;
+
+        /** Number of open streams reading from {@link #m_readChannel}. */
+        private int m_nrReaders;
+
+        private FileChannel m_writeChannel;
+
+        private DataOutputStream m_indexOut;
+
+        private boolean m_isAppending;
+
+        Segment(final File segmentFile, final File indexFile) {
+            m_segmentFile = segmentFile;
+            m_indexFile = indexFile;
+        }
+
+        OutputStream append(final int indexInColumn) throws IOException {
+            ensureIndexRead();
+            CheckUtils.checkState(!m_isAppending, "Previous blob of column not completely written");
+            if (indexInColumn != m_blobCount) {
+                throw new IOException("Blobs need to be appended in order, expected index " + m_blobCount
+                    + " but got " + indexInColumn + " (file \"" + m_segmentFile.getAbsolutePath() + "\")");
+            }
+            if (m_writeChannel == null) {
+                final boolean isNew = !m_segmentFile.exists();
+                if (isNew && !m_dir.isDirectory() && !m_dir.mkdirs()) {
+                    throw new IOException("Unable to create directory " + m_dir.getAbsolutePath());
+                }
+                m_writeChannel = FileChannel.open(m_segmentFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+                m_writeChannel.position(m_dataEnd);
+                m_indexOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(m_indexFile, true)));
+                if (isNew) {
+                    Buffer.onFileCreated(m_segmentFile);
+                }
+            }
+            m_isAppending = true;
+            final MessageDigest digest = m_deduplicate ? newDigest() : null;
+            return new FilterOutputStream(new BufferedOutputStream(Channels.newOutputStream(m_writeChannel))) {
+
+                private boolean m_isClosed;
+
+                @Override
+                public void write(final int b) throws IOException {
+                    out.write(b);
+                    if (digest != null) {
+                        digest.update((byte)b);
+                    }
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    out.write(b, off, len);
+                    if (digest != null) {
+                        digest.update(b, off, len);
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // the channel stays open for the next blob
+                    if (!m_isClosed) {
+                        m_isClosed = true;
+                        out.flush();
+                        onBlobWritten(digest == null ? null : ByteBuffer.wrap(digest.digest()));
+                    }
+                }
+            };
+        }
+
+        private void onBlobWritten(final ByteBuffer digest) throws IOException {
+            synchronized (BlobSegmentStore.this) {
+                m_isAppending = false;
+                long start = m_dataEnd;
+                long end = m_writeChannel.position();
+                final Integer duplicate = digest == null ? null : getBlobsByDigest().get(digest);
+                if (duplicate != null) {
+                    // drop the bytes just written, the blob refers to the range of its earlier copy
+                    m_writeChannel.truncate(m_dataEnd);
+                    m_writeChannel.position(m_dataEnd);
+                    start = m_offsets[2 * duplicate];
+                    end = m_offsets[2 * duplicate + 1];
+                } else {
+                    m_dataEnd = end;
+                    if (digest != null) {
+                        getBlobsByDigest().put(digest, m_blobCount);
+                    }
+                }
+                if (2 * m_blobCount == m_offsets.length) {
+                    m_offsets = Arrays.copyOf(m_offsets, Math.max(32, 4 * m_blobCount));
+                }
+                m_offsets[2 * m_blobCount] = start;
+                m_offsets[2 * m_blobCount + 1] = end;
+                m_blobCount++;
+                m_indexOut.writeLong(start);
+                m_indexOut.writeLong(end);
+                m_indexOut.flush();
+            }
+        }
+
+        private Map<ByteBuffer, Integer> getBlobsByDigest() {
+            if (m_blobsByDigest == null) {
+                m_blobsByDigest = new HashMap<>();
+            }
+            return m_blobsByDigest;
+        }
+
+        long getStartOffset(final int indexInColumn) throws IOException {
+            checkIndex(indexInColumn);
+            return m_offsets[2 * indexInColumn];
+        }
+
+        long getEndOffset(final int indexInColumn) throws IOException {
+            checkIndex(indexInColumn);
+            return m_offsets[2 * indexInColumn + 1];
+        }
+
+        private void checkIndex(final int indexInColumn) throws IOException {
+            ensureIndexRead();
+            if (indexInColumn < 0 || indexInColumn >= m_blobCount) {
+                throw new IOException("No blob at index " + indexInColumn + " in file \""
+                    + m_segmentFile.getAbsolutePath() + "\" (" + m_blobCount + " blobs)");
+            }
+        }
+
+        /** @return the channel to read from, to be released with {@link #releaseReadChannel()} */
+        FileChannel acquireReadChannel() throws IOException {
+            if (m_readChannel == null) {
+                m_readChannel = FileChannel.open(m_segmentFile.toPath(), StandardOpenOption.READ);
+            }
+            m_nrReaders++;
+            return m_readChannel;
+        }
+
+        /** @return whether the channel is still open but no stream reads from it anymore */
+        boolean releaseReadChannel() {
+            m_nrReaders = Math.max(0, m_nrReaders - 1);
+            return m_nrReaders == 0 && m_readChannel != null;
+        }
+
+        boolean isOpenForReading() {
+            return m_readChannel != null;
+        }
+
+        private void ensureIndexRead() throws IOException {
+            if (m_offsets != null) {
+                return;
+            }
+            if (!m_indexFile.exists()) {
+                m_offsets = new long[32];
+                m_blobCount = 0;
+                m_dataEnd = 0L;
+                return;
+            }
+            final int count = (int)(m_indexFile.length() / (2 * Long.BYTES));
+            final long[] offsets = new long[Math.max(32, 2 * count)];
+            long dataEnd = 0L;
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(m_indexFile.toPath()))) {
+                for (int i = 0; i < 2 * count; i++) {
+                    offsets[i] = in.readLong();
+                    dataEnd = Math.max(dataEnd, offsets[i]);
+                }
+            } catch (EOFException eof) {
+                throw new IOException("Blob index file \"" + m_indexFile.getAbsolutePath() + "\" is truncated", eof);
+            }
+            m_offsets = offsets;
+            m_blobCount = count;
+            m_dataEnd = dataEnd;
+        }
+
+        void closeForWriting() {
+            m_isAppending = false;
+            closeQuietly(m_indexOut);
+            closeQuietly(m_writeChannel);
+            m_indexOut = null;
+            m_writeChannel = null;
+        }
+
+        void closeForReading() {
+            closeQuietly(m_readChannel);
+            m_readChannel = null;
+            m_nrReaders = 0;
+        }
+
+        private void closeQuietly(final AutoCloseable closeable) {
+            if (closeable != null) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    // nothing written anymore or buffer is cleared anyway
+                }
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the byte range of a single blob from a segment via positional reads. The channel is shared with other
+     * streams of the segment, closing the stream releases it.
+     */
+    private final class SegmentInputStream extends InputStream {
+
+        private final Segment m_segment;
+
+        private final FileChannel m_channel;
+
+        private final long m_end;
+
+        private long m_position;
+
+        private boolean m_isClosed;
+
+        SegmentInputStream(final Segment segment, final FileChannel channel, final long start, final long end) {
+            m_segment = segment;
+            m_channel = channel;
+            m_position = start;
+            m_end = end;
+        }
+
+        @Override
+        public void close() {
+            if (!m_isClosed) {
+                m_isClosed = true;
+                releaseReadChannel(m_segment);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xFF);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (m_position >= m_end) {
+                return -1;
+            }
+            final int length = (int)Math.min(len, m_end - m_position);
+            final int read = m_channel.read(ByteBuffer.wrap(b, off, length), m_position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of blob segment file");
+            }
+            m_position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final long skipped = Math.max(0L, Math.min(n, m_end - m_position));
+            m_position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int)Math.min(Integer.MAX_VALUE, m_end - m_position);
+        }
+    }
+}
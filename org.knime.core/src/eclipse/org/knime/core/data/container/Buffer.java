@@ -126,6 +126,7 @@
 import org.knime.core.data.util.memory.MemoryAlert;
 import org.knime.core.data.util.memory.MemoryAlertListener;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.v2.RowCursor;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
@@ -137,6 +138,7 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeTimer;
 import org.knime.core.node.workflow.WorkflowContext;
 import org.knime.core.node.workflow.WorkflowManager;
 import org.knime.core.util.FileUtil;
@@ -272,10 +274,18 @@ public class Buffer implements KNIMEStreamConstants {
     private static final String CFG_SIZE_L = "table.size.long";
 
     /** Current version string. */
-    public static final String VERSION = "container_12";
+    public static final String VERSION = "container_13";
 
     /** The version number corresponding to {@link #VERSION}. */
-    public static final int IVERSION = 12;
+    public static final int IVERSION = 13;
+
+    /**
+     * The first version (4.4) with the compact format: rows are written in row groups in which columns of primitive
+     * cells are stored as blocks of raw values (see {@link PrimitiveColumnBlock}), row keys are encoded relative to
+     * their predecessor, other primitive and missing cells are written without a block terminator and blobs are stored
+     * in a {@link BlobSegmentStore} rather than one file per blob.
+     */
+    static final int IVERSION_COMPACT_FORMAT = 13;
 
     private static final HashMap<String, Integer> COMPATIBILITY_MAP;
 
@@ -292,7 +302,8 @@ public class Buffer implements KNIMEStreamConstants {
         COMPATIBILITY_MAP.put("container_9", 9); // never released - some workflow tests contain it (BW used a nightly)
         COMPATIBILITY_MAP.put("container_10", 10); // version 3.6 (multiple table formats)
         COMPATIBILITY_MAP.put("container_11", 11); // version 3.7 - add FileStoreCell support for multiple FileStores
-        COMPATIBILITY_MAP.put(VERSION, IVERSION); // version 3.8 - changed default compression to Snappy
+        COMPATIBILITY_MAP.put("container_12", 12); // version 3.8 - changed default compression to Snappy
+        COMPATIBILITY_MAP.put(VERSION, IVERSION); // version 4.4 - compact row keys, primitives and blob segments
         // NOTE consider to also
         // - increment the workflow.knime version number when updating this list
         // - update list in NoKeyBuffer
@@ -307,7 +318,7 @@ public class Buffer implements KNIMEStreamConstants {
     private static final Set<WeakReference<Buffer>> OPENBUFFERS =
         Collections.synchronizedSet(new HashSet<WeakReference<Buffer>>());
 
-    /** Number of dirs/files per directory when blobs are saved. */
+    /** Number of dirs/files per directory when blobs are saved (prior to {@link #IVERSION_COMPACT_FORMAT}). */
     private static final int BLOB_ENTRIES_PER_DIRECTORY = 1000;
 
     /**
@@ -463,6 +474,9 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
     /** The directory where blob cells are stored or null if none available. */
     private File m_blobDir;
 
+    /** The store of the blobs in {@link #m_blobDir}, set together with that field (if version permits). */
+    private volatile BlobSegmentStore m_blobStore;
+
     /** true if any row contained in this buffer contains blob cells. */
     private boolean m_containsBlobs;
 
@@ -527,6 +541,9 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
     /** maximum number of rows that are in memory. */
     private final int m_maxRowsInMem;
 
+    /** Resource counters of the node that created this buffer for writing, null if not profiled. */
+    private NodeTimer.ResourceUsage m_resourceUsage;
+
     /**
      * A table held in memory while still being modifiable and before being added to the cache. This is only ever true
      * when the writing buffer is not closed and rows are still being added to it. Setting this field to
@@ -649,6 +666,7 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         m_dataRepository = dataRepository;
         m_spec = spec;
         m_outputFormat = m_bufferSettings.getOutputFormat(m_spec);
+        m_resourceUsage = NodeTimer.ResourceUsage.current();
         BufferTracker.getInstance().bufferCreated(this);
     }
 
@@ -696,6 +714,7 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         m_spec = spec;
         m_binFile = binFile;
         m_blobDir = blobDir;
+        m_blobStore = blobDir == null ? null : new BlobSegmentStore(blobDir);
         m_bufferID = bufferID;
         if (dataRepository == null) {
             LOGGER
@@ -1058,9 +1077,7 @@ private DataCell handleIncomingBlob(final DataCell cell, final int col, final in
                 if (b != null && !isToCloneForVersionHop) {
                     int indexBlobInCol = m_indicesOfBlobInColumns[col]++;
                     rewrite.setIndexOfBlobInColumn(indexBlobInCol);
-                    File source = b.getBlobFile(ad.getIndexOfBlobInColumn(), ad.getColumn(), false, ad.isUseCompression());
-                    File dest = getBlobFile(indexBlobInCol, col, true, ad.isUseCompression());
-                    FileUtil.copy(source, dest);
+                    copyBlob(b, ad, indexBlobInCol, col, ad.isUseCompression());
                     wc = new BlobWrapperDataCell(this, rewrite, cl);
                 } else {
                     BlobDataCell bc;
@@ -1115,7 +1132,6 @@ private void writeBlobDataCell(final BlobDataCell cell, final BlobAddress a) thr
         int indexInColumn = m_indicesOfBlobInColumns[column]++;
         a.setIndexOfBlobInColumn(indexInColumn);
         boolean isToCompress = Buffer.isUseCompressionForBlobs(CellClassInfo.get(cell));
-        File outFile = getBlobFile(indexInColumn, column, true, isToCompress);
         BlobAddress originalBA = cell.getBlobAddress();
         if (!Objects.equals(originalBA, a)) {
             int originalBufferIndex = originalBA.getBufferID();
@@ -1130,21 +1146,16 @@ private void writeBlobDataCell(final BlobDataCell cell, final BlobAddress a) thr
                 }
             }
             if (originalBuffer != null) {
-                int index = originalBA.getIndexOfBlobInColumn();
-                int col = originalBA.getColumn();
-                boolean compress = originalBA.isUseCompression();
-                File source = originalBuffer.getBlobFile(index, col, false, compress);
-                FileUtil.copy(source, outFile);
+                copyBlob(originalBuffer, originalBA, indexInColumn, column, isToCompress);
                 return;
             }
         }
 
-        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(outFile));
+        try (final OutputStream out = createBlobOutputStream(indexInColumn, column, isToCompress);
                 final BlockableDCObjectOutputVersion2 outStream = new BlockableDCObjectOutputVersion2(
                     isToCompress ? new BufferedOutputStream(new GZIPOutputStream(out)) : out)) {
             // buffering the gzip stream brings another performance boost
             // (in one case from 5mins down to 2 mins)
-            Buffer.onFileCreated(outFile);
             if (ser != null) { // DataCell is datacell-serializable
                 outStream.writeDataCellPerKNIMESerializer(ser, cell);
             } else {
@@ -1153,6 +1164,62 @@ private void writeBlobDataCell(final BlobDataCell cell, final BlobAddress a) thr
         }
     }
 
+    /**
+     * Copies the serialized bytes of a blob owned by another buffer to this buffer.
+     *
+     * @param source the buffer owning the blob
+     * @param sourceAddress the address of the blob in the source buffer
+     * @param indexInColumn the index of the copy in this buffer
+     * @param column the column of the copy in this buffer
+     * @param isCompressed whether the copy is stored compressed
+     */
+    private void copyBlob(final Buffer source, final BlobAddress sourceAddress, final int indexInColumn,
+        final int column, final boolean isCompressed) throws IOException {
+        try (InputStream in = source.openBlobInputStream(sourceAddress.getIndexOfBlobInColumn(),
+            sourceAddress.getColumn(), sourceAddress.isUseCompression());
+                OutputStream out = createBlobOutputStream(indexInColumn, column, isCompressed)) {
+            FileUtil.copy(in, out);
+        }
+    }
+
+    /**
+     * Opens a stream to write the serialized (and possibly compressed) blob with the given coordinates to. Blobs are
+     * appended to the {@link BlobSegmentStore} unless this buffer was written with a version that stores them in
+     * individual files.
+     */
+    private OutputStream createBlobOutputStream(final int indexBlobInCol, final int column,
+        final boolean isCompressed) throws IOException {
+        if (m_version < IVERSION_COMPACT_FORMAT) {
+            final File outFile = getBlobFile(indexBlobInCol, column, true, isCompressed);
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(outFile));
+            Buffer.onFileCreated(outFile);
+            return out;
+        }
+        ensureBlobDirExists();
+        return m_blobStore.append(column, indexBlobInCol);
+    }
+
+    /**
+     * Opens a stream on the serialized (and possibly compressed) blob with the given coordinates.
+     *
+     * @param indexBlobInCol The index in the column (generally the row number).
+     * @param column The column index.
+     * @param isCompressed If the blob is compressed
+     * @return The stream, to be closed by the caller.
+     * @throws IOException If that fails (e.g. blob dir does not exist).
+     */
+    InputStream openBlobInputStream(final int indexBlobInCol, final int column, final boolean isCompressed)
+        throws IOException {
+        if (m_version < IVERSION_COMPACT_FORMAT) {
+            return new FileInputStream(getBlobFile(indexBlobInCol, column, false, isCompressed));
+        }
+        final BlobSegmentStore blobStore = m_blobStore;
+        if (blobStore == null) {
+            throw new IOException("No blobs stored in table (blob directory not set or already deleted)");
+        }
+        return blobStore.openInputStream(column, indexBlobInCol);
+    }
+
     private boolean mustBeFlushedPriorSave(final DataCell cell, final boolean isWrapperCell,
         final boolean isCollectionCell) {
         if (cell instanceof FileStoreCell) {
@@ -1223,6 +1290,10 @@ void closeInternal() {
             flushBuffer();
             closeWriterAndWriteMeta();
         }
+        final BlobSegmentStore blobStore = m_blobStore;
+        if (blobStore != null) {
+            blobStore.closeForWriting();
+        }
         m_localRepository = null;
     }
 
@@ -1249,7 +1320,12 @@ private void closeWriterAndWriteMeta() {
             m_outputWriter.writeMetaInfoAfterWrite(formatSettings);
             m_formatSettings = formatSettings;
             if (m_hasTempFile) {
-                double sizeInMB = m_binFile.length() / (double)(1 << 20);
+                final long sizeInBytes = m_binFile.length();
+                if (m_resourceUsage != null) {
+                    m_resourceUsage.addBytesWritten(sizeInBytes);
+                    m_resourceUsage = null;
+                }
+                double sizeInMB = sizeInBytes / (double)(1 << 20);
                 String size = NumberFormat.getInstance().format(sizeInMB);
                 LOGGER.debug("Buffer file (" + m_binFile.getAbsolutePath() + ") is " + size + "MB in size");
                 initOutputReader(formatSettings, IVERSION);
@@ -1505,6 +1581,7 @@ private void ensureBlobDirExists() throws IOException {
                 throw new IOException("Unable to create temp directory " + blobDir.getAbsolutePath());
             }
             m_blobDir = blobDir;
+            m_blobStore = new BlobSegmentStore(blobDir);
         }
     }
 
@@ -1540,7 +1617,7 @@ long getBufferFileSize() {
 
     /**
      * Determines the file location for a blob to be read/written with some given coordinates (column and index in
-     * column).
+     * column). Only used for buffers written prior to {@link #IVERSION_COMPACT_FORMAT}.
      *
      * @param indexBlobInCol The index in the column (generally the row number).
      * @param column The column index.
@@ -1613,6 +1690,21 @@ public final synchronized CloseableRowIterator iterator() {
         return iteratorWithFilter(null);
     }
 
+    /**
+     * Creates a cursor over all rows. If the table is read from file, values of primitive columns are decoded without
+     * creating cell objects, see {@link BufferedRowCursor}.
+     *
+     * @return a new cursor
+     */
+    @SuppressWarnings("resource")
+    final synchronized RowCursor cursor() {
+        final CloseableRowIterator it = iteratorWithFilter(null);
+        if (it instanceof BufferFromFileIteratorVersion20 && BufferedRowCursor.hasPrimitiveColumns(m_spec)) {
+            return new BufferedRowCursor((BufferFromFileIteratorVersion20)it, m_spec);
+        }
+        return new FallbackRowCursor(it, m_spec);
+    }
+
     /**
      * Creates the row iterator builder that is filtered according to a {@link TableFilter}.
      *
@@ -1999,6 +2091,9 @@ synchronized void clear() {
                             // reason, we are OK with it as well, since we're clearing this buffer anyways.
                         }
                     }
+                    if (m_blobStore != null) {
+                        m_blobStore.close();
+                    }
                     if (m_blobDir != null) {
                         DeleteInBackgroundThread.delete(m_binFile, m_blobDir);
                     } else {
@@ -2013,6 +2108,7 @@ synchronized void clear() {
                 }
                 m_binFile = null;
                 m_blobDir = null;
+                m_blobStore = null;
             }
         }
 
@@ -2064,6 +2160,9 @@ private static void logDebug(final String message, final Throwable t) {
 
     /** Write all rows from list into file. Used while rows are added and if low mem condition is met. */
     synchronized void flushBuffer() {
+        if (m_listWhileAddRow != null && m_resourceUsage != null) {
+            m_resourceUsage.addSpill();
+        }
         writeList(m_listWhileAddRow);
         m_listWhileAddRow = null; // don't write to internal cache any more
     }
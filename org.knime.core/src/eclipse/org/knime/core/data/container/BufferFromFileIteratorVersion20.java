@@ -48,8 +48,6 @@
 package org.knime.core.data.container;
 
 import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -64,6 +62,9 @@
 import org.knime.core.data.container.DCObjectInputVersion2.BlockableDCObjectInputVersion2;
 import org.knime.core.data.container.DefaultTableStoreReader.FromFileIterator;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.filestore.FileStoreCell;
 import org.knime.core.data.filestore.FileStoreKey;
 import org.knime.core.data.filestore.FileStoreUtil;
@@ -101,6 +102,19 @@ public final class BufferFromFileIteratorVersion20 extends FromFileIterator {
     /** Utility object with designated functionality to deserialize datacell. */
     private DataCellStreamReader m_dataCellStreamReader;
 
+    /** Whether row keys are stored in the encoding introduced with {@link Buffer#IVERSION_COMPACT_FORMAT}. */
+    private final boolean m_isCompactRowKeys;
+
+    /** Number of rows per row group (see {@link PrimitiveColumnBlock}), 0 for tables prior to
+     * {@link Buffer#IVERSION_COMPACT_FORMAT}, which aren't grouped. */
+    private final int m_rowGroupSize;
+
+    /** Per column the encoding in the current row group. */
+    private final byte[] m_encodings;
+
+    /** Per column the values of the current row group, created for columns in primitive encoding. */
+    private final PrimitiveColumnBlock[] m_blocks;
+
     /** Inits iterator, opens input stream.
      * @param tableFormatReader The associated buffer.
      * @throws IOException If stream reading fails.
@@ -118,6 +132,11 @@ public final class BufferFromFileIteratorVersion20 extends FromFileIterator {
         m_tableFormatReader = tableFormatReader;
         assert m_tableFormatReader.getReadVersion() >= 6 : "Iterator is not backward compatible, use instead "
             + BufferFromFileIteratorVersion1x.class.getSimpleName();
+        m_isCompactRowKeys = m_tableFormatReader.getReadVersion() >= Buffer.IVERSION_COMPACT_FORMAT;
+        final int colCount = m_tableFormatReader.getTableSpec().getNumColumns();
+        m_rowGroupSize = m_isCompactRowKeys ? PrimitiveColumnBlock.getRowGroupSize(colCount) : 0;
+        m_encodings = new byte[colCount];
+        m_blocks = new PrimitiveColumnBlock[colCount];
 
         // open the input stream
         m_dataCellStreamReader = new DataCellStreamReader(tableFormatReader);
@@ -154,6 +173,7 @@ public synchronized BlobSupportDataRow next() {
             m_pointer++;
             return new BlobSupportDataRow(key, m_missingCellsForClosedTable);
         }
+        final int groupRow = nextRowInGroup(inStream);
         RowKey key;
         try {
             key = readRowKeyAndEndBlock(inStream);
@@ -167,15 +187,15 @@ public synchronized BlobSupportDataRow next() {
         DataCell[] cells = new DataCell[colCount];
         for (int i = 0; i < colCount; i++) {
             DataCell nextCell;
-            try {
+            if (m_encodings[i] != PrimitiveColumnBlock.ENCODING_GENERIC) {
+                nextCell = m_blocks[i].nextCell(groupRow);
+            } else {
                 try {
-                    nextCell = m_dataCellStreamReader.readDataCell(m_inStream);
-                } finally {
-                    m_inStream.endBlock();
+                    nextCell = m_dataCellStreamReader.readBlockedDataCell(inStream);
+                } catch (final Exception e) {
+                    handleReadThrowable(e);
+                    nextCell = DataType.getMissingCell();
                 }
-            } catch (final Exception e) {
-                handleReadThrowable(e);
-                nextCell = DataType.getMissingCell();
             }
             cells[i] = nextCell;
         }
@@ -192,6 +212,106 @@ public synchronized BlobSupportDataRow next() {
         return new BlobSupportDataRow(key, cells);
     }
 
+    /**
+     * Reads the next row into the argument column slots, decoding primitive cells without creating cell objects.
+     * Used by {@link BufferedRowCursor}; error handling is the same as in {@link #next()}.
+     *
+     * @param slots one slot per column
+     * @return the key of the row
+     */
+    synchronized RowKey nextInto(final BufferedRowCursor.ColumnSlot[] slots) {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Iterator at end");
+        }
+        final BlockableDCObjectInputVersion2 inStream = m_inStream;
+        if (inStream == null) { // iterator was closed
+            if (m_missingCellsForClosedTable == null) {
+                m_missingCellsForClosedTable = new DataCell[slots.length];
+                Arrays.fill(m_missingCellsForClosedTable, DataType.getMissingCell());
+                LOGGER.warn("Invalid access on table, iterator has been closed");
+            }
+            for (BufferedRowCursor.ColumnSlot slot : slots) {
+                slot.setMissing();
+            }
+            RowKey key = new RowKey("INVALID_ROW (table is closed) - (Row " + m_pointer + ")");
+            m_pointer++;
+            return key;
+        }
+        final int groupRow = nextRowInGroup(inStream);
+        RowKey key;
+        try {
+            key = readRowKeyAndEndBlock(inStream);
+        } catch (Exception throwable) {
+            handleReadThrowable(throwable);
+            key = new RowKey("Read_failed__auto_generated_key_" + m_pointer);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            final BufferedRowCursor.ColumnSlot slot = slots[i];
+            if (m_encodings[i] != PrimitiveColumnBlock.ENCODING_GENERIC) {
+                slot.setNext(m_blocks[i], groupRow);
+                continue;
+            }
+            try {
+                m_dataCellStreamReader.readBlockedDataCellInto(inStream, slot);
+            } catch (final Exception e) {
+                handleReadThrowable(e);
+                slot.setMissing();
+            }
+        }
+        try {
+            byte eoRow = inStream.readControlByte();
+            if (eoRow != BYTE_ROW_SEPARATOR) {
+                throw new IOException("Expected end of row byte, got '" + eoRow + "', (byte " + (int)eoRow + ")");
+            }
+        } catch (IOException ioe) {
+            handleReadThrowable(ioe);
+        } finally {
+            m_pointer++;
+        }
+        return key;
+    }
+
+    /**
+     * Reads the column encodings and primitive column blocks if the next row starts a row group.
+     *
+     * @return the index of the next row within its group (0 for tables that aren't grouped)
+     */
+    private int nextRowInGroup(final BlockableDCObjectInputVersion2 inStream) {
+        if (m_rowGroupSize == 0) {
+            return 0;
+        }
+        final int groupRow = m_pointer % m_rowGroupSize;
+        if (groupRow == 0) {
+            try {
+                readRowGroupHeader(inStream);
+            } catch (Exception e) {
+                handleReadThrowable(e);
+                // continue with the generic encoding, cells that fail to read are returned as missing
+                Arrays.fill(m_encodings, PrimitiveColumnBlock.ENCODING_GENERIC);
+            }
+        }
+        return groupRow;
+    }
+
+    private void readRowGroupHeader(final BlockableDCObjectInputVersion2 inStream) throws IOException {
+        final int size = (int)Math.min(m_rowGroupSize, m_tableFormatReader.size() - m_pointer);
+        inStream.readBytes(m_encodings, 0, m_encodings.length);
+        for (int i = 0; i < m_encodings.length; i++) {
+            final byte encoding = m_encodings[i];
+            if (encoding < PrimitiveColumnBlock.ENCODING_GENERIC || encoding > PrimitiveColumnBlock.ENCODING_LONG) {
+                throw new IOException("Invalid encoding of column " + i + ": " + encoding);
+            }
+        }
+        for (int i = 0; i < m_encodings.length; i++) {
+            if (m_encodings[i] != PrimitiveColumnBlock.ENCODING_GENERIC) {
+                if (m_blocks[i] == null) {
+                    m_blocks[i] = new PrimitiveColumnBlock(m_rowGroupSize);
+                }
+                m_blocks[i].read(inStream, m_encodings[i], size);
+            }
+        }
+    }
+
     /** Reads a row key from the stream and ends the block. In case of buffers
      * that don't persist their row keys ({@link NoKeyBuffer}), it returns
      * a static key.
@@ -205,7 +325,7 @@ private RowKey readRowKeyAndEndBlock(
             return DUMMY_ROW_KEY;
         }
         try {
-            return inStream.readRowKey();
+            return m_isCompactRowKeys ? inStream.readRowKey() : inStream.readRowKeyAsString();
         } finally {
             inStream.endBlock();
         }
@@ -272,8 +392,7 @@ static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellCl
         int column = blobAddress.getColumn();
         int indexInColumn = blobAddress.getIndexOfBlobInColumn();
         boolean isCompress = blobAddress.isUseCompression();
-        File inFile = buffer.getBlobFile(indexInColumn, column, false, isCompress);
-        InputStream in = new BufferedInputStream(new FileInputStream(inFile));
+        InputStream in = new BufferedInputStream(buffer.openBlobInputStream(indexInColumn, column, isCompress));
         if (isCompress) {
             in = new GZIPInputStream(in);
             // that buffering is important
@@ -305,10 +424,16 @@ public static class DataCellStreamReader {
         /** Associated buffer. */
         private final AbstractTableStoreReader m_tableFormatReader;
 
+        /** Whether missing and primitive cells are written without block end, see
+         * {@link Buffer#IVERSION_COMPACT_FORMAT}. */
+        private final boolean m_isUnblockedPrimitives;
+
         /** Only memorizes the table reader.
          * @param tableFormatReader associated reader, possibly be null. */
         public DataCellStreamReader(final AbstractTableStoreReader tableFormatReader) {
             m_tableFormatReader = tableFormatReader;
+            m_isUnblockedPrimitives = tableFormatReader != null
+                && tableFormatReader.getReadVersion() >= Buffer.IVERSION_COMPACT_FORMAT;
         }
 
         /**
@@ -325,7 +450,99 @@ public DataCell readDataCell(final DCObjectInputVersion2 inStream) throws IOExce
             if (identifier == BYTE_TYPE_MISSING) {
                 return DataType.getMissingCell();
             }
+            return readDataCell(inStream, identifier);
+        }
+
+        /**
+         * Reads a top-level cell of a row and ends its block. Missing and primitive cells written by tables of version
+         * {@link Buffer#IVERSION_COMPACT_FORMAT} or later are not followed by a block end; primitive values are
+         * read directly, without serializer dispatch.
+         *
+         * @param inStream To read from.
+         * @return the data cell being read
+         * @throws IOException If exceptions occur.
+         */
+        DataCell readBlockedDataCell(final BlockableDCObjectInputVersion2 inStream) throws IOException {
+            boolean isBlocked = true;
+            try {
+                inStream.setCurrentClassLoader(null);
+                final byte identifier = inStream.readControlByte();
+                if (identifier == BYTE_TYPE_MISSING) {
+                    isBlocked = !m_isUnblockedPrimitives;
+                    return DataType.getMissingCell();
+                }
+                if (m_isUnblockedPrimitives && identifier != BYTE_TYPE_SERIALIZATION) {
+                    final Class<? extends DataCell> cellClass =
+                        m_tableFormatReader.getTypeForChar(identifier).getCellClass();
+                    if (isUnblockedPrimitive(cellClass)) {
+                        isBlocked = false;
+                        return readPrimitiveCell(cellClass, inStream);
+                    }
+                }
+                return readDataCell(inStream, identifier);
+            } finally {
+                if (isBlocked) {
+                    inStream.endBlock();
+                }
+            }
+        }
+
+        /**
+         * Reads a top-level cell of a row into the argument slot and ends its block (see
+         * {@link #readBlockedDataCell(BlockableDCObjectInputVersion2)}). Cells of the slot's primitive type are
+         * decoded directly into the slot (no cell object is created), all others are read as per
+         * {@link #readDataCell(DCObjectInputVersion2)}.
+         *
+         * @param inStream To read from.
+         * @param slot To write to.
+         * @throws IOException If exceptions occur.
+         */
+        void readBlockedDataCellInto(final BlockableDCObjectInputVersion2 inStream,
+            final BufferedRowCursor.ColumnSlot slot) throws IOException {
+            boolean isBlocked = true;
+            try {
+                inStream.setCurrentClassLoader(null);
+                final byte identifier = inStream.readControlByte();
+                if (identifier == BYTE_TYPE_MISSING) {
+                    isBlocked = !m_isUnblockedPrimitives;
+                    slot.setMissing();
+                } else if (identifier == BYTE_TYPE_SERIALIZATION) {
+                    slot.setCell(readDataCell(inStream, identifier));
+                } else {
+                    final Class<? extends DataCell> cellClass =
+                        m_tableFormatReader.getTypeForChar(identifier).getCellClass();
+                    final boolean isPrimitive = m_isUnblockedPrimitives && isUnblockedPrimitive(cellClass);
+                    isBlocked = !isPrimitive;
+                    if (!slot.decode(cellClass, inStream)) {
+                        slot.setCell(isPrimitive ? readPrimitiveCell(cellClass, inStream)
+                            : readDataCell(inStream, identifier));
+                    }
+                }
+            } finally {
+                if (isBlocked) {
+                    inStream.endBlock();
+                }
+            }
+        }
+
+        private static boolean isUnblockedPrimitive(final Class<? extends DataCell> cellClass) {
+            return cellClass == DoubleCell.class || cellClass == IntCell.class || cellClass == LongCell.class;
+        }
+
+        private static DataCell readPrimitiveCell(final Class<? extends DataCell> cellClass,
+            final DCObjectInputVersion2 inStream) throws IOException {
+            if (cellClass == DoubleCell.class) {
+                return new DoubleCell(inStream.readDouble());
+            } else if (cellClass == IntCell.class) {
+                return new IntCell(inStream.readInt());
+            } else {
+                return new LongCell(inStream.readLong());
+            }
+        }
 
+        private DataCell readDataCell(final DCObjectInputVersion2 inStream, final byte firstIdentifier)
+            throws IOException {
+            byte identifier = firstIdentifier;
             final boolean isJavaSerialization = identifier == BYTE_TYPE_SERIALIZATION;
             if (isJavaSerialization) {
                 identifier = inStream.readControlByte();
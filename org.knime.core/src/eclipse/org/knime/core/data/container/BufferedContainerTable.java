@@ -64,6 +64,7 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.WorkflowDataRepository;
+import org.knime.core.util.ParallelZipOutputStream;
 
 /**
  * Class implementing the <code>DataTable</code> interface and using a buffer from a <code>DataContainer</code> as data
@@ -127,10 +128,10 @@ public DataTableSpec getDataTableSpec() {
         return m_spec;
     }
 
-    @SuppressWarnings("resource")
     @Override
     public RowCursor cursor() {
-        return new FallbackRowCursor(iterator(), getDataTableSpec());
+        ensureBufferOpen();
+        return m_buffer.cursor();
     }
 
     @SuppressWarnings("resource")
@@ -220,7 +221,8 @@ protected void restoreIntoMemory() {
     public void saveToFile(final File f, final NodeSettingsWO settings, final ExecutionMonitor exec)
         throws IOException, CanceledExecutionException {
         ensureBufferOpen();
-        try (ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(f)))) {
+        try (ZipOutputStream zipOut =
+            new ParallelZipOutputStream(new BufferedOutputStream(new FileOutputStream(f)))) {
             m_buffer.addToZipFile(zipOut, exec);
         }
     }
@@ -96,6 +96,7 @@
 import org.knime.core.node.workflow.WorkflowDataRepository;
 import org.knime.core.util.DuplicateChecker;
 import org.knime.core.util.DuplicateKeyException;
+import org.knime.core.util.ParallelZipOutputStream;
 
 /**
  * {@link DataContainerDelegate} implementation using {@link Buffer} and {@link TableStoreFormat}.
@@ -685,15 +686,15 @@ final Buffer getBuffer() {
      * This method may be overridden to disable duplicate checks. The overriding class must ensure that there are no
      * duplicates being added whatsoever.
      *
-     * @param key Key being added. This implementation extracts the string representation from it and adds it to an
-     *            internal {@link DuplicateChecker} instance.
+     * @param key Key being added. This implementation adds it to an internal {@link DuplicateChecker} instance, which
+     *            tracks sequential keys (<code>Row0, Row1, ...</code>) as index ranges.
      * @throws DataContainerException This implementation may throw a <code>DataContainerException</code> when
-     *             {@link DuplicateChecker#addKey(String)} throws an {@link IOException}.
+     *             {@link DuplicateChecker#addKey(RowKey)} throws an {@link IOException}.
      * @throws DuplicateKeyException If a duplicate is encountered.
      */
     private void addRowKeyForDuplicateCheck(final RowKey key) {
         try {
-            m_duplicateChecker.addKey(key.toString());
+            m_duplicateChecker.addKey(key);
         } catch (IOException ioe) {
             throw new DataContainerException(
                 ioe.getClass().getSimpleName() + " while checking for duplicate row IDs: " + ioe.getMessage(), ioe);
@@ -760,10 +761,11 @@ public final void run() {
                     final List<BlobSupportDataRow> blobRows = new ArrayList<>(m_rows.size());
                     for (final DataRow row : m_rows) {
                         validateSpecCompatiblity(row);
-                        m_dataTableDomainCreator.updateDomain(row);
                         addRowKeyForDuplicateCheck(row.getKey());
                         blobRows.add(m_buffer.saveBlobsAndFileStores(row, m_forceCopyOfBlobs));
                     }
+                    // column-wise, which is considerably faster than row by row for numeric columns
+                    m_dataTableDomainCreator.updateDomain(m_rows);
                     boolean addRows;
                     synchronized (m_pendingBatchIdx) {
                         addRows = m_batchIdx == m_pendingBatchIdx.longValue();
@@ -1026,7 +1028,7 @@ public static void writeToStream(final DataTable table, final OutputStream out,
             ((out instanceof BufferedOutputStream) || (out instanceof ByteArrayOutputStream));
         OutputStream os = originalOutputIsBuffered ? out : new BufferedOutputStream(out);
 
-        ZipOutputStream zipOut = new ZipOutputStream(os);
+        ZipOutputStream zipOut = new ParallelZipOutputStream(os);
         // (part of) bug fix #1141: spec must be put as first entry in order
         // for the table reader to peek it
         zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_SPEC));
@@ -55,7 +55,6 @@
 import org.knime.core.data.RowKey;
 import org.knime.core.data.RowKeyValue;
 import org.knime.core.data.container.BufferedAccessSpecMapper.BufferedAccess;
-import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.v2.ReadValue;
 import org.knime.core.data.v2.RowContainer;
 import org.knime.core.data.v2.RowKeyReadValue;
@@ -66,6 +65,14 @@
 import org.knime.core.data.v2.ValueFactory;
 import org.knime.core.data.v2.ValueSchema;
 import org.knime.core.data.v2.WriteValue;
+import org.knime.core.data.v2.access.BooleanAccess.BooleanReadAccess;
+import org.knime.core.data.v2.access.BooleanAccess.BooleanWriteAccess;
+import org.knime.core.data.v2.access.DoubleAccess.DoubleReadAccess;
+import org.knime.core.data.v2.access.DoubleAccess.DoubleWriteAccess;
+import org.knime.core.data.v2.access.IntAccess.IntReadAccess;
+import org.knime.core.data.v2.access.IntAccess.IntWriteAccess;
+import org.knime.core.data.v2.access.LongAccess.LongReadAccess;
+import org.knime.core.data.v2.access.LongAccess.LongWriteAccess;
 import org.knime.core.data.v2.access.ReadAccess;
 import org.knime.core.data.v2.access.WriteAccess;
 import org.knime.core.node.BufferedDataContainer;
@@ -74,6 +81,13 @@
 /**
  * Legacy implementation for CustomKeyRowContainer using {@link DataContainer}s as storage backend.
  *
+ * <p>
+ * Committed rows are collected column by column in a batch of {@link PrimitiveColumnBlock#getRowGroupSize(int)} rows,
+ * i.e. one row group of the table store. Values of boolean, int, long and double columns are copied from the accesses
+ * into primitive arrays, so {@link #forward()} neither creates a row nor cells for them. The rows (and the cells of
+ * the primitive columns) are only created when a full batch is handed to the underlying container, which still
+ * requires one {@link org.knime.core.data.DataRow} per row.
+ *
  * @author Christian Dietz, KNIME GmbH, Konstanz, Germany
  * @since 4.3
  */
@@ -115,6 +129,7 @@ public boolean canForward() {
 
     @Override
     public BufferedDataTable finish() throws IOException {
+        m_row.flush();
         m_delegate.close();
         return m_delegate.getTable();
     }
@@ -124,6 +139,7 @@ public void close() {
         // called before finish
         if (!m_delegate.isClosed()) {
             m_row.commit();
+            m_row.flush();
             m_delegate.close();
             m_delegate.getBufferedTable().close();
         }
@@ -133,21 +149,27 @@ private static final class BufferedRowWrite implements RowWrite {
 
         private final BufferedDataContainer m_delegate;
 
-        private final DataCell[] m_cells;
-
         private final NullableReadValue[] m_readValues;
 
         private final WriteValue<?>[] m_writeValues;
 
         private final RowKeyReadValue m_rowKeyReadValue;
 
+        /** The row keys of the batch. */
+        private final String[] m_keys;
+
+        /** The cells of the batch, one column per (non-key) value. */
+        private final BatchColumn[] m_columns;
+
+        /** Number of rows in the batch. */
+        private int m_batchSize;
+
         private BufferedRowWrite(final BufferedDataContainer delegate, final ValueSchema schema) {
             m_delegate = delegate;
             final ValueFactory<?, ?>[] factories = schema.getValueFactories();
 
-            m_cells = new DataCell[factories.length - 1];
-            m_readValues = new NullableReadValue[m_cells.length];
-            m_writeValues = new WriteValue[m_cells.length];
+            m_readValues = new NullableReadValue[factories.length];
+            m_writeValues = new WriteValue[factories.length];
 
             for (int i = 0; i < factories.length; i++) {
                 final BufferedAccess access = factories[i].getSpec().accept(BufferedAccessSpecMapper.INSTANCE);
@@ -160,6 +182,13 @@ private BufferedRowWrite(final BufferedDataContainer delegate, final ValueSchema
             }
 
             m_rowKeyReadValue = (RowKeyReadValue)m_readValues[0].getDelegate();
+
+            final int capacity = PrimitiveColumnBlock.getRowGroupSize(factories.length - 1);
+            m_keys = new String[capacity];
+            m_columns = new BatchColumn[factories.length - 1];
+            for (int i = 0; i < m_columns.length; i++) {
+                m_columns[i] = BatchColumn.create(m_readValues[i + 1], capacity);
+            }
         }
 
         @Override
@@ -176,7 +205,7 @@ public int getNumColumns() {
 
         @Override
         public void setMissing(final int index) {
-            m_readValues[index].setMissing();
+            m_readValues[index + 1].setMissing();
         }
 
         @Override
@@ -198,25 +227,197 @@ public void setFrom(final RowRead row) {
             }
         }
 
+        /** Copies the values of the current row into the batch, passes the batch on if it is full. */
         void commit() {
             // TODO handle case where no row key is required?
             if (m_readValues[0].isMissing()) {
                 throw new IllegalStateException("RowKey not set.");
             }
 
-            // We have to loop once to reset our VolatileAccesses after reading
-            for (int i = 1; i < m_readValues.length; i++) {
-                if (!m_readValues[i].isMissing()) {
-                    m_cells[i - 1] = m_readValues[i].getDataCell();
+            m_keys[m_batchSize] = m_rowKeyReadValue.getString();
+            // copying also resets our VolatileAccesses for the next row
+            for (final BatchColumn column : m_columns) {
+                column.commit(m_batchSize);
+            }
+            m_batchSize++;
+            if (m_batchSize == m_keys.length) {
+                flush();
+            }
+        }
 
-                    // invalidate for next iteration
-                    m_readValues[i].setMissing();
+        /** Adds the rows of the batch to the container. */
+        void flush() {
+            for (int r = 0; r < m_batchSize; r++) {
+                final DataCell[] cells = new DataCell[m_columns.length];
+                for (int c = 0; c < cells.length; c++) {
+                    cells[c] = m_columns[c].getCell(r);
+                }
+                // the cells are owned by the row, a BlobSupportDataRow is not copied once more by the buffer
+                m_delegate.addRowToTable(new BlobSupportDataRow(new RowKey(m_keys[r]), cells));
+                m_keys[r] = null;
+            }
+            m_batchSize = 0;
+            // the accesses were used to create the cells
+            for (final BatchColumn column : m_columns) {
+                column.m_value.setMissing();
+            }
+        }
+
+        /**
+         * The values of one column of the batch. Values of primitive columns are kept in primitive arrays and only
+         * turned into cells (via the column's access and read value) when the batch is passed on.
+         */
+        private abstract static class BatchColumn {
+
+            final NullableReadValue m_value;
+
+            final boolean[] m_missing;
+
+            BatchColumn(final NullableReadValue value, final int capacity) {
+                m_value = value;
+                m_missing = new boolean[capacity];
+            }
+
+            static BatchColumn create(final NullableReadValue value, final int capacity) {
+                final BufferedAccess access = value.m_access;
+                if (access instanceof BooleanWriteAccess && access instanceof BooleanReadAccess) {
+                    return new BooleanColumn(value, capacity);
+                } else if (access instanceof IntWriteAccess && access instanceof IntReadAccess) {
+                    return new IntColumn(value, capacity);
+                } else if (access instanceof LongWriteAccess && access instanceof LongReadAccess) {
+                    return new LongColumn(value, capacity);
+                } else if (access instanceof DoubleWriteAccess && access instanceof DoubleReadAccess) {
+                    return new DoubleColumn(value, capacity);
                 } else {
-                    m_cells[i - 1] = MISSING_CELL;
+                    return new CellColumn(value, capacity);
                 }
             }
-            // cells are copied in row
-            m_delegate.addRowToTable(new DefaultRow(new RowKey(m_rowKeyReadValue.getString()), m_cells));
+
+            final void commit(final int row) {
+                m_missing[row] = m_value.isMissing();
+                if (!m_missing[row]) {
+                    copyValue(row);
+                    // invalidate for next iteration
+                    m_value.setMissing();
+                }
+            }
+
+            final DataCell getCell(final int row) {
+                return m_missing[row] ? MISSING_CELL : createCell(row);
+            }
+
+            /** Copies the (non-missing) value of the access into the batch. */
+            abstract void copyValue(int row);
+
+            /** Creates the cell for a non-missing value of the batch. */
+            abstract DataCell createCell(int row);
+        }
+
+        private static final class BooleanColumn extends BatchColumn {
+
+            private final boolean[] m_values;
+
+            BooleanColumn(final NullableReadValue value, final int capacity) {
+                super(value, capacity);
+                m_values = new boolean[capacity];
+            }
+
+            @Override
+            void copyValue(final int row) {
+                m_values[row] = ((BooleanReadAccess)m_value.m_access).getBooleanValue();
+            }
+
+            @Override
+            DataCell createCell(final int row) {
+                ((BooleanWriteAccess)m_value.m_access).setBooleanValue(m_values[row]);
+                return m_value.getDataCell();
+            }
+        }
+
+        private static final class IntColumn extends BatchColumn {
+
+            private final int[] m_values;
+
+            IntColumn(final NullableReadValue value, final int capacity) {
+                super(value, capacity);
+                m_values = new int[capacity];
+            }
+
+            @Override
+            void copyValue(final int row) {
+                m_values[row] = ((IntReadAccess)m_value.m_access).getIntValue();
+            }
+
+            @Override
+            DataCell createCell(final int row) {
+                ((IntWriteAccess)m_value.m_access).setIntValue(m_values[row]);
+                return m_value.getDataCell();
+            }
+        }
+
+        private static final class LongColumn extends BatchColumn {
+
+            private final long[] m_values;
+
+            LongColumn(final NullableReadValue value, final int capacity) {
+                super(value, capacity);
+                m_values = new long[capacity];
+            }
+
+            @Override
+            void copyValue(final int row) {
+                m_values[row] = ((LongReadAccess)m_value.m_access).getLongValue();
+            }
+
+            @Override
+            DataCell createCell(final int row) {
+                ((LongWriteAccess)m_value.m_access).setLongValue(m_values[row]);
+                return m_value.getDataCell();
+            }
+        }
+
+        private static final class DoubleColumn extends BatchColumn {
+
+            private final double[] m_values;
+
+            DoubleColumn(final NullableReadValue value, final int capacity) {
+                super(value, capacity);
+                m_values = new double[capacity];
+            }
+
+            @Override
+            void copyValue(final int row) {
+                m_values[row] = ((DoubleReadAccess)m_value.m_access).getDoubleValue();
+            }
+
+            @Override
+            DataCell createCell(final int row) {
+                ((DoubleWriteAccess)m_value.m_access).setDoubleValue(m_values[row]);
+                return m_value.getDataCell();
+            }
+        }
+
+        /** Any other column, its cells are created when the row is committed. */
+        private static final class CellColumn extends BatchColumn {
+
+            private final DataCell[] m_cells;
+
+            CellColumn(final NullableReadValue value, final int capacity) {
+                super(value, capacity);
+                m_cells = new DataCell[capacity];
+            }
+
+            @Override
+            void copyValue(final int row) {
+                m_cells[row] = m_value.getDataCell();
+            }
+
+            @Override
+            DataCell createCell(final int row) {
+                final DataCell cell = m_cells[row];
+                m_cells[row] = null;
+                return cell;
+            }
         }
 
         private static final class NullableReadValue {
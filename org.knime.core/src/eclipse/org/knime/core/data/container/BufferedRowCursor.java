@@ -0,0 +1,266 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.RowKeyValue;
+import org.knime.core.data.container.BufferedAccessSpecMapper.BufferedAccess;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.v2.RowCursor;
+import org.knime.core.data.v2.RowRead;
+import org.knime.core.data.v2.access.BooleanAccess.BooleanAccessSpec;
+import org.knime.core.data.v2.access.BooleanAccess.BooleanWriteAccess;
+import org.knime.core.data.v2.access.DoubleAccess.DoubleAccessSpec;
+import org.knime.core.data.v2.access.DoubleAccess.DoubleWriteAccess;
+import org.knime.core.data.v2.access.IntAccess.IntAccessSpec;
+import org.knime.core.data.v2.access.IntAccess.IntWriteAccess;
+import org.knime.core.data.v2.access.LongAccess.LongAccessSpec;
+import org.knime.core.data.v2.access.LongAccess.LongWriteAccess;
+
+/**
+ * {@link RowCursor} on a file-backed {@link Buffer} that decodes cells of the primitive types ({@link DoubleCell},
+ * {@link IntCell}, {@link LongCell}, {@link BooleanCell}) directly into one reusable value per column instead of
+ * creating a new cell object for each value read. Cells of all other types are deserialized as usual. Values returned
+ * by {@link #getValue(int)} are only valid until the cursor is forwarded.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BufferedRowCursor implements RowCursor, RowRead {
+
+    private final BufferFromFileIteratorVersion20 m_delegate;
+
+    private final ColumnSlot[] m_slots;
+
+    private RowKey m_currentKey;
+
+    private boolean m_isClosed;
+
+    BufferedRowCursor(final BufferFromFileIteratorVersion20 delegate, final DataTableSpec spec) {
+        m_delegate = delegate;
+        m_slots = new ColumnSlot[spec.getNumColumns()];
+        for (int i = 0; i < m_slots.length; i++) {
+            m_slots[i] = ColumnSlot.create(spec.getColumnSpec(i).getType());
+        }
+    }
+
+    /**
+     * @param spec the spec of the table to iterate
+     * @return whether the spec contains at least one column whose values can be decoded without allocation
+     */
+    static boolean hasPrimitiveColumns(final DataTableSpec spec) {
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            if (ColumnSlot.isPrimitive(spec.getColumnSpec(i).getType().getCellClass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public RowRead forward() {
+        if (!m_isClosed && m_delegate.hasNext()) {
+            m_currentKey = m_delegate.nextInto(m_slots);
+            return this;
+        }
+        // end of table (possibly an empty one) - release the file handle right away
+        m_currentKey = null;
+        close();
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (!m_isClosed) {
+            m_isClosed = true;
+            m_delegate.close();
+        }
+    }
+
+    @Override
+    public RowKeyValue getRowKey() {
+        if (m_currentKey == null) {
+            throw new NoSuchElementException("Cursor at invalid position.");
+        }
+        return m_currentKey;
+    }
+
+    @Override
+    public <D extends DataValue> D getValue(final int index) {
+        @SuppressWarnings("unchecked")
+        final D value = (D)m_slots[index].getValue();
+        return value;
+    }
+
+    @Override
+    public boolean isMissing(final int index) {
+        return m_slots[index].isMissing();
+    }
+
+    @Override
+    public int getNumColumns() {
+        return m_slots.length;
+    }
+
+    @Override
+    public boolean canForward() {
+        return !m_isClosed && m_delegate.hasNext();
+    }
+
+    /**
+     * Holds the value of one column of the current row: either a deserialized cell or, for cells of the column's
+     * primitive type, the decoded value in a reusable access.
+     */
+    static final class ColumnSlot {
+
+        private final Class<? extends DataCell> m_primitiveCellClass;
+
+        private final BufferedAccess m_access;
+
+        /** The materialized cell or null if the value is held in m_access. */
+        private DataCell m_cell = DataType.getMissingCell();
+
+        private ColumnSlot(final Class<? extends DataCell> primitiveCellClass, final BufferedAccess access) {
+            m_primitiveCellClass = primitiveCellClass;
+            m_access = access;
+        }
+
+        static boolean isPrimitive(final Class<? extends DataCell> cellClass) {
+            return cellClass == DoubleCell.class || cellClass == IntCell.class || cellClass == LongCell.class
+                || cellClass == BooleanCell.class;
+        }
+
+        static ColumnSlot create(final DataType type) {
+            final Class<? extends DataCell> cellClass = type.getCellClass();
+            if (cellClass == DoubleCell.class) {
+                return new ColumnSlot(cellClass, DoubleAccessSpec.INSTANCE.accept(BufferedAccessSpecMapper.INSTANCE));
+            } else if (cellClass == IntCell.class) {
+                return new ColumnSlot(cellClass, IntAccessSpec.INSTANCE.accept(BufferedAccessSpecMapper.INSTANCE));
+            } else if (cellClass == LongCell.class) {
+                return new ColumnSlot(cellClass, LongAccessSpec.INSTANCE.accept(BufferedAccessSpecMapper.INSTANCE));
+            } else if (cellClass == BooleanCell.class) {
+                return new ColumnSlot(cellClass, BooleanAccessSpec.INSTANCE.accept(BufferedAccessSpecMapper.INSTANCE));
+            }
+            return new ColumnSlot(null, null);
+        }
+
+        void setMissing() {
+            m_cell = DataType.getMissingCell();
+        }
+
+        void setCell(final DataCell cell) {
+            m_cell = cell;
+        }
+
+        /**
+         * Takes the value of the next row from a block of a column in primitive encoding, without creating a cell
+         * object if the block is of this column's primitive type.
+         *
+         * @param block the block of the current row group
+         * @param groupRow the index of the row within the group
+         */
+        void setNext(final PrimitiveColumnBlock block, final int groupRow) {
+            final byte encoding = block.getEncoding();
+            if (block.isMissing(groupRow)) {
+                setMissing();
+            } else if (m_primitiveCellClass == null
+                || PrimitiveColumnBlock.getEncoding(m_primitiveCellClass) != encoding) {
+                setCell(block.nextCell(groupRow));
+            } else {
+                if (encoding == PrimitiveColumnBlock.ENCODING_DOUBLE) {
+                    ((DoubleWriteAccess)m_access).setDoubleValue(block.nextDouble());
+                } else if (encoding == PrimitiveColumnBlock.ENCODING_INT) {
+                    ((IntWriteAccess)m_access).setIntValue(block.nextInt());
+                } else {
+                    ((LongWriteAccess)m_access).setLongValue(block.nextLong());
+                }
+                m_cell = null;
+            }
+        }
+
+        /**
+         * Decodes the value of the next cell from the stream if the cell is of this column's primitive type.
+         *
+         * @param cellClass the class of the cell in the stream
+         * @param in the stream positioned after the cell's type identifier
+         * @return true if the value was decoded, false if the cell needs to be deserialized (nothing was read)
+         * @throws IOException if reading fails
+         */
+        boolean decode(final Class<? extends DataCell> cellClass, final DCObjectInputVersion2 in) throws IOException {
+            if (m_primitiveCellClass == null || cellClass != m_primitiveCellClass) {
+                return false;
+            }
+            if (cellClass == DoubleCell.class) {
+                ((DoubleWriteAccess)m_access).setDoubleValue(in.readDouble());
+            } else if (cellClass == IntCell.class) {
+                ((IntWriteAccess)m_access).setIntValue(in.readInt());
+            } else if (cellClass == LongCell.class) {
+                ((LongWriteAccess)m_access).setLongValue(in.readLong());
+            } else {
+                ((BooleanWriteAccess)m_access).setBooleanValue(in.readBoolean());
+            }
+            m_cell = null;
+            return true;
+        }
+
+        boolean isMissing() {
+            return m_cell != null && m_cell.isMissing();
+        }
+
+        DataValue getValue() {
+            return m_cell != null ? m_cell : (DataValue)m_access;
+        }
+    }
+}
@@ -325,7 +325,7 @@ private static void checkForDuplicates(final ExecutionMonitor mon, final Buffere
             for (DataRow row : tables[i]) {
                 RowKey key = row.getKey();
                 try {
-                    check.addKey(key.toString());
+                    check.addKey(key);
                 } catch (DuplicateKeyException | IOException ex) {
                     throw new IllegalArgumentException("Duplicate row key \"" + key + "\" in table with index " + i);
                 }
@@ -83,6 +83,12 @@ public class DCObjectInputVersion2 implements KNIMEStreamConstants {
      * de-serialization takes place. May be null. */
     private ClassLoader m_priorityClassLoader;
 
+    /** Prefix of the last read row key if it was of the form prefix + index, otherwise null. */
+    private String m_lastKeyPrefix;
+
+    /** Index of the last read row key, only valid if {@link #m_lastKeyPrefix} is non-null. */
+    private long m_lastKeyIndex;
+
     /**
      * Creates new input stream that reads from <code>in</code>.
      * @param in The stream to read from.
@@ -150,14 +156,104 @@ BlobAddress readBlobAddress() throws IOException {
         return BlobAddress.deserialize(m_dataIn);
     }
 
-    /** Reads a row key from the stream.
+    /** Reads a row key from the stream as written by {@link DCObjectOutputVersion2#writeRowKey(RowKey)}. Keys that
+     * are part of a <i>prefix + index</i> sequence share the prefix string and are materialized lazily.
      * @return A new row key instance.
      * @throws IOException If IO problems occur.
      */
     RowKey readRowKey() throws IOException {
+        final String lastPrefix = m_lastKeyPrefix;
+        // reset so that a failed read doesn't corrupt the keys that follow
+        m_lastKeyPrefix = null;
+        final byte encoding = m_dataIn.readByte();
+        final String prefix;
+        final long index;
+        switch (encoding) {
+            case BYTE_ROW_KEY_STRING:
+                return new RowKey(m_dataIn.readUTF());
+            case BYTE_ROW_KEY_NEXT:
+            case BYTE_ROW_KEY_DELTA:
+                if (lastPrefix == null) {
+                    throw new IOException("Row key refers to preceding key, which is not part of a sequence");
+                }
+                prefix = lastPrefix;
+                if (encoding == BYTE_ROW_KEY_NEXT) {
+                    index = m_lastKeyIndex + 1L;
+                } else {
+                    final long zigZag = readVarLong();
+                    index = m_lastKeyIndex + ((zigZag >>> 1) ^ -(zigZag & 1L));
+                }
+                break;
+            case BYTE_ROW_KEY_SEQUENCE:
+                prefix = m_dataIn.readUTF();
+                index = readVarLong();
+                break;
+            default:
+                throw new IOException("Invalid row key encoding: " + encoding);
+        }
+        m_lastKeyPrefix = prefix;
+        m_lastKeyIndex = index;
+        return RowKey.createRowKey(prefix, index);
+    }
+
+    /** Reads a row key as written by versions prior to {@link Buffer#IVERSION_COMPACT_FORMAT}.
+     * @return A new row key instance.
+     * @throws IOException If IO problems occur.
+     */
+    RowKey readRowKeyAsString() throws IOException {
         return new RowKey(m_dataIn.readUTF());
     }
 
+    /** Counterpart to {@link DCObjectOutputVersion2}'s variable length encoding of non-negative longs. */
+    private long readVarLong() throws IOException {
+        long result = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = m_dataIn.readByte();
+            result |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length number in row key");
+    }
+
+    /** Reads a double as written by the {@link org.knime.core.data.def.DoubleCell} serializer.
+     * @return the value
+     * @throws IOException If IO problems occur. */
+    double readDouble() throws IOException {
+        return m_dataIn.readDouble();
+    }
+
+    /** Reads an int as written by the {@link org.knime.core.data.def.IntCell} serializer.
+     * @return the value
+     * @throws IOException If IO problems occur. */
+    int readInt() throws IOException {
+        return m_dataIn.readInt();
+    }
+
+    /** Reads a long as written by the {@link org.knime.core.data.def.LongCell} serializer.
+     * @return the value
+     * @throws IOException If IO problems occur. */
+    long readLong() throws IOException {
+        return m_dataIn.readLong();
+    }
+
+    /** Reads a boolean as written by the {@link org.knime.core.data.def.BooleanCell} serializer.
+     * @return the value
+     * @throws IOException If IO problems occur. */
+    boolean readBoolean() throws IOException {
+        return m_dataIn.readBoolean();
+    }
+
+    /** Reads a range of raw bytes as written by {@link DCObjectOutputVersion2#writeBytes(byte[], int, int)}.
+     * @param b The array to read into.
+     * @param off The offset of the range.
+     * @param len The length of the range.
+     * @throws IOException If IO problems occur (including the end of the stream or block). */
+    void readBytes(final byte[] b, final int off, final int len) throws IOException {
+        m_dataIn.readFully(b, off, len);
+    }
+
     /** Reads a single byte from the stream.
      * @return That byte.
      * @throws IOException If IO problems occur. */
@@ -47,6 +47,7 @@
  */
 package org.knime.core.data.container;
 
+import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
@@ -77,6 +78,15 @@ public class DCObjectOutputVersion2 implements KNIMEStreamConstants, AutoCloseab
     /** This stream writes to m_out and is passed to the DataCellSerializer. */
     private DCLongUTFDataOutputStream m_dataOut;
 
+    /** Prefix of the last written row key if it was of the form prefix + index, otherwise null. */
+    private String m_lastKeyPrefix;
+
+    /** Index of the last written row key, only valid if {@link #m_lastKeyPrefix} is non-null. */
+    private long m_lastKeyIndex;
+
+    /** Scratch buffer for {@link #writeDouble(double)} and friends, avoids one stream call per byte. */
+    private final byte[] m_primitiveBuffer = new byte[8];
+
     /** Setups a new output stream.
      * @param out The stream to write to (the file)
      * @param tableStoreWriter the corresponding writer (callback for embedded cell writing)
@@ -129,12 +139,94 @@ public void writeBlobAddress(final BlobAddress address) throws IOException {
         address.serialize(m_dataOut);
     }
 
-    /** Writes a row key by writing the underlying string to the stream.
+    /** Writes a row key. Keys of the form <i>prefix + index</i> (see {@link RowKey#getSequenceIndex()}) are
+     * encoded relative to the previous key, which for sequences such as <code>Row0, Row1, ...</code> takes a
+     * single byte per key. Any other key is written as string.
      * @param key Key to write
      * @throws IOException In case of stream corruption.
+     * @see DCObjectInputVersion2#readRowKey()
      */
     void writeRowKey(final RowKey key) throws IOException {
-        m_dataOut.writeUTF(key.getString());
+        final long index = key.getSequenceIndex();
+        if (index < 0) {
+            m_dataOut.writeByte(BYTE_ROW_KEY_STRING);
+            m_dataOut.writeUTF(key.getString());
+            m_lastKeyPrefix = null;
+            return;
+        }
+        final String prefix = key.getSequencePrefix();
+        if (prefix.equals(m_lastKeyPrefix)) {
+            final long delta = index - m_lastKeyIndex;
+            if (delta == 1L) {
+                m_dataOut.writeByte(BYTE_ROW_KEY_NEXT);
+            } else {
+                m_dataOut.writeByte(BYTE_ROW_KEY_DELTA);
+                writeVarLong(m_dataOut, (delta << 1) ^ (delta >> 63)); // zig-zag, delta may be negative
+            }
+        } else {
+            m_dataOut.writeByte(BYTE_ROW_KEY_SEQUENCE);
+            m_dataOut.writeUTF(prefix);
+            writeVarLong(m_dataOut, index);
+            m_lastKeyPrefix = prefix;
+        }
+        m_lastKeyIndex = index;
+    }
+
+    /** Writes a non-negative long in 7-bit groups, least significant group first. */
+    private static void writeVarLong(final DataOutput out, final long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0L) {
+            out.writeByte((int)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int)v);
+    }
+
+    /** Writes a double in the layout of the {@link org.knime.core.data.def.DoubleCell} serializer.
+     * @param value The value to write.
+     * @throws IOException In case of stream corruption.
+     * @see DCObjectInputVersion2#readDouble()
+     */
+    void writeDouble(final double value) throws IOException {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /** Writes an int in the layout of the {@link org.knime.core.data.def.IntCell} serializer.
+     * @param value The value to write.
+     * @throws IOException In case of stream corruption.
+     * @see DCObjectInputVersion2#readInt()
+     */
+    void writeInt(final int value) throws IOException {
+        final byte[] b = m_primitiveBuffer;
+        b[0] = (byte)(value >>> 24);
+        b[1] = (byte)(value >>> 16);
+        b[2] = (byte)(value >>> 8);
+        b[3] = (byte)value;
+        m_dataOut.write(b, 0, 4);
+    }
+
+    /** Writes a long in the layout of the {@link org.knime.core.data.def.LongCell} serializer.
+     * @param value The value to write.
+     * @throws IOException In case of stream corruption.
+     * @see DCObjectInputVersion2#readLong()
+     */
+    void writeLong(final long value) throws IOException {
+        final byte[] b = m_primitiveBuffer;
+        for (int i = 7; i >= 0; i--) {
+            b[7 - i] = (byte)(value >>> (i << 3));
+        }
+        m_dataOut.write(b, 0, 8);
+    }
+
+    /** Writes a range of raw bytes, e.g. a block of primitive values.
+     * @param b The bytes to write.
+     * @param off The offset of the range.
+     * @param len The length of the range.
+     * @throws IOException In case of stream corruption.
+     * @see DCObjectInputVersion2#readBytes(byte[], int, int)
+     */
+    void writeBytes(final byte[] b, final int off, final int len) throws IOException {
+        m_dataOut.write(b, off, len);
     }
 
     /** Writes the argument byte.
@@ -60,6 +60,7 @@
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.io.input.ProxyInputStream;
 import org.apache.commons.lang3.text.WordUtils;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.IDataRepository;
@@ -71,6 +72,7 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.workflow.NodeTimer;
 import org.xerial.snappy.SnappyInputStream;
 import org.xerial.snappy.SnappyOutputStream;
 
@@ -204,7 +206,7 @@ OutputStream getOutputStream(final OutputStream out) throws IOException {
          */
         @SuppressWarnings("resource")
         InputStream getInputStream(final File file) throws IOException {
-            final FileInputStream fis = new FileInputStream(file);
+            final InputStream fis = countBytesRead(new FileInputStream(file));
             try {
                 return m_inFunc.apply(fis);
             } catch (final IOException e) {
@@ -213,6 +215,25 @@ InputStream getInputStream(final File file) throws IOException {
             }
         }
 
+        /**
+         * Wraps the (compressed) file stream so that the bytes actually read are added to the counters of the node
+         * opening it, if that node is profiled.
+         */
+        private static InputStream countBytesRead(final InputStream in) {
+            final NodeTimer.ResourceUsage usage = NodeTimer.ResourceUsage.current();
+            if (usage == null) {
+                return in;
+            }
+            return new ProxyInputStream(in) {
+                @Override
+                protected void afterRead(final int n) {
+                    if (n > 0) {
+                        usage.addBytesRead(n);
+                    }
+                }
+            };
+        }
+
         /**
          * Retrieves the compression format from the {@link NodeSettingsRO}.
          *
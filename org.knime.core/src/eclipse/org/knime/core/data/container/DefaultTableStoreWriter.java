@@ -54,14 +54,19 @@
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.DCObjectOutputVersion2.BlockableDCObjectOutputVersion2;
 import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.node.NodeSettingsWO;
 
 /**
- * The default table store writer used to write tables to disc.
+ * The default table store writer used to write tables to disc. Rows are written in row groups, columns that contain
+ * only primitive cells within a group are written as one block of raw values (see {@link PrimitiveColumnBlock}).
  * @author wiswedel
  */
 final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements KNIMEStreamConstants {
@@ -75,6 +80,21 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
     /** The compression format. */
     private final CompressionFormat m_compFormat;
 
+    /** Type identifiers of {@link DoubleCell}, {@link IntCell} and {@link LongCell}; null until first written. */
+    private Byte m_doubleCellShortCut, m_intCellShortCut, m_longCellShortCut;
+
+    /** Rows of the current row group, written once the group is complete (or the writer is closed). */
+    private final DataRow[] m_groupRows;
+
+    /** Number of rows in {@link #m_groupRows}. */
+    private int m_groupRowCount;
+
+    /** Per column the block for the primitive encoding, null for columns that can't hold primitive cells. */
+    private final PrimitiveColumnBlock[] m_blocks;
+
+    /** Per column the encoding in the current row group. */
+    private final byte[] m_encodings;
+
     /**
      * Constructs a writer for writing KNIME tables to disk using the given compression format.
      *
@@ -89,24 +109,151 @@ public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outp
         super(spec, writeRowKey);
         m_compFormat = compFormat;
         m_outStream = initOutFile(new BufferedOutputStream(outputStream));
+        final int colCount = spec.getNumColumns();
+        final int groupSize = PrimitiveColumnBlock.getRowGroupSize(colCount);
+        m_groupRows = new DataRow[groupSize];
+        m_blocks = new PrimitiveColumnBlock[colCount];
+        for (int i = 0; i < colCount; i++) {
+            if (PrimitiveColumnBlock.isCandidate(spec.getColumnSpec(i).getType())) {
+                m_blocks[i] = new PrimitiveColumnBlock(groupSize);
+            }
+        }
+        m_encodings = new byte[colCount];
     }
 
     /**
-     * Serializes a row to the output stream. This method is called from <code>addRow(DataRow)</code>.
+     * Adds a row to the current row group, which is serialized to the output stream once complete. This method is
+     * called from <code>addRow(DataRow)</code>.
      *
      * @throws IOException If an IO error occurs while writing to the file.
      */
     @Override
     public void writeRow(final DataRow row) throws IOException {
-        RowKey id = row.getKey();
-        writeRowKey(id, m_outStream);
-        for (int i = 0; i < row.getNumCells(); i++) {
-            DataCell cell =
-                row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
-            writeDataCell(cell, m_outStream);
-            m_outStream.endBlock();
+        m_groupRows[m_groupRowCount++] = row;
+        if (m_groupRowCount == m_groupRows.length) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * Writes the rows of the current group: the encoding of each column, the blocks of the columns in primitive
+     * encoding and then each row with its key and the cells of the other columns.
+     */
+    private void writeRowGroup() throws IOException {
+        final int colCount = m_encodings.length;
+        for (int c = 0; c < colCount; c++) {
+            m_encodings[c] = m_blocks[c] == null ? PrimitiveColumnBlock.ENCODING_GENERIC : detectEncoding(c);
+        }
+        m_outStream.writeBytes(m_encodings, 0, colCount);
+        for (int c = 0; c < colCount; c++) {
+            final byte encoding = m_encodings[c];
+            if (encoding != PrimitiveColumnBlock.ENCODING_GENERIC) {
+                registerPrimitiveShortCut(encoding);
+                final PrimitiveColumnBlock block = m_blocks[c];
+                block.reset(encoding);
+                for (int r = 0; r < m_groupRowCount; r++) {
+                    block.add(getRawCell(m_groupRows[r], c));
+                }
+                block.write(m_outStream);
+            }
+        }
+        for (int r = 0; r < m_groupRowCount; r++) {
+            final DataRow row = m_groupRows[r];
+            m_groupRows[r] = null;
+            writeRowKey(row.getKey(), m_outStream);
+            for (int c = 0; c < colCount; c++) {
+                if (m_encodings[c] == PrimitiveColumnBlock.ENCODING_GENERIC) {
+                    final DataCell cell = getRawCell(row, c);
+                    if (!writeUnblockedDataCell(cell)) {
+                        writeDataCell(cell, m_outStream);
+                        m_outStream.endBlock();
+                    }
+                }
+            }
+            m_outStream.endRow();
+        }
+        m_groupRowCount = 0;
+    }
+
+    /**
+     * @return the primitive encoding of the column if all its cells in the current group are of the same primitive
+     *         type (or missing), otherwise {@link PrimitiveColumnBlock#ENCODING_GENERIC}
+     */
+    private byte detectEncoding(final int column) {
+        byte encoding = PrimitiveColumnBlock.ENCODING_GENERIC;
+        for (int r = 0; r < m_groupRowCount; r++) {
+            final int next = PrimitiveColumnBlock.nextEncoding(getRawCell(m_groupRows[r], column), encoding);
+            if (next < 0) {
+                return PrimitiveColumnBlock.ENCODING_GENERIC;
+            }
+            encoding = (byte)next;
+        }
+        // all missing: only the bitmap is written, any primitive encoding will do
+        return encoding == PrimitiveColumnBlock.ENCODING_GENERIC ? PrimitiveColumnBlock.ENCODING_DOUBLE : encoding;
+    }
+
+    private static DataCell getRawCell(final DataRow row, final int index) {
+        return row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(index) : row.getCell(index);
+    }
+
+    /** Registers the cell class of the primitive encoding so that it's listed in the meta information. */
+    private void registerPrimitiveShortCut(final byte encoding) throws IOException {
+        if (encoding == PrimitiveColumnBlock.ENCODING_DOUBLE && m_doubleCellShortCut == null) {
+            m_doubleCellShortCut = registerTypeShortCut(DoubleCell.class);
+        } else if (encoding == PrimitiveColumnBlock.ENCODING_INT && m_intCellShortCut == null) {
+            m_intCellShortCut = registerTypeShortCut(IntCell.class);
+        } else if (encoding == PrimitiveColumnBlock.ENCODING_LONG && m_longCellShortCut == null) {
+            m_longCellShortCut = registerTypeShortCut(LongCell.class);
         }
-        m_outStream.endRow();
+    }
+
+    /**
+     * Writes the singleton missing cell and cells of the fixed-width primitive types (exactly {@link DoubleCell},
+     * {@link IntCell} and {@link LongCell}) of columns in generic encoding as their type identifier followed by the
+     * raw value. These cells can't read more or less than written, so they are not terminated by a block end and their
+     * values are written without serializer dispatch (see {@link Buffer#IVERSION_COMPACT_FORMAT}). The byte layout of
+     * the value is the same as the one of the cell's serializer.
+     *
+     * @param cell The cell to write.
+     * @return true if the cell was written, false if it needs to be written via
+     *         {@link #writeDataCell(DataCell, org.knime.core.data.container.DCObjectOutputVersion2)} and a block end
+     * @throws IOException If that fails.
+     */
+    private boolean writeUnblockedDataCell(final DataCell cell) throws IOException {
+        if (cell == DataType.getMissingCell()) {
+            m_outStream.writeControlByte(BYTE_TYPE_MISSING);
+            return true;
+        }
+        final Class<? extends DataCell> cellClass = cell.getClass();
+        if (cellClass == DoubleCell.class) {
+            if (m_doubleCellShortCut == null) {
+                m_doubleCellShortCut = registerTypeShortCut(cellClass);
+            }
+            m_outStream.writeControlByte(m_doubleCellShortCut);
+            m_outStream.writeDouble(((DoubleCell)cell).getDoubleValue());
+        } else if (cellClass == IntCell.class) {
+            if (m_intCellShortCut == null) {
+                m_intCellShortCut = registerTypeShortCut(cellClass);
+            }
+            m_outStream.writeControlByte(m_intCellShortCut);
+            m_outStream.writeInt(((IntCell)cell).getIntValue());
+        } else if (cellClass == LongCell.class) {
+            if (m_longCellShortCut == null) {
+                m_longCellShortCut = registerTypeShortCut(cellClass);
+            }
+            m_outStream.writeControlByte(m_longCellShortCut);
+            m_outStream.writeLong(((LongCell)cell).getLongValue());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /** Registers the argument (non-collection) cell class with the type short cuts and returns its identifier. */
+    private Byte registerTypeShortCut(final Class<? extends DataCell> cellClass) throws IOException {
+        final CellClassInfo info = CellClassInfo.get(cellClass, null);
+        getSerializerForDataCell(info);
+        return getTypeShortCut(info);
     }
 
     /**
@@ -143,7 +290,13 @@ public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
-        m_outStream.close();
+        try {
+            if (m_groupRowCount > 0) {
+                writeRowGroup();
+            }
+        } finally {
+            m_outStream.close();
+        }
     }
 
 }
@@ -81,5 +81,16 @@ public interface KNIMEStreamConstants {
     /** Separator for different rows. */
     static final byte BYTE_ROW_SEPARATOR = BYTE_TYPE_MISSING + 3;
 
+    /** Row key encoding: the key string follows (UTF). */
+    static final byte BYTE_ROW_KEY_STRING = 0;
+
+    /** Row key encoding: same prefix as the previous key, index incremented by one (nothing follows). */
+    static final byte BYTE_ROW_KEY_NEXT = 1;
+
+    /** Row key encoding: same prefix as the previous key, the (variable length) index delta follows. */
+    static final byte BYTE_ROW_KEY_DELTA = 2;
+
+    /** Row key encoding: new prefix (UTF) and (variable length) index follow. */
+    static final byte BYTE_ROW_KEY_SEQUENCE = 3;
 
 }
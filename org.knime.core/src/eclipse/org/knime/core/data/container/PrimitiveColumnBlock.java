@@ -0,0 +1,321 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * The values of one column of a row group written by {@link DefaultTableStoreWriter} (as of
+ * {@link Buffer#IVERSION_COMPACT_FORMAT}) in the <i>homogeneous primitive</i> encoding: if all cells of the column in
+ * the group are exactly {@link DoubleCell}, {@link IntCell} or {@link LongCell} (or the singleton missing cell), they
+ * are stored as one block of raw fixed-width values, preceded by a bitmap of the missing cells. Columns of any other
+ * content use the generic per-cell encoding.
+ *
+ * <p>
+ * A row group starts with one encoding byte per column, followed by the blocks of the primitive columns and the rows
+ * (row key and cells of the generic columns). Its size only depends on the number of columns, see
+ * {@link #getRowGroupSize(int)}. A block consists of a flag byte (whether there are missing cells), the missing bitmap
+ * (only if flagged, one bit per row, least significant bit first) and the big-endian values of the non-missing cells
+ * (in the layout of the cells' serializers).
+ *
+ * <p>
+ * Instances are reused from group to group; the values are written and read in row order.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PrimitiveColumnBlock {
+
+    /** Encoding of a column whose cells are written one by one. */
+    static final byte ENCODING_GENERIC = 0;
+
+    /** Encoding of a column of {@link DoubleCell}s. */
+    static final byte ENCODING_DOUBLE = 1;
+
+    /** Encoding of a column of {@link IntCell}s. */
+    static final byte ENCODING_INT = 2;
+
+    /** Encoding of a column of {@link LongCell}s. */
+    static final byte ENCODING_LONG = 3;
+
+    /** Number of rows of a row group of a table with few columns. */
+    static final int MAX_ROW_GROUP_SIZE = 1024;
+
+    /** Cells held by the writer for a row group, bounds the group size of wide tables. */
+    private static final int MAX_ROW_GROUP_CELLS = 1 << 16;
+
+    private final long[] m_values;
+
+    private final byte[] m_missing;
+
+    private final byte[] m_bytes;
+
+    private byte m_encoding = ENCODING_GENERIC;
+
+    private int m_size;
+
+    private boolean m_hasMissing;
+
+    /** Position of the next value in {@link #m_values} while reading. */
+    private int m_nextValue;
+
+    /** @param capacity the size of a row group */
+    PrimitiveColumnBlock(final int capacity) {
+        m_values = new long[capacity];
+        m_missing = new byte[(capacity + 7) >>> 3];
+        m_bytes = new byte[capacity << 3];
+    }
+
+    /**
+     * @param columnCount the number of columns of the table
+     * @return the number of rows in a row group (except for the last one)
+     */
+    static int getRowGroupSize(final int columnCount) {
+        return Math.max(1, Math.min(MAX_ROW_GROUP_SIZE, MAX_ROW_GROUP_CELLS / Math.max(1, columnCount)));
+    }
+
+    /**
+     * @param cellClass a cell class, possibly null
+     * @return the primitive encoding of cells of the class, {@link #ENCODING_GENERIC} if not primitive
+     */
+    static byte getEncoding(final Class<? extends DataCell> cellClass) {
+        if (cellClass == DoubleCell.class) {
+            return ENCODING_DOUBLE;
+        } else if (cellClass == IntCell.class) {
+            return ENCODING_INT;
+        } else if (cellClass == LongCell.class) {
+            return ENCODING_LONG;
+        }
+        return ENCODING_GENERIC;
+    }
+
+    /**
+     * @param type the type of a column
+     * @return whether cells of the column may be primitive, i.e. the column type is primitive or unspecific
+     */
+    static boolean isCandidate(final DataType type) {
+        final Class<? extends DataCell> cellClass = type.getCellClass();
+        return cellClass == null || getEncoding(cellClass) != ENCODING_GENERIC;
+    }
+
+    /**
+     * @param cell the cell of a candidate column
+     * @param encoding the encoding determined from the previous cells of the group, {@link #ENCODING_GENERIC} for none
+     * @return the encoding of the column including the argument cell, -1 if the column is heterogeneous
+     */
+    static int nextEncoding(final DataCell cell, final byte encoding) {
+        if (cell == DataType.getMissingCell()) {
+            return encoding;
+        }
+        final byte cellEncoding = getEncoding(cell.getClass());
+        if (cellEncoding == ENCODING_GENERIC || (encoding != ENCODING_GENERIC && cellEncoding != encoding)) {
+            return -1;
+        }
+        return cellEncoding;
+    }
+
+    /** @return the encoding of the current group */
+    byte getEncoding() {
+        return m_encoding;
+    }
+
+    /**
+     * Clears the block for writing the next group.
+     *
+     * @param encoding the (primitive) encoding of the column in the group
+     */
+    void reset(final byte encoding) {
+        m_encoding = encoding;
+        m_size = 0;
+        m_nextValue = 0;
+        m_hasMissing = false;
+        Arrays.fill(m_missing, (byte)0);
+    }
+
+    /**
+     * Adds the cell of the next row.
+     *
+     * @param cell the singleton missing cell or a cell of the block's type
+     */
+    void add(final DataCell cell) {
+        final int row = m_size++;
+        if (cell == DataType.getMissingCell()) {
+            m_missing[row >>> 3] |= 1 << (row & 7);
+            m_hasMissing = true;
+            return;
+        }
+        final long value;
+        switch (m_encoding) {
+            case ENCODING_DOUBLE:
+                value = Double.doubleToLongBits(((DoubleCell)cell).getDoubleValue());
+                break;
+            case ENCODING_INT:
+                value = ((IntCell)cell).getIntValue();
+                break;
+            default:
+                value = ((LongCell)cell).getLongValue();
+        }
+        m_values[m_nextValue++] = value;
+    }
+
+    /**
+     * Writes the block added since the last {@link #reset(byte)}.
+     *
+     * @param out to write to
+     * @throws IOException if that fails
+     */
+    void write(final DCObjectOutputVersion2 out) throws IOException {
+        out.writeControlByte(m_hasMissing ? 1 : 0);
+        if (m_hasMissing) {
+            out.writeBytes(m_missing, 0, (m_size + 7) >>> 3);
+        }
+        final int width = getWidth();
+        final byte[] b = m_bytes;
+        int pos = 0;
+        for (int i = 0; i < m_nextValue; i++) {
+            final long value = m_values[i];
+            for (int shift = (width - 1) << 3; shift >= 0; shift -= 8) {
+                b[pos++] = (byte)(value >>> shift);
+            }
+        }
+        out.writeBytes(b, 0, pos);
+    }
+
+    /**
+     * Reads a block of a group, the values are then retrieved row by row via {@link #isMissing(int)} and
+     * {@link #nextDouble()} and friends.
+     *
+     * @param in to read from
+     * @param encoding the (primitive) encoding of the column in the group
+     * @param size the number of rows of the group
+     * @throws IOException if that fails
+     */
+    void read(final DCObjectInputVersion2 in, final byte encoding, final int size) throws IOException {
+        m_encoding = encoding;
+        m_size = size;
+        m_nextValue = 0;
+        final byte flag = in.readControlByte();
+        if (flag != 0 && flag != 1) {
+            throw new IOException("Invalid missing value flag in column block: " + flag);
+        }
+        m_hasMissing = flag == 1;
+        final int bitmapLength = (size + 7) >>> 3;
+        int valueCount = size;
+        if (m_hasMissing) {
+            in.readBytes(m_missing, 0, bitmapLength);
+            for (int i = 0; i < bitmapLength; i++) {
+                valueCount -= Integer.bitCount(m_missing[i] & 0xFF);
+            }
+            if (valueCount < 0 || (m_missing[bitmapLength - 1] & 0xFF) >>> (size - ((bitmapLength - 1) << 3)) != 0) {
+                throw new IOException("Invalid missing value bitmap in column block");
+            }
+        } else {
+            Arrays.fill(m_missing, 0, bitmapLength, (byte)0);
+        }
+        final int width = getWidth();
+        final byte[] b = m_bytes;
+        in.readBytes(b, 0, valueCount * width);
+        int pos = 0;
+        for (int i = 0; i < valueCount; i++) {
+            long value = 0L;
+            for (int j = 0; j < width; j++) {
+                value = (value << 8) | (b[pos++] & 0xFF);
+            }
+            m_values[i] = width == 4 ? (int)value : value;
+        }
+    }
+
+    /**
+     * @param row the row within the group
+     * @return whether the cell of the row is missing
+     */
+    boolean isMissing(final int row) {
+        return m_hasMissing && (m_missing[row >>> 3] & (1 << (row & 7))) != 0;
+    }
+
+    /** @return the next non-missing value of a double block */
+    double nextDouble() {
+        return Double.longBitsToDouble(m_values[m_nextValue++]);
+    }
+
+    /** @return the next non-missing value of an int block */
+    int nextInt() {
+        return (int)m_values[m_nextValue++];
+    }
+
+    /** @return the next non-missing value of a long block */
+    long nextLong() {
+        return m_values[m_nextValue++];
+    }
+
+    /**
+     * @param row the row within the group
+     * @return the cell of the row, values need to be retrieved in row order
+     */
+    DataCell nextCell(final int row) {
+        if (isMissing(row)) {
+            return DataType.getMissingCell();
+        }
+        switch (m_encoding) {
+            case ENCODING_DOUBLE:
+                return new DoubleCell(nextDouble());
+            case ENCODING_INT:
+                return new IntCell(nextInt());
+            default:
+                return new LongCell(nextLong());
+        }
+    }
+
+    private int getWidth() {
+        return m_encoding == ENCODING_INT ? 4 : 8;
+    }
+}
@@ -55,12 +55,15 @@
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
@@ -528,8 +531,8 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
         ConcurrentNewColCalculator calculator =
             new ConcurrentNewColCalculator(queueSize, workers, container, subProgress, finalRowCount,
                 newColsProducerMapping, facForProgress);
-        try {
-            calculator.run(table);
+        try (CloseableRowIterator it = table.iterator()) {
+            calculator.run(() -> calculator.new BatchIterator(it));
         } catch (InterruptedException e) {
             CanceledExecutionException cee = new CanceledExecutionException(e.getMessage());
             cee.initCause(e);
@@ -747,9 +750,33 @@ public boolean removeFromTableRepository(final WorkflowDataRepository dataReposi
     /**
      * The MultiThreadWorker that processes the input rows concurrently. Only used if the cell factory is an
      * {@link AbstractCellFactory} with parallel processing ( {@link AbstractCellFactory#setParallelProcessing(boolean)}
-     * )
+     * ). Rows are processed in batches of consecutive rows, whose size is adapted to the measured cost per row: cheap
+     * rows are grouped so that the scheduling overhead per task is negligible, expensive rows are processed one by one
+     * to keep all workers busy. The number of rows submitted but not yet added to the container is bounded by the
+     * queue size of the cell factory (a row count), the task queue holds a few batches per worker.
      */
-    private static final class ConcurrentNewColCalculator extends MultiThreadWorker<DataRow, DataRow> {
+    private static final class ConcurrentNewColCalculator extends MultiThreadWorker<List<DataRow>, DataRow[]> {
+
+        /** Targeted computation time per batch (1ms), large compared to the overhead of scheduling a task. */
+        private static final long TARGET_BATCH_NANOS = 1_000_000L;
+
+        /** Upper bound of the batch size. */
+        private static final int MAX_BATCH_SIZE = 256;
+
+        /** Number of batches queued per worker, so that a worker finds the next batch when it finishes one. */
+        private static final int BATCHES_PER_WORKER = 4;
+
+        /** Upper bound of the batch size for this instance so that every worker can get a batch of queued rows. */
+        private final int m_maxBatchSize;
+
+        /** One permit per row that may be submitted but not yet be added to the container. */
+        private final Semaphore m_rowPermits;
+
+        /** Number of permits of {@link #m_rowPermits}, the row queue size of the cell factory. */
+        private final int m_maxQueuedRows;
+
+        /** Set if processing a batch failed, the submitting thread then doesn't wait for row permits anymore. */
+        private volatile boolean m_isAborted;
 
         private final ExecutionMonitor m_subProgress;
 
@@ -761,8 +788,18 @@ private static final class ConcurrentNewColCalculator extends MultiThreadWorker<
 
         private final CellFactory m_facForProgress;
 
+        /** Number of rows added to the container so far, only accessed in processFinished (which is sequential). */
+        private long m_finishedRowCount;
+
         /**
-         * @param maxQueueSize
+         * Smoothed computation time per row in nanoseconds, 0 if not yet measured. Updated by the workers without
+         * synchronization, a lost update only delays the adaptation of the batch size.
+         */
+        private volatile long m_nanosPerRow;
+
+        /**
+         * @param maxQueueSize the maximum number of rows in the queue (see
+         *            {@link AbstractCellFactory#setParallelProcessing(boolean, int, int)})
          * @param maxActiveInstanceSize
          * @param table
          * @param subProgress
@@ -773,7 +810,10 @@ private static final class ConcurrentNewColCalculator extends MultiThreadWorker<
         private ConcurrentNewColCalculator(final int maxQueueSize, final int maxActiveInstanceSize,
             final DataContainer container, final ExecutionMonitor subProgress, final long totalRowCount,
             final NewColumnsProducerMapping reducedList, final CellFactory facForProgress) {
-            super(maxQueueSize, maxActiveInstanceSize);
+            super(BATCHES_PER_WORKER * maxActiveInstanceSize, maxActiveInstanceSize);
+            m_maxBatchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, maxQueueSize / maxActiveInstanceSize));
+            m_maxQueuedRows = Math.max(maxQueueSize, m_maxBatchSize);
+            m_rowPermits = new Semaphore(m_maxQueuedRows);
             m_container = container;
             m_subProgress = subProgress;
             m_totalRowCount = totalRowCount;
@@ -783,26 +823,102 @@ private ConcurrentNewColCalculator(final int maxQueueSize, final int maxActiveIn
 
         /** {@inheritDoc} */
         @Override
-        protected DataRow compute(final DataRow in, final long index) throws Exception {
-            return calcNewCellsForRow(in, m_reducedList);
+        protected DataRow[] compute(final List<DataRow> in, final long index) throws Exception {
+            final long start = System.nanoTime();
+            final DataRow[] result = new DataRow[in.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = calcNewCellsForRow(in.get(i), m_reducedList);
+            }
+            final long nanosPerRow = Math.max(1L, (System.nanoTime() - start) / result.length);
+            final long previous = m_nanosPerRow;
+            m_nanosPerRow = previous == 0L ? nanosPerRow : ((3 * previous + nanosPerRow) / 4);
+            return result;
         }
 
         /** {@inheritDoc} */
         @Override
         protected void processFinished(final ComputationTask task) throws ExecutionException, CancellationException,
             InterruptedException {
-            int r = (int)task.getIndex(); // row count in table is integer
-            RowKey key = task.getInput().getKey();
-            DataRow append = task.get(); // exception falls through
-            m_container.addRowToTable(append);
-            m_facForProgress.setProgress(r + 1, m_totalRowCount, key, m_subProgress);
+            final List<DataRow> input = task.getInput();
+            try {
+                final DataRow[] append = task.get(); // exception falls through
+                for (final DataRow row : append) {
+                    m_container.addRowToTable(row);
+                }
+                m_finishedRowCount += append.length;
+                final RowKey key = input.get(input.size() - 1).getKey();
+                m_facForProgress.setProgress(m_finishedRowCount, m_totalRowCount, key, m_subProgress);
+                try {
+                    m_subProgress.checkCanceled();
+                } catch (CanceledExecutionException cee) {
+                    throw new CancellationException();
+                }
+            } catch (ExecutionException | InterruptedException | RuntimeException e) {
+                // the remaining tasks aren't processed and won't return their permits
+                abort();
+                throw e;
+            }
+            m_rowPermits.release(input.size());
+        }
+
+        private void abort() {
+            if (!m_isAborted) {
+                m_isAborted = true;
+                // enough for the submitting thread to get to the point where it notices the failure
+                m_rowPermits.release(m_maxQueuedRows);
+            }
+        }
+
+        /** Waits until the rows of the next batch may be submitted. */
+        private void acquireRowPermits(final int rowCount) {
+            if (m_isAborted) {
+                return;
+            }
             try {
-                m_subProgress.checkCanceled();
-            } catch (CanceledExecutionException cee) {
+                m_rowPermits.acquire(rowCount);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new CancellationException();
             }
         }
 
+        /** @return the number of rows for the next batch, 1 as long as there is no measurement */
+        private int nextBatchSize() {
+            final long nanosPerRow = m_nanosPerRow;
+            if (nanosPerRow == 0L) {
+                return 1;
+            }
+            return (int)Math.max(1L, Math.min(m_maxBatchSize, TARGET_BATCH_NANOS / nanosPerRow));
+        }
+
+        /** Groups the rows of the input table into batches, called in the thread that submits the tasks. */
+        private final class BatchIterator implements Iterator<List<DataRow>> {
+
+            private final CloseableRowIterator m_rowIterator;
+
+            private BatchIterator(final CloseableRowIterator rowIterator) {
+                m_rowIterator = rowIterator;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return m_rowIterator.hasNext();
+            }
+
+            @Override
+            public List<DataRow> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int batchSize = nextBatchSize();
+                final List<DataRow> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && m_rowIterator.hasNext()) {
+                    batch.add(m_rowIterator.next());
+                }
+                acquireRowPermits(batch.size());
+                return batch;
+            }
+        }
     }
 
     /**
@@ -47,7 +47,11 @@
 
 package org.knime.core.data.convert.datacell;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellFactory;
@@ -72,6 +76,9 @@
 
     private final Method m_method;
 
+    /** Handle of {@link #m_method}, invoked instead of the method itself which avoids reflection per cell. */
+    private final MethodHandle m_handle;
+
     private final Class<S> m_srcType;
 
     private final DataType m_destDataType;
@@ -92,9 +99,11 @@
      * @param type metatype of the sourceType
      * @throws NoSuchMethodException if an expected constructor of the factory class does not exist
      * @throws SecurityException if the constructor of the factory class cannot be accessed
+     * @throws IllegalAccessException if the method cannot be accessed
      */
     FactoryMethodToDataCellConverterFactory(final Method method, final Class<S> sourceType,
-        final DataType destDataType, final String type) throws NoSuchMethodException, SecurityException {
+        final DataType destDataType, final String type)
+        throws NoSuchMethodException, SecurityException, IllegalAccessException {
         // there should be exactly one parameter to FactoryMethods
         assert method.getParameterTypes().length == 1;
         // the sourceType has to match the parameter type
@@ -103,6 +112,7 @@
         assert DataCell.class.isAssignableFrom(method.getReturnType());
 
         m_method = method;
+        m_handle = MethodHandles.lookup().unreflect(method);
         m_srcType = sourceType;
         m_destDataType = destDataType;
         m_metaType = type;
@@ -119,23 +129,23 @@ public JavaToDataCellConverter<S> create(final FileStoreFactory fileStoreFactory
         final F finalFactory = (F)m_destDataType.getCellFactoryFor(fileStoreFactory).orElseThrow(
             () -> new RuntimeException("No DataCellFactory found for DataType: " + m_destDataType.getName()));
 
+        // equivalent to finalFactory.factoryMethod(source), static factory methods don't take the factory
+        final MethodHandle boundHandle =
+            (Modifier.isStatic(m_method.getModifiers()) ? m_handle : m_handle.bindTo(finalFactory))
+                .asType(MethodType.methodType(DataCell.class, Object.class));
         return new JavaToDataCellConverter<S>() {
             @Override
             public DataCell convert(final S source) throws Exception {
                 if (source == null) {
                     return MISSING;
                 }
-
-                /*
-                 * After about default 15 of these calls (can be set by
-                 * sun.reflect.inflationThreshold), this should be optimized via
-                 * "reflection inflation" which is enabled by default (ensure
-                 * sun.reflect.noInflation is false)
-                 *
-                 * The following is equivalent to
-                 * m_factory.factoryMethod(source)
-                 */
-                return (DataCell)m_method.invoke(finalFactory, source);
+                try {
+                    return (DataCell)boundHandle.invokeExact((Object)source);
+                } catch (Exception | Error e) { // NOSONAR rethrown as is
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
             }
         };
     }
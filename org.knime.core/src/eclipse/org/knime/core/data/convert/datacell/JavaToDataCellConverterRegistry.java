@@ -52,10 +52,12 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -140,6 +142,16 @@ public final class JavaToDataCellConverterRegistry extends
     AbstractConverterFactoryRegistry<Class<?>, DataType, JavaToDataCellConverterFactory<?>, JavaToDataCellConverterRegistry> {
     private static final NodeLogger LOGGER = NodeLogger.getLogger(JavaToDataCellConverterRegistry.class);
 
+    /* Results of getConverterFactories(Class, DataType), which walks the type hierarchy of the source type */
+    private final ConcurrentHashMap<ConversionKey, List<JavaToDataCellConverterFactory<?>>> m_converterFactoryCache =
+        new ConcurrentHashMap<>();
+
+    @Override
+    public JavaToDataCellConverterRegistry register(final JavaToDataCellConverterFactory<?> factory) {
+        m_converterFactoryCache.clear();
+        return super.register(factory);
+    }
+
     /**
      * @param sourceType the sourceType
      * @return a {@link Collection} of converter factories with the given <code>sourceType</code>
@@ -238,7 +250,21 @@ public Optional<JavaToDataCellConverterFactory<?>> getConverterFactory(final Str
     // we only put JavaToDataCellConverter<T> into the map for Class<T>
     public <S> Collection<JavaToDataCellConverterFactory<S>> getConverterFactories(final Class<S> sourceType,
         final DataType destType) {
+        // no computeIfAbsent, the lookup of array converters recurses into this method
+        final ConversionKey key = new ConversionKey(sourceType, destType);
+        List<JavaToDataCellConverterFactory<?>> factories = m_converterFactoryCache.get(key);
+        if (factories == null) {
+            factories = Collections.unmodifiableList(new ArrayList<>(lookupConverterFactories(sourceType, destType)));
+            m_converterFactoryCache.putIfAbsent(key, factories);
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"}) // only factories for Class<S> are cached for S
+        final Collection<JavaToDataCellConverterFactory<S>> typed = (Collection)factories;
+        // a copy as callers may modify the result
+        return new ArrayList<>(typed);
+    }
 
+    private <S> Collection<JavaToDataCellConverterFactory<S>> lookupConverterFactories(final Class<S> sourceType,
+        final DataType destType) {
         final LinkedBlockingQueue<Class<?>> classes = new LinkedBlockingQueue<>();
         classes.add(sourceType);
 
@@ -383,6 +409,9 @@ private void parseAnnotations() {
                                 "Could not access default constructor or constructor with parameter 'ExecutionContext' of "
                                     + "class '" + cellFactoryClass.getName() + "'. Converter will not be registered.",
                                 ex);
+                    } catch (IllegalAccessException ex) {
+                        LOGGER.coding("Cannot access " + cellFactoryClass.getName() + "." + method.getName()
+                            + ". Converter will not be registered.", ex);
                     }
                 }
             }
@@ -48,6 +48,9 @@
 package org.knime.core.data.convert.java;
 
 import java.lang.annotation.IncompleteAnnotationException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -56,8 +59,10 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -71,6 +76,7 @@
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.collection.ListCell;
 import org.knime.core.data.convert.AbstractConverterFactoryRegistry;
+import org.knime.core.data.convert.ConversionKey;
 import org.knime.core.data.convert.DataValueAccessMethod;
 import org.knime.core.data.convert.datacell.JavaToDataCellConverterRegistry;
 import org.knime.core.data.convert.util.ClassUtil;
@@ -146,6 +152,20 @@ public final class DataCellToJavaConverterRegistry extends
     /* Data types stored by their preferred value type, only for collection cells, for DataType we can directly use getPreferredValueClass */
     private final HashMap<Class<? extends DataValue>, DataType> m_preferredTypes = new HashMap<>();
 
+    /* Results of getConverterFactories(DataType, Class), which is queried for every column of a mapping */
+    private final ConcurrentHashMap<ConversionKey, List<DataCellToJavaConverterFactory<?, ?>>> m_converterFactoryCache =
+        new ConcurrentHashMap<>();
+
+    /* Factories for primitive destination types registered next to the ones for the boxed type (e.g. "double" next to
+     * "Double"), only meant to be paired with primitive consumers; they are not wrapped for collections */
+    private final Set<DataCellToJavaConverterFactory<?, ?>> m_primitiveAccessFactories = new HashSet<>();
+
+    @Override
+    public DataCellToJavaConverterRegistry register(final DataCellToJavaConverterFactory<?, ?> factory) {
+        m_converterFactoryCache.clear();
+        return super.register(factory);
+    }
+
     /**
      * Get all {@link DataType} that have at least one {@link DataValue} interface that is convertible by one of the
      * registered converters.
@@ -194,6 +214,9 @@ public Set<DataType> getAllConvertibleDataTypes() {
             }
 
             for (final DataCellToJavaConverterFactory<?, ?> cls : factories) {
+                if (m_primitiveAccessFactories.contains(cls)) {
+                    continue;
+                }
                 final Class<?> sourceType = cls.getSourceType();
 
                 // sourceType could be a DataCell subclass!
@@ -239,6 +262,9 @@ public Set<DataType> getAllConvertibleDataTypes() {
                     sourceType.getCollectionElementType());
 
             for (final DataCellToJavaConverterFactory<?, ?> factory : factories) {
+                if (m_primitiveAccessFactories.contains(factory)) {
+                    continue;
+                }
                 // We do not use getCollectionConverterFactories here, because that will recursively check
                 // the class hierarchy. This was already done in getFactoriesForSourceType, though.
                 set.add(new CollectionConverterFactory<>(factory));
@@ -300,6 +326,21 @@ public Set<DataType> getAllConvertibleDataTypes() {
             return Arrays.asList(MissingToNullConverterFactory.getInstance());
         }
 
+        // no computeIfAbsent, the lookup of collection converters recurses into this method
+        final ConversionKey key = new ConversionKey(sourceType, destType);
+        List<DataCellToJavaConverterFactory<?, ?>> factories = m_converterFactoryCache.get(key);
+        if (factories == null) {
+            factories = Collections.unmodifiableList(new ArrayList<>(lookupConverterFactories(sourceType, destType)));
+            m_converterFactoryCache.putIfAbsent(key, factories);
+        }
+        // a copy as callers may modify the result
+        @SuppressWarnings({"unchecked", "rawtypes"}) // only factories for Class<D> are cached for D
+        final Collection<DataCellToJavaConverterFactory<? extends DataValue, D>> typed = new ArrayList(factories);
+        return typed;
+    }
+
+    private <D> Collection<DataCellToJavaConverterFactory<? extends DataValue, D>>
+        lookupConverterFactories(final DataType sourceType, final Class<D> destType) {
         final Collection<DataCellToJavaConverterFactory<? extends DataValue, D>> allFactories = new ArrayList<>();
 
         for (final Class<? extends DataValue> curClass : sourceType.getValueClasses()) {
@@ -376,7 +417,9 @@ public Set<DataType> getAllConvertibleDataTypes() {
         // try creating a dynamic CollectionConverterFactory
         for (final DataCellToJavaConverterFactory<? extends DataValue, ?> factory : getConverterFactories(
             sourceType.getCollectionElementType(), destType.getComponentType())) {
-            allFactories.add(new CollectionConverterFactory<>(factory));
+            if (!m_primitiveAccessFactories.contains(factory)) {
+                allFactories.add(new CollectionConverterFactory<>(factory));
+            }
         }
 
         return allFactories;
@@ -511,8 +554,10 @@ private <T> void parseAnnotation(final Class<? extends DataValue> valueClass, fi
         try {
             final Class<T> javaType = (Class<T>)ClassUtil.ensureObjectType(method.getReturnType());
             final String name = annotation.name();
-            final DataCellToJavaConverterFactory<?, ?> factory = new SimpleDataCellToJavaConverterFactory<>(valueClass,
-                javaType, (value) -> (T)method.invoke(value), name);
+            final DataCellToJavaConverter<DataValue, T> converter =
+                (DataCellToJavaConverter<DataValue, T>)createAccessConverter(method);
+            final DataCellToJavaConverterFactory<?, ?> factory =
+                new SimpleDataCellToJavaConverterFactory<>((Class<DataValue>)valueClass, javaType, converter, name);
 
             // Check name of factory
             if (!validateFactoryName(factory)) {
@@ -525,11 +570,96 @@ private <T> void parseAnnotation(final Class<? extends DataValue> valueClass, fi
             register(factory);
             LOGGER.debug("Registered DataCellToJavaConverterFactory from DataValueAccessMethod annotation for "
                 + valueClass.getName() + " to " + javaType.getName());
+            final Class<T> primitiveType = (Class<T>)method.getReturnType();
+            if (primitiveType.isPrimitive() && isPrimitiveConverter(converter)) {
+                // also offer the primitive destination type (e.g. "double" next to "Double"), consumers of that type
+                // are paired with this factory and read the value without boxing it (see DefaultDataRowConsumer)
+                final DataCellToJavaConverterFactory<?, ?> primitiveFactory =
+                    new SimpleDataCellToJavaConverterFactory<>((Class<DataValue>)valueClass, primitiveType, converter,
+                        primitiveType.getSimpleName() + name.substring(javaType.getSimpleName().length()));
+                m_primitiveAccessFactories.add(primitiveFactory);
+                register(primitiveFactory);
+            }
         } catch (IncompleteAnnotationException e) {
             LOGGER.coding(
                 "Incomplete Annotation for " + valueClass.getName() + "." + method.getName() + ". Will not register.",
                 e);
+        } catch (IllegalAccessException e) {
+            LOGGER.coding("Cannot access " + valueClass.getName() + "." + method.getName() + ". Will not register.",
+                e);
+        }
+    }
+
+    private static boolean isPrimitiveConverter(final DataCellToJavaConverter<?, ?> converter) {
+        return converter instanceof DataCellToDoubleConverter || converter instanceof DataCellToIntConverter
+            || converter instanceof DataCellToLongConverter || converter instanceof DataCellToBooleanConverter;
+    }
+
+    /**
+     * Creates a converter that calls the given access method through a {@link MethodHandle}, which (unlike
+     * {@link Method#invoke(Object, Object...)}) is inlined by the JIT. For methods returning {@code double},
+     * {@code int}, {@code long} or {@code boolean} the converter implements the respective primitive converter
+     * interface, e.g. {@link DataCellToDoubleConverter}, so that the value need not be boxed.
+     */
+    private static DataCellToJavaConverter<DataValue, ?> createAccessConverter(final Method method)
+        throws IllegalAccessException {
+        final MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        final Class<?> returnType = method.getReturnType();
+        if (returnType == double.class) {
+            final MethodHandle h = handle.asType(MethodType.methodType(double.class, DataValue.class));
+            return (DataCellToDoubleConverter<DataValue>)value -> {
+                try {
+                    return (double)h.invokeExact(value);
+                } catch (Exception | Error e) { // NOSONAR rethrown as is
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        } else if (returnType == int.class) {
+            final MethodHandle h = handle.asType(MethodType.methodType(int.class, DataValue.class));
+            return (DataCellToIntConverter<DataValue>)value -> {
+                try {
+                    return (int)h.invokeExact(value);
+                } catch (Exception | Error e) { // NOSONAR rethrown as is
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        } else if (returnType == long.class) {
+            final MethodHandle h = handle.asType(MethodType.methodType(long.class, DataValue.class));
+            return (DataCellToLongConverter<DataValue>)value -> {
+                try {
+                    return (long)h.invokeExact(value);
+                } catch (Exception | Error e) { // NOSONAR rethrown as is
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        } else if (returnType == boolean.class) {
+            final MethodHandle h = handle.asType(MethodType.methodType(boolean.class, DataValue.class));
+            return (DataCellToBooleanConverter<DataValue>)value -> {
+                try {
+                    return (boolean)h.invokeExact(value);
+                } catch (Exception | Error e) { // NOSONAR rethrown as is
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
         }
+        final MethodHandle h = handle.asType(MethodType.methodType(Object.class, DataValue.class));
+        return value -> {
+            try {
+                return (Object)h.invokeExact(value);
+            } catch (Exception | Error e) { // NOSONAR rethrown as is
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        };
     }
 
     /**
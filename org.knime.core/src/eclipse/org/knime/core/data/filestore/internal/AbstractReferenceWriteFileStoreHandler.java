@@ -98,6 +98,11 @@ public FileStore createFileStore(final String name, final int[] nestedLoopPath,
         return m_delegate.createFileStore(name, nestedLoopPath, iterationIndex);
     }
 
+    @Override
+    public FileStore[] createFileStores(final String[] names) throws IOException {
+        return m_delegate.createFileStores(names);
+    }
+
     @Override
     public void clearAndDispose() {
         m_delegate.clearAndDispose();
@@ -0,0 +1,275 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Workflow-wide index of file store files by their content, used to store identical file store content only once.
+ * When a file store is copied into a handler (e.g. because it is unknown to the workflow's data repository), each of
+ * its files is hashed and, if a file with the same content was copied before, hard-linked to that file instead of
+ * being copied again. The file system's link count makes sure the content is kept as long as any of the handlers
+ * referencing it exists; the index itself counts the registered files per content and forgets a content once all of
+ * them are {@link #release(File) released}.
+ *
+ * <p>
+ * Hard-linked files share their content, writing to one of them would change all copies. Therefore the files copied
+ * by the index are immutable: they are marked read-only when registered, so that an attempt to modify a copied file
+ * store fails instead of silently changing the file stores of other nodes. A file store that needs to be modified has
+ * to be copied into a new file store first. Released files are made writable again (or, if other copies still share
+ * the content, unlinked) so that they can be deleted on every platform.
+ *
+ * <p>
+ * Only used if {@link KNIMEConstants#PROPERTY_CONTENT_DEDUPLICATION} is set. Falls back to plain copies if the file
+ * system doesn't support hard links.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @noreference This class is not intended to be referenced by clients.
+ * @since 4.4
+ */
+public final class ContentDeduplicationIndex {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ContentDeduplicationIndex.class);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final boolean IS_ENABLED = Boolean.getBoolean(KNIMEConstants.PROPERTY_CONTENT_DEDUPLICATION);
+
+    /** The registered files by content digest, guarded by the index; the list size is the reference count. */
+    private final Map<ByteBuffer, List<File>> m_filesByDigest = new HashMap<>();
+
+    /** The content digest by registered file, guarded by the index. */
+    private final Map<File, ByteBuffer> m_digestByFile = new HashMap<>();
+
+    private boolean m_isLinkingUnsupported;
+
+    /** @return whether content deduplication is enabled via {@link KNIMEConstants#PROPERTY_CONTENT_DEDUPLICATION} */
+    public static boolean isEnabled() {
+        return IS_ENABLED;
+    }
+
+    /**
+     * Copies the source file or directory to the target, hard-linking each file to a previously registered file with
+     * the same content if possible. The files created in the target are registered for subsequent copies.
+     *
+     * @param source the file or directory to copy
+     * @param target the target file or directory, created or replaced
+     * @throws IOException if the source can't be read or the target can't be written
+     */
+    public void copy(final File source, final File target) throws IOException {
+        if (!source.exists()) {
+            throw new IOException("Source \"" + source + "\" does not exist.");
+        }
+        if (source.isDirectory()) {
+            if (!target.isDirectory() && !target.mkdirs()) {
+                throw new IOException("Cannot create target directory \"" + target.getAbsolutePath() + "\"");
+            }
+            final String[] children = source.list();
+            if (children == null) {
+                throw new IOException("Can't copy directory \"" + source + "\", no read permissions.");
+            }
+            for (String child : children) {
+                copy(new File(source, child), new File(target, child));
+            }
+        } else {
+            copyFile(source, target);
+        }
+    }
+
+    private void copyFile(final File source, final File target) throws IOException {
+        final ByteBuffer digest = digest(source);
+        final File existing = getRegisteredFile(digest, source.length());
+        if (existing != null && !target.exists()) {
+            try {
+                Files.createLink(target.toPath(), existing.toPath());
+                register(digest, target);
+                return;
+            } catch (UnsupportedOperationException | IOException e) {
+                onLinkFailed(existing, target, e);
+            }
+        }
+        if (target.isDirectory()) {
+            FileUtil.deleteRecursively(target);
+        } else if (target.exists()) {
+            // replace instead of overwrite, the target may share its content with other copies
+            release(target);
+            Files.deleteIfExists(target.toPath());
+        }
+        FileUtil.copy(source, target);
+        register(digest, target);
+    }
+
+    /**
+     * Removes all registered files in the argument directory (or the file itself), to be called before the files
+     * are deleted.
+     *
+     * @param fileOrDirectory the file or directory to release
+     */
+    public synchronized void release(final File fileOrDirectory) {
+        final String prefix = fileOrDirectory.getAbsolutePath() + File.separator;
+        for (Iterator<Map.Entry<File, ByteBuffer>> it = m_digestByFile.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<File, ByteBuffer> entry = it.next();
+            final File file = entry.getKey();
+            if (file.equals(fileOrDirectory.getAbsoluteFile()) || file.getAbsolutePath().startsWith(prefix)) {
+                it.remove();
+                unregister(entry.getValue(), file);
+                final List<File> remaining = m_filesByDigest.get(entry.getValue());
+                if (remaining == null) {
+                    // last copy of the content, nothing else is affected by making it writable
+                    file.setWritable(true);
+                } else {
+                    unlink(file, remaining.get(0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes a released file whose content is still shared with other copies. The read-only attribute of the
+     * content is shared by all links, so if the file can't be deleted while read-only (Windows), the content is
+     * made writable for the deletion only.
+     */
+    private static void unlink(final File file, final File remaining) {
+        if (file.delete() || !file.exists()) {
+            return;
+        }
+        file.setWritable(true);
+        if (!file.delete()) {
+            LOGGER.debug("Unable to delete released file \"" + file.getAbsolutePath() + "\"");
+        }
+        remaining.setReadOnly();
+    }
+
+    /** @return the number of distinct contents currently registered */
+    synchronized int getContentCount() {
+        return m_filesByDigest.size();
+    }
+
+    private synchronized File getRegisteredFile(final ByteBuffer digest, final long length) {
+        if (m_isLinkingUnsupported) {
+            return null;
+        }
+        final List<File> files = m_filesByDigest.get(digest);
+        if (files == null) {
+            return null;
+        }
+        for (Iterator<File> it = files.iterator(); it.hasNext();) {
+            final File file = it.next();
+            if (file.isFile() && file.length() == length) {
+                return file;
+            }
+            // deleted without being released
+            it.remove();
+            m_digestByFile.remove(file);
+        }
+        if (files.isEmpty()) {
+            m_filesByDigest.remove(digest);
+        }
+        return null;
+    }
+
+    private synchronized void register(final ByteBuffer digest, final File file) {
+        final File absoluteFile = file.getAbsoluteFile();
+        final ByteBuffer previous = m_digestByFile.put(absoluteFile, digest);
+        if (previous != null) {
+            unregister(previous, absoluteFile);
+        }
+        m_filesByDigest.computeIfAbsent(digest, d -> new ArrayList<>(2)).add(absoluteFile);
+        if (!absoluteFile.setReadOnly()) {
+            LOGGER.debug("Unable to mark \"" + absoluteFile.getAbsolutePath() + "\" read-only");
+        }
+    }
+
+    private void unregister(final ByteBuffer digest, final File file) {
+        final List<File> files = m_filesByDigest.get(digest);
+        if (files != null && files.remove(file) && files.isEmpty()) {
+            m_filesByDigest.remove(digest);
+        }
+    }
+
+    private synchronized void onLinkFailed(final File existing, final File target, final Exception e) {
+        if (e instanceof UnsupportedOperationException) {
+            LOGGER.debug("Hard links not supported, copying file stores instead", e);
+            m_isLinkingUnsupported = true;
+        } else {
+            LOGGER.debug("Unable to link \"" + target.getAbsolutePath() + "\" to \"" + existing.getAbsolutePath()
+                + "\", copying it instead: " + e.getMessage(), e);
+        }
+    }
+
+    private static ByteBuffer digest(final File file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+        final byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return ByteBuffer.wrap(digest.digest());
+    }
+}
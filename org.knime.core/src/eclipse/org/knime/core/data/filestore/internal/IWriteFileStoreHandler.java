@@ -79,6 +79,23 @@ public interface IWriteFileStoreHandler extends IFileStoreHandler {
      */
     public FileStore createFileStore(String name, int[] nestedLoopPath, int iterationIndex) throws IOException;
 
+    /**
+     * Creates a file store for each of the argument names, see {@link #createFileStore(String)}. Implementations may
+     * allocate the file stores at once, which is cheaper than creating them one by one.
+     *
+     * @param names the names of the file stores, not null
+     * @return the new file stores, in the order of the names
+     * @throws IOException if a name is invalid
+     * @since 4.4
+     */
+    public default FileStore[] createFileStores(final String[] names) throws IOException {
+        final FileStore[] result = new FileStore[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = createFileStore(names[i]);
+        }
+        return result;
+    }
+
     public void open(final ExecutionContext exec);
 
     public void addToRepository(final IDataRepository repository);
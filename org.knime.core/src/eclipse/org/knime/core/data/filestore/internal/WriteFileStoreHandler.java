@@ -49,7 +49,13 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.knime.core.data.IDataRepository;
 import org.knime.core.data.filestore.FileStore;
@@ -61,9 +67,11 @@
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.WorkflowDataRepository;
 import org.knime.core.util.FileUtil;
-import org.knime.core.util.LRUCache;
 
 /**
+ * File store handler of a node that creates file stores. File stores can be created concurrently (e.g. by parallel
+ * cell factories): indices are reserved atomically and each folder of {@value #FILES_PER_FOLDER} files is created
+ * only once, so that creating a file store does not synchronize on the handler.
  *
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  * @noinstantiate This class is not intended to be instantiated by clients.
@@ -83,14 +91,21 @@ public class WriteFileStoreHandler implements IWriteFileStoreHandler {
 
     private static final int MAX_NR_FILES = (int)Math.pow(FILES_PER_FOLDER, FOLDER_LEVEL + 1);
 
+    /** Maximum number of entries in {@link #m_createdFileStoreKeys}, it's cleared when exceeded. */
+    private static final int MAX_CREATED_KEYS_CACHE_SIZE = 10000;
+
     private final String m_name;
     private final UUID m_storeUUID;
-    private File m_baseDirInWorkflowFolder;
-    private File m_baseDir;
-    private InternalDuplicateChecker m_duplicateChecker;
+    private volatile File m_baseDirInWorkflowFolder;
+    private volatile File m_baseDir;
+    private volatile InternalDuplicateChecker m_duplicateChecker;
     private IDataRepository m_dataRepository;
-    private LRUCache<FileStoreKey, FileStoreKey> m_createdFileStoreKeys;
-    private int m_nextIndex = 0;
+    /** Keys of file stores copied into this handler by their original key, lazily created. The copy completes the
+     * future outside of the map so that copying doesn't block other threads accessing the map. */
+    private volatile ConcurrentMap<FileStoreKey, CompletableFuture<FileStoreKey>> m_createdFileStoreKeys;
+    private final AtomicInteger m_nextIndex = new AtomicInteger();
+    /** Leaf folders that have been created, by their folder index (file store index / {@link #FILES_PER_FOLDER}). */
+    private final ConcurrentMap<Integer, File> m_createdFolders = new ConcurrentHashMap<>();
 
 
     /**
@@ -124,6 +139,9 @@ public IDataRepository getDataRepository() {
     @Override
     public void clearAndDispose() {
         if (m_dataRepository != null) {
+            if (m_baseDir != null) {
+                m_dataRepository.getContentDeduplicationIndex().ifPresent(index -> index.release(m_baseDir));
+            }
             m_dataRepository.removeFileStoreHandler(this);
             m_dataRepository = null;
         }
@@ -174,32 +192,61 @@ public boolean mustBeFlushedPriorSave(final FileStore fs) {
         return getOwnerHandler(key) == null;
     }
 
-    private synchronized FileStoreKey copyFileStore(final FileStore fs, final FlushCallback flushCallback) {
+    private FileStoreKey copyFileStore(final FileStore fs, final FlushCallback flushCallback) {
         FileStoreKey key = FileStoreUtil.getFileStoreKey(fs);
-        if (m_createdFileStoreKeys == null) {
-            LOGGER.debug("Duplicating file store objects - file store handler id "
-                    + key.getStoreUUID() + " is unknown to " + m_dataRepository.getClass().getName());
-            LOGGER.debug("Dump of valid file store handlers follows, omitting further log output");
-            m_dataRepository.printValidFileStoreHandlersToLogDebug();
-            m_createdFileStoreKeys = new LRUCache<FileStoreKey, FileStoreKey>(10000);
+        ConcurrentMap<FileStoreKey, CompletableFuture<FileStoreKey>> createdFileStoreKeys = m_createdFileStoreKeys;
+        if (createdFileStoreKeys == null) {
+            synchronized (this) {
+                createdFileStoreKeys = m_createdFileStoreKeys;
+                if (createdFileStoreKeys == null) {
+                    LOGGER.debug("Duplicating file store objects - file store handler id "
+                            + key.getStoreUUID() + " is unknown to " + m_dataRepository.getClass().getName());
+                    LOGGER.debug("Dump of valid file store handlers follows, omitting further log output");
+                    m_dataRepository.printValidFileStoreHandlersToLogDebug();
+                    createdFileStoreKeys = new ConcurrentHashMap<>();
+                    m_createdFileStoreKeys = createdFileStoreKeys;
+                }
+            }
         }
-        FileStoreKey local = m_createdFileStoreKeys.get(key);
-        if (local != null) {
-            return local;
+        if (createdFileStoreKeys.size() > MAX_CREATED_KEYS_CACHE_SIZE) {
+            // coarse replacement of the former LRU cache, worst case a file store is copied again
+            createdFileStoreKeys.clear();
+        }
+        // copied at most once per key by the thread publishing the future, others wait for it to complete
+        final CompletableFuture<FileStoreKey> newFuture = new CompletableFuture<>();
+        final CompletableFuture<FileStoreKey> existingFuture = createdFileStoreKeys.putIfAbsent(key, newFuture);
+        if (existingFuture != null) {
+            try {
+                return existingFuture.join();
+            } catch (CompletionException e) {
+                throw new RuntimeException("Failed copying file stores to local handler", e.getCause());
+            }
         }
-        FileStore newStore;
         try {
-            // fixes problem with file store cell that keep things in memory until serialized:
-            // notify them that a copy is taken place and that they need to flush their in memory content
-            FileStoreUtil.invokeFlush(flushCallback);
-            newStore = createFileStoreInternal(getNextIndex() + "_" + key.getName(), null, -1);
-            FileUtil.copyDir(fs.getFile(), newStore.getFile());
-        } catch (IOException e) {
+            final FileStoreKey newKey = copyFileStoreInternal(fs, key, flushCallback);
+            newFuture.complete(newKey);
+            return newKey;
+        } catch (IOException | RuntimeException e) {
+            // don't cache the failure, a later attempt copies again
+            createdFileStoreKeys.remove(key, newFuture);
+            newFuture.completeExceptionally(e);
             throw new RuntimeException("Failed copying file stores to local handler", e);
         }
-        final FileStoreKey newKey = FileStoreUtil.getFileStoreKey(newStore);
-        m_createdFileStoreKeys.put(key, newKey);
-        return newKey;
+    }
+
+    private FileStoreKey copyFileStoreInternal(final FileStore fs, final FileStoreKey key,
+        final FlushCallback flushCallback) throws IOException {
+        // fixes problem with file store cell that keep things in memory until serialized:
+        // notify them that a copy is taken place and that they need to flush their in memory content
+        FileStoreUtil.invokeFlush(flushCallback);
+        final FileStore newStore = createFileStoreInternal(getNextIndex() + "_" + key.getName(), null, -1);
+        final Optional<ContentDeduplicationIndex> index = m_dataRepository.getContentDeduplicationIndex();
+        if (index.isPresent()) {
+            index.get().copy(fs.getFile(), newStore.getFile());
+        } else {
+            FileUtil.copyDir(fs.getFile(), newStore.getFile());
+        }
+        return FileStoreUtil.getFileStoreKey(newStore);
     }
 
     /** {@inheritDoc} */
@@ -234,7 +281,7 @@ IFileStoreHandler getOwnerHandler(final FileStoreKey key) {
         return ownerHandler;
     }
 
-    private synchronized FileStore getFileStoreInternal(final FileStoreKey key)
+    private FileStore getFileStoreInternal(final FileStoreKey key)
         throws IOException {
         assert key.getStoreUUID().equals(getStoreUUID());
         CheckUtils.checkState(getBaseDir() != null || m_baseDirInWorkflowFolder != null,
@@ -258,24 +305,49 @@ public String toString() {
     }
 
     @Override
-    public synchronized FileStore createFileStore(final String name) throws IOException {
+    public FileStore createFileStore(final String name) throws IOException {
         addToDuplicateChecker(name);
         return createFileStoreInternal(name, null, -1);
     }
 
+    /**
+     * Creates a file store for each of the argument names. The indices of all file stores are reserved at once and
+     * their folders are created upfront.
+     * {@inheritDoc}
+     */
+    @Override
+    public FileStore[] createFileStores(final String[] names) throws IOException {
+        CheckUtils.checkArgumentNotNull(names, "Argument must not be null.");
+        for (String name : names) {
+            checkName(name);
+        }
+        for (String name : names) {
+            addToDuplicateChecker(name);
+        }
+        ensureInitBaseDirectory();
+        final int firstIndex = reserveIndices(names.length);
+        final FileStore[] result = new FileStore[names.length];
+        for (int i = 0; i < names.length; i++) {
+            final FileStoreKey key = new FileStoreKey(m_storeUUID, firstIndex + i, null, -1, names[i]);
+            result[i] = FileStoreUtil.createFileStore(this, key);
+        }
+        return result;
+    }
+
     /**
      * @param name
      * @throws IOException */
     void addToDuplicateChecker(final String name) throws IOException {
-        CheckUtils.checkState(m_duplicateChecker != null, "File store on node %s is read only/closed", m_name);
-        m_duplicateChecker.add(name);
+        final InternalDuplicateChecker duplicateChecker = m_duplicateChecker;
+        CheckUtils.checkState(duplicateChecker != null, "File store on node %s is read only/closed", m_name);
+        duplicateChecker.add(name);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized FileStore createFileStore(final String name, final int[] nestedLoopPath,
+    public FileStore createFileStore(final String name, final int[] nestedLoopPath,
         final int iterationIndex) throws IOException {
         // NOTE: inconsistent with the other createFileStore-method - doesn't add to the duplicate checker
         return createFileStoreInternal(name, nestedLoopPath, iterationIndex);
@@ -283,7 +355,14 @@ public synchronized FileStore createFileStore(final String name, final int[] nes
 
     private FileStore createFileStoreInternal(final String name,
             final int[] nestedLoopPath, final int iterationIndex) throws IOException {
-        assert Thread.holdsLock(this);
+        checkName(name);
+        ensureInitBaseDirectory();
+        FileStoreKey key = new FileStoreKey(m_storeUUID, reserveIndices(1), nestedLoopPath, iterationIndex, name);
+        FileStore fs = FileStoreUtil.createFileStore(this, key);
+        return fs;
+    }
+
+    private static void checkName(final String name) throws IOException {
         CheckUtils.checkArgumentNotNull(name, "Argument must not be null.");
         if (name.startsWith(".")) {
             throw new IOException("Name must not start with a dot: \"" + name + "\"");
@@ -291,25 +370,35 @@ private FileStore createFileStoreInternal(final String name,
         if (name.contains("/") || name.contains("\\")) {
             throw new IOException("Invalid file name, must not contain (back) slash: \"" + name + "\"");
         }
-        FileStoreKey key = new FileStoreKey(m_storeUUID, m_nextIndex, nestedLoopPath, iterationIndex, name);
-        ensureInitBaseDirectory();
-        if (m_nextIndex > MAX_NR_FILES) {
+    }
+
+    /**
+     * Atomically reserves consecutive file store indices and makes sure their parent folders exist.
+     *
+     * @param count the number of indices to reserve
+     * @return the first reserved index
+     * @throws IOException if the maximum number of file stores is exceeded
+     */
+    private int reserveIndices(final int count) throws IOException {
+        final int firstIndex = m_nextIndex.getAndAdd(count);
+        final int lastIndex = firstIndex + count - 1;
+        if (lastIndex > MAX_NR_FILES || lastIndex < firstIndex) {
             throw new IOException("Maximum number of files stores reached: " + MAX_NR_FILES);
         }
-        getParentDir(m_nextIndex, true);
-        m_nextIndex++;
-        FileStore fs = FileStoreUtil.createFileStore(this, key);
-        return fs;
+        for (int folder = firstIndex / FILES_PER_FOLDER; folder <= lastIndex / FILES_PER_FOLDER; folder++) {
+            getParentDir(folder * FILES_PER_FOLDER, true);
+        }
+        return firstIndex;
     }
 
     /** @return the nextIndex */
     public int getNextIndex() {
-        return m_nextIndex;
+        return m_nextIndex.get();
     }
 
     public File getParentDir(final int indexArg, final boolean create) {
         int index = indexArg / FILES_PER_FOLDER; // bottom most dir also contains many files
-        File parentDir = m_baseDir;
+        File dir = m_baseDir;
         String[] subFolderNames = new String[FOLDER_LEVEL];
         for (int level = 0; level < FOLDER_LEVEL; level++) {
             int modulo = index % FILES_PER_FOLDER;
@@ -317,18 +406,32 @@ public File getParentDir(final int indexArg, final boolean create) {
             index = index / FILES_PER_FOLDER;
         }
         for (int level = 0; level < FOLDER_LEVEL; level++) {
-            parentDir = new File(parentDir, subFolderNames[level]);
+            dir = new File(dir, subFolderNames[level]);
         }
-        if (create && !parentDir.isDirectory()) {
-            if (!parentDir.mkdirs()) {
-                LOGGER.error("Failed to create directory \"" + parentDir.getAbsolutePath() + "\"");
-            }
+        final File parentDir = dir;
+        if (create) {
+            // each folder is created once, concurrent callers wait for its creation
+            return m_createdFolders.computeIfAbsent(indexArg / FILES_PER_FOLDER, i -> {
+                if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+                    LOGGER.error("Failed to create directory \"" + parentDir.getAbsolutePath() + "\"");
+                }
+                return parentDir;
+            });
         }
         return parentDir;
     }
 
 
     private void ensureInitBaseDirectory() throws IOException {
+        if (m_baseDir != null) {
+            return;
+        }
+        synchronized (this) {
+            ensureInitBaseDirectoryInternal();
+        }
+    }
+
+    private void ensureInitBaseDirectoryInternal() throws IOException {
         assert Thread.holdsLock(this);
         if (m_baseDir == null) {
             StringBuilder baseDirName = new StringBuilder("fs-");
@@ -371,15 +474,29 @@ public void close() {
 
     /** {@inheritDoc} */
     @Override
-    public synchronized void ensureOpenAfterLoad() throws IOException {
+    public void ensureOpenAfterLoad() throws IOException {
+        if (m_baseDirInWorkflowFolder == null) {
+            return;
+        }
+        synchronized (this) {
+            ensureOpenAfterLoadInternal();
+        }
+    }
+
+    private void ensureOpenAfterLoadInternal() throws IOException {
+        assert Thread.holdsLock(this);
         if (m_baseDirInWorkflowFolder != null) {
             assert m_baseDir == null;
-            ensureInitBaseDirectory();
+            ensureInitBaseDirectoryInternal();
             LOGGER.debugWithFormat("Restoring file store directory \"%s\" from \"%s\"",
                 toString(), m_baseDirInWorkflowFolder);
             File source = m_baseDirInWorkflowFolder;
-            m_baseDirInWorkflowFolder = null;
-            FileUtil.copyDir(source, m_baseDir);
+            try {
+                FileUtil.copyDir(source, m_baseDir);
+            } finally {
+                // reset only after copying, unsynchronized readers skip the restore once this is null
+                m_baseDirInWorkflowFolder = null;
+            }
         }
     }
 
@@ -48,8 +48,10 @@
  */
 package org.knime.core.data.meta;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -91,12 +93,16 @@ public enum DataColumnMetaDataRegistry {
 
     private final Map<Class<? extends DataColumnMetaData>, DataColumnMetaDataExtension<?>> m_creatorFactories;
 
+    /** The subset of {@link #m_creatorFactories} whose meta data is created along with the domain of columns. */
+    private final List<DataColumnMetaDataExtension<?>> m_enabledCreatorFactories;
+
     private Map<String, Class<? extends DataColumnMetaData>> m_metaDataClasses;
 
     private DataColumnMetaDataRegistry() {
         final IExtensionPoint point = getExtensionPoint();
 
         m_creatorFactories = new HashMap<>();
+        m_enabledCreatorFactories = new ArrayList<>();
         m_serializers = new HashMap<>();
         m_metaDataClasses = new HashMap<>();
         for (IExtension ext : point.getExtensions()) {
@@ -117,11 +123,23 @@ private DataColumnMetaDataRegistry() {
                 m_metaDataClasses.put(metaDataClassName, metaDataClass);
                 m_creatorFactories.put(metaDataClass, creatorFactory);
                 m_serializers.put(metaDataClass, serializer);
+                if (isEnabled(creatorFactory)) {
+                    m_enabledCreatorFactories.add(creatorFactory);
+                }
             }
         }
 
     }
 
+    /**
+     * Meta data that is expensive or changes all column specs (such as {@link DistinctCountMetaData}, which applies to
+     * any type) is opt-in; it is still registered so that existing specs carrying it can be read.
+     */
+    private static boolean isEnabled(final DataColumnMetaDataExtension<?> creatorFactory) {
+        return !(creatorFactory instanceof DistinctCountMetaDataExtension)
+            || DistinctCountMetaDataExtension.isEnabled();
+    }
+
     /**
      * Retrieves the typed runtime class of a {@link DataColumnMetaData} object.
      *
@@ -203,7 +221,9 @@ private static <M extends DataColumnMetaData, F extends DataColumnMetaDataFramew
     public Collection<DataColumnMetaDataCreator<?>> getCreators(final DataType type) {
         CheckUtils.checkNotNull(type);
         return type.getValueClasses().stream()
-            .flatMap(d -> m_creatorFactories.values().stream().filter(m -> m.getDataValueClass().isAssignableFrom(d)))
+            .flatMap(d -> m_enabledCreatorFactories.stream().filter(m -> m.getDataValueClass().isAssignableFrom(d)))
+            // an extension may match several value classes of the type (e.g. one for DataValue matches all)
+            .distinct()
             .map(DataColumnMetaDataExtension::create).collect(Collectors.toList());
     }
 
@@ -217,7 +237,7 @@ public Collection<DataColumnMetaDataCreator<?>> getCreators(final DataType type)
      */
     boolean hasMetaData(final DataType type) {
         return type.getValueClasses().stream().anyMatch(
-            d -> m_creatorFactories.values().stream().anyMatch(m -> m.getDataValueClass().isAssignableFrom(d)));
+            d -> m_enabledCreatorFactories.stream().anyMatch(m -> m.getDataValueClass().isAssignableFrom(d)));
     }
 
     /**
@@ -0,0 +1,133 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.meta;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.config.ConfigRO;
+import org.knime.core.node.config.ConfigWO;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Holds an estimate of the number of distinct (non-missing) values in a column, e.g. to size hash tables in joins or
+ * group-bys without scanning the data. The estimate is computed by a {@link DistinctCountMetaDataCreator} while the
+ * table is written or its domain is calculated; it may be too large for tables derived from the original table, e.g. by
+ * row filtering, that keep the column's meta data.
+ *
+ * <p>
+ * Use {@link DataColumnSpec#getMetaDataOfType(Class)} to retrieve it.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class DistinctCountMetaData implements DataColumnMetaData {
+
+    static final String CFG_ESTIMATE = "estimate";
+
+    private final long m_estimate;
+
+    /**
+     * Creates meta data for the given estimate.
+     *
+     * @param estimate the estimated number of distinct values, must be &gt;= 0
+     */
+    public DistinctCountMetaData(final long estimate) {
+        CheckUtils.checkArgument(estimate >= 0, "Estimate must not be negative: %d", estimate);
+        m_estimate = estimate;
+    }
+
+    /**
+     * @return the estimated number of distinct (non-missing) values, the standard error is about 3%
+     */
+    public long getEstimate() {
+        return m_estimate;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        return obj instanceof DistinctCountMetaData && ((DistinctCountMetaData)obj).m_estimate == m_estimate;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(m_estimate);
+    }
+
+    @Override
+    public String toString() {
+        return "~" + m_estimate + " distinct values";
+    }
+
+    /**
+     * Serializer for {@link DistinctCountMetaData} objects.
+     *
+     * @author KNIME AG, Zurich, Switzerland
+     */
+    public static final class DistinctCountMetaDataSerializer
+        implements DataColumnMetaDataSerializer<DistinctCountMetaData> {
+
+        @Override
+        public void save(final DistinctCountMetaData metaData, final ConfigWO config) {
+            CheckUtils.checkNotNull(metaData, "The meta data provided to the serializer was null.");
+            config.addLong(CFG_ESTIMATE, metaData.m_estimate);
+        }
+
+        @Override
+        public DistinctCountMetaData load(final ConfigRO config) throws InvalidSettingsException {
+            final long estimate = config.getLong(CFG_ESTIMATE);
+            CheckUtils.checkSetting(estimate >= 0, "Invalid distinct value estimate: %d", estimate);
+            return new DistinctCountMetaData(estimate);
+        }
+
+        @Override
+        public Class<DistinctCountMetaData> getMetaDataClass() {
+            return DistinctCountMetaData.class;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.meta;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.container.BlobDataCell;
+import org.knime.core.data.container.BlobWrapperDataCell;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * {@link DataColumnMetaDataCreator} for {@link DistinctCountMetaData}. Estimates the number of distinct values with a
+ * HyperLogLog sketch over the cells' hash codes: each cell updates one of {@value #NR_REGISTERS} registers, so the
+ * memory is constant and creators of different parts of a table can be merged without loss.
+ *
+ * <p>
+ * Missing cells are ignored, as are blob cells since hashing them would require to read them.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class DistinctCountMetaDataCreator implements DataColumnMetaDataCreator<DistinctCountMetaData> {
+
+    /** Number of bits of the hash that select the register. */
+    private static final int PRECISION = 10;
+
+    private static final int NR_REGISTERS = 1 << PRECISION;
+
+    /** Bias correction constant for {@value #NR_REGISTERS} registers. */
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / NR_REGISTERS);
+
+    /** The registers, each holding the maximum rank seen; null until the first value is added. */
+    private byte[] m_registers;
+
+    /** Lower bound from merged {@link DistinctCountMetaData}, which doesn't carry registers. */
+    private long m_lowerBound;
+
+    DistinctCountMetaDataCreator() {
+    }
+
+    private DistinctCountMetaDataCreator(final DistinctCountMetaDataCreator toCopy) {
+        m_registers = toCopy.m_registers == null ? null : toCopy.m_registers.clone();
+        m_lowerBound = toCopy.m_lowerBound;
+    }
+
+    @Override
+    public void update(final DataCell cell) {
+        if (cell.isMissing() || cell instanceof BlobWrapperDataCell || cell instanceof BlobDataCell) {
+            return;
+        }
+        if (m_registers == null) {
+            m_registers = new byte[NR_REGISTERS];
+        }
+        final long hash = mix(cell.hashCode());
+        final int index = (int)(hash >>> (Long.SIZE - PRECISION));
+        // rank = position of the first 1-bit in the remaining bits, the sentinel bit bounds it
+        final byte rank = (byte)(Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > m_registers[index]) {
+            m_registers[index] = rank;
+        }
+    }
+
+    /** Spreads the hash code over 64 bits (finalizer of MurmurHash3). */
+    private static long mix(final int hashCode) {
+        long h = hashCode;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** @return the estimate of the registers, using linear counting for small cardinalities */
+    private long estimate() {
+        if (m_registers == null) {
+            return 0;
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (final byte r : m_registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * NR_REGISTERS * NR_REGISTERS / sum;
+        if (estimate <= 2.5 * NR_REGISTERS && zeros > 0) {
+            estimate = NR_REGISTERS * Math.log(NR_REGISTERS / (double)zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    @Override
+    public DistinctCountMetaData create() {
+        return new DistinctCountMetaData(Math.max(estimate(), m_lowerBound));
+    }
+
+    @Override
+    public DistinctCountMetaDataCreator copy() {
+        return new DistinctCountMetaDataCreator(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Merges the registers, the result is the same as if all values had been added to this creator.
+     */
+    @Override
+    public DistinctCountMetaDataCreator merge(final DataColumnMetaDataCreator<DistinctCountMetaData> other) {
+        CheckUtils.checkArgument(other instanceof DistinctCountMetaDataCreator,
+            "Can only merge with DistinctCountMetaDataCreator but received object of type %s.",
+            other.getClass().getName());
+        final DistinctCountMetaDataCreator otherCreator = (DistinctCountMetaDataCreator)other;
+        if (otherCreator.m_registers != null) {
+            if (m_registers == null) {
+                m_registers = otherCreator.m_registers.clone();
+            } else {
+                for (int i = 0; i < NR_REGISTERS; i++) {
+                    m_registers[i] = (byte)Math.max(m_registers[i], otherCreator.m_registers[i]);
+                }
+            }
+        }
+        m_lowerBound = Math.max(m_lowerBound, otherCreator.m_lowerBound);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * As the meta data only holds the estimate, the union's count is bounded from below by it.
+     */
+    @Override
+    public DistinctCountMetaDataCreator merge(final DistinctCountMetaData other) {
+        m_lowerBound = Math.max(m_lowerBound, other.getEstimate());
+        return this;
+    }
+
+    @Override
+    public Class<DistinctCountMetaData> getMetaDataClass() {
+        return DistinctCountMetaData.class;
+    }
+
+}
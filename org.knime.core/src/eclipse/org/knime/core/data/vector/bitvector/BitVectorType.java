@@ -64,7 +64,11 @@ public enum BitVectorType implements ButtonGroupEnumInterface {
         DenseBitVectorCell.TYPE),
     /**Sparse bit vector type.*/
     SPARSE("Sparse", "Option recommended for sparse vectors e.g. less than 10% set bits", false,
-        SparseBitVectorCell.TYPE);
+        SparseBitVectorCell.TYPE),
+    /**Compressed (roaring bitmap) bit vector type.
+     * @since 4.4*/
+    COMPRESSED("Compressed", "Option recommended for long vectors with many set bits that are not uniformly dense",
+        false, RoaringBitVectorCell.TYPE);
 
     private final String m_label;
     private final String m_tooltip;
@@ -156,6 +160,8 @@ public BitVectorCellFactory<? extends DataCell> getCellFactory(final String hexS
                 return new DenseBitVectorCellFactory(hexString);
             case SPARSE:
                 return new SparseBitVectorCellFactory(hexString);
+            case COMPRESSED:
+                return new RoaringBitVectorCellFactory(hexString);
         }
         //use the dense bit vector as default
         return new DenseBitVectorCellFactory(hexString);
@@ -173,6 +179,8 @@ public BitVectorCellFactory<? extends DataCell> getCellFactory(final long length
                 return new DenseBitVectorCellFactory(length);
             case SPARSE:
                 return new SparseBitVectorCellFactory(length);
+            case COMPRESSED:
+                return new RoaringBitVectorCellFactory(length);
         }
         //use the dense bit vector as default
         return new DenseBitVectorCellFactory(length);
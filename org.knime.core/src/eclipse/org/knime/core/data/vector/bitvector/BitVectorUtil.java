@@ -47,7 +47,15 @@
  */
 package org.knime.core.data.vector.bitvector;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.util.CheckUtils;
+import org.knime.core.util.ThreadPool;
 
 /**
  * A utility class providing methods to apply set operations like "AND", "OR", and "XOR" on different kind of
@@ -60,6 +68,9 @@ public final class BitVectorUtil {
 
     private static final String NPE_MESSAGE = "Given BitVectorValues may not be null!";
 
+    /** Blocks with fewer rows per thread than this are scored in the calling thread only. */
+    private static final int MIN_ROWS_PER_PARTITION = 4096;
+
     private BitVectorUtil() { /*empty*/
     }
 
@@ -83,6 +94,9 @@ public static BitVectorValue and(final BitVectorValue bv1, final BitVectorValue
         if (bv1 == null || bv2 == null) {
             throw new NullPointerException(NPE_MESSAGE);
         }
+        if (isRoaringOperation(bv1, bv2)) {
+            return RoaringBitVectorCellFactory.and(bv1, bv2);
+        }
 
         int noSparseBVC = sparseBitVectorCellCount(bv1, bv2);
         if (noSparseBVC >= 1) {
@@ -111,6 +125,9 @@ public static BitVectorValue or(final BitVectorValue bv1, final BitVectorValue b
         if (bv1 == null || bv2 == null) {
             throw new NullPointerException(NPE_MESSAGE);
         }
+        if (isRoaringOperation(bv1, bv2)) {
+            return RoaringBitVectorCellFactory.or(bv1, bv2);
+        }
 
         int noSparseBVC = sparseBitVectorCellCount(bv1, bv2);
         if (noSparseBVC == 2) {
@@ -139,6 +156,9 @@ public static BitVectorValue xor(final BitVectorValue bv1, final BitVectorValue
         if (bv1 == null || bv2 == null) {
             throw new NullPointerException(NPE_MESSAGE);
         }
+        if (isRoaringOperation(bv1, bv2)) {
+            return RoaringBitVectorCellFactory.xor(bv1, bv2);
+        }
 
         int noSparseBVC = sparseBitVectorCellCount(bv1, bv2);
         if (noSparseBVC == 2) {
@@ -169,6 +189,8 @@ public static long cardinalityOfIntersection(final BitVectorValue bv1, final Bit
             return ((DenseBitVectorCell)bv1).cardinalityOfIntersection((DenseBitVectorCell)bv2);
         } else if (bv1 instanceof SparseBitVectorCell && bv2 instanceof SparseBitVectorCell) {
             return ((SparseBitVectorCell)bv1).cardinalityOfIntersection((SparseBitVectorCell)bv2);
+        } else if (bv1 instanceof RoaringBitVectorCell && bv2 instanceof RoaringBitVectorCell) {
+            return ((RoaringBitVectorCell)bv1).cardinalityOfIntersection((RoaringBitVectorCell)bv2);
         }
 
         // we have to go into the loop
@@ -203,6 +225,8 @@ public static long cardinalityOfRelativeComplement(final BitVectorValue bv1, fin
             return ((DenseBitVectorCell)bv1).cardinalityOfRelativeComplement((DenseBitVectorCell)bv2);
         } else if (bv1 instanceof SparseBitVectorCell && bv2 instanceof SparseBitVectorCell) {
             return ((SparseBitVectorCell)bv1).cardinalityOfRelativeComplement((SparseBitVectorCell)bv2);
+        } else if (bv1 instanceof RoaringBitVectorCell && bv2 instanceof RoaringBitVectorCell) {
+            return ((RoaringBitVectorCell)bv1).cardinalityOfRelativeComplement((RoaringBitVectorCell)bv2);
         }
 
         long bv1Idx = bv1.nextSetBit(0);
@@ -218,6 +242,181 @@ public static long cardinalityOfRelativeComplement(final BitVectorValue bv1, fin
         return toReturn;
     }
 
+    /**
+     * Computes the cardinality of the bitwise OR of the given vectors without creating the result vector.
+     *
+     * @param bv1 first vector
+     * @param bv2 second vector
+     * @return cardinality of the bitwise OR operator of the given bit vectors
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @since 4.4
+     */
+    public static long cardinalityOfUnion(final BitVectorValue bv1, final BitVectorValue bv2) {
+        CheckUtils.checkNotNull(bv1, NPE_MESSAGE);
+        CheckUtils.checkNotNull(bv2, NPE_MESSAGE);
+
+        if (bv1 instanceof DenseBitVectorCell && bv2 instanceof DenseBitVectorCell) {
+            return ((DenseBitVectorCell)bv1).cardinalityOfUnion((DenseBitVectorCell)bv2);
+        }
+        return bv1.cardinality() + bv2.cardinality() - cardinalityOfIntersection(bv1, bv2);
+    }
+
+    /**
+     * Computes the Tanimoto (Jaccard) similarity of the given vectors, i.e. the cardinality of the intersection divided
+     * by the cardinality of the union. For two {@link DenseBitVectorCell}s both counts are computed in a single pass
+     * over the long words without creating intermediate vectors.
+     *
+     * @param bv1 first vector
+     * @param bv2 second vector
+     * @return the similarity in [0, 1]; 0 if both vectors are empty
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @since 4.4
+     */
+    public static double tanimotoSimilarity(final BitVectorValue bv1, final BitVectorValue bv2) {
+        CheckUtils.checkNotNull(bv1, NPE_MESSAGE);
+        CheckUtils.checkNotNull(bv2, NPE_MESSAGE);
+
+        if (bv1 instanceof DenseBitVectorCell && bv2 instanceof DenseBitVectorCell) {
+            return tanimotoSimilarity(((DenseBitVectorCell)bv1).getStorage(), ((DenseBitVectorCell)bv2).getStorage());
+        }
+        final long intersection = cardinalityOfIntersection(bv1, bv2);
+        final long union = bv1.cardinality() + bv2.cardinality() - intersection;
+        return union == 0 ? 0.0 : (double)intersection / union;
+    }
+
+    /**
+     * Copies the bits of the given cells into a block of long words as used by
+     * {@link #tanimotoSimilarities(DenseBitVectorCell, long[][], double[], int, int)}. Row <code>i</code> of the result
+     * holds the words of <code>cells[i]</code> in the layout described in {@link DenseBitVector#getAllBits()}. The
+     * block is meant to be created once and then scored against many queries.
+     *
+     * @param cells the cells to pack, not <code>null</code> (nor any of its elements)
+     * @return the packed block
+     * @since 4.4
+     */
+    public static long[][] pack(final DenseBitVectorCell[] cells) {
+        CheckUtils.checkNotNull(cells, NPE_MESSAGE);
+        final long[][] block = new long[cells.length][];
+        for (int i = 0; i < cells.length; i++) {
+            block[i] = CheckUtils.checkNotNull(cells[i], NPE_MESSAGE).getStorage().clone();
+        }
+        return block;
+    }
+
+    /**
+     * Computes the Tanimoto similarity of the query against the rows <code>from</code> (inclusive) to
+     * <code>to</code> (exclusive) of the packed block and writes them to the same positions in <code>result</code>.
+     * No objects are allocated.
+     *
+     * @param query the query vector
+     * @param block the packed vectors, see {@link #pack(DenseBitVectorCell[])}
+     * @param result the array to write the similarities to, at least as long as <code>to</code>
+     * @param from the first row to score
+     * @param to the row after the last row to score
+     * @since 4.4
+     */
+    public static void tanimotoSimilarities(final DenseBitVectorCell query, final long[][] block,
+        final double[] result, final int from, final int to) {
+        CheckUtils.checkNotNull(query, NPE_MESSAGE);
+        CheckUtils.checkArgument(from >= 0 && from <= to && to <= block.length && to <= result.length,
+            "Invalid range [%d, %d) for block of size %d and result of size %d", from, to, block.length,
+            result.length);
+        final long[] queryWords = query.getStorage();
+        for (int i = from; i < to; i++) {
+            result[i] = tanimotoSimilarity(queryWords, block[i]);
+        }
+    }
+
+    /**
+     * Computes the Tanimoto similarity of the query against all rows of the packed block. If more than one thread is
+     * permitted the block is split into contiguous partitions that are scored concurrently in the KNIME global thread
+     * pool.
+     *
+     * @param query the query vector
+     * @param block the packed vectors, see {@link #pack(DenseBitVectorCell[])}
+     * @param maxThreads the maximum number of threads to use, at least 1
+     * @return the similarities, one per row of the block
+     * @throws InterruptedException if interrupted while waiting for the partitions to finish
+     * @since 4.4
+     */
+    public static double[] tanimotoSimilarities(final DenseBitVectorCell query, final long[][] block,
+        final int maxThreads) throws InterruptedException {
+        CheckUtils.checkNotNull(block, NPE_MESSAGE);
+        CheckUtils.checkArgument(maxThreads >= 1, "Number of threads must be at least 1: %d", maxThreads);
+        final double[] result = new double[block.length];
+        final int nrPartitions = Math.min(maxThreads, block.length / MIN_ROWS_PER_PARTITION);
+        if (nrPartitions <= 1) {
+            tanimotoSimilarities(query, block, result, 0, block.length);
+            return result;
+        }
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(nrPartitions);
+        final List<Future<?>> futures = new ArrayList<>(nrPartitions);
+        final int partitionSize = (block.length + nrPartitions - 1) / nrPartitions;
+        for (int from = 0; from < block.length; from += partitionSize) {
+            final int start = from;
+            final int end = Math.min(block.length, from + partitionSize);
+            futures.add(pool.enqueue(() -> tanimotoSimilarities(query, block, result, start, end)));
+        }
+        final Callable<Void> waitCallable = () -> {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            return null;
+        };
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null) {
+                // don't block a slot of the pool we are running in
+                currentPool.runInvisible(waitCallable);
+            } else {
+                waitCallable.call();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        } catch (Exception e) {
+            futures.forEach(f -> f.cancel(true));
+            Throwable cause = e;
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("Computing similarities failed: " + cause.getMessage(), cause);
+        }
+        return result;
+    }
+
+    /** Fused kernel: counts intersection and union in one pass over the words of both vectors. */
+    private static double tanimotoSimilarity(final long[] words1, final long[] words2) {
+        final int common = Math.min(words1.length, words2.length);
+        long intersection = 0;
+        long union = 0;
+        for (int i = 0; i < common; i++) {
+            final long w1 = words1[i];
+            final long w2 = words2[i];
+            intersection += Long.bitCount(w1 & w2);
+            union += Long.bitCount(w1 | w2);
+        }
+        final long[] longer = words1.length > common ? words1 : words2;
+        for (int i = common; i < longer.length; i++) {
+            union += Long.bitCount(longer[i]);
+        }
+        return union == 0 ? 0.0 : (double)intersection / union;
+    }
+
+    /**
+     * Set operations return a {@link RoaringBitVectorCell} if at least one operand is one and the other one is either
+     * also compressed or sparse.
+     */
+    private static boolean isRoaringOperation(final BitVectorValue bv1, final BitVectorValue bv2) {
+        if (bv1 instanceof RoaringBitVectorCell) {
+            return bv2 instanceof RoaringBitVectorCell || bv2 instanceof SparseBitVectorCell;
+        }
+        return bv2 instanceof RoaringBitVectorCell && bv1 instanceof SparseBitVectorCell;
+    }
+
     private static int sparseBitVectorCellCount(final BitVectorValue bv1, final BitVectorValue bv2) {
         int count = 0;
         if (bv1 instanceof SparseBitVectorCell) {
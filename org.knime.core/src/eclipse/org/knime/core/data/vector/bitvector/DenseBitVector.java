@@ -1274,6 +1274,44 @@ long cardinalityOfIntersection(final DenseBitVector bitVector) {
         return result;
     }
 
+    /**
+     * Computes the cardinality of the union with the given bitVector.
+     *
+     * @see BitVectorUtil#cardinalityOfUnion(BitVectorValue, BitVectorValue)
+     * @param bitVector the other operand for the OR operator
+     * @return the cardinality of the union
+     */
+    long cardinalityOfUnion(final DenseBitVector bitVector) {
+        if (isEmpty()) {
+            return bitVector.cardinality();
+        } else if (bitVector.isEmpty()) {
+            return cardinality();
+        }
+        int startAddr = Math.min(m_firstAddr, bitVector.m_firstAddr);
+        int endAddr = Math.max(m_lastAddr, bitVector.m_lastAddr);
+
+        long result = 0;
+        long[] otherStorage = bitVector.m_storage;
+        for (int i = startAddr; i <= endAddr; i++) {
+            long word = i < m_storage.length ? m_storage[i] : 0L;
+            if (i < otherStorage.length) {
+                word |= otherStorage[i];
+            }
+            result += Long.bitCount(word);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the internal storage without copying it. Used by the kernels in {@link BitVectorUtil}, the array must
+     * not be modified.
+     *
+     * @return the internal representation of the bits in this vector
+     */
+    long[] getStorage() {
+        return m_storage;
+    }
+
     /**
      * Computes the cardinality of the complement relative to the given bitVector.
      *
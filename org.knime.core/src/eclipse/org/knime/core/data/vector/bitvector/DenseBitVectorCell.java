@@ -224,6 +224,22 @@ long cardinalityOfRelativeComplement(final DenseBitVectorCell bitVectorCell) {
         return m_bitVector.cardinalityOfRelativeComplement(bitVectorCell.m_bitVector);
     }
 
+    /**
+     * @see BitVectorUtil#cardinalityOfUnion(BitVectorValue, BitVectorValue)
+     * @param bitVectorCell the other cell containing the operand
+     * @return the cardinality of the union
+     */
+    long cardinalityOfUnion(final DenseBitVectorCell bitVectorCell) {
+        return m_bitVector.cardinalityOfUnion(bitVectorCell.m_bitVector);
+    }
+
+    /**
+     * @return the internal storage of the bit vector, not a copy (must not be modified)
+     */
+    long[] getStorage() {
+        return m_bitVector.getStorage();
+    }
+
     /**
      * Factory for {@link DenseBitVectorCell}s.
      *
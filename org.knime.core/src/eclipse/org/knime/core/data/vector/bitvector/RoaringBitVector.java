@@ -0,0 +1,1001 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.util.Arrays;
+
+/**
+ * Stores Zeros and Ones in a vector, i.e. with fixed positions, using a compressed bitmap in the style of "Roaring"
+ * bitmaps. The index space is split into blocks of 2^16 bits. Only blocks containing set bits are stored, each one in
+ * a container whose representation depends on its density: up to {@value #ARRAY_CONTAINER_MAX_CARDINALITY} set bits
+ * are stored as a sorted array of the (16 bit) positions within the block, more set bits as an uncompressed bitmap of
+ * 1024 long words. Containers are converted when bits are set or cleared.<br>
+ * Compared to {@link SparseBitVector} setting and clearing bits only shifts data within one block and the set
+ * operations work block-wise on words or sorted arrays, which makes this implementation suitable for vectors with
+ * many (but not dense) set bits. The length of the vector is restricted to {@link Long#MAX_VALUE}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public class RoaringBitVector implements BitVector {
+
+    /** Maximum number of set bits in a block that is stored as sorted array. */
+    static final int ARRAY_CONTAINER_MAX_CARDINALITY = 4096;
+
+    private static final int BLOCK_BITS = 16;
+
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    private static final int BITMAP_WORDS = BLOCK_SIZE / Long.SIZE;
+
+    private final long m_length;
+
+    /** block indices (bit index &gt;&gt;&gt; 16) of the non-empty blocks, ascending. */
+    private long[] m_keys;
+
+    /** containers of the blocks in m_keys. */
+    private Container[] m_containers;
+
+    /** number of used entries in m_keys and m_containers. */
+    private int m_size;
+
+    private long m_cardinality;
+
+    /**
+     * Creates a new vector of the specified length, with no bits set.
+     *
+     * @param length the length of the new bit vector
+     */
+    public RoaringBitVector(final long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length of a BitVector can't be negative.");
+        }
+        m_length = length;
+        m_keys = new long[4];
+        m_containers = new Container[4];
+    }
+
+    /**
+     * Creates a new vector of the specified length with the bits at the given indices set.
+     *
+     * @param length the length of the new bit vector
+     * @param oneIdxs the indices of the bits to set, in ascending order
+     * @throws IllegalArgumentException if the indices are not sorted or not within the length of the vector
+     */
+    public RoaringBitVector(final long length, final long[] oneIdxs) {
+        this(length);
+        long last = -1;
+        for (long idx : oneIdxs) {
+            if (idx <= last) {
+                throw new IllegalArgumentException("Indices must be sorted and unique, got " + idx + " after " + last);
+            }
+            if (idx >= length) {
+                throw new IllegalArgumentException("Index ('" + idx + "') too large for vector of length " + length);
+            }
+            last = idx;
+        }
+        int i = 0;
+        while (i < oneIdxs.length) {
+            final long key = oneIdxs[i] >>> BLOCK_BITS;
+            int end = i;
+            while (end < oneIdxs.length && (oneIdxs[end] >>> BLOCK_BITS) == key) {
+                end++;
+            }
+            final int card = end - i;
+            Container c;
+            if (card <= ARRAY_CONTAINER_MAX_CARDINALITY) {
+                final char[] values = new char[card];
+                for (int k = 0; k < card; k++) {
+                    values[k] = (char)oneIdxs[i + k];
+                }
+                c = new ArrayContainer(values, card);
+            } else {
+                final long[] words = new long[BITMAP_WORDS];
+                for (int k = i; k < end; k++) {
+                    final int low = (int)oneIdxs[k] & (BLOCK_SIZE - 1);
+                    words[low >>> 6] |= 1L << low;
+                }
+                c = new BitmapContainer(words, card);
+            }
+            append(key, c);
+            i = end;
+        }
+    }
+
+    /**
+     * Initializes the created bit vector from the hex representation in the passed string, see
+     * {@link SparseBitVector#SparseBitVector(String)}.
+     *
+     * @param hexString containing the hex value to initialize the vector with
+     * @throws IllegalArgumentException if <code>hexString</code> contains characters other then the hex characters
+     */
+    public RoaringBitVector(final String hexString) {
+        this(hexString.length() * 4L);
+        long bitIdx = 0;
+        for (int c = hexString.length() - 1; c >= 0; c--) {
+            final int cVal = Character.digit(hexString.charAt(c), 16);
+            if (cVal < 0) {
+                throw new IllegalArgumentException("Invalid character in hex number ('" + hexString.charAt(c) + "')");
+            }
+            for (int b = 0; b < 4; b++, bitIdx++) {
+                if ((cVal & (1 << b)) != 0) {
+                    set(bitIdx);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new instance as copy of the passed argument.
+     *
+     * @param clone the vector to copy into the new instance
+     */
+    public RoaringBitVector(final RoaringBitVector clone) {
+        m_length = clone.m_length;
+        m_size = clone.m_size;
+        m_cardinality = clone.m_cardinality;
+        m_keys = Arrays.copyOf(clone.m_keys, Math.max(4, clone.m_size));
+        m_containers = new Container[m_keys.length];
+        for (int i = 0; i < m_size; i++) {
+            m_containers[i] = clone.m_containers[i].copy();
+        }
+    }
+
+    private void append(final long key, final Container container) {
+        if (m_size == m_keys.length) {
+            m_keys = Arrays.copyOf(m_keys, m_size * 2);
+            m_containers = Arrays.copyOf(m_containers, m_size * 2);
+        }
+        m_keys[m_size] = key;
+        m_containers[m_size] = container;
+        m_size++;
+        m_cardinality += container.cardinality();
+    }
+
+    /** @return position of the key in m_keys or (-(insertion point) - 1) */
+    private int indexOfKey(final long key) {
+        if (m_size > 0 && m_keys[m_size - 1] == key) {
+            // bits are usually set in ascending order
+            return m_size - 1;
+        }
+        return Arrays.binarySearch(m_keys, 0, m_size, key);
+    }
+
+    private void checkIndex(final long bitIdx) {
+        if (bitIdx >= m_length) {
+            throw new ArrayIndexOutOfBoundsException(
+                "Index ('" + bitIdx + "') too large for vector of length " + m_length);
+        }
+        if (bitIdx < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index of the bit can't be negative");
+        }
+    }
+
+    @Override
+    public long length() {
+        return m_length;
+    }
+
+    @Override
+    public void set(final long bitIdx, final boolean value) {
+        if (value) {
+            set(bitIdx);
+        } else {
+            clear(bitIdx);
+        }
+    }
+
+    @Override
+    public void set(final long bitIdx) {
+        checkIndex(bitIdx);
+        final long key = bitIdx >>> BLOCK_BITS;
+        final int low = (int)bitIdx & (BLOCK_SIZE - 1);
+        int pos = indexOfKey(key);
+        if (pos < 0) {
+            pos = -(pos + 1);
+            if (m_size == m_keys.length) {
+                m_keys = Arrays.copyOf(m_keys, m_size * 2);
+                m_containers = Arrays.copyOf(m_containers, m_size * 2);
+            }
+            System.arraycopy(m_keys, pos, m_keys, pos + 1, m_size - pos);
+            System.arraycopy(m_containers, pos, m_containers, pos + 1, m_size - pos);
+            m_keys[pos] = key;
+            m_containers[pos] = new ArrayContainer(new char[4], 0);
+            m_size++;
+        }
+        final Container c = m_containers[pos];
+        final int before = c.cardinality();
+        m_containers[pos] = c.add(low);
+        m_cardinality += m_containers[pos].cardinality() - before;
+    }
+
+    @Override
+    public void clear(final long bitIdx) {
+        checkIndex(bitIdx);
+        final int pos = indexOfKey(bitIdx >>> BLOCK_BITS);
+        if (pos < 0) {
+            return;
+        }
+        final Container c = m_containers[pos];
+        final int before = c.cardinality();
+        final Container result = c.remove((int)bitIdx & (BLOCK_SIZE - 1));
+        m_cardinality -= before - result.cardinality();
+        if (result.cardinality() == 0) {
+            System.arraycopy(m_keys, pos + 1, m_keys, pos, m_size - pos - 1);
+            System.arraycopy(m_containers, pos + 1, m_containers, pos, m_size - pos - 1);
+            m_size--;
+            m_containers[m_size] = null;
+        } else {
+            m_containers[pos] = result;
+        }
+    }
+
+    @Override
+    public boolean get(final long bitIdx) {
+        checkIndex(bitIdx);
+        final int pos = indexOfKey(bitIdx >>> BLOCK_BITS);
+        return pos >= 0 && m_containers[pos].contains((int)bitIdx & (BLOCK_SIZE - 1));
+    }
+
+    @Override
+    public long nextSetBit(final long startIdx) {
+        if (startIdx < 0) {
+            throw new ArrayIndexOutOfBoundsException("Starting index can't be negative");
+        }
+        if (startIdx >= m_length) {
+            return -1;
+        }
+        final long key = startIdx >>> BLOCK_BITS;
+        int pos = indexOfKey(key);
+        if (pos >= 0) {
+            final int low = m_containers[pos].nextSetBit((int)startIdx & (BLOCK_SIZE - 1));
+            if (low >= 0) {
+                return (key << BLOCK_BITS) | low;
+            }
+            pos++;
+        } else {
+            pos = -(pos + 1);
+        }
+        if (pos >= m_size) {
+            return -1;
+        }
+        return (m_keys[pos] << BLOCK_BITS) | m_containers[pos].nextSetBit(0);
+    }
+
+    @Override
+    public long nextClearBit(final long startIdx) {
+        if (startIdx < 0) {
+            throw new ArrayIndexOutOfBoundsException("Starting index can't be negative");
+        }
+        long idx = startIdx;
+        while (idx < m_length) {
+            final long key = idx >>> BLOCK_BITS;
+            final int pos = indexOfKey(key);
+            if (pos < 0) {
+                return idx;
+            }
+            final int low = m_containers[pos].nextClearBit((int)idx & (BLOCK_SIZE - 1));
+            if (low < BLOCK_SIZE) {
+                idx = (key << BLOCK_BITS) | low;
+                return idx < m_length ? idx : -1;
+            }
+            // block is full, continue with the next one
+            if (key == (Long.MAX_VALUE >>> BLOCK_BITS)) {
+                return -1;
+            }
+            idx = (key + 1) << BLOCK_BITS;
+        }
+        return -1;
+    }
+
+    @Override
+    public long cardinality() {
+        return m_cardinality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    /**
+     * Returns the indices of all set bits in ascending order.
+     *
+     * @return an array with the indices of all ones
+     * @throws IllegalStateException if there are more than {@link Integer#MAX_VALUE} bits set
+     */
+    public long[] getAllOneIndices() {
+        if (m_cardinality > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many set bits (" + m_cardinality + ") to return them in an array");
+        }
+        final long[] result = new long[(int)m_cardinality];
+        int i = 0;
+        for (long idx = nextSetBit(0); idx >= 0; idx = nextSetBit(idx + 1)) {
+            result[i++] = idx;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the result of the AND operation of this and the argument vector. The length of the result is the
+     * maximum of both lengths. Neither this nor the argument vector are modified.
+     *
+     * @param bv the other operand
+     * @return a new vector holding the result
+     */
+    public RoaringBitVector and(final RoaringBitVector bv) {
+        final RoaringBitVector result = new RoaringBitVector(Math.max(m_length, bv.m_length));
+        int i = 0;
+        int j = 0;
+        while (i < m_size && j < bv.m_size) {
+            if (m_keys[i] < bv.m_keys[j]) {
+                i++;
+            } else if (m_keys[i] > bv.m_keys[j]) {
+                j++;
+            } else {
+                final Container c = Container.and(m_containers[i], bv.m_containers[j]);
+                if (c != null) {
+                    result.append(m_keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the result of the OR operation of this and the argument vector. The length of the result is the maximum
+     * of both lengths. Neither this nor the argument vector are modified.
+     *
+     * @param bv the other operand
+     * @return a new vector holding the result
+     */
+    public RoaringBitVector or(final RoaringBitVector bv) {
+        return merge(bv, false);
+    }
+
+    /**
+     * Returns the result of the XOR operation of this and the argument vector. The length of the result is the
+     * maximum of both lengths. Neither this nor the argument vector are modified.
+     *
+     * @param bv the other operand
+     * @return a new vector holding the result
+     */
+    public RoaringBitVector xor(final RoaringBitVector bv) {
+        return merge(bv, true);
+    }
+
+    private RoaringBitVector merge(final RoaringBitVector bv, final boolean xor) {
+        final RoaringBitVector result = new RoaringBitVector(Math.max(m_length, bv.m_length));
+        int i = 0;
+        int j = 0;
+        while (i < m_size || j < bv.m_size) {
+            if (j >= bv.m_size || (i < m_size && m_keys[i] < bv.m_keys[j])) {
+                result.append(m_keys[i], m_containers[i].copy());
+                i++;
+            } else if (i >= m_size || m_keys[i] > bv.m_keys[j]) {
+                result.append(bv.m_keys[j], bv.m_containers[j].copy());
+                j++;
+            } else {
+                final Container c = xor ? Container.xor(m_containers[i], bv.m_containers[j])
+                    : Container.or(m_containers[i], bv.m_containers[j]);
+                if (c != null) {
+                    result.append(m_keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the cardinality of the intersection with the given bit vector.
+     *
+     * @see BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)
+     * @param bv the other operand for the AND operator
+     * @return the cardinality of the intersection
+     */
+    long cardinalityOfIntersection(final RoaringBitVector bv) {
+        long result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < m_size && j < bv.m_size) {
+            if (m_keys[i] < bv.m_keys[j]) {
+                i++;
+            } else if (m_keys[i] > bv.m_keys[j]) {
+                j++;
+            } else {
+                result += Container.andCardinality(m_containers[i], bv.m_containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the cardinality of the complement relative to the given bit vector, i.e. the number of ones in this
+     * vector that are not set in the argument.
+     *
+     * @see BitVectorUtil#cardinalityOfRelativeComplement(BitVectorValue, BitVectorValue)
+     * @param bv the other operand
+     * @return the cardinality of the relative complement
+     */
+    long cardinalityOfRelativeComplement(final RoaringBitVector bv) {
+        return m_cardinality - cardinalityOfIntersection(bv);
+    }
+
+    /**
+     * Estimates the number of bytes used to store this vector (in memory and, roughly, on disk).
+     *
+     * @return the approximate size in bytes
+     */
+    public long sizeInBytes() {
+        long result = 0;
+        for (int i = 0; i < m_size; i++) {
+            result += Long.BYTES + m_containers[i].sizeInBytes();
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = 0;
+        for (long idx = nextSetBit(0); idx >= 0; idx = nextSetBit(idx + 1)) {
+            hash = hash * 524287 + (idx + 1);
+        }
+        return (int)(hash ^ (hash >> 32));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof RoaringBitVector)) {
+            return false;
+        }
+        final RoaringBitVector other = (RoaringBitVector)obj;
+        if (other.m_length != m_length || other.m_size != m_size || other.m_cardinality != m_cardinality) {
+            return false;
+        }
+        for (int i = 0; i < m_size; i++) {
+            final int card = m_containers[i].cardinality();
+            if (m_keys[i] != other.m_keys[i] || card != other.m_containers[i].cardinality()
+                || Container.andCardinality(m_containers[i], other.m_containers[i]) != card) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string containing (comma separated) indices of the bits set in this vector and the total number of
+     * bits. The number of bit indices added to the string is limited to {@link BitVectorValue#MAX_DISPLAY_BITS}.
+     *
+     * @return a string containing (comma separated) indices of the bits set in this vector.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        result.append("{length=").append(m_length).append(", set bits=");
+        int count = 0;
+        long idx = nextSetBit(0);
+        while (idx >= 0 && count < BitVectorValue.MAX_DISPLAY_BITS) {
+            result.append(count == 0 ? "" : ", ").append(idx);
+            count++;
+            idx = nextSetBit(idx + 1);
+        }
+        if (idx >= 0) {
+            result.append(", ... ");
+        }
+        result.append('}');
+        return result.toString();
+    }
+
+    @Override
+    public String toHexString() {
+        final long nrChars = (m_length + 3) / 4;
+        final int max = (int)Math.min(nrChars, BitVectorValue.MAX_DISPLAY_BITS);
+        final StringBuilder buf = new StringBuilder(max + 3);
+        for (long c = nrChars - 1; c >= nrChars - max; c--) {
+            int val = 0;
+            for (int b = 0; b < 4; b++) {
+                final long bitIdx = c * 4 + b;
+                if (bitIdx < m_length && get(bitIdx)) {
+                    val |= 1 << b;
+                }
+            }
+            buf.append(Character.toUpperCase(Character.forDigit(val, 16)));
+        }
+        if (max < nrChars) {
+            buf.append("...");
+        }
+        return buf.toString();
+    }
+
+    @Override
+    public String toBinaryString() {
+        final int max = (int)Math.min(m_length, BitVectorValue.MAX_DISPLAY_BITS);
+        final StringBuilder result = new StringBuilder(max + 3);
+        for (int bitIdx = max - 1; bitIdx >= 0; bitIdx--) {
+            result.append(get(bitIdx) ? '1' : '0');
+        }
+        if (max < m_length) {
+            result.append("...");
+        }
+        return result.toString();
+    }
+
+    /** Number of non-empty blocks, used by the serializer. */
+    int getBlockCount() {
+        return m_size;
+    }
+
+    long getBlockKey(final int pos) {
+        return m_keys[pos];
+    }
+
+    int getBlockCardinality(final int pos) {
+        return m_containers[pos].cardinality();
+    }
+
+    /**
+     * Returns the content of a block with at most {@value #ARRAY_CONTAINER_MAX_CARDINALITY} bits as sorted positions
+     * within the block, or the content of any other block as 1024 long words. Used by the serializer.
+     */
+    Object getBlockContent(final int pos) {
+        final Container c = m_containers[pos];
+        return c instanceof ArrayContainer ? ((ArrayContainer)c).m_values : ((BitmapContainer)c).m_words;
+    }
+
+    /** Appends a block read by the serializer, the key must be larger than all keys added before. */
+    void appendBlock(final long key, final char[] values, final int cardinality) {
+        append(key, new ArrayContainer(values, cardinality));
+    }
+
+    /** Appends a block read by the serializer, the key must be larger than all keys added before. */
+    void appendBlock(final long key, final long[] words) {
+        final Container c = Container.fromWords(words);
+        if (c != null) {
+            append(key, c);
+        }
+    }
+
+    /** The set bits of one block of 2^16 bits. Positions are passed as ints in [0, 65535]. */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(int low);
+
+        /** @return this or a converted container with the bit set */
+        abstract Container add(int low);
+
+        /** @return this or a converted container with the bit cleared */
+        abstract Container remove(int low);
+
+        /** @return the next set position at or after low or -1 */
+        abstract int nextSetBit(int low);
+
+        /** @return the next clear position at or after low or {@link RoaringBitVector#BLOCK_SIZE} */
+        abstract int nextClearBit(int low);
+
+        abstract Container copy();
+
+        /** @return a new bitmap of this container's bits */
+        abstract long[] toWords();
+
+        abstract void orInto(long[] words);
+
+        abstract void xorInto(long[] words);
+
+        abstract long sizeInBytes();
+
+        /** @return the container for the given bitmap, null if no bit is set */
+        static Container fromWords(final long[] words) {
+            int card = 0;
+            for (long w : words) {
+                card += Long.bitCount(w);
+            }
+            if (card == 0) {
+                return null;
+            }
+            if (card > ARRAY_CONTAINER_MAX_CARDINALITY) {
+                return new BitmapContainer(words, card);
+            }
+            final char[] values = new char[card];
+            int k = 0;
+            for (int i = 0; i < words.length; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    values[k++] = (char)((i << 6) + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+            return new ArrayContainer(values, card);
+        }
+
+        static Container and(final Container a, final Container b) {
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+                final ArrayContainer x = (ArrayContainer)a;
+                final ArrayContainer y = (ArrayContainer)b;
+                final char[] values = new char[Math.min(x.m_cardinality, y.m_cardinality)];
+                int k = 0;
+                for (int i = 0, j = 0; i < x.m_cardinality && j < y.m_cardinality;) {
+                    if (x.m_values[i] < y.m_values[j]) {
+                        i++;
+                    } else if (x.m_values[i] > y.m_values[j]) {
+                        j++;
+                    } else {
+                        values[k++] = x.m_values[i];
+                        i++;
+                        j++;
+                    }
+                }
+                return k == 0 ? null : new ArrayContainer(values, k);
+            } else if (a instanceof ArrayContainer || b instanceof ArrayContainer) {
+                final ArrayContainer x = (ArrayContainer)(a instanceof ArrayContainer ? a : b);
+                final Container y = x == a ? b : a;
+                final char[] values = new char[x.m_cardinality];
+                int k = 0;
+                for (int i = 0; i < x.m_cardinality; i++) {
+                    if (y.contains(x.m_values[i])) {
+                        values[k++] = x.m_values[i];
+                    }
+                }
+                return k == 0 ? null : new ArrayContainer(values, k);
+            }
+            final long[] words = ((BitmapContainer)a).m_words.clone();
+            final long[] other = ((BitmapContainer)b).m_words;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] &= other[i];
+            }
+            return fromWords(words);
+        }
+
+        static int andCardinality(final Container a, final Container b) {
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+                final ArrayContainer x = (ArrayContainer)a;
+                final ArrayContainer y = (ArrayContainer)b;
+                int count = 0;
+                for (int i = 0, j = 0; i < x.m_cardinality && j < y.m_cardinality;) {
+                    if (x.m_values[i] < y.m_values[j]) {
+                        i++;
+                    } else if (x.m_values[i] > y.m_values[j]) {
+                        j++;
+                    } else {
+                        count++;
+                        i++;
+                        j++;
+                    }
+                }
+                return count;
+            } else if (a instanceof ArrayContainer || b instanceof ArrayContainer) {
+                final ArrayContainer x = (ArrayContainer)(a instanceof ArrayContainer ? a : b);
+                final Container y = x == a ? b : a;
+                int count = 0;
+                for (int i = 0; i < x.m_cardinality; i++) {
+                    if (y.contains(x.m_values[i])) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            final long[] w1 = ((BitmapContainer)a).m_words;
+            final long[] w2 = ((BitmapContainer)b).m_words;
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                count += Long.bitCount(w1[i] & w2[i]);
+            }
+            return count;
+        }
+
+        static Container or(final Container a, final Container b) {
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer
+                && a.cardinality() + b.cardinality() <= ARRAY_CONTAINER_MAX_CARDINALITY) {
+                return mergeArrays((ArrayContainer)a, (ArrayContainer)b, false);
+            }
+            final long[] words = a.toWords();
+            b.orInto(words);
+            return fromWords(words);
+        }
+
+        static Container xor(final Container a, final Container b) {
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer
+                && a.cardinality() + b.cardinality() <= ARRAY_CONTAINER_MAX_CARDINALITY) {
+                return mergeArrays((ArrayContainer)a, (ArrayContainer)b, true);
+            }
+            final long[] words = a.toWords();
+            b.xorInto(words);
+            return fromWords(words);
+        }
+
+        private static Container mergeArrays(final ArrayContainer x, final ArrayContainer y, final boolean xor) {
+            final char[] values = new char[x.m_cardinality + y.m_cardinality];
+            int k = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.m_cardinality || j < y.m_cardinality) {
+                if (j >= y.m_cardinality || (i < x.m_cardinality && x.m_values[i] < y.m_values[j])) {
+                    values[k++] = x.m_values[i++];
+                } else if (i >= x.m_cardinality || x.m_values[i] > y.m_values[j]) {
+                    values[k++] = y.m_values[j++];
+                } else {
+                    if (!xor) {
+                        values[k++] = x.m_values[i];
+                    }
+                    i++;
+                    j++;
+                }
+            }
+            return k == 0 ? null : new ArrayContainer(values, k);
+        }
+    }
+
+    /** Container for sparse blocks, stores the sorted positions of the set bits. */
+    private static final class ArrayContainer extends Container {
+
+        private char[] m_values;
+
+        private int m_cardinality;
+
+        ArrayContainer(final char[] values, final int cardinality) {
+            m_values = values;
+            m_cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return m_cardinality;
+        }
+
+        @Override
+        boolean contains(final int low) {
+            return Arrays.binarySearch(m_values, 0, m_cardinality, (char)low) >= 0;
+        }
+
+        @Override
+        Container add(final int low) {
+            int pos;
+            if (m_cardinality == 0 || m_values[m_cardinality - 1] < low) {
+                pos = m_cardinality;
+            } else {
+                pos = Arrays.binarySearch(m_values, 0, m_cardinality, (char)low);
+                if (pos >= 0) {
+                    return this;
+                }
+                pos = -(pos + 1);
+            }
+            if (m_cardinality == ARRAY_CONTAINER_MAX_CARDINALITY) {
+                final long[] words = toWords();
+                words[low >>> 6] |= 1L << low;
+                return new BitmapContainer(words, m_cardinality + 1);
+            }
+            if (m_cardinality == m_values.length) {
+                m_values = Arrays.copyOf(m_values,
+                    Math.min(ARRAY_CONTAINER_MAX_CARDINALITY, Math.max(4, m_cardinality * 2)));
+            }
+            System.arraycopy(m_values, pos, m_values, pos + 1, m_cardinality - pos);
+            m_values[pos] = (char)low;
+            m_cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(final int low) {
+            final int pos = Arrays.binarySearch(m_values, 0, m_cardinality, (char)low);
+            if (pos >= 0) {
+                System.arraycopy(m_values, pos + 1, m_values, pos, m_cardinality - pos - 1);
+                m_cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int nextSetBit(final int low) {
+            int pos = Arrays.binarySearch(m_values, 0, m_cardinality, (char)low);
+            if (pos < 0) {
+                pos = -(pos + 1);
+            }
+            return pos < m_cardinality ? m_values[pos] : -1;
+        }
+
+        @Override
+        int nextClearBit(final int low) {
+            int pos = Arrays.binarySearch(m_values, 0, m_cardinality, (char)low);
+            if (pos < 0) {
+                return low;
+            }
+            int result = low;
+            while (pos < m_cardinality && m_values[pos] == result) {
+                pos++;
+                result++;
+            }
+            return result;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(m_values, m_cardinality), m_cardinality);
+        }
+
+        @Override
+        long[] toWords() {
+            final long[] words = new long[BITMAP_WORDS];
+            orInto(words);
+            return words;
+        }
+
+        @Override
+        void orInto(final long[] words) {
+            for (int i = 0; i < m_cardinality; i++) {
+                words[m_values[i] >>> 6] |= 1L << m_values[i];
+            }
+        }
+
+        @Override
+        void xorInto(final long[] words) {
+            for (int i = 0; i < m_cardinality; i++) {
+                words[m_values[i] >>> 6] ^= 1L << m_values[i];
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * m_cardinality;
+        }
+    }
+
+    /** Container for dense blocks, stores all bits of the block. */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] m_words;
+
+        private int m_cardinality;
+
+        BitmapContainer(final long[] words, final int cardinality) {
+            m_words = words;
+            m_cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return m_cardinality;
+        }
+
+        @Override
+        boolean contains(final int low) {
+            return (m_words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(final int low) {
+            final long before = m_words[low >>> 6];
+            m_words[low >>> 6] = before | (1L << low);
+            if (before != m_words[low >>> 6]) {
+                m_cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(final int low) {
+            final long before = m_words[low >>> 6];
+            m_words[low >>> 6] = before & ~(1L << low);
+            if (before != m_words[low >>> 6]) {
+                m_cardinality--;
+                if (m_cardinality <= ARRAY_CONTAINER_MAX_CARDINALITY) {
+                    final Container c = fromWords(m_words);
+                    // the block can't be empty here, it had more than 4096 bits
+                    return c;
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int nextSetBit(final int low) {
+            int addr = low >>> 6;
+            long word = m_words[addr] & (-1L << low);
+            while (true) {
+                if (word != 0) {
+                    return (addr << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++addr == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = m_words[addr];
+            }
+        }
+
+        @Override
+        int nextClearBit(final int low) {
+            int addr = low >>> 6;
+            long word = ~m_words[addr] & (-1L << low);
+            while (true) {
+                if (word != 0) {
+                    return (addr << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++addr == BITMAP_WORDS) {
+                    return BLOCK_SIZE;
+                }
+                word = ~m_words[addr];
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(m_words.clone(), m_cardinality);
+        }
+
+        @Override
+        long[] toWords() {
+            return m_words.clone();
+        }
+
+        @Override
+        void orInto(final long[] words) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] |= m_words[i];
+            }
+        }
+
+        @Override
+        void xorInto(final long[] words) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] ^= m_words[i];
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return (long)Long.BYTES * BITMAP_WORDS;
+        }
+    }
+}
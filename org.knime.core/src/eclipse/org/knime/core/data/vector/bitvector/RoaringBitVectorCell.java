@@ -0,0 +1,267 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.io.IOException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellFactory.FromComplexString;
+import org.knime.core.data.DataCellFactory.FromSimpleString;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.convert.DataCellFactoryMethod;
+
+/**
+ * Bit vector cell backed by a {@link RoaringBitVector}, i.e. a compressed bitmap that stores sparse blocks of the
+ * vector as sorted positions and dense blocks as plain bitmaps. It is suitable for long vectors with many set bits,
+ * for which {@link SparseBitVectorCell} becomes slow and {@link DenseBitVectorCell} wastes memory on empty regions.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public class RoaringBitVectorCell extends DataCell implements BitVectorValue {
+
+    /**
+     * Convenience access member for <code>DataType.getType(RoaringBitVectorCell.class)</code>.
+     *
+     * @see DataType#getType(Class)
+     */
+    public static final DataType TYPE = DataType.getType(RoaringBitVectorCell.class);
+
+    private final RoaringBitVector m_bitVector;
+
+    /**
+     * Use the {@link RoaringBitVectorCellFactory} to create instances of this cell.
+     *
+     * @param bitVector the bit vector to store in this cell, not copied (must not be modified afterwards)
+     */
+    private RoaringBitVectorCell(final RoaringBitVector bitVector) {
+        m_bitVector = bitVector;
+    }
+
+    /**
+     * Creates a cell that takes ownership of the argument vector (which must not be modified afterwards).
+     *
+     * @param bitVector the vector to wrap
+     * @return a new cell
+     */
+    static RoaringBitVectorCell wrap(final RoaringBitVector bitVector) {
+        return new RoaringBitVectorCell(bitVector);
+    }
+
+    @Override
+    protected boolean equalsDataCell(final DataCell dc) {
+        return ((RoaringBitVectorCell)dc).m_bitVector.equals(m_bitVector);
+    }
+
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        if (otherValue instanceof RoaringBitVectorCell) {
+            return m_bitVector.equals(((RoaringBitVectorCell)otherValue).m_bitVector);
+        }
+        return BitVectorValue.equalContent(this, (BitVectorValue)otherValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return m_bitVector.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return m_bitVector.toString();
+    }
+
+    @Override
+    public String toHexString() {
+        return m_bitVector.toHexString();
+    }
+
+    @Override
+    public String toBinaryString() {
+        return m_bitVector.toBinaryString();
+    }
+
+    /**
+     * Returns a clone of the internal bit vector.
+     *
+     * @return a copy of the internal bit vector.
+     */
+    public RoaringBitVector getBitVectorCopy() {
+        return new RoaringBitVector(m_bitVector);
+    }
+
+    /** @return the internal vector, not a copy (must not be modified) */
+    RoaringBitVector getBitVector() {
+        return m_bitVector;
+    }
+
+    @Override
+    public long cardinality() {
+        return m_bitVector.cardinality();
+    }
+
+    @Override
+    public boolean get(final long index) {
+        return m_bitVector.get(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return m_bitVector.isEmpty();
+    }
+
+    @Override
+    public long length() {
+        return m_bitVector.length();
+    }
+
+    @Override
+    public long nextClearBit(final long startIdx) {
+        return m_bitVector.nextClearBit(startIdx);
+    }
+
+    @Override
+    public long nextSetBit(final long startIdx) {
+        return m_bitVector.nextSetBit(startIdx);
+    }
+
+    /**
+     * @see BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)
+     * @param bitVectorCell the other cell containing the operand
+     * @return the cardinality of intersection
+     */
+    long cardinalityOfIntersection(final RoaringBitVectorCell bitVectorCell) {
+        return m_bitVector.cardinalityOfIntersection(bitVectorCell.m_bitVector);
+    }
+
+    /**
+     * @see BitVectorUtil#cardinalityOfRelativeComplement(BitVectorValue, BitVectorValue)
+     * @param bitVectorCell the other cell containing the operand
+     * @return the cardinality of the relative complement
+     */
+    long cardinalityOfRelativeComplement(final RoaringBitVectorCell bitVectorCell) {
+        return m_bitVector.cardinalityOfRelativeComplement(bitVectorCell.m_bitVector);
+    }
+
+    /**
+     * Factory for {@link RoaringBitVectorCell}s.
+     */
+    public static final class Factory implements FromSimpleString, FromComplexString {
+        @Override
+        @DataCellFactoryMethod(name = "String (Binary\u2192Compressed)")
+        public DataCell createCell(final String input) {
+            RoaringBitVectorCellFactory cellFactory = new RoaringBitVectorCellFactory(input.length());
+            BitVectorUtil.parseFromBinaryString(input, cellFactory);
+            return cellFactory.createDataCell();
+        }
+
+        @Override
+        public DataType getDataType() {
+            return RoaringBitVectorCell.TYPE;
+        }
+    }
+
+    /**
+     * Serializer for {@link RoaringBitVectorCell}s. Writes the length and then, for each non-empty block of 2^16
+     * bits, its index and number of set bits followed by either the positions of the set bits (2 bytes each) or, for
+     * dense blocks, the 1024 long words of the bitmap.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class RoaringBitVectorSerializer implements DataCellSerializer<RoaringBitVectorCell> {
+        @Override
+        public void serialize(final RoaringBitVectorCell cell, final DataCellDataOutput out) throws IOException {
+            final RoaringBitVector vector = cell.m_bitVector;
+            out.writeLong(vector.length());
+            final int blockCount = vector.getBlockCount();
+            out.writeInt(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                final int cardinality = vector.getBlockCardinality(i);
+                out.writeLong(vector.getBlockKey(i));
+                out.writeInt(cardinality);
+                final Object content = vector.getBlockContent(i);
+                if (content instanceof char[]) {
+                    final char[] values = (char[])content;
+                    for (int k = 0; k < cardinality; k++) {
+                        out.writeChar(values[k]);
+                    }
+                } else {
+                    for (long word : (long[])content) {
+                        out.writeLong(word);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public RoaringBitVectorCell deserialize(final DataCellDataInput input) throws IOException {
+            final RoaringBitVector vector = new RoaringBitVector(input.readLong());
+            final int blockCount = input.readInt();
+            for (int i = 0; i < blockCount; i++) {
+                final long key = input.readLong();
+                final int cardinality = input.readInt();
+                if (cardinality <= RoaringBitVector.ARRAY_CONTAINER_MAX_CARDINALITY) {
+                    final char[] values = new char[cardinality];
+                    for (int k = 0; k < cardinality; k++) {
+                        values[k] = input.readChar();
+                    }
+                    vector.appendBlock(key, values, cardinality);
+                } else {
+                    final long[] words = new long[1024];
+                    for (int k = 0; k < words.length; k++) {
+                        words[k] = input.readLong();
+                    }
+                    vector.appendBlock(key, words);
+                }
+            }
+            return wrap(vector);
+        }
+    }
+}
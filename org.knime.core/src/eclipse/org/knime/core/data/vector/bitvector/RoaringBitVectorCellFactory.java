@@ -0,0 +1,246 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+
+/**
+ * Used to create {@link RoaringBitVectorCell}s. Can be initialized with an empty vector, from a hex string or from
+ * the indices of the set bits; bits can be set and cleared before the cell is created.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public class RoaringBitVectorCellFactory implements BitVectorCellFactory<RoaringBitVectorCell> {
+
+    private RoaringBitVector m_vector;
+
+    /**
+     * Initializes the factory to the specified length, all bits cleared.
+     *
+     * @param length of the vector in the cell to create
+     */
+    public RoaringBitVectorCellFactory(final long length) {
+        m_vector = new RoaringBitVector(length);
+    }
+
+    /**
+     * Initializes the factory to the specified length, all bits whose index appear in the passed array are set.
+     *
+     * @param length of the vector in the cell to create
+     * @param oneIdxs the array containing the indices of the ones. Should be sorted (lowest index first).
+     */
+    public RoaringBitVectorCellFactory(final long length, final long[] oneIdxs) {
+        long[] sorted = oneIdxs;
+        for (int i = 1; i < oneIdxs.length; i++) {
+            if (oneIdxs[i - 1] >= oneIdxs[i]) {
+                sorted = Arrays.stream(oneIdxs).sorted().distinct().toArray();
+                break;
+            }
+        }
+        m_vector = new RoaringBitVector(length, sorted);
+    }
+
+    /**
+     * A copy of the specified vector is stored in the created bit vector cell.
+     *
+     * @param vector used to initialize the bits.
+     */
+    public RoaringBitVectorCellFactory(final RoaringBitVector vector) {
+        m_vector = new RoaringBitVector(vector);
+    }
+
+    /**
+     * Initializes the created bit vector from the hex representation in the passed string. Only characters
+     * <code>'0' - '9'</code> and <code>'A' - 'F'</code> are allowed. The character at string position
+     * <code>(length - 1)</code> represents the bits with index 0 to 3 in the vector. The character at position 0
+     * represents the bits with the highest indices. The length of the vector created is the length of the string times
+     * 4 (as each character represents four bits).
+     *
+     * @param hexString containing the hex value to initialize the vector with
+     * @throws IllegalArgumentException if <code>hexString</code> contains characters other then the hex characters
+     *             (i.e. <code>0 - 9, A - F</code>)
+     */
+    public RoaringBitVectorCellFactory(final String hexString) {
+        m_vector = new RoaringBitVector(hexString);
+    }
+
+    @Override
+    public void set(final long bitIndex) {
+        m_vector.set(bitIndex);
+    }
+
+    @Override
+    public void set(final long bitIdx, final boolean value) {
+        m_vector.set(bitIdx, value);
+    }
+
+    @Override
+    public void clear(final long bitIndex) {
+        m_vector.clear(bitIndex);
+    }
+
+    /**
+     * Creates a {@link DataCell} from the currently stored bit vector.
+     *
+     * @return a {@link DataCell} containing the current value of the vector
+     */
+    @Override
+    public RoaringBitVectorCell createDataCell() {
+        return RoaringBitVectorCell.wrap(new RoaringBitVector(m_vector));
+    }
+
+    /**
+     * Creates a compressed bit vector cell containing the result of the AND operation on the passed operands. The
+     * length of the result vector is the maximum of the lengths of the operands.<br>
+     * NOTE: This method performs best if the two arguments are both {@link RoaringBitVectorCell}s. Other
+     * implementations are converted by iterating their set bits.
+     *
+     * @param bv1 the first operand to AND with the other
+     * @param bv2 the other operand to AND with the first one
+     * @return the result of the AND operation
+     */
+    public static RoaringBitVectorCell and(final BitVectorValue bv1, final BitVectorValue bv2) {
+        return RoaringBitVectorCell.wrap(toRoaring(bv1).and(toRoaring(bv2)));
+    }
+
+    /**
+     * Creates a compressed bit vector cell containing the result of the OR operation on the passed operands. The length
+     * of the result vector is the maximum of the lengths of the operands.<br>
+     * NOTE: This method performs best if the two arguments are both {@link RoaringBitVectorCell}s. Other
+     * implementations are converted by iterating their set bits.
+     *
+     * @param bv1 the first operand to OR with the other
+     * @param bv2 the other operand to OR with the first one
+     * @return the result of the OR operation
+     */
+    public static RoaringBitVectorCell or(final BitVectorValue bv1, final BitVectorValue bv2) {
+        return RoaringBitVectorCell.wrap(toRoaring(bv1).or(toRoaring(bv2)));
+    }
+
+    /**
+     * Creates a compressed bit vector cell containing the result of the XOR operation on the passed operands. The
+     * length of the result vector is the maximum of the lengths of the operands.<br>
+     * NOTE: This method performs best if the two arguments are both {@link RoaringBitVectorCell}s. Other
+     * implementations are converted by iterating their set bits.
+     *
+     * @param bv1 the first operand to XOR with the other
+     * @param bv2 the other operand to XOR with the first one
+     * @return the result of the XOR operation
+     */
+    public static RoaringBitVectorCell xor(final BitVectorValue bv1, final BitVectorValue bv2) {
+        return RoaringBitVectorCell.wrap(toRoaring(bv1).xor(toRoaring(bv2)));
+    }
+
+    /**
+     * Creates a compressed bit vector cell with the same bits as the argument, e.g. to convert a dense or sparse bit
+     * vector.
+     *
+     * @param bv the vector to convert
+     * @return a new cell or the argument itself if it already is a {@link RoaringBitVectorCell}
+     */
+    public static RoaringBitVectorCell create(final BitVectorValue bv) {
+        if (bv instanceof RoaringBitVectorCell) {
+            return (RoaringBitVectorCell)bv;
+        }
+        return RoaringBitVectorCell.wrap(toRoaring(bv));
+    }
+
+    /** @return the vector of the argument cell (not a copy) or a new vector with the argument's bits. */
+    private static RoaringBitVector toRoaring(final BitVectorValue bv) {
+        if (bv instanceof RoaringBitVectorCell) {
+            return ((RoaringBitVectorCell)bv).getBitVector();
+        }
+        final RoaringBitVector result = new RoaringBitVector(bv.length());
+        // ascending order: each set appends to the last block
+        for (long idx = bv.nextSetBit(0); idx >= 0; idx = bv.nextSetBit(idx + 1)) {
+            result.set(idx);
+        }
+        return result;
+    }
+
+    @Override
+    public long length() {
+        return m_vector.length();
+    }
+
+    @Override
+    public boolean get(final long bitIdx) {
+        return m_vector.get(bitIdx);
+    }
+
+    @Override
+    public long nextSetBit(final long startIdx) {
+        return m_vector.nextSetBit(startIdx);
+    }
+
+    @Override
+    public long nextClearBit(final long startIdx) {
+        return m_vector.nextClearBit(startIdx);
+    }
+
+    @Override
+    public long cardinality() {
+        return m_vector.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return m_vector.isEmpty();
+    }
+
+    @Override
+    public String toHexString() {
+        return m_vector.toHexString();
+    }
+
+    @Override
+    public String toBinaryString() {
+        return m_vector.toBinaryString();
+    }
+}
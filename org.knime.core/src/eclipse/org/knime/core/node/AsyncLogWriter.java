@@ -0,0 +1,364 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Category;
+import org.apache.log4j.HTMLLayout;
+import org.apache.log4j.Layout;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.xml.XMLLayout;
+
+/**
+ * Writes the log events of the {@link NodeLogger} in a dedicated thread if asynchronous logging is enabled, see
+ * {@link KNIMEConstants#PROPERTY_LOG_ASYNC}. The logging threads only create the events and put them into a
+ * lock-free bounded ring buffer, the writer thread takes them in order and passes each one to the appenders of its
+ * logger, which format and write it. Since the events keep their logger and the node and workflow information
+ * captured by the logging thread, per-node and per-workflow log files get the same messages as in synchronous mode.
+ * The location of the logging call is only known to the logging thread, it's captured before the event is appended
+ * if one of the layouts outputs it, see {@link #checkLocationInfo(Layout)}.
+ *
+ * <p>If the buffer is full, the {@link OverflowPolicy} decides whether the logging thread waits or the event is
+ * discarded. {@link #flush()} waits until all events appended so far are written; the remaining events are flushed
+ * when the JVM shuts down.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class AsyncLogWriter {
+
+    /** What happens to an event if the ring buffer is full. */
+    enum OverflowPolicy {
+        /** The logging thread waits until the writer has made room, no event is lost. */
+        BLOCK,
+        /** The event is discarded, the number of discarded events is logged later. */
+        DISCARD,
+        /** Debug and info events are discarded, the logging thread waits for more severe ones. */
+        DISCARD_BELOW_WARN;
+    }
+
+    /** Default number of events in the ring buffer. */
+    static final int DEFAULT_CAPACITY = 8192;
+
+    private static final String FQCN = Category.class.getName();
+
+    /** Conversion characters of a {@link PatternLayout} that output the location of the logging call. */
+    private static final Pattern LOCATION_PATTERN = Pattern.compile("%[-.\\d]*[CFLMl]");
+
+    /** How long the writer sleeps if no event arrives (it's woken up by new events). */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** How long a waiting logging thread sleeps before checking the buffer again. */
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final OverflowPolicy m_policy;
+
+    private final int m_mask;
+
+    private final AtomicReferenceArray<LoggingEvent> m_events;
+
+    /**
+     * Sequence of each slot: equals the position of the next event to publish into the slot if the slot is free,
+     * the position plus one once the event is published.
+     */
+    private final AtomicLongArray m_sequences;
+
+    /** Next position to publish an event at, claimed by the logging threads. */
+    private final AtomicLong m_tail = new AtomicLong();
+
+    /** Number of events written so far, only modified by the writer thread. */
+    private volatile long m_written;
+
+    private final AtomicLong m_discarded = new AtomicLong();
+
+    private final Thread m_thread;
+
+    private volatile boolean m_isWriterWaiting;
+
+    private volatile boolean m_isStopped;
+
+    /** Whether the location of the logging call is captured before an event is appended. */
+    private volatile boolean m_isCaptureLocation;
+
+    /**
+     * @param capacity the minimum number of events in the ring buffer, rounded up to a power of two
+     * @param policy what happens to an event if the buffer is full
+     */
+    AsyncLogWriter(final int capacity, final OverflowPolicy policy) {
+        final int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        m_policy = policy;
+        m_mask = size - 1;
+        m_events = new AtomicReferenceArray<>(size);
+        m_sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            m_sequences.set(i, i);
+        }
+        m_thread = new Thread(this::run, "KNIME-Log-Writer");
+        m_thread.setDaemon(true);
+    }
+
+    /**
+     * Creates and starts the writer if asynchronous logging is enabled and registers a shutdown hook that flushes it.
+     *
+     * @return the started writer or <code>null</code> if logging is synchronous
+     */
+    static AsyncLogWriter createIfEnabled() {
+        if (!Boolean.getBoolean(KNIMEConstants.PROPERTY_LOG_ASYNC)) {
+            return null;
+        }
+        final int capacity = Integer.getInteger(KNIMEConstants.PROPERTY_LOG_ASYNC_BUFFER_SIZE, DEFAULT_CAPACITY);
+        OverflowPolicy policy = OverflowPolicy.BLOCK;
+        final String policyName = System.getProperty(KNIMEConstants.PROPERTY_LOG_ASYNC_OVERFLOW);
+        if (policyName != null) {
+            try {
+                policy = OverflowPolicy.valueOf(policyName.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                LogLog.warn("Invalid value '" + policyName + "' for " + KNIMEConstants.PROPERTY_LOG_ASYNC_OVERFLOW
+                    + ", using " + policy);
+            }
+        }
+        final AsyncLogWriter writer = new AsyncLogWriter(Math.max(capacity, 2), policy);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(writer::stop, "KNIME-Log-Writer-Shutdown"));
+        return writer;
+    }
+
+    /**
+     * Enables capturing the location of the logging call if the layout outputs it. Once enabled it stays enabled.
+     *
+     * @param layout the layout of an appender the events are written to, may be <code>null</code>
+     */
+    void checkLocationInfo(final Layout layout) {
+        if (!m_isCaptureLocation && needsLocationInfo(layout)) {
+            m_isCaptureLocation = true;
+            LogLog.debug("Location info capturing for asynchronous logging enabled due to layout");
+        }
+    }
+
+    /**
+     * @param layout the layout of an appender, may be <code>null</code>
+     * @return whether the layout outputs the location of the logging call, i.e. the class, file, line or method
+     */
+    static boolean needsLocationInfo(final Layout layout) {
+        if (layout instanceof PatternLayout) {
+            final String conversionPattern = ((PatternLayout)layout).getConversionPattern();
+            return conversionPattern != null && LOCATION_PATTERN.matcher(conversionPattern).find();
+        } else if (layout instanceof XMLLayout) {
+            return ((XMLLayout)layout).getLocationInfo();
+        } else if (layout instanceof HTMLLayout) {
+            return ((HTMLLayout)layout).getLocationInfo();
+        }
+        return false;
+    }
+
+    /** Starts the writer thread. */
+    void start() {
+        m_thread.start();
+    }
+
+    /**
+     * Appends an event to be written by the writer thread. The message is rendered and state of the logging thread
+     * the layouts may use (thread name, NDC, MDC and, if enabled, the location of the logging call) is captured
+     * beforehand, the message object may change or may not be thread-safe.
+     *
+     * @param event the event to write
+     * @return <code>false</code> if the writer is stopped and the caller needs to write the event itself,
+     *         <code>true</code> if the event was appended or discarded according to the overflow policy
+     */
+    boolean append(final LoggingEvent event) {
+        if (m_isStopped) {
+            return false;
+        }
+        event.getRenderedMessage();
+        event.getThreadName();
+        event.getNDC();
+        event.getMDCCopy();
+        if (m_isCaptureLocation) {
+            // computed from the current stack, which is the writer's one later on
+            event.getLocationInformation();
+        }
+        long pos;
+        while ((pos = tryPublish(event)) < 0) {
+            if (m_policy == OverflowPolicy.DISCARD
+                || (m_policy == OverflowPolicy.DISCARD_BELOW_WARN && !event.getLevel().isGreaterOrEqual(Level.WARN))
+                || Thread.currentThread() == m_thread) {
+                // the writer thread itself must not wait for room in the buffer
+                m_discarded.incrementAndGet();
+                return true;
+            }
+            if (m_isStopped) {
+                return false;
+            }
+            LockSupport.unpark(m_thread);
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        if (m_isWriterWaiting) {
+            LockSupport.unpark(m_thread);
+        }
+        if (m_isStopped) {
+            // the writer may have finished before the event was published, in that case the caller writes it
+            return awaitWritten(pos);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the event at the given position is written or the stopped writer thread has finished.
+     *
+     * @return whether the event was written by the writer thread
+     */
+    private boolean awaitWritten(final long pos) {
+        while (m_written <= pos && m_thread.isAlive() && Thread.currentThread() != m_thread) {
+            LockSupport.unpark(m_thread);
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        return m_written > pos || Thread.currentThread() == m_thread;
+    }
+
+    /** @return the position the event was published at or -1 if the buffer is full */
+    private long tryPublish(final LoggingEvent event) {
+        long pos = m_tail.get();
+        while (true) {
+            final int idx = (int)pos & m_mask;
+            final long diff = m_sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (m_tail.compareAndSet(pos, pos + 1)) {
+                    m_events.set(idx, event);
+                    m_sequences.set(idx, pos + 1);
+                    return pos;
+                }
+                pos = m_tail.get();
+            } else if (diff < 0) {
+                // the slot still holds the event from one round before, i.e. the buffer is full
+                return -1;
+            } else {
+                // another thread claimed the position in the meantime
+                pos = m_tail.get();
+            }
+        }
+    }
+
+    /**
+     * Waits until all events appended so far are written. Returns immediately if called by the writer thread or if
+     * the writer is stopped.
+     */
+    void flush() {
+        final long target = m_tail.get();
+        while (m_written < target && Thread.currentThread() != m_thread && m_thread.isAlive()) {
+            LockSupport.unpark(m_thread);
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+    }
+
+    /** Writes the remaining events and stops the writer thread. */
+    void stop() {
+        m_isStopped = true;
+        LockSupport.unpark(m_thread);
+        try {
+            m_thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return the number of events discarded and not yet reported */
+    long getDiscardedCount() {
+        return m_discarded.get();
+    }
+
+    private void run() {
+        long head = 0;
+        while (true) {
+            final int idx = (int)head & m_mask;
+            if (m_sequences.get(idx) == head + 1) {
+                final LoggingEvent event = m_events.get(idx);
+                m_events.set(idx, null);
+                m_sequences.set(idx, head + m_mask + 1);
+                write(event);
+                head++;
+                m_written = head;
+            } else if (m_isStopped && m_tail.get() == head) {
+                reportDiscarded();
+                return;
+            } else {
+                reportDiscarded();
+                m_isWriterWaiting = true;
+                // check again, an event published in the meantime may not have seen the flag
+                if (m_sequences.get(idx) != head + 1 && !m_isStopped) {
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+                m_isWriterWaiting = false;
+            }
+        }
+    }
+
+    private static void write(final LoggingEvent event) {
+        try {
+            event.getLogger().callAppenders(event);
+        } catch (RuntimeException e) {
+            LogLog.error("Could not write log event: " + e.getMessage(), e);
+        }
+    }
+
+    private void reportDiscarded() {
+        final long discarded = m_discarded.getAndSet(0);
+        if (discarded > 0) {
+            final Logger logger = Logger.getLogger(NodeLogger.class);
+            write(new LoggingEvent(FQCN, logger, Level.WARN,
+                discarded + " log message(s) discarded because the asynchronous log buffer was full", null));
+        }
+    }
+}
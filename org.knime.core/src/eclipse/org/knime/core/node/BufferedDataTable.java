@@ -935,6 +935,23 @@ synchronized void collectTableAndReferencesOwnedBy(
         }
     }
 
+    /** Makes the argument node the owner of this table and of all directly reachable tables that are owned by one
+     * of the given nodes, i.e. these tables are no longer cleared when their previous owner is reset.
+     * @param previousOwners The nodes whose tables are taken over.
+     * @param newOwner The new owner.
+     * @param result The set to add the taken over tables to. */
+    synchronized void takeOverTableAndReferences(final Set<Node> previousOwners, final Node newOwner,
+            final Collection<BufferedDataTable> result) {
+        if (previousOwners.contains(getOwner())) {
+            m_owner = newOwner;
+            result.add(this);
+        }
+        BufferedDataTable[] references = m_delegate.getReferenceTables();
+        for (BufferedDataTable reference : references) {
+            reference.takeOverTableAndReferences(previousOwners, newOwner, result);
+        }
+    }
+
     /** Clears any associated storage, for instance temp files. This call also
      * clears all referenced tables (if they are owned by the same node).
      * @param dataOwner The owner of the tables. If
@@ -238,6 +238,21 @@ public FileStore createFileStore(final String relativePath)
         return m_fileStoreHandler.createFileStore(relativePath);
     }
 
+    /** Creates multiple FileStore handles at once, see {@link #createFileStore(String)}. Cheaper than creating
+     * them one by one, e.g. when a file store is to be created for each row of a batch.
+     * @param relativePaths Names of the files/directories, same restrictions as in {@link #createFileStore(String)}.
+     * @return the new file store objects, in the order of the argument names
+     * @throws IOException if a name is invalid (e.g. starts with a dot)
+     * @throws DuplicateKeyException If a name was already used in a previous
+     * indication.
+     * @since 4.4
+     * @noreference Pending API. Feel free to use the method but keep in mind
+     * that it might change in a future version of KNIME.
+     */
+    public FileStore[] createFileStores(final String... relativePaths) throws IOException {
+        return m_fileStoreHandler.createFileStores(relativePaths);
+    }
+
     /**
      * Caches the table argument and returns a reference to a BufferedDataTable
      * wrapping the content. When saving the workflow, the entire data is
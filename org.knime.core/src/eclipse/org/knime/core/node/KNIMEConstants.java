@@ -205,6 +205,16 @@ public final class KNIMEConstants {
      */
     public static final String PROPERTY_DISCOURAGE_GC = "knime.discourage.gc";
 
+    /**
+     * Java property to enable content-based deduplication of file stores and blobs. If set to {@code true}, file
+     * stores copied within a workflow are hard-linked to an existing file with the same content (if the file system
+     * supports it) and blobs with the same content as a blob written before to the same column of a table are stored
+     * only once. Deduplication requires hashing the content and is therefore disabled by default.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_CONTENT_DEDUPLICATION = "knime.content.deduplication";
+
     /**
      * Java property to enable/disable table stream compression. Compression results in smaller temp-file sizes but also
      * (sometimes significant) longer runtime. By default {@code Gzip} is used.
@@ -320,6 +330,28 @@ public final class KNIMEConstants {
      * @since 2.8 */
     public static final String PROPERTY_DATABASE_CONCURRENCY = "knime.database.enable.concurrency";
 
+    /** Java property to read the rows of a database result set in a background thread while the rows read so far are
+     * processed (e.g. written into a table). Default is false.
+     * @since 4.4 */
+    public static final String PROPERTY_DATABASE_PREFETCH = "knime.database.prefetch";
+
+    /** Java property defining the number of database connections used to write the batches of a table in parallel.
+     * Default is 1, that is all batches are written one after the other on a single connection.
+     * @since 4.4 */
+    public static final String PROPERTY_DATABASE_PARALLEL_WRITE_CONNECTIONS =
+        "knime.database.parallel_write_connections";
+
+    /** Java property defining the maximum number of connections of the pool used per database (URL and user). Default
+     * is 0, that is all database accesses share a single cached connection per database.
+     * @since 4.4 */
+    public static final String PROPERTY_DATABASE_CONNECTION_POOL_SIZE = "knime.database.connection_pool_size";
+
+    /** Java property defining the number of seconds after which an idle connection of a database connection pool is
+     * closed. Default is 300.
+     * @since 4.4 */
+    public static final String PROPERTY_DATABASE_CONNECTION_POOL_IDLE_TIMEOUT =
+        "knime.database.connection_pool_idle_timeout";
+
     /** If <code>true</code>, nodes using passwords as part of their configuration (e.g. DB connection or SendEmail) will
      * not store the password as part of the workflow on disc. Instead a null value is stored, which will cause the
      * node's configuration to be incorrect (but valid) after the workflow is restored from disc.
@@ -366,6 +398,73 @@ public final class KNIMEConstants {
    public static final String PROPERTY_DISABLE_LOG4J_CONFIG =
        "knime.log4j.config.disabled";
 
+    /**
+     * Java property to write log messages asynchronously in a dedicated thread, so that logging threads (e.g. node
+     * executions) don't wait for the appenders. The value should be <code>true</code> or <code>false</code> (which
+     * is the default).
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_LOG_ASYNC = "knime.logging.async";
+
+    /**
+     * Java property defining the number of log messages buffered in asynchronous logging mode, see
+     * {@link #PROPERTY_LOG_ASYNC}. Default is 8192.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_LOG_ASYNC_BUFFER_SIZE = "knime.logging.async.buffersize";
+
+    /**
+     * Java property defining what happens to a log message in asynchronous logging mode if the buffer is full:
+     * <code>block</code> (the default) lets the logging thread wait, <code>discard</code> drops the message and
+     * <code>discard_below_warn</code> drops debug and info messages but waits for more severe ones.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_LOG_ASYNC_OVERFLOW = "knime.logging.async.overflow";
+
+    /**
+     * Java property limiting the number of chunks of a parallel chunk loop that are executed at the same time. If
+     * set to a value smaller than the number of chunks only that many copies of the loop body are created, they are
+     * reused for the remaining chunks; see
+     * {@link org.knime.core.node.workflow.LoopStartParallelizeNode#getMaxConcurrentRemoteChunks()}. Setting it also
+     * enables the split into smaller work units, see
+     * {@link org.knime.core.node.workflow.LoopStartParallelizeNode#getNrChunks(int)}. Not set by default, i.e. all
+     * chunks are executed at the same time.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT = "knime.parallelchunks.maxConcurrent";
+
+    /**
+     * Java property defining the number of threads used to save the changed nodes of a workflow (applies to manual
+     * and auto-save). Defaults to 1, i.e. nodes are saved sequentially; see
+     * {@link org.knime.core.node.workflow.WorkflowSaveHelper#setNodeSaveThreadCount(int)}.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_WORKFLOW_SAVE_THREADS = "knime.workflow.save.threads";
+
+    /**
+     * Java property to save a binary copy of each node's settings and of the workflow file next to the XML files.
+     * The copy is loaded instead of parsing the XML as long as the XML file has not been changed since, the XML files
+     * remain the authoritative format (e.g. for older versions). Not supported for encrypted metanodes and settings
+     * containing passwords.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_BINARY_SETTINGS = "knime.settings.binary";
+
+    /**
+     * Java property to attach an estimate of the number of distinct values to the spec of each column whose domain is
+     * computed, see {@link org.knime.core.data.meta.DistinctCountMetaData}. Disabled by default as the estimate adds
+     * meta data to all column specs (and hence changes their equality).
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_DOMAIN_DISTINCT_COUNT = "knime.domain.distinctcount";
+
    /**
     * Java property for doing all dialog operations automatically in the
     * AWT event dispatch thread.
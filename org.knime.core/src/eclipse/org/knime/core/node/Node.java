@@ -54,6 +54,7 @@
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -252,6 +253,17 @@ static class Input {
      * Set null on reset. */
     private IFileStoreHandler m_fileStoreHandler;
 
+    /** Tables of other nodes this node has taken over, see
+     * {@link #takeOverResults(PortObject[], Set, WorkflowDataRepository)}. They are cleared along with the output
+     * tables. Also used as lock for the other fields holding taken over results. */
+    private final Set<BufferedDataTable> m_takenOverTables = new LinkedHashSet<BufferedDataTable>();
+
+    /** The repository the taken over tables are registered in, null if no tables were taken over. */
+    private WorkflowDataRepository m_takenOverTablesRepository;
+
+    /** File store handlers of other nodes this node has taken over, disposed along with the taken over tables. */
+    private final List<IFileStoreHandler> m_takenOverFileStoreHandlers = new ArrayList<IFileStoreHandler>();
+
     // lock that prevents a possible deadlock if a node is currently configuring
     // (e.g. because inportHasNodeModelContent has been called)
     // and the WFM is asking if the node isExecutable(), which it is in most
@@ -959,6 +971,45 @@ public boolean execute(final PortObject[] rawData, final ExecutionContext exec)
      * @since 2.8
      */
     public boolean execute(final PortObject[] rawInData, final ExecutionEnvironment exEnv, final ExecutionContext exec) {
+        return execute(rawInData, exEnv, exec, null);
+    }
+
+    /**
+     * Computes the output of a node model in place of {@link NodeModel#execute(PortObject[], ExecutionContext)},
+     * used by executors that run a node differently, e.g. via its
+     * {@link org.knime.core.node.streamable.StreamableOperator}. The framework handles the delegate's result in the
+     * same way as the result of the model's execute method.
+     *
+     * @since 4.4
+     * @noreference This interface is not intended to be referenced by clients.
+     */
+    @FunctionalInterface
+    public interface ExecuteDelegate {
+
+        /**
+         * @param inData the input data (excluding flow variable port, non-table objects are already copied)
+         * @param exec the execution context of the node
+         * @return the output data (excluding flow variable port)
+         * @throws Exception if the execution fails or is canceled
+         */
+        PortObject[] execute(PortObject[] inData, ExecutionContext exec) throws Exception;
+    }
+
+    /**
+     * Same as {@link #execute(PortObject[], ExecutionEnvironment, ExecutionContext)} but the output of the node model
+     * is computed by the given delegate.
+     *
+     * @param rawInData the data from the predecessor, includes flow variable port.
+     * @param exEnv the environment for the execution.
+     * @param exec The execution monitor.
+     * @param executeDelegate computes the output in place of the node model's execute method, <code>null</code> to
+     *            execute the model
+     * @return <code>true</code> if execution was successful otherwise <code>false</code>.
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public boolean execute(final PortObject[] rawInData, final ExecutionEnvironment exEnv, final ExecutionContext exec,
+        final ExecuteDelegate executeDelegate) {
         LOGGER.assertLog(NodeContext.getContext() != null,
             "No node context available, please check call hierarchy and fix it");
 
@@ -1022,7 +1073,8 @@ public boolean execute(final PortObject[] rawInData, final ExecutionEnvironment
             try {
                 // INVOKE MODEL'S EXECUTE
                 // (warnings will now be processed "automatically" - we listen)
-                rawOutData = invokeFullyNodeModelExecute(exec, exEnv, newInData);
+                rawOutData = executeDelegate == null ? invokeFullyNodeModelExecute(exec, exEnv, newInData)
+                    : m_model.executeModel(newInData, exEnv, exec, executeDelegate);
             } catch (Throwable th) {
                 boolean isCanceled = th instanceof CanceledExecutionException;
                 isCanceled = isCanceled || th instanceof InterruptedException;
@@ -1517,6 +1569,8 @@ private void createErrorMessageAndNotify(final String errorMessage) {
     public void createErrorMessageAndNotify(final String errorMessage, final
             Throwable t) {
         LOGGER.error(errorMessage, t);
+        // the error is in the log before it's reported (logging may be asynchronous)
+        NodeLogger.flush();
         notifyMessageListeners(new NodeMessage(NodeMessage.Type.ERROR,
                 errorMessage));
     }
@@ -1639,6 +1693,25 @@ public void cleanOutPorts(final boolean isLoopRestart) {
             t.clear();
         }
         m_localTempTables.clear();
+        if (!isLoopRestart) {
+            disposeTakenOverResults();
+        }
+    }
+
+    /** Clears the tables and disposes the file store handlers taken over from other nodes. */
+    private void disposeTakenOverResults() {
+        synchronized (m_takenOverTables) {
+            for (BufferedDataTable t : m_takenOverTables) {
+                t.removeFromTableRepository(m_takenOverTablesRepository, this);
+                t.clearSingle(this);
+            }
+            m_takenOverTables.clear();
+            m_takenOverTablesRepository = null;
+            for (IFileStoreHandler fsh : m_takenOverFileStoreHandlers) {
+                fsh.clearAndDispose();
+            }
+            m_takenOverFileStoreHandlers.clear();
+        }
     }
 
     private Set<BufferedDataTable> collectTableAndReferences(
@@ -1666,6 +1739,40 @@ public void addToTemporaryTables(final Set<ContainerTable> tempTables) {
         m_localTempTables.addAll(tempTables);
     }
 
+    /**
+     * Takes over the results of other nodes without copying them: the tables among the argument port objects (and
+     * the tables they reference) that are owned by one of these nodes and the file store handlers of these nodes are
+     * no longer disposed when those nodes are reset but when this node is reset. The tables remain in the table
+     * repository until then, file store cells in the tables remain readable. Used to retain the results of a parallel
+     * chunk before its loop body copy is reset and reused.
+     *
+     * @param objects the results to take over, elements may be <code>null</code>
+     * @param owners the nodes that created the results, they must not be executing
+     * @param repository the repository the owners put their output tables into
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public void takeOverResults(final PortObject[] objects, final Set<Node> owners,
+        final WorkflowDataRepository repository) {
+        CheckUtils.checkArgument(!owners.contains(this), "Node \"%s\" can't take over its own results", getName());
+        synchronized (m_takenOverTables) {
+            for (PortObject o : objects) {
+                if (o instanceof BufferedDataTable) {
+                    ((BufferedDataTable)o).takeOverTableAndReferences(owners, this, m_takenOverTables);
+                }
+            }
+            m_takenOverTablesRepository = repository;
+            for (Node owner : owners) {
+                final IFileStoreHandler fsh = owner.getFileStoreHandler();
+                if (fsh != null) {
+                    // detach it so that resetting the owner doesn't delete the file stores
+                    owner.setFileStoreHandler(null);
+                    m_takenOverFileStoreHandlers.add(fsh);
+                }
+            }
+        }
+    }
+
     /** Enumerates the output tables and puts them into the global workflow repository of tables. This method delegates
      * from the NodeContainer class to access a package-scope method in BufferedDataTable.
      * @param repository The global repository.
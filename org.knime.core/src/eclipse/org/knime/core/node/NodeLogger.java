@@ -297,6 +297,14 @@ public void workflowChanged(final WorkflowEvent event) {
     /** Default log file appender. */
     private static final Appender LOG_FILE_APPENDER;
 
+    /** Writes the log events in a dedicated thread, <code>null</code> if logging is synchronous. Initialized before
+     * the static block below, which already logs. */
+    private static final AsyncLogWriter ASYNC_WRITER = AsyncLogWriter.createIfEnabled();
+
+    /** Class of the events logged asynchronously, their location is the caller of this class, see
+     * {@link AsyncLogWriter#checkLocationInfo(Layout)}. */
+    private static final String FQCN = NodeLogger.class.getName();
+
     private static boolean LOG_IN_WF_DIR = false;
 
     private static boolean LOG_GLOBAL_IN_WF_DIR = false;
@@ -410,6 +418,9 @@ private static void updateLog4JKNIMELoggerLevel() {
         for (@SuppressWarnings("unchecked")
         Enumeration<Appender> appenderEnum = rootLogger.getAllAppenders(); appenderEnum.hasMoreElements();) {
             Appender next = appenderEnum.nextElement();
+            if (ASYNC_WRITER != null) {
+                ASYNC_WRITER.checkLocationInfo(next.getLayout());
+            }
             for (Filter filter = next.getFilter(); filter != null; filter = filter.getNext()) {
                 Level l = null;
                 if (filter instanceof LevelMatchFilter) {
@@ -634,7 +645,7 @@ public static NodeLogger getLogger(final String s) {
      * @param o The object to print.
      */
     public void warn(final Object o) {
-        getLoggerInternal().warn(getLogObject(o));
+        log(getLoggerInternal(), Level.WARN, getLogObject(o), null);
     }
 
     /**
@@ -643,7 +654,7 @@ public void warn(final Object o) {
      * @param o The object to print.
      */
     public void debug(final Object o) {
-        getLoggerInternal().debug(getLogObject(o));
+        log(getLoggerInternal(), Level.DEBUG, getLogObject(o), null);
     }
 
 
@@ -655,7 +666,7 @@ public void debug(final Object o) {
      * @since 3.1
      */
     public void debugWithoutContext(final Object o) {
-        m_logger.debug(o);
+        log(m_logger, Level.DEBUG, o, null);
     }
 
     /**
@@ -663,6 +674,9 @@ public void debugWithoutContext(final Object o) {
      * that the corresponding boolean flag is enabled.
      */
     private static void checkLayoutFlags(final Layout layout) {
+        if (ASYNC_WRITER != null) {
+            ASYNC_WRITER.checkLocationInfo(layout);
+        }
         if (layout instanceof PatternLayout) {
             final PatternLayout pl = (PatternLayout)layout;
             final String conversionPattern = pl.getConversionPattern();
@@ -723,6 +737,41 @@ private Object getLogObject(final Object message) {
         return new KNIMELogMessage(nodeID, nodeName, workflowDir, jobID,  message);
     }
 
+    /**
+     * Logs the message with the given logger, either directly or, in asynchronous mode, by handing the event to the
+     * {@link AsyncLogWriter}. Fatal messages are flushed before this method returns; a failing node flushes the log
+     * itself (see {@link #flush()}) so that its error and everything logged before it are in the log when the failure
+     * is reported. Other errors don't block the logging thread.
+     */
+    private static void log(final Logger logger, final Level level, final Object msg, final Throwable t) {
+        if (ASYNC_WRITER == null) {
+            logger.log(level, msg, t);
+            return;
+        }
+        if (!logger.isEnabledFor(level)) {
+            return;
+        }
+        final LoggingEvent event = new LoggingEvent(FQCN, logger, level, msg, t);
+        if (!ASYNC_WRITER.append(event)) {
+            // writer already stopped during shutdown
+            logger.callAppenders(event);
+        } else if (level.isGreaterOrEqual(Level.FATAL)) {
+            ASYNC_WRITER.flush();
+        }
+    }
+
+    /**
+     * Waits until all messages logged so far are written if messages are logged asynchronously, see
+     * {@link KNIMEConstants#PROPERTY_LOG_ASYNC}. Does nothing in synchronous mode.
+     *
+     * @since 4.4
+     */
+    public static void flush() {
+        if (ASYNC_WRITER != null) {
+            ASYNC_WRITER.flush();
+        }
+    }
+
     /**
      * Use this method whenever you want to log a message. It ensures that the right logger is used and that all
      * required appenders are added to it e.g. workflow directory appender.
@@ -820,6 +869,8 @@ private static void removeWorkflowDirAppender(final File workflowDir) {
         }
         final String workflowDirPath = workflowDir.getPath();
         if (workflowDirPath != null) {
+            // write the queued messages before their appender might be closed
+            flush();
             synchronized (WF_APPENDER) {
                 final Appender appender = WF_APPENDER.remove(workflowDirPath);
                 if (appender != null) {
@@ -841,7 +892,7 @@ private static void removeWorkflowDirAppender(final File workflowDir) {
      * @param o The object to print.
      */
     public void info(final Object o) {
-        getLoggerInternal().info(getLogObject(o));
+        log(getLoggerInternal(), Level.INFO, getLogObject(o), null);
     }
 
     /**
@@ -850,7 +901,7 @@ public void info(final Object o) {
      * @param o The object to print.
      */
     public void error(final Object o) {
-        getLoggerInternal().error(getLogObject(o));
+        log(getLoggerInternal(), Level.ERROR, getLogObject(o), null);
     }
 
     /**
@@ -859,7 +910,7 @@ public void error(final Object o) {
      * @param o The object to print.
      */
     public void fatal(final Object o) {
-        getLoggerInternal().fatal(getLogObject(o));
+        log(getLoggerInternal(), Level.FATAL, getLogObject(o), null);
     }
 
     /**
@@ -869,7 +920,7 @@ public void fatal(final Object o) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void warn(final Object o, final Throwable t) {
-        getLoggerInternal().warn(getLogObject(o), t);
+        log(getLoggerInternal(), Level.WARN, getLogObject(o), t);
     }
 
     /**
@@ -879,7 +930,7 @@ public void warn(final Object o, final Throwable t) {
      * @param t The exception to log, including its stack trace.
      */
     public void debug(final Object o, final Throwable t) {
-        getLoggerInternal().debug(getLogObject(o), t);
+        log(getLoggerInternal(), Level.DEBUG, getLogObject(o), t);
     }
 
     /**
@@ -889,7 +940,7 @@ public void debug(final Object o, final Throwable t) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void info(final Object o, final Throwable t) {
-        getLoggerInternal().info(getLogObject(o), t);
+        log(getLoggerInternal(), Level.INFO, getLogObject(o), t);
     }
 
     /**
@@ -899,7 +950,7 @@ public void info(final Object o, final Throwable t) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void error(final Object o, final Throwable t) {
-        getLoggerInternal().error(getLogObject(o), t);
+        log(getLoggerInternal(), Level.ERROR, getLogObject(o), t);
     }
 
     /**
@@ -910,7 +961,7 @@ public void error(final Object o, final Throwable t) {
      */
     public void assertLog(final boolean b, final String m) {
         if (KNIMEConstants.ASSERTIONS_ENABLED && !b) {
-            getLoggerInternal().error("ASSERT " + m, new AssertionError(m));
+            log(getLoggerInternal(), Level.ERROR, "ASSERT " + m, new AssertionError(m));
         }
     }
 
@@ -924,10 +975,12 @@ public void assertLog(final boolean b, final String m) {
     public void assertLog(final boolean b, final String m,
             final AssertionError e) {
         if (KNIMEConstants.ASSERTIONS_ENABLED) {
-            getLoggerInternal().assertLog(b, "ASSERT " + m);
+            if (!b) {
+                log(getLoggerInternal(), Level.ERROR, "ASSERT " + m, null);
+            }
             // for stacktrace
             if (!b & e != null) {
-                getLoggerInternal().debug("ASSERT\t " + m, e);
+                log(getLoggerInternal(), Level.DEBUG, "ASSERT\t " + m, e);
             }
         }
     }
@@ -940,7 +993,7 @@ public void assertLog(final boolean b, final String m,
      */
     public void coding(final Object o) {
         if (isToLogCodingMessages()) {
-            getLoggerInternal().error(getLogObject(CODING_PROBLEM_PREFIX + o));
+            log(getLoggerInternal(), Level.ERROR, getLogObject(CODING_PROBLEM_PREFIX + o), null);
         }
     }
 
@@ -953,7 +1006,7 @@ public void coding(final Object o) {
      */
     public void coding(final Object o, final Throwable t) {
         if (isToLogCodingMessages()) {
-            getLoggerInternal().error(getLogObject(CODING_PROBLEM_PREFIX + o), t);
+            log(getLoggerInternal(), Level.ERROR, getLogObject(CODING_PROBLEM_PREFIX + o), t);
         }
     }
 
@@ -966,7 +1019,7 @@ public void coding(final Object o, final Throwable t) {
      */
     public void codingWithoutContext(final Object o) {
         if (isToLogCodingMessages()) {
-            m_logger.error(CODING_PROBLEM_PREFIX + o);
+            log(m_logger, Level.ERROR, CODING_PROBLEM_PREFIX + o, null);
         }
     }
 
@@ -977,7 +1030,7 @@ public void codingWithoutContext(final Object o) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void fatal(final Object o, final Throwable t) {
-        getLoggerInternal().fatal(getLogObject(o), t);
+        log(getLoggerInternal(), Level.FATAL, getLogObject(o), t);
     }
 
     /**
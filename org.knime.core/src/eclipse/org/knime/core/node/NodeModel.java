@@ -545,6 +545,22 @@ protected abstract void validateSettings(final NodeSettingsRO settings)
      */
     PortObject[] executeModel(final PortObject[] rawData, final ExecutionEnvironment exEnv,
             final ExecutionContext exec) throws Exception {
+        return executeModel(rawData, exEnv, exec, null);
+    }
+
+    /**
+     * Same as {@link #executeModel(PortObject[], ExecutionEnvironment, ExecutionContext)} but computes the output
+     * with the given delegate instead of {@link #execute(PortObject[], ExecutionContext)} (unless re-executed).
+     *
+     * @param rawData the input data (includes flow variable port)
+     * @param exEnv the execution environment
+     * @param exec the execution context
+     * @param executeDelegate replaces this model's execute method, may be <code>null</code>
+     * @return the output (includes flow variable port)
+     * @throws Exception as thrown by the execute method or the delegate
+     */
+    PortObject[] executeModel(final PortObject[] rawData, final ExecutionEnvironment exEnv,
+            final ExecutionContext exec, final Node.ExecuteDelegate executeDelegate) throws Exception {
         final PortObject[] data = ArrayUtils.remove(rawData, 0);
         assert (data != null && data.length == getNrInPorts());
         assert (exec != null);
@@ -573,7 +589,7 @@ PortObject[] executeModel(final PortObject[] rawData, final ExecutionEnvironment
         PortObject[] outData;
         try {
             if (!exEnv.reExecute()) {
-                outData = execute(data, exec);
+                outData = executeDelegate == null ? execute(data, exec) : executeDelegate.execute(data, exec);
             } else {
                 //FIXME: implement reexecution with loading view content and execute
                 if (this instanceof InteractiveNode) {
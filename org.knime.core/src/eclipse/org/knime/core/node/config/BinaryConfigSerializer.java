@@ -0,0 +1,388 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.config.base.AbstractConfigEntry;
+import org.knime.core.node.config.base.ConfigBase;
+
+/**
+ * Compact binary serialization of {@link Config} trees, used as a faster alternative to the XML format for settings
+ * files. The stream starts with a magic number and a format version, followed by a table of all keys used in the
+ * tree (each key is stored only once, which pays off for the index keys of arrays) and the recursively written
+ * entries. Each entry is stored as a type byte, the index of its key and its value in binary form; strings and
+ * sub-configs are length-prefixed.
+ *
+ * <p>
+ * Password and transient string entries are not supported as their XML representation is not a plain copy of the
+ * value; {@link #isSupported(ConfigBase)} needs to be checked before calling {@link #save(Config, OutputStream)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class BinaryConfigSerializer {
+
+    /** Magic number at the start of each stream ("KNCB"). */
+    private static final int MAGIC = 0x4B4E4342;
+
+    private static final byte VERSION = 1;
+
+    private static final byte TYPE_CONFIG = 0;
+
+    private static final byte TYPE_STRING = 1;
+
+    private static final byte TYPE_NULL_STRING = 2;
+
+    private static final byte TYPE_INT = 3;
+
+    private static final byte TYPE_LONG = 4;
+
+    private static final byte TYPE_DOUBLE = 5;
+
+    private static final byte TYPE_FLOAT = 6;
+
+    private static final byte TYPE_SHORT = 7;
+
+    private static final byte TYPE_BYTE = 8;
+
+    private static final byte TYPE_CHAR = 9;
+
+    private static final byte TYPE_BOOLEAN = 10;
+
+    /** Maximum number of keys or string bytes allocated before they are read. */
+    private static final int MAX_PREALLOCATED = 8192;
+
+    private BinaryConfigSerializer() {
+    }
+
+    /**
+     * Checks whether the given config and all of its sub-configs only contain entries that can be written by
+     * {@link #save(Config, OutputStream)}.
+     *
+     * @param config the config to check
+     * @return <code>true</code> if the config tree can be written in binary form
+     */
+    public static boolean isSupported(final ConfigBase config) {
+        for (String key : config.keySet()) {
+            final AbstractConfigEntry entry = config.getEntry(key);
+            switch (entry.getType()) {
+                case config:
+                    if (!isSupported((ConfigBase)entry)) {
+                        return false;
+                    }
+                    break;
+                case xstring:
+                case xint:
+                case xlong:
+                case xdouble:
+                case xfloat:
+                case xshort:
+                case xbyte:
+                case xchar:
+                case xboolean:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the given config tree in binary form. The stream is flushed but not closed.
+     *
+     * @param config the config to write
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the config contains entries that are not supported, see
+     *             {@link #isSupported(ConfigBase)}
+     */
+    public static void save(final Config config, final OutputStream out) throws IOException {
+        final Map<String, Integer> keys = new LinkedHashMap<>();
+        keys.put(config.getKey(), 0);
+        collectKeys(config, keys);
+        final DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(MAGIC);
+        dataOut.writeByte(VERSION);
+        writeVarInt(dataOut, keys.size());
+        for (String key : keys.keySet()) {
+            writeString(dataOut, key);
+        }
+        writeConfig(dataOut, config, keys);
+        dataOut.flush();
+    }
+
+    /**
+     * Reads a config tree written by {@link #save(Config, OutputStream)}. The stream is not closed.
+     *
+     * @param in the stream to read from
+     * @param factory creates the (empty) root config for the key read from the stream, e.g.
+     *            <code>NodeSettings::new</code>
+     * @param <C> the type of the root config
+     * @return the root config filled with the content of the stream
+     * @throws IOException if reading fails or the stream does not contain a valid binary config
+     */
+    public static <C extends Config> C load(final InputStream in, final Function<String, C> factory)
+        throws IOException {
+        final DataInputStream dataIn = new DataInputStream(in);
+        if (dataIn.readInt() != MAGIC) {
+            throw new IOException("Stream does not contain a binary config");
+        }
+        final byte version = dataIn.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary config version " + version);
+        }
+        final int keyCount = readVarInt(dataIn);
+        if (keyCount == 0) {
+            throw new IOException("Binary config without root key");
+        }
+        // the count of a corrupt stream may be arbitrarily large, the list only grows with the keys actually read
+        final List<String> keyList = new ArrayList<>(Math.min(keyCount, MAX_PREALLOCATED));
+        for (int i = 0; i < keyCount; i++) {
+            keyList.add(readString(dataIn));
+        }
+        final String[] keys = keyList.toArray(new String[keyCount]);
+        final C config = factory.apply(keys[0]);
+        readConfig(dataIn, config, keys);
+        return config;
+    }
+
+    private static void collectKeys(final Config config, final Map<String, Integer> keys) {
+        for (String key : config.keySet()) {
+            keys.putIfAbsent(key, keys.size());
+            final AbstractConfigEntry entry = config.getEntry(key);
+            if (entry instanceof Config) {
+                collectKeys((Config)entry, keys);
+            }
+        }
+    }
+
+    private static void writeConfig(final DataOutputStream out, final Config config, final Map<String, Integer> keys)
+        throws IOException {
+        writeVarInt(out, config.keySet().size());
+        try {
+            for (String key : config.keySet()) {
+                final AbstractConfigEntry entry = config.getEntry(key);
+                final int keyIndex = keys.get(key);
+                switch (entry.getType()) {
+                    case config:
+                        out.writeByte(TYPE_CONFIG);
+                        writeVarInt(out, keyIndex);
+                        writeConfig(out, (Config)entry, keys);
+                        break;
+                    case xstring:
+                        final String s = config.getString(key);
+                        out.writeByte(s == null ? TYPE_NULL_STRING : TYPE_STRING);
+                        writeVarInt(out, keyIndex);
+                        if (s != null) {
+                            writeString(out, s);
+                        }
+                        break;
+                    case xint:
+                        out.writeByte(TYPE_INT);
+                        writeVarInt(out, keyIndex);
+                        out.writeInt(config.getInt(key));
+                        break;
+                    case xlong:
+                        out.writeByte(TYPE_LONG);
+                        writeVarInt(out, keyIndex);
+                        out.writeLong(config.getLong(key));
+                        break;
+                    case xdouble:
+                        out.writeByte(TYPE_DOUBLE);
+                        writeVarInt(out, keyIndex);
+                        out.writeDouble(config.getDouble(key));
+                        break;
+                    case xfloat:
+                        out.writeByte(TYPE_FLOAT);
+                        writeVarInt(out, keyIndex);
+                        out.writeFloat(config.getFloat(key));
+                        break;
+                    case xshort:
+                        out.writeByte(TYPE_SHORT);
+                        writeVarInt(out, keyIndex);
+                        out.writeShort(config.getShort(key));
+                        break;
+                    case xbyte:
+                        out.writeByte(TYPE_BYTE);
+                        writeVarInt(out, keyIndex);
+                        out.writeByte(config.getByte(key));
+                        break;
+                    case xchar:
+                        out.writeByte(TYPE_CHAR);
+                        writeVarInt(out, keyIndex);
+                        out.writeChar(config.getChar(key));
+                        break;
+                    case xboolean:
+                        out.writeByte(TYPE_BOOLEAN);
+                        writeVarInt(out, keyIndex);
+                        out.writeBoolean(config.getBoolean(key));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Entry \"" + key + "\" of type " + entry.getType()
+                            + " can't be written in binary form");
+                }
+            }
+        } catch (InvalidSettingsException ise) {
+            // can't happen as the types are checked
+            throw new IOException(ise.getMessage(), ise);
+        }
+    }
+
+    private static void readConfig(final DataInputStream in, final Config config, final String[] keys)
+        throws IOException {
+        final int count = readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            final byte type = in.readByte();
+            final int keyIndex = readVarInt(in);
+            if (keyIndex >= keys.length) {
+                throw new IOException("Invalid key index " + keyIndex + " (" + keys.length + " keys)");
+            }
+            final String key = keys[keyIndex];
+            switch (type) {
+                case TYPE_CONFIG:
+                    readConfig(in, config.addConfig(key), keys);
+                    break;
+                case TYPE_STRING:
+                    config.addString(key, readString(in));
+                    break;
+                case TYPE_NULL_STRING:
+                    config.addString(key, null);
+                    break;
+                case TYPE_INT:
+                    config.addInt(key, in.readInt());
+                    break;
+                case TYPE_LONG:
+                    config.addLong(key, in.readLong());
+                    break;
+                case TYPE_DOUBLE:
+                    config.addDouble(key, in.readDouble());
+                    break;
+                case TYPE_FLOAT:
+                    config.addFloat(key, in.readFloat());
+                    break;
+                case TYPE_SHORT:
+                    config.addShort(key, in.readShort());
+                    break;
+                case TYPE_BYTE:
+                    config.addByte(key, in.readByte());
+                    break;
+                case TYPE_CHAR:
+                    config.addChar(key, in.readChar());
+                    break;
+                case TYPE_BOOLEAN:
+                    config.addBoolean(key, in.readBoolean());
+                    break;
+                default:
+                    throw new IOException("Invalid entry type " + type + " for key \"" + key + "\"");
+            }
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = readVarInt(in);
+        if (length <= MAX_PREALLOCATED) {
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        // the length of a corrupt stream may be arbitrarily large, the buffer only grows with the bytes actually read
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(MAX_PREALLOCATED);
+        final byte[] buffer = new byte[MAX_PREALLOCATED];
+        for (int remaining = length; remaining > 0;) {
+            final int chunk = Math.min(remaining, buffer.length);
+            in.readFully(buffer, 0, chunk);
+            bytes.write(buffer, 0, chunk);
+            remaining -= chunk;
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /** Writes a non-negative int in 7-bit groups, most values used here fit into a single byte. */
+    private static void writeVarInt(final DataOutputStream out, final int value) throws IOException {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    private static int readVarInt(final DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    break;
+                }
+                return result;
+            }
+        }
+        throw new IOException("Invalid length or count in binary config");
+    }
+}
@@ -0,0 +1,777 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.port.inactive.InactiveBranchPortObject;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.workflow.LoopEndNode;
+import org.knime.core.node.workflow.LoopStartNode;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.NodeMessage;
+import org.knime.core.node.workflow.execresult.NodeContainerExecutionStatus;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Executes a {@link NativeNodeContainer} via its {@link StreamableOperator}. If the node declares distributable
+ * inputs, the input is split into contiguous row ranges and one operator per {@link PartitionInfo partition} is run
+ * concurrently. Each partition's streamable input is read by a separate reader task (if a thread is available) and
+ * handed to the operator through a bounded {@link StreamingRowChannel}, i.e. decoding of the input overlaps with the
+ * operator's computation. Distributed outputs are concatenated in partition order (so the row order is the same as in
+ * a sequential execution), operator internals are merged via the node's {@link MergeOperator}.
+ *
+ * <p>
+ * The streamed computation replaces the node model's execute method only (see {@link Node.ExecuteDelegate}), the node
+ * is otherwise executed like by the default job, including the handling of inactive branches, warnings and errors.
+ *
+ * <p>
+ * Inside a component, consecutive streamable nodes are chained into one pipeline (see {@link StreamingPipeline}): a
+ * node passing its rows on is executed with an empty output table, its successor runs the operators of all passing
+ * nodes upstream of it in separate threads, connected by {@link StreamingRowChannel}s, in a single partition.
+ *
+ * <p>
+ * Nodes that do not support streaming run their regular execute method through the default streamable operator (see
+ * {@link NodeModel#createStreamableOperator(PartitionInfo, PortObjectSpec[])}) in a single partition.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StreamingNodeExecutionJob extends NodeExecutionJob {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(StreamingNodeExecutionJob.class);
+
+    private final ThreadPool m_pool;
+
+    private final int m_maxPartitionCount;
+
+    private final int m_channelCapacity;
+
+    private final boolean m_isPassingRowsOn;
+
+    private boolean m_isOutputPassedOn;
+
+    private Future<?> m_future;
+
+    StreamingNodeExecutionJob(final NativeNodeContainer nnc, final PortObject[] data, final ThreadPool pool,
+        final int maxPartitionCount, final int channelCapacity, final boolean isPassingRowsOn) {
+        super(nnc, data);
+        m_pool = pool;
+        m_maxPartitionCount = maxPartitionCount;
+        m_channelCapacity = channelCapacity;
+        m_isPassingRowsOn = isPassingRowsOn;
+    }
+
+    /** @param future the future representing the pending execution */
+    void setFuture(final Future<?> future) {
+        m_future = future;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isReConnecting() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean cancel() {
+        if (m_future == null) {
+            throw new IllegalStateException("Future that represents the execution has not been set.");
+        }
+        return m_future.cancel(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected String getCustomThreadName(final String originalThreadName) {
+        return originalThreadName + "-" + getNodeContainer().getNameWithID() + " (streamed)";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected NodeContainerExecutionStatus mainExecute() {
+        final NativeNodeContainer nnc = (NativeNodeContainer)getNodeContainer();
+        final NodeModel model = nnc.getNodeModel();
+        if (model instanceof LoopStartNode || model instanceof LoopEndNode
+            || Node.containsInactiveObjects(getPortObjects())) {
+            // loops need the regular execution to maintain the loop context; inactive inputs only reach
+            // inactive branch consumers, which expect them in their execute method
+            return nnc.performExecuteNode(getPortObjects());
+        }
+        if (!m_isPassingRowsOn) {
+            return nnc.performExecuteNode(getPortObjects(),
+                (inData, exec) -> executeStreamed(nnc, model, inData, exec));
+        }
+        final NodeContainerExecutionStatus status =
+            nnc.performExecuteNode(getPortObjects(), (inData, exec) -> passRowsOn(nnc, model, inData, exec));
+        if (status.isSuccess() && m_isOutputPassedOn) {
+            nnc.setNodeMessage(NodeMessage.newWarning(
+                "Rows were streamed into the successor, the output table is not retained"));
+        }
+        return status;
+    }
+
+    /**
+     * Executes a node passing its rows on: the output is an empty table that's registered with the node and its input
+     * so that the successor can compute the rows itself, see {@link StreamingPipeline}.
+     */
+    private PortObject[] passRowsOn(final NativeNodeContainer nnc, final NodeModel model,
+        final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+        final PortObjectSpec[] outSpecs =
+            model.computeFinalOutputSpecs(model.createInitialStreamableOperatorInternals(), getSpecs(inObjects));
+        if (outSpecs == null || !(outSpecs[0] instanceof DataTableSpec)) {
+            // spec only known after execution, the successor needs it upfront
+            return executeStreamed(nnc, model, inObjects, exec);
+        }
+        final BufferedDataContainer container = exec.createDataContainer((DataTableSpec)outSpecs[0]);
+        container.close();
+        final BufferedDataTable placeholder = container.getTable();
+        StreamingPipeline.register(placeholder, new StreamingPipeline.StreamedSource(nnc, inObjects));
+        m_isOutputPassedOn = true;
+        return new PortObject[]{placeholder};
+    }
+
+    /**
+     * Computes the output of the node via its streamable operator(s), called by the framework in place of the node
+     * model's execute method.
+     */
+    private PortObject[] executeStreamed(final NativeNodeContainer nnc, final NodeModel model,
+        final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+        final PortObjectSpec[] inSpecs = getSpecs(inObjects);
+        final PortType[] inTypes = getInTypes(nnc, inObjects.length);
+        final InputPortRole[] inRoles = model.getInputPortRoles();
+        final OutputPortRole[] outRoles = model.getOutputPortRoles();
+        final boolean hasStreamedInput = Arrays.stream(inObjects).anyMatch(o -> StreamingPipeline.getSource(o) != null);
+        // rows streamed from predecessors can only be read once, by a single partition
+        final int partitionCount = hasStreamedInput ? 1 : determinePartitionCount(inRoles, inObjects);
+        final boolean isDistributed = partitionCount > 1;
+        LOGGER.debugWithFormat("Streaming execution of %s using %d partition(s)", nnc.getNameWithID(),
+            partitionCount);
+
+        StreamableOperatorInternals internals = model.createInitialStreamableOperatorInternals();
+        final MergeOperator mergeOperator = model.createMergeOperator();
+        while (model.iterate(internals)) {
+            if (hasStreamedInput) {
+                throw new IllegalStateException("Rows streamed from the predecessor can't be read repeatedly");
+            }
+            final StreamableOperatorInternals iterationInternals = internals;
+            final ExecutionContext[] iterationExecs = createPartitionContexts(exec, partitionCount, 0.0);
+            final StreamableOperatorInternals[] newInternals = runPartitions(partitionCount, partition -> {
+                final StreamableOperator op =
+                    model.createStreamableOperator(new PartitionInfo(partition, partitionCount), inSpecs);
+                if (mergeOperator != null) {
+                    op.loadInternals(copyInternalsIfDistributed(iterationInternals, isDistributed));
+                }
+                final PortInput[] inputs =
+                    createPortInputs(inRoles, inObjects, inTypes, partition, partitionCount, exec, null);
+                try {
+                    op.runIntermediate(inputs, iterationExecs[partition]);
+                } finally {
+                    closeRowInputs(inputs);
+                }
+                return mergeOperator != null ? op.saveInternals() : null;
+            });
+            if (mergeOperator != null) {
+                internals = mergeOperator.mergeIntermediate(newInternals);
+            }
+        }
+
+        final PortObjectSpec[] outSpecs = model.computeFinalOutputSpecs(internals, inSpecs);
+        final int outCount = outRoles.length;
+        // outputs[partition][port]; in distributed mode only the distributed ports are set
+        final PortOutput[][] outputs = new PortOutput[partitionCount][];
+        for (int p = 0; p < partitionCount; p++) {
+            outputs[p] = createPortOutputs(nnc.getNode(), outRoles, outSpecs, isDistributed, true, exec);
+        }
+        final StreamableOperatorInternals finalInternals = internals;
+        final ExecutionContext[] finalExecs = createPartitionContexts(exec, partitionCount, 1.0);
+        final List<Future<Void>> stages = new ArrayList<>();
+        final StreamableOperatorInternals[] partitionInternals;
+        try {
+            final PortInput[] streamedInputs = openStreamedInputs(inRoles, inObjects, stages, exec);
+            partitionInternals = runPartitions(partitionCount, partition -> {
+                final StreamableOperator op =
+                    model.createStreamableOperator(new PartitionInfo(partition, partitionCount), inSpecs);
+                if (mergeOperator != null) {
+                    op.loadInternals(copyInternalsIfDistributed(finalInternals, isDistributed));
+                }
+                final PortInput[] inputs =
+                    createPortInputs(inRoles, inObjects, inTypes, partition, partitionCount, exec, streamedInputs);
+                try {
+                    op.runFinal(inputs, outputs[partition], finalExecs[partition]);
+                } finally {
+                    closeRowInputs(inputs);
+                }
+                return mergeOperator != null ? op.saveInternals() : null;
+            });
+            awaitStages(stages);
+        } finally {
+            stages.forEach(f -> f.cancel(true));
+        }
+
+        final PortOutput[] finalOutputs;
+        if (mergeOperator != null) {
+            internals = mergeOperator.mergeFinal(partitionInternals);
+            finalOutputs = isDistributed
+                ? createPortOutputs(nnc.getNode(), outRoles, outSpecs, true, false, exec) : new PortOutput[outCount];
+            model.finishStreamableExecution(internals, exec, finalOutputs);
+        } else {
+            finalOutputs = new PortOutput[outCount];
+        }
+
+        final PortObject[] outObjects = new PortObject[outCount];
+        for (int i = 0; i < outCount; i++) {
+            if (finalOutputs[i] != null) {
+                outObjects[i] = getPortObject(finalOutputs[i], i);
+            } else if (isDistributed && outRoles[i].isDistributable()) {
+                outObjects[i] = concatenate(outputs, i, exec);
+            } else {
+                outObjects[i] = getPortObject(outputs[0][i], i);
+            }
+        }
+        return outObjects;
+    }
+
+    private static PortObjectSpec[] getSpecs(final PortObject[] inObjects) {
+        final PortObjectSpec[] inSpecs = new PortObjectSpec[inObjects.length];
+        for (int i = 0; i < inObjects.length; i++) {
+            inSpecs[i] = inObjects[i] == null ? null : inObjects[i].getSpec();
+        }
+        return inSpecs;
+    }
+
+    private static PortType[] getInTypes(final NativeNodeContainer nnc, final int count) {
+        final PortType[] inTypes = new PortType[count];
+        for (int i = 0; i < count; i++) {
+            inTypes[i] = nnc.getInPort(i + 1).getPortType();
+        }
+        return inTypes;
+    }
+
+    /**
+     * Opens the inputs whose rows are streamed from predecessors that passed them on. For each such input the operator
+     * of the predecessor is started in a separate stage (recursively for its own streamed inputs).
+     *
+     * @return the streamed inputs, <code>null</code> for all other ports
+     */
+    private PortInput[] openStreamedInputs(final InputPortRole[] inRoles, final PortObject[] inObjects,
+        final List<Future<Void>> stages, final ExecutionContext exec) throws Exception {
+        final PortInput[] streamed = new PortInput[inObjects.length];
+        for (int i = 0; i < inObjects.length; i++) {
+            final StreamingPipeline.StreamedSource source = StreamingPipeline.getSource(inObjects[i]);
+            if (source != null) {
+                if (!inRoles[i].isStreamable()) {
+                    throw new IllegalStateException("Rows streamed from the predecessor need to be read by a "
+                        + "streamable input, port " + (i + 1) + " is not streamable");
+                }
+                streamed[i] = openStreamedInput(source, ((BufferedDataTable)inObjects[i]).getDataTableSpec(),
+                    stages, exec);
+            }
+        }
+        return streamed;
+    }
+
+    /** Starts the operator of a node that passed its rows on, writing into a channel read by the returned input. */
+    private RowInput openStreamedInput(final StreamingPipeline.StreamedSource source, final DataTableSpec spec,
+        final List<Future<Void>> stages, final ExecutionContext exec) throws Exception {
+        final NativeNodeContainer nnc = source.getNode();
+        final NodeModel model = nnc.getNodeModel();
+        final PortObject[] inObjects = source.getInObjects();
+        final PortObjectSpec[] inSpecs = getSpecs(inObjects);
+        final InputPortRole[] inRoles = model.getInputPortRoles();
+        final PortInput[] streamedInputs = openStreamedInputs(inRoles, inObjects, stages, exec);
+        final PortInput[] inputs = createPortInputs(inRoles, inObjects, getInTypes(nnc, inObjects.length), 0, 1,
+            exec, streamedInputs);
+        final StreamingRowChannel channel = new StreamingRowChannel(spec, m_channelCapacity);
+        final ExecutionContext stageExec = exec.createSilentSubExecutionContext(0.0);
+        stages.add(startStage(nnc, () -> {
+            final RowOutput out = channel.getRowOutput();
+            NodeContext.pushContext(nnc);
+            try {
+                final StreamableOperator op = model.createStreamableOperator(new PartitionInfo(0, 1), inSpecs);
+                op.runFinal(inputs, new PortOutput[]{out}, stageExec);
+                out.close();
+            } catch (RowOutput.OutputClosedException e) {
+                // successor stopped reading - fine
+            } catch (Throwable t) { // NOSONAR - any failure is to be reported to the successor
+                channel.fail(t);
+                throw t;
+            } finally {
+                closeRowInputs(inputs);
+                NodeContext.removeLastContext();
+            }
+            return null;
+        }));
+        return channel.getRowInput();
+    }
+
+    /**
+     * Runs a stage in the pool if a thread is free, otherwise in a new thread. Stages are never queued: the threads of
+     * the pool may all wait for the rows of the stage.
+     */
+    private Future<Void> startStage(final NativeNodeContainer nnc, final Callable<Void> stage) {
+        final Future<Void> future = m_pool.trySubmit(stage);
+        if (future != null) {
+            return future;
+        }
+        final FutureTask<Void> task = new FutureTask<>(stage);
+        final Thread thread = new Thread(task, "KNIME-Streaming-" + nnc.getNameWithID());
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
+
+    /** Waits for the stages of the streamed inputs, rethrowing the first failure. */
+    private static void awaitStages(final List<Future<Void>> stages) throws Exception {
+        waitInvisible(() -> {
+            for (Future<Void> stage : stages) {
+                try {
+                    stage.get();
+                } catch (ExecutionException e) {
+                    throw unwrap(e);
+                }
+            }
+            return null;
+        });
+    }
+
+    /** The number of partitions, 1 unless there are distributable data inputs (then limited by the smallest table). */
+    private int determinePartitionCount(final InputPortRole[] inRoles, final PortObject[] inObjects) {
+        long minRows = Long.MAX_VALUE;
+        boolean isDistributable = false;
+        for (int i = 0; i < inRoles.length; i++) {
+            if (inRoles[i].isDistributable()) {
+                if (!inRoles[i].isStreamable() || !(inObjects[i] instanceof BufferedDataTable)) {
+                    // distributed non-streamable ports would require materialized chunks - not worth it
+                    return 1;
+                }
+                isDistributable = true;
+                minRows = Math.min(minRows, ((BufferedDataTable)inObjects[i]).size());
+            }
+        }
+        if (!isDistributable) {
+            return 1;
+        }
+        return (int)Math.max(1, Math.min(m_maxPartitionCount, minRows));
+    }
+
+    /** Sub contexts for each partition sharing the progress <code>maxProg</code> (or the context itself if only one
+     * partition is used and the full progress is available). */
+    private static ExecutionContext[] createPartitionContexts(final ExecutionContext exec, final int partitionCount,
+        final double maxProg) {
+        final ExecutionContext[] result = new ExecutionContext[partitionCount];
+        for (int p = 0; p < partitionCount; p++) {
+            if (partitionCount == 1 && maxProg == 1.0) {
+                result[p] = exec;
+            } else {
+                result[p] = exec.createSilentSubExecutionContext(maxProg / partitionCount);
+            }
+        }
+        return result;
+    }
+
+    /** Task run for a single partition, returns the operator internals (or null). */
+    @FunctionalInterface
+    private interface PartitionTask {
+        StreamableOperatorInternals run(int partition) throws Exception;
+    }
+
+    /** Runs the task for each partition on the pool, waiting 'invisibly' so that the job's thread is not counted. */
+    private StreamableOperatorInternals[] runPartitions(final int partitionCount, final PartitionTask task)
+        throws Exception {
+        final StreamableOperatorInternals[] result = new StreamableOperatorInternals[partitionCount];
+        if (partitionCount == 1) {
+            result[0] = task.run(0);
+            return result;
+        }
+        final List<Future<StreamableOperatorInternals>> futures = new ArrayList<>(partitionCount);
+        for (int p = 0; p < partitionCount; p++) {
+            final int partition = p;
+            futures.add(m_pool.enqueue(() -> task.run(partition)));
+        }
+        final Callable<Void> waitCallable = () -> {
+            for (int p = 0; p < partitionCount; p++) {
+                result[p] = futures.get(p).get();
+            }
+            return null;
+        };
+        try {
+            waitInvisible(waitCallable);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return result;
+    }
+
+    private static void waitInvisible(final Callable<Void> callable) throws Exception {
+        final ThreadPool currentPool = ThreadPool.currentPool();
+        if (currentPool != null) {
+            currentPool.runInvisible(callable);
+        } else {
+            callable.call();
+        }
+    }
+
+    private static Exception unwrap(final ExecutionException e) {
+        Throwable cause = e;
+        while (cause instanceof ExecutionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Exception) {
+            return (Exception)cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error)cause;
+        }
+        return e;
+    }
+
+    /**
+     * Creates the inputs for a partition. Distributed streamable ports get a contiguous row range of the input table,
+     * read by a separate task into a {@link StreamingRowChannel} if possible; non-distributed streamable ports see the
+     * full table; non-streamable ports get the port object itself (non-table objects are copied when run in several
+     * partitions). Ports with a streamed input (from {@link #openStreamedInputs(InputPortRole[], PortObject[], List,
+     * ExecutionContext)}, may be <code>null</code>) get that one.
+     */
+    private PortInput[] createPortInputs(final InputPortRole[] inRoles, final PortObject[] inObjects,
+        final PortType[] inTypes, final int partition, final int partitionCount, final ExecutionContext exec,
+        final PortInput[] streamedInputs) throws Exception {
+        final PortInput[] inputs = new PortInput[inRoles.length];
+        for (int i = 0; i < inRoles.length; i++) {
+            final PortObject inObject = inObjects[i];
+            if (streamedInputs != null && streamedInputs[i] != null) {
+                inputs[i] = streamedInputs[i];
+                continue;
+            }
+            if (inObject == null) {
+                // unconnected optional input
+                continue;
+            }
+            if (inRoles[i].isStreamable()) {
+                final BufferedDataTable table = (BufferedDataTable)inObject;
+                if (partitionCount > 1 && inRoles[i].isDistributable()) {
+                    final long size = table.size();
+                    final long from = size * partition / partitionCount;
+                    final long to = size * (partition + 1) / partitionCount;
+                    inputs[i] = openRangeInput(table, from, to);
+                } else {
+                    inputs[i] = new DataTableRowInput(table);
+                }
+            } else {
+                final boolean isData = BufferedDataTable.TYPE.equals(inTypes[i])
+                    || BufferedDataTable.TYPE_OPTIONAL.equals(inTypes[i]);
+                inputs[i] = new PortObjectInput(
+                    isData || partitionCount == 1 ? inObject : Node.copyPortObject(inObject, exec));
+            }
+        }
+        return inputs;
+    }
+
+    /** Closes all row inputs so that reader tasks terminate even if the operator failed or stopped early. */
+    private static void closeRowInputs(final PortInput[] inputs) {
+        for (PortInput input : inputs) {
+            if (input instanceof RowInput) {
+                ((RowInput)input).close();
+            }
+        }
+    }
+
+    /** Opens the input for rows [from, to) of the table, see {@link #openRowInput(DataTableSpec, Callable,
+     * ThreadPool, int)}. */
+    private RowInput openRangeInput(final BufferedDataTable table, final long from, final long to) throws Exception {
+        if (to <= from) {
+            final StreamingRowChannel channel = new StreamingRowChannel(table.getDataTableSpec(), 1);
+            channel.getRowOutput().close();
+            return channel.getRowInput();
+        }
+        return openRowInput(table.getDataTableSpec(),
+            () -> table.filter(TableFilter.filterRangeOfRows(from, to - 1)).iterator(), m_pool, m_channelCapacity);
+    }
+
+    /**
+     * Opens a row input over the rows of the given iterator. If the pool has a free thread the rows are read by a
+     * separate task into a {@link StreamingRowChannel} so that decoding overlaps with the operator's computation,
+     * otherwise they are read by the consuming (partition) thread itself. Readers are never queued: all threads of the
+     * pool may be taken by partitions waiting for their input, a queued reader would then never run.
+     *
+     * @param spec the spec of the rows
+     * @param iteratorFactory opens the iterator, called once
+     * @param pool the pool to run the reader in
+     * @param channelCapacity the capacity of the channel
+     * @return the input, to be closed by the caller
+     * @throws Exception if the iterator can't be opened by the calling thread
+     */
+    static RowInput openRowInput(final DataTableSpec spec, final Callable<CloseableRowIterator> iteratorFactory,
+        final ThreadPool pool, final int channelCapacity) throws Exception {
+        final StreamingRowChannel channel = new StreamingRowChannel(spec, channelCapacity);
+        final Future<Void> reader = pool.trySubmit(() -> {
+            final RowOutput out = channel.getRowOutput();
+            try (CloseableRowIterator it = iteratorFactory.call()) {
+                while (it.hasNext()) {
+                    out.push(it.next());
+                }
+                out.close();
+            } catch (RowOutput.OutputClosedException e) {
+                // consumer stopped reading - fine
+            } catch (Throwable t) { // NOSONAR - any failure is to be reported to the consumer
+                channel.fail(t);
+            }
+            return null;
+        });
+        if (reader != null) {
+            return channel.getRowInput();
+        }
+        return new IteratorRowInput(spec, iteratorFactory.call());
+    }
+
+    /**
+     * Creates the outputs for {@link StreamableOperator#runFinal(PortInput[], PortOutput[], ExecutionContext)}
+     * (<code>forRunFinal</code>) or {@link NodeModel#finishStreamableExecution(StreamableOperatorInternals,
+     * ExecutionContext, PortOutput[])}. When distributed only the distributed ports are set for the former and only
+     * the non-distributed ports for the latter; otherwise all ports are set for runFinal.
+     */
+    private static PortOutput[] createPortOutputs(final Node node, final OutputPortRole[] outRoles,
+        final PortObjectSpec[] outSpecs, final boolean isDistributed, final boolean forRunFinal,
+        final ExecutionContext exec) {
+        final PortOutput[] outputs = new PortOutput[outRoles.length];
+        for (int i = 0; i < outputs.length; i++) {
+            if (isDistributed && (outRoles[i].isDistributable() != forRunFinal)) {
+                continue;
+            }
+            final PortType type = node.getOutputType(i + 1);
+            if (BufferedDataTable.TYPE.equals(type) || BufferedDataTable.TYPE_OPTIONAL.equals(type)) {
+                final DataTableSpec spec = outSpecs == null ? null : (DataTableSpec)outSpecs[i];
+                outputs[i] = new TableRowOutput(spec, exec);
+            } else {
+                outputs[i] = new PortObjectOutput();
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * @param output the output of a port
+     * @param port the port index (excluding the flow variable port)
+     * @return the port object written to the output
+     * @throws IllegalStateException if the operator didn't set the output
+     */
+    private static PortObject getPortObject(final PortOutput output, final int port) {
+        PortObject result = null;
+        if (output instanceof TableRowOutput) {
+            result = ((TableRowOutput)output).getPortObject();
+        } else if (output instanceof PortObjectOutput) {
+            result = ((PortObjectOutput)output).getPortObject();
+        }
+        if (result == null) {
+            throw new IllegalStateException("No output set at port " + port + " by the streamable operator");
+        }
+        return result;
+    }
+
+    /** Concatenates the distributed outputs of a port in partition order. */
+    private static PortObject concatenate(final PortOutput[][] outputs, final int port, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        final List<BufferedDataTable> tables = new ArrayList<>(outputs.length);
+        for (PortOutput[] partitionOutputs : outputs) {
+            final PortObject o = getPortObject(partitionOutputs[port], port);
+            if (o instanceof InactiveBranchPortObject) {
+                return o;
+            }
+            tables.add((BufferedDataTable)o);
+        }
+        if (tables.size() == 1) {
+            return tables.get(0);
+        }
+        return exec.createConcatenateTable(exec.createSilentSubProgress(0.0), Optional.empty(), true,
+            tables.toArray(new BufferedDataTable[tables.size()]));
+    }
+
+    /** Creates a private copy of the internals (via save/load) so that partitions don't share mutable state. */
+    private static StreamableOperatorInternals copyInternalsIfDistributed(final StreamableOperatorInternals internals,
+        final boolean isDistributed) throws IOException, ReflectiveOperationException {
+        if (internals == null || !isDistributed) {
+            return internals;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            internals.save(out);
+        }
+        final StreamableOperatorInternals copy = internals.getClass().getDeclaredConstructor().newInstance();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy.load(in);
+        }
+        return copy;
+    }
+
+    /** Row input reading directly from an iterator, used if no reader thread is available. */
+    private static final class IteratorRowInput extends RowInput {
+
+        private final DataTableSpec m_spec;
+
+        private final CloseableRowIterator m_iterator;
+
+        IteratorRowInput(final DataTableSpec spec, final CloseableRowIterator iterator) {
+            m_spec = spec;
+            m_iterator = iterator;
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_spec;
+        }
+
+        @Override
+        public DataRow poll() throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return m_iterator.hasNext() ? m_iterator.next() : null;
+        }
+
+        @Override
+        public void close() {
+            m_iterator.close();
+        }
+    }
+
+    /**
+     * Row output writing into a {@link BufferedDataContainer}. If no spec is known upfront (configure returned null)
+     * the output can only be set via {@link #setFully(BufferedDataTable)}.
+     */
+    private static final class TableRowOutput extends RowOutput {
+
+        private final BufferedDataContainer m_container;
+
+        private PortObject m_result;
+
+        TableRowOutput(final DataTableSpec spec, final ExecutionContext exec) {
+            m_container = spec == null ? null : exec.createDataContainer(spec);
+        }
+
+        @Override
+        public void push(final DataRow row) throws InterruptedException {
+            if (m_container == null) {
+                throw new IllegalStateException("Output spec is unknown, output can only be set via 'setFully'");
+            }
+            m_container.addRowToTable(row);
+        }
+
+        @Override
+        public void setFully(final BufferedDataTable table) throws InterruptedException {
+            if (m_container != null) {
+                // empty table, kept as temporary table of the node and cleared on reset
+                m_container.close();
+            }
+            m_result = table;
+        }
+
+        @Override
+        public void setInactive() {
+            if (m_container != null) {
+                m_container.close();
+            }
+            m_result = InactiveBranchPortObject.INSTANCE;
+        }
+
+        @Override
+        public void close() {
+            if (m_result == null && m_container != null) {
+                m_container.close();
+                m_result = m_container.getTable();
+            }
+        }
+
+        /** @return the output, the table is closed if the operator didn't close the output */
+        PortObject getPortObject() {
+            close();
+            return m_result;
+        }
+    }
+
+}
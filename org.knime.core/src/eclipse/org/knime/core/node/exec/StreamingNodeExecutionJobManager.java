@@ -0,0 +1,189 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.AbstractNodeExecutionJobManager;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.SubNodeContainer;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Job manager that executes native nodes via their {@link org.knime.core.node.streamable.StreamableOperator}, running
+ * distributable nodes in several partitions concurrently. See {@link StreamingNodeExecutionJob} for details. If set on
+ * a component, consecutive streamable nodes inside the component are chained into one pipeline, see
+ * {@link StreamingPipeline}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class StreamingNodeExecutionJobManager extends AbstractNodeExecutionJobManager {
+
+    static final String CFG_MAX_PARTITION_COUNT = "max_partition_count";
+
+    static final String CFG_CHANNEL_CAPACITY = "channel_capacity";
+
+    /** Default number of partitions: number of available processors. */
+    static final int DEFAULT_MAX_PARTITION_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private final ThreadPool m_pool;
+
+    private int m_maxPartitionCount = DEFAULT_MAX_PARTITION_COUNT;
+
+    private int m_channelCapacity = StreamingRowChannel.DEFAULT_CAPACITY;
+
+    /** Nodes of the components currently executed that pass their rows on to their successor. */
+    private final Set<NodeID> m_passingNodes = ConcurrentHashMap.newKeySet();
+
+    /** Creates a new job manager using the {@link KNIMEConstants#GLOBAL_THREAD_POOL}. */
+    public StreamingNodeExecutionJobManager() {
+        this(KNIMEConstants.GLOBAL_THREAD_POOL);
+    }
+
+    /**
+     * Creates a new job manager that uses the given thread pool for the node jobs, the partitions and readers.
+     *
+     * @param pool a thread pool, must not be <code>null</code>
+     */
+    public StreamingNodeExecutionJobManager(final ThreadPool pool) {
+        if (pool == null) {
+            throw new NullPointerException("arg must not be null");
+        }
+        m_pool = pool;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] data) {
+        if (nc instanceof SubNodeContainer) {
+            StreamingComponentExecutionJob job = new StreamingComponentExecutionJob((SubNodeContainer)nc, data, this);
+            Future<?> future = m_pool.enqueue(job);
+            job.setFuture(future);
+            return job;
+        }
+        if (!(nc instanceof NativeNodeContainer)) {
+            throw new IllegalStateException(getClass().getSimpleName()
+                    + " is not able to execute a metanode: " + nc.getNameWithID());
+        }
+        StreamingNodeExecutionJob job = new StreamingNodeExecutionJob((NativeNodeContainer)nc, data, m_pool,
+            m_maxPartitionCount, m_channelCapacity, m_passingNodes.contains(nc.getID()));
+        Future<?> future = m_pool.enqueue(job);
+        job.setFuture(future);
+        return job;
+    }
+
+    /** @param ids nodes of a component about to be executed that pass their rows on to their successor */
+    void addPassingNodes(final Set<NodeID> ids) {
+        m_passingNodes.addAll(ids);
+    }
+
+    /** @param ids nodes of a component that has been executed */
+    void removePassingNodes(final Set<NodeID> ids) {
+        m_passingNodes.removeAll(ids);
+    }
+
+    /** @return the maximum number of partitions a distributable node is split into */
+    public int getMaxPartitionCount() {
+        return m_maxPartitionCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void load(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_maxPartitionCount = settings.getInt(CFG_MAX_PARTITION_COUNT, DEFAULT_MAX_PARTITION_COUNT);
+        if (m_maxPartitionCount < 1) {
+            throw new InvalidSettingsException("Invalid partition count: " + m_maxPartitionCount);
+        }
+        m_channelCapacity = settings.getInt(CFG_CHANNEL_CAPACITY, StreamingRowChannel.DEFAULT_CAPACITY);
+        if (m_channelCapacity < 1) {
+            throw new InvalidSettingsException("Invalid channel capacity: " + m_channelCapacity);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(final NodeSettingsWO settings) {
+        settings.addInt(CFG_MAX_PARTITION_COUNT, m_maxPartitionCount);
+        settings.addInt(CFG_CHANNEL_CAPACITY, m_channelCapacity);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getID() {
+        return StreamingNodeExecutionJobManagerFactory.INSTANCE.getID();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Streaming Job Manager";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public URL getIcon() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean canExecute(final NodeContainer nc) {
+        return nc instanceof NativeNodeContainer || nc instanceof SubNodeContainer;
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.workflow.ConnectionContainer;
+import org.knime.core.node.workflow.ConnectionContainer.ConnectionType;
+import org.knime.core.node.workflow.LoopEndNode;
+import org.knime.core.node.workflow.LoopStartNode;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeExecutionJobManager;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.WorkflowManager;
+
+/**
+ * Chains consecutive streamable nodes of a component into one pipeline, see
+ * {@link StreamingNodeExecutionJobManager}.
+ *
+ * <p>
+ * A node whose single table output is only read by one streamable successor <i>passes its rows on</i>: instead of
+ * computing its output it's executed immediately with an empty table of the output spec, which is registered here
+ * together with the node and its input (see {@link #register(BufferedDataTable, StreamedSource)}). When the
+ * successor is executed, it runs the operators of all passing nodes upstream of it concurrently, connected by
+ * {@link StreamingRowChannel}s, so only the last node of a chain materializes a table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StreamingPipeline {
+
+    /** Placeholder tables of nodes that passed their rows on, weak so that they vanish once the node is reset. */
+    private static final Map<BufferedDataTable, StreamedSource> SOURCES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private StreamingPipeline() {
+    }
+
+    /** A node that passed its rows on, together with the input it was executed with. */
+    static final class StreamedSource {
+
+        private final NativeNodeContainer m_node;
+
+        private final PortObject[] m_inObjects;
+
+        StreamedSource(final NativeNodeContainer node, final PortObject[] inObjects) {
+            m_node = node;
+            m_inObjects = inObjects.clone();
+        }
+
+        /** @return the node whose operator computes the rows */
+        NativeNodeContainer getNode() {
+            return m_node;
+        }
+
+        /** @return the input of the node (excluding the flow variable port), possibly containing placeholders */
+        PortObject[] getInObjects() {
+            return m_inObjects.clone();
+        }
+    }
+
+    /**
+     * Registers the (empty) output table of a node that passes its rows on.
+     *
+     * @param placeholder the output table of the node
+     * @param source the node and its input
+     */
+    static void register(final BufferedDataTable placeholder, final StreamedSource source) {
+        SOURCES.put(placeholder, source);
+    }
+
+    /**
+     * @param object a port object
+     * @return the node computing the rows of the object if it's the output of a node that passed its rows on,
+     *         otherwise <code>null</code>
+     */
+    static StreamedSource getSource(final PortObject object) {
+        return object instanceof BufferedDataTable ? SOURCES.get(object) : null;
+    }
+
+    /**
+     * Determines the nodes of the given (component) workflow that pass their rows on to their successor: pending
+     * (i.e. not yet executed) native nodes executed by the given job manager without loop or merge semantics that
+     * stream at least one input, whose only output is a table connected to exactly one such node that streams the
+     * respective input.
+     *
+     * @param wfm the workflow
+     * @param jobManager the job manager executing the nodes
+     * @return the IDs of the passing nodes
+     */
+    static Set<NodeID> findPassingNodes(final WorkflowManager wfm, final NodeExecutionJobManager jobManager) {
+        final Set<NodeID> result = new HashSet<>();
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            if (!isChainable(nc, jobManager) || nc.getNrOutPorts() != 2
+                || !BufferedDataTable.TYPE.equals(nc.getOutPort(1).getPortType())
+                || !hasStreamableInput(((NativeNodeContainer)nc).getNodeModel())) {
+                continue;
+            }
+            final Set<ConnectionContainer> out = wfm.getOutgoingConnectionsFor(nc.getID(), 1);
+            if (out.size() != 1) {
+                continue;
+            }
+            final ConnectionContainer cc = out.iterator().next();
+            if (cc.getType() != ConnectionType.STD) {
+                continue;
+            }
+            final NodeContainer successor = wfm.getNodeContainer(cc.getDest());
+            if (isChainable(successor, jobManager) && cc.getDestPort() > 0) {
+                final InputPortRole[] roles = ((NativeNodeContainer)successor).getNodeModel().getInputPortRoles();
+                if (roles[cc.getDestPort() - 1].isStreamable()) {
+                    result.add(nc.getID());
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Nodes without streamed input would run their (wrapped) execute method outside of their execution. */
+    private static boolean hasStreamableInput(final NodeModel model) {
+        return Arrays.stream(model.getInputPortRoles()).anyMatch(InputPortRole::isStreamable);
+    }
+
+    private static boolean isChainable(final NodeContainer nc, final NodeExecutionJobManager jobManager) {
+        if (!(nc instanceof NativeNodeContainer) || nc.findJobManager() != jobManager
+            || !nc.getNodeContainerState().isConfigured()) {
+            return false;
+        }
+        final NodeModel model = ((NativeNodeContainer)nc).getNodeModel();
+        return !(model instanceof LoopStartNode) && !(model instanceof LoopEndNode)
+            && model.createMergeOperator() == null
+            && !model.iterate(model.createInitialStreamableOperatorInternals());
+    }
+}
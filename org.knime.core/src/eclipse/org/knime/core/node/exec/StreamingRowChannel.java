@@ -0,0 +1,271 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * A bounded single-producer/single-consumer channel of {@link DataRow DataRows} connecting a {@link RowOutput} (the
+ * upstream side, e.g. a table reader or an operator's output) with a {@link RowInput} (the downstream side, e.g. the
+ * input of a {@link org.knime.core.node.streamable.StreamableOperator}).
+ *
+ * <p>
+ * The channel is a lock-free ring buffer; the producer and consumer only synchronize via two monotonically increasing
+ * counters. If the buffer is full (or empty) the respective thread spins briefly and then parks until the other side
+ * signals progress, so that neither side burns CPU while waiting on a slow peer.
+ *
+ * <p>
+ * Each side must be used by a single thread only. The consumer may {@linkplain RowInput#close() close} the input
+ * early; the producer will then receive a {@link RowOutput.OutputClosedException} on the next push.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class StreamingRowChannel {
+
+    /** Default capacity of a channel, see {@link #StreamingRowChannel(DataTableSpec)}. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** Number of busy spins before a waiting thread parks itself. */
+    private static final int SPIN_COUNT = 64;
+
+    /** Max park time - parks are woken up by the peer, the timeout only guards against missed signals. */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final DataTableSpec m_spec;
+
+    private final AtomicReferenceArray<DataRow> m_buffer;
+
+    private final int m_mask;
+
+    /** Index of the next slot to be written, only modified by the producer. */
+    private final AtomicLong m_writeIndex = new AtomicLong();
+
+    /** Index of the next slot to be read, only modified by the consumer. */
+    private final AtomicLong m_readIndex = new AtomicLong();
+
+    private volatile boolean m_isProducerDone;
+
+    private volatile boolean m_isConsumerDone;
+
+    private volatile Throwable m_producerFailure;
+
+    private volatile Thread m_parkedProducer;
+
+    private volatile Thread m_parkedConsumer;
+
+    private final Output m_output = new Output();
+
+    private final Input m_input = new Input();
+
+    /**
+     * Creates a channel with {@link #DEFAULT_CAPACITY}.
+     *
+     * @param spec the spec of the rows passed through this channel, not null
+     */
+    public StreamingRowChannel(final DataTableSpec spec) {
+        this(spec, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a channel with a given capacity (rounded up to the next power of two).
+     *
+     * @param spec the spec of the rows passed through this channel, not null
+     * @param capacity the max number of rows buffered in this channel, &gt; 0
+     */
+    public StreamingRowChannel(final DataTableSpec spec, final int capacity) {
+        m_spec = CheckUtils.checkArgumentNotNull(spec, "Spec must not be null");
+        CheckUtils.checkArgument(capacity > 0 && capacity <= (1 << 30), "Invalid capacity: %d", capacity);
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        m_buffer = new AtomicReferenceArray<>(size);
+        m_mask = size - 1;
+    }
+
+    /** @return the (producer) output side of this channel. */
+    public RowOutput getRowOutput() {
+        return m_output;
+    }
+
+    /** @return the (consumer) input side of this channel. */
+    public RowInput getRowInput() {
+        return m_input;
+    }
+
+    /**
+     * Closes the producer side due to a failure. The consumer will receive an {@link IllegalStateException} wrapping
+     * the argument on its next poll (rows that were pushed before the failure are not returned anymore).
+     *
+     * @param failure the reason, not null
+     */
+    public void fail(final Throwable failure) {
+        m_producerFailure = CheckUtils.checkArgumentNotNull(failure);
+        m_isProducerDone = true;
+        LockSupport.unpark(m_parkedConsumer);
+    }
+
+    /** @return number of rows currently buffered (a snapshot). */
+    public int size() {
+        return (int)(m_writeIndex.get() - m_readIndex.get());
+    }
+
+    private void park(final int spins, final boolean isProducer) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (spins < SPIN_COUNT) {
+            return;
+        }
+        final Thread current = Thread.currentThread();
+        if (isProducer) {
+            m_parkedProducer = current;
+        } else {
+            m_parkedConsumer = current;
+        }
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        if (isProducer) {
+            m_parkedProducer = null;
+        } else {
+            m_parkedConsumer = null;
+        }
+    }
+
+    private final class Output extends RowOutput {
+
+        /** {@inheritDoc} */
+        @Override
+        public void push(final DataRow row) throws InterruptedException {
+            CheckUtils.checkState(!m_isProducerDone, "Channel output was already closed");
+            final long writeIndex = m_writeIndex.get();
+            int spins = 0;
+            while (writeIndex - m_readIndex.get() > m_mask) {
+                if (m_isConsumerDone) {
+                    throw new OutputClosedException();
+                }
+                park(spins++, true);
+            }
+            if (m_isConsumerDone) {
+                throw new OutputClosedException();
+            }
+            m_buffer.lazySet((int)writeIndex & m_mask, row);
+            m_writeIndex.lazySet(writeIndex + 1);
+            final Thread consumer = m_parkedConsumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            m_isProducerDone = true;
+            LockSupport.unpark(m_parkedConsumer);
+        }
+    }
+
+    private final class Input extends RowInput {
+
+        /** {@inheritDoc} */
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_spec;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataRow poll() throws InterruptedException {
+            final long readIndex = m_readIndex.get();
+            int spins = 0;
+            while (readIndex == m_writeIndex.get()) {
+                if (m_isProducerDone) {
+                    // re-check as rows may have been added between the two reads
+                    if (readIndex == m_writeIndex.get()) {
+                        checkProducerFailure();
+                        return null;
+                    }
+                    break;
+                }
+                park(spins++, false);
+            }
+            checkProducerFailure();
+            final int slot = (int)readIndex & m_mask;
+            final DataRow row = m_buffer.get(slot);
+            m_buffer.lazySet(slot, null);
+            m_readIndex.lazySet(readIndex + 1);
+            final Thread producer = m_parkedProducer;
+            if (producer != null) {
+                LockSupport.unpark(producer);
+            }
+            return row;
+        }
+
+        private void checkProducerFailure() {
+            final Throwable failure = m_producerFailure;
+            if (failure != null) {
+                throw new IllegalStateException("Upstream failed: " + failure.getMessage(), failure);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            m_isConsumerDone = true;
+            LockSupport.unpark(m_parkedProducer);
+        }
+    }
+
+}
@@ -49,6 +49,7 @@
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 import java.util.Collections;
 import java.util.HashSet;
@@ -68,6 +69,7 @@
 import org.knime.core.node.config.ConfigWO;
 import org.knime.core.node.port.database.connection.CachedConnectionFactory;
 import org.knime.core.node.port.database.connection.CachedConnectionFactory.ConnectionKey;
+import org.knime.core.node.port.database.connection.DBConnectionPool;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.util.StringHistory;
 import org.knime.core.node.workflow.CredentialsProvider;
@@ -257,6 +259,74 @@ private static int initBatchWriteSize() {
         return 1;
     }
 
+    /** Whether rows are read from the database result set in a background thread while the consumer processes the
+     * rows read so far, see {@link KNIMEConstants#PROPERTY_DATABASE_PREFETCH}.
+     * @since 4.4 */
+    public static final boolean PREFETCH = initPrefetch();
+    private static boolean initPrefetch() {
+        final boolean prefetch = Boolean.getBoolean(KNIMEConstants.PROPERTY_DATABASE_PREFETCH);
+        if (prefetch) {
+            LOGGER.debug("Database rows are prefetched in a background thread.");
+        }
+        return prefetch;
+    }
+
+    /** Number of connections used to write the batches of a table in parallel, see
+     * {@link KNIMEConstants#PROPERTY_DATABASE_PARALLEL_WRITE_CONNECTIONS}.
+     * @since 4.4 */
+    public static final int PARALLEL_WRITE_CONNECTIONS = initParallelWriteConnections();
+    private static int initParallelWriteConnections() {
+        String connections = System.getProperty(KNIMEConstants.PROPERTY_DATABASE_PARALLEL_WRITE_CONNECTIONS);
+        if (connections != null) {
+            try {
+                final int count = Integer.parseInt(connections);
+                if (count > 0) {
+                    LOGGER.debug("Database parallel write connections: " + count + ".");
+                    return count;
+                } else {
+                    LOGGER.warn("Database property " + KNIMEConstants.PROPERTY_DATABASE_PARALLEL_WRITE_CONNECTIONS
+                        + "=" + count + " can't be smaller than 1, using 1 as default.");
+                }
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Database parallel write connections not valid '" + connections
+                        + "', using 1 as default.");
+            }
+        }
+        return 1;
+    }
+
+    /** Maximum number of pooled connections per database, 0 if connections aren't pooled, see
+     * {@link KNIMEConstants#PROPERTY_DATABASE_CONNECTION_POOL_SIZE}.
+     * @since 4.4 */
+    public static final int CONNECTION_POOL_SIZE =
+        initNonNegativeInt(KNIMEConstants.PROPERTY_DATABASE_CONNECTION_POOL_SIZE, 0);
+
+    /** Seconds after which an idle pooled connection is closed, see
+     * {@link KNIMEConstants#PROPERTY_DATABASE_CONNECTION_POOL_IDLE_TIMEOUT}.
+     * @since 4.4 */
+    public static final int CONNECTION_POOL_IDLE_TIMEOUT =
+        initNonNegativeInt(KNIMEConstants.PROPERTY_DATABASE_CONNECTION_POOL_IDLE_TIMEOUT, 300);
+
+    private static int initNonNegativeInt(final String property, final int defaultValue) {
+        String value = System.getProperty(property);
+        if (value != null) {
+            try {
+                final int result = Integer.parseInt(value);
+                if (result >= 0) {
+                    LOGGER.debug("Database property " + property + "=" + result + ".");
+                    return result;
+                } else {
+                    LOGGER.warn("Database property " + property + "=" + result + " can't be negative, using "
+                        + defaultValue + " as default.");
+                }
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Database property " + property + " not valid '" + value + "', using " + defaultValue
+                    + " as default.");
+            }
+        }
+        return defaultValue;
+    }
+
     private String m_driver;
     private String m_credName = null;
 
@@ -653,6 +723,8 @@ private boolean loadConnection(final ConfigRO settings,
     /**
      * Executes a block of SQL commands using a valid connection. The method makes sure that the connection
      * passed into the {@link ExecuteStatement} is valid and synchronized if required.
+     * If {@link #CONNECTION_POOL_SIZE} is positive, the connection is taken from the {@link DBConnectionPool} of the
+     * database instead and used exclusively during the call.
      *
      * @param cp {@link CredentialsProvider} to use
      * @param stmt the {@link ExecuteStatement} implementation that can use the {@link Connection}
@@ -662,6 +734,22 @@ private boolean loadConnection(final ConfigRO settings,
      */
     @SuppressWarnings("resource")
     public <T> T execute(final CredentialsProvider cp, final ExecuteStatement<T> stmt) throws SQLException {
+        if (CONNECTION_POOL_SIZE > 0) {
+            final Connection conn = getPooledConnection(cp);
+            if (conn != null) {
+                try {
+                    return stmt.apply(conn);
+                } catch (Exception ex) {
+                    if (ex instanceof SQLException) {
+                        throw (SQLException)ex;
+                    }
+                    throw new SQLException(ex);
+                } finally {
+                    // returns the connection to the pool
+                    conn.close();
+                }
+            }
+        }
         try {
             for (int i = 1; i <= MAX_CONNECTION_TRIES; i++) {
                 final Connection conn = createConnection(cp);
@@ -693,6 +781,73 @@ public <T> T execute(final CredentialsProvider cp, final ExecuteStatement<T> stm
         throw new SQLException("Maximum number of retries to get a valid connection reached. JDBC URL: " + getJDBCUrl());
     }
 
+    /**
+     * A block of database commands whose result keeps using the connection after the call, e.g. an open result set.
+     * See {@link DatabaseConnectionSettings#executeLeased(CredentialsProvider, LeasedStatement)}.
+     */
+    @FunctionalInterface
+    interface LeasedStatement<T> {
+        /**
+         * @param conn the connection to use
+         * @param isLeased <code>true</code> if the connection is taken from the pool and needs to be closed by the
+         *            caller once the result isn't used anymore, <code>false</code> if it's a shared connection that
+         *            must not be closed
+         * @return the result of this method
+         * @throws Exception if an {@link Exception} occurred during runtime
+         */
+        T apply(Connection conn, boolean isLeased) throws Exception;
+    }
+
+    /**
+     * Same as {@link #execute(CredentialsProvider, ExecuteStatement)}, but a connection taken from the pool is not
+     * returned to the pool when the statement succeeds, so that its result can keep using the connection. The result
+     * has to close the connection if it is leased. If the statement fails, the connection is returned immediately.
+     *
+     * @param cp {@link CredentialsProvider} to use
+     * @param stmt the statement, whose result may keep using the connection
+     * @return the return value of the statement
+     * @throws SQLException if an exception during execution occurs
+     */
+    @SuppressWarnings("resource")
+    <T> T executeLeased(final CredentialsProvider cp, final LeasedStatement<T> stmt) throws SQLException {
+        if (CONNECTION_POOL_SIZE > 0) {
+            final Connection conn = getPooledConnection(cp);
+            if (conn != null) {
+                try {
+                    return stmt.apply(conn, true);
+                } catch (Exception ex) {
+                    // returns the connection to the pool
+                    conn.close();
+                    if (ex instanceof SQLException) {
+                        throw (SQLException)ex;
+                    }
+                    throw new SQLException(ex);
+                }
+            }
+        }
+        return execute(cp, conn -> stmt.apply(conn, false));
+    }
+
+    /**
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @return a valid connection of the pool for this database which needs to be closed to return it to the pool, or
+     *         <code>null</code> if the connection factory doesn't support pooled connections
+     * @throws SQLException if no connection could be obtained
+     */
+    private Connection getPooledConnection(final CredentialsProvider cp) throws SQLException {
+        try {
+            CheckUtils.checkSettingNotNull(m_driver, "No settings available to create database connection.");
+            CheckUtils.checkSettingNotNull(m_jdbcUrl, "No JDBC URL set.");
+            return DBConnectionPool.getPool(cp, this).getConnection();
+        } catch (SQLFeatureNotSupportedException ex) {
+            LOGGER.debug("Connection factory doesn't support pooled connections, using cached connection: "
+                + ex.getMessage());
+            return null;
+        } catch (InvalidSettingsException ex) {
+            throw new SQLException(ex);
+        }
+    }
+
     /**
      * Execute statement on current database connection.
      * @param statement to be executed
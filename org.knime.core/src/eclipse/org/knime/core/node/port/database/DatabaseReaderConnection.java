@@ -95,6 +95,7 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.reader.AdaptiveFetchSize;
 import org.knime.core.node.port.database.reader.DBReader;
 import org.knime.core.node.workflow.CredentialsProvider;
 import org.knime.core.util.FileUtil;
@@ -304,7 +305,8 @@ public RowIteratorConnection createRowIteratorConnection(final ExecutionContext
 //        final Connection conn = initConnection(cp);
 //        exec.setMessage("Waiting for free database connection...");
 //        synchronized (m_conn.syncConnection(conn)) {
-        return m_conn.execute(cp, conn -> {
+        // the result set is read after the call, hence a pooled connection is kept until the iterator is closed
+        return m_conn.executeLeased(cp, (conn, isLeased) -> {
             exec.setMessage("Start reading rows from database...");
             // remember auto-commit flag
             final boolean autoCommit = conn.getAutoCommit();
@@ -324,7 +326,7 @@ public RowIteratorConnection createRowIteratorConnection(final ExecutionContext
             LOGGER.debug("Reading meta data from database ResultSet...");
             m_spec = createTableSpec(result.getMetaData());
             LOGGER.debug("Parsing database ResultSet...");
-            return new RowIteratorConnection(conn, stmt, result, m_spec, autoCommit, useDbRowId);
+            return new RowIteratorConnection(conn, stmt, result, m_spec, autoCommit, useDbRowId, isLeased);
         });
     }
 
@@ -488,6 +490,9 @@ private class DBRowIterator extends RowIterator {
         // fix for bug #5991
         private final boolean m_useDbRowId;
 
+        /** Grows the fetch size while reading, null if the fetch size is not changed. */
+        private final AdaptiveFetchSize m_adaptiveFetchSize;
+
         /**
          * Creates new iterator.
          * @param result result set to iterate
@@ -498,6 +503,7 @@ private class DBRowIterator extends RowIterator {
             m_streamException = new boolean[m_spec.getNumColumns()];
             m_rowIdsStartWithZero = m_conn.getRowIdsStartWithZero();
             m_useDbRowId = useDbRowId;
+            m_adaptiveFetchSize = AdaptiveFetchSize.create(result, m_spec.getNumColumns());
         }
 
         /**
@@ -508,6 +514,9 @@ public boolean hasNext() {
             boolean ret = false;
             try {
                 ret = m_result.next();
+                if (ret && m_adaptiveFetchSize != null) {
+                    m_adaptiveFetchSize.rowRead();
+                }
             } catch (SQLException sql) {
                 ret = false;
             }
@@ -983,17 +992,27 @@ public class RowIteratorConnection {
 
         private DataTableSpec m_spec2;
 
+        /** Whether the connection is taken from the pool and is returned to it on close. */
+        private final boolean m_closeConnection;
+
         /**
         *
         */
         public RowIteratorConnection(final Connection conn, final Statement stmt, final ResultSet result,
             final DataTableSpec spec, final boolean autoCommit, final boolean useDbRowId) {
+            this(conn, stmt, result, spec, autoCommit, useDbRowId, false);
+        }
+
+        RowIteratorConnection(final Connection conn, final Statement stmt, final ResultSet result,
+            final DataTableSpec spec, final boolean autoCommit, final boolean useDbRowId,
+            final boolean closeConnection) {
             m_conn2 = conn;
             m_stmt = stmt;
             m_result = result;
             m_spec2 = spec;
             m_autoCommit = autoCommit;
             m_useDbRowId = useDbRowId;
+            m_closeConnection = closeConnection;
         }
 
         /**
@@ -1016,12 +1035,19 @@ public DataTableSpec getDataTableSpec() {
          * @throws SQLException
          */
         public void close() throws SQLException {
-            if (m_stmt != null) {
-                if (!m_conn2.getAutoCommit()) {
-                    m_conn2.commit();
+            try {
+                if (m_stmt != null) {
+                    if (!m_conn2.getAutoCommit()) {
+                        m_conn2.commit();
+                    }
+                    DatabaseConnectionSettings.setAutoCommit(m_conn2, m_autoCommit);
+                    m_stmt.close();
+                }
+            } finally {
+                if (m_closeConnection && !m_conn2.isClosed()) {
+                    // returns the connection to the pool
+                    m_conn2.close();
                 }
-                DatabaseConnectionSettings.setAutoCommit(m_conn2, m_autoCommit);
-                m_stmt.close();
             }
         }
 
@@ -391,13 +391,24 @@ public static final String writeData(final DatabaseConnectionSettings dbConn, fi
 
         // create table meta data with empty column information
         final String query = "INSERT INTO " + table + " " + columnNamesForInsertStatement + " VALUES " + wildcard;
+        final TimeZone timezone = dbConn.getTimeZone();
+        final Map<Integer, Integer> sqlColumnTypes = columnTypes;
+        final ParallelBatchWriter.RowFiller filler = (st, r) -> fillRow(st, r, spec, mapping, timezone,
+            sqlColumnTypes, insertNullForMissingCols);
+        if (DatabaseConnectionSettings.PARALLEL_WRITE_CONNECTIONS > 1 && batchSize > 1) {
+            LOGGER.debug("Executing SQL statement as prepareStatement on parallel connections: " + query);
+            final ParallelBatchWriter writer =
+                ParallelBatchWriter.create(dbConn, cp, conn, query, batchSize, filler);
+            if (writer != null) {
+                return writer.write(input, rowCount, exec);
+            }
+        }
         LOGGER.debug("Executing SQL statement as prepareStatement: " + query);
         final PreparedStatement stmt = conn.prepareStatement(query);
         // remember auto-commit flag
         final boolean autoCommit = conn.getAutoCommit();
         DatabaseConnectionSettings.setAutoCommit(conn, false);
         try {
-            final TimeZone timezone = dbConn.getTimeZone();
             DataRow row; //get the first row
             DataRow nextRow = input.poll();
             //iterate over all incoming data rows
@@ -411,19 +422,7 @@ public static final String writeData(final DatabaseConnectionSettings dbConn, fi
                         exec.setProgress("Writing Row#" + cnt);
                     }
 
-                int dbIdx = 1;
-                for (int i = 0; i < mapping.length; i++) {
-                    if (mapping[i] < 0) {
-                        if (insertNullForMissingCols) {
-                            //insert only null if the insert null for missing col option is enabled
-                            stmt.setNull(dbIdx++, Types.NULL);
-                        }
-                    } else {
-                        final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
-                        final DataCell cell = row.getCell(mapping[i]);
-                        fillStatement(stmt, dbIdx++, cspec, cell, timezone, columnTypes);
-                    }
-                }
+                filler.fill(stmt, row);
                 // if batch mode
                 if (batchSize > 1) {
                     // a new row will be added
@@ -493,6 +492,24 @@ public static final String writeData(final DatabaseConnectionSettings dbConn, fi
     });
     }
 
+    private static void fillRow(final PreparedStatement stmt, final DataRow row, final DataTableSpec spec,
+        final int[] mapping, final TimeZone timezone, final Map<Integer, Integer> columnTypes,
+        final boolean insertNullForMissingCols) throws SQLException {
+        int dbIdx = 1;
+        for (int i = 0; i < mapping.length; i++) {
+            if (mapping[i] < 0) {
+                if (insertNullForMissingCols) {
+                    //insert only null if the insert null for missing col option is enabled
+                    stmt.setNull(dbIdx++, Types.NULL);
+                }
+            } else {
+                final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
+                final DataCell cell = row.getCell(mapping[i]);
+                fillStatement(stmt, dbIdx++, cspec, cell, timezone, columnTypes);
+            }
+        }
+    }
+
     private static Map<Integer, Integer> getColumnTypes(final Connection conn, final String table) throws SQLException {
         // TODO move this block to DatabaseUtility
         Map<Integer, Integer> columnTypes = new HashMap<>();
@@ -0,0 +1,366 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Writes the rows of a table in batches on several database connections in parallel, used by
+ * {@link DatabaseWriterConnection} if {@link DatabaseConnectionSettings#PARALLEL_WRITE_CONNECTIONS} is larger than
+ * one.
+ *
+ * <p>The input is partitioned into consecutive row ranges of the batch size. The calling thread reads the rows and
+ * hands the ranges to a sub pool of the global thread pool, where they are converted into statement parameters and
+ * executed as batch, each on one of the connections. Hence the conversion of the next ranges overlaps with the
+ * execution of the previous ones and the round trips to the database run concurrently.
+ *
+ * <p>Each range is committed on its own once its batch has been executed. A range whose batch fails is rolled back
+ * and reported as error, so the table contains the rows of all ranges that succeeded and none of the failed ones. If
+ * writing is canceled or aborted the ranges committed so far remain in the table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelBatchWriter {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ParallelBatchWriter.class);
+
+    /** Fills the parameters of the insert statement with the values of a row. */
+    @FunctionalInterface
+    interface RowFiller {
+        void fill(PreparedStatement stmt, DataRow row) throws SQLException;
+    }
+
+    private final Connection m_connection;
+
+    private final boolean m_autoCommit;
+
+    private final List<Connection> m_unsharedConnections;
+
+    /** One statement per connection, a statement is taken while its range is written. */
+    private final BlockingQueue<PreparedStatement> m_statements;
+
+    private final List<PreparedStatement> m_allStatements;
+
+    private final RowFiller m_filler;
+
+    private final int m_batchSize;
+
+    private final ThreadPool m_pool;
+
+    private final int m_maxPendingRanges;
+
+    private final Deque<Range> m_pendingRanges = new ArrayDeque<>();
+
+    private volatile boolean m_isAborted;
+
+    private long m_errorCnt;
+
+    private long m_allErrors;
+
+    private ParallelBatchWriter(final Connection conn, final List<Connection> unsharedConnections,
+        final String insertStatement, final int batchSize, final RowFiller filler) throws SQLException {
+        m_connection = conn;
+        m_autoCommit = conn.getAutoCommit();
+        m_unsharedConnections = unsharedConnections;
+        m_filler = filler;
+        m_batchSize = batchSize;
+        final int connections = unsharedConnections.size() + 1;
+        m_statements = new ArrayBlockingQueue<>(connections);
+        m_allStatements = new ArrayList<>(connections);
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(connections);
+        m_maxPendingRanges = 2 * connections;
+        // set the fields first so that close() can clean up if preparing a statement fails
+        try {
+            final List<Connection> all = new ArrayList<>(unsharedConnections);
+            all.add(0, conn);
+            for (Connection c : all) {
+                DatabaseConnectionSettings.setAutoCommit(c, false);
+                final PreparedStatement stmt = c.prepareStatement(insertStatement);
+                m_allStatements.add(stmt);
+                m_statements.add(stmt);
+            }
+        } catch (SQLException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the additional connections and prepares the insert statement on each of them. Pending changes on the
+     * given connection are committed before, so that the other connections see e.g. the newly created table.
+     *
+     * @param settings the settings to open the additional connections with
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param conn the connection the table was prepared on, it's used as one of the connections
+     * @param insertStatement the insert statement with a parameter per column
+     * @param batchSize number of rows in a range
+     * @param filler fills the parameters of the insert statement with a row
+     * @return the writer or <code>null</code> if no additional connection could be opened
+     * @throws SQLException if committing or preparing the statements fails
+     */
+    static ParallelBatchWriter create(final DatabaseConnectionSettings settings, final CredentialsProvider cp,
+        final Connection conn, final String insertStatement, final int batchSize, final RowFiller filler)
+        throws SQLException {
+        return create(settings, cp, conn, insertStatement, batchSize, filler,
+            DatabaseConnectionSettings.PARALLEL_WRITE_CONNECTIONS);
+    }
+
+    /** See {@link #create(DatabaseConnectionSettings, CredentialsProvider, Connection, String, int, RowFiller)},
+     * with the number of connections to use (including the given one). Package-private for tests. */
+    static ParallelBatchWriter create(final DatabaseConnectionSettings settings, final CredentialsProvider cp,
+        final Connection conn, final String insertStatement, final int batchSize, final RowFiller filler,
+        final int connections) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+        final List<Connection> unsharedConnections = new ArrayList<>();
+        for (int i = 1; i < connections; i++) {
+            try {
+                unsharedConnections.add(settings.getUtility().getConnectionFactory().createUnsharedConnection(cp,
+                    settings));
+            } catch (Exception e) {
+                LOGGER.info("Could not open additional database connection for parallel writing, using "
+                    + (unsharedConnections.size() + 1) + " connection(s): " + e.getMessage(), e);
+                break;
+            }
+        }
+        if (unsharedConnections.isEmpty()) {
+            return null;
+        }
+        LOGGER.debug("Writing rows in parallel on " + (unsharedConnections.size() + 1) + " connections.");
+        return new ParallelBatchWriter(conn, unsharedConnections, insertStatement, batchSize, filler);
+    }
+
+    /**
+     * Writes all rows of the input and closes the additional connections afterwards.
+     *
+     * @param input the rows to write
+     * @param rowCount number of rows of the input, -1 if unknown
+     * @param exec to report progress and check for cancelation
+     * @return error string or null, if none
+     * @throws Exception if writing is canceled or a row can't be converted
+     */
+    String write(final RowInput input, final long rowCount, final ExecutionMonitor exec) throws Exception {
+        try {
+            long cnt = 0;
+            List<DataRow> rows = new ArrayList<>(m_batchSize);
+            DataRow row;
+            while ((row = input.poll()) != null) {
+                cnt++;
+                exec.checkCanceled();
+                if (rowCount > 0) {
+                    exec.setProgress(1.0 * cnt / rowCount, "Row " + "#" + cnt);
+                } else {
+                    exec.setProgress("Writing Row#" + cnt);
+                }
+                rows.add(row);
+                if (rows.size() == m_batchSize) {
+                    submit(rows, cnt - m_batchSize + 1, exec);
+                    rows = new ArrayList<>(m_batchSize);
+                }
+            }
+            if (!rows.isEmpty()) {
+                submit(rows, cnt - rows.size() + 1, exec);
+            }
+            while (!m_pendingRanges.isEmpty()) {
+                complete(m_pendingRanges.poll(), exec);
+            }
+            if (m_allErrors == 0) {
+                return null;
+            } else {
+                return "Errors \"" + m_allErrors + "\" writing " + cnt + " rows.";
+            }
+        } finally {
+            m_isAborted = true;
+            // wait for the ranges in progress before closing their connections
+            for (Range range : m_pendingRanges) {
+                try {
+                    waitFor(range.m_future);
+                } catch (Exception e) {
+                    LOGGER.debug("Writing rows #" + range.m_first + " - #" + range.m_last + " failed after abort: "
+                        + e.getMessage(), e);
+                }
+            }
+            m_pendingRanges.clear();
+            close();
+        }
+    }
+
+    private void submit(final List<DataRow> rows, final long first, final ExecutionMonitor exec) throws Exception {
+        if (m_pendingRanges.size() >= m_maxPendingRanges) {
+            complete(m_pendingRanges.poll(), exec);
+        }
+        m_pendingRanges.add(new Range(first, first + rows.size() - 1, m_pool.enqueue(() -> writeRange(rows))));
+    }
+
+    /** Waits for the range to be written and reports its error, if any, in the order of the input. */
+    private void complete(final Range range, final ExecutionMonitor exec) throws Exception {
+        final Throwable t = waitFor(range.m_future);
+        if (t == null) {
+            return;
+        }
+        m_allErrors++;
+        if (m_errorCnt > -1) {
+            final String errorMsg =
+                "Error while adding rows #" + range.m_first + " - #" + range.m_last + ", reason: " + t.getMessage();
+            exec.setMessage(errorMsg);
+            if (m_errorCnt++ < 10) {
+                LOGGER.warn(errorMsg);
+            } else {
+                m_errorCnt = -1;
+                LOGGER.warn(errorMsg + " - more errors...", t);
+            }
+        }
+    }
+
+    /** Executes the rows as one batch on a free connection, returns the error of the batch if it fails. */
+    private Throwable writeRange(final List<DataRow> rows) throws SQLException, InterruptedException {
+        if (m_isAborted) {
+            return null;
+        }
+        final PreparedStatement stmt = m_statements.take();
+        try {
+            for (DataRow row : rows) {
+                m_filler.fill(stmt, row);
+                stmt.addBatch();
+            }
+            final Connection conn = stmt.getConnection();
+            try {
+                stmt.executeBatch();
+                conn.commit();
+                return null;
+            } catch (Throwable t) {
+                try {
+                    conn.rollback();
+                } catch (Throwable ex) {
+                    LOGGER.debug("Failed rollback after db exception: " + ex.getMessage(), ex);
+                }
+                return t;
+            }
+        } finally {
+            try {
+                stmt.clearBatch();
+            } finally {
+                m_statements.add(stmt);
+            }
+        }
+    }
+
+    private void close() {
+        for (PreparedStatement stmt : m_allStatements) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                LOGGER.debug("Error closing statement: " + e.getMessage(), e);
+            }
+        }
+        DatabaseConnectionSettings.setAutoCommit(m_connection, m_autoCommit);
+        for (Connection conn : m_unsharedConnections) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.debug("Error closing connection: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static Throwable waitFor(final Future<Throwable> future) throws Exception {
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null && !future.isDone()) {
+                return currentPool.runInvisible(future::get);
+            }
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // runInvisible wraps the ExecutionException thrown by Future#get
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw e;
+        }
+    }
+
+    /** A range of rows (numbered from 1) and the future writing it. */
+    private static final class Range {
+
+        private final long m_first;
+
+        private final long m_last;
+
+        private final Future<Throwable> m_future;
+
+        private Range(final long first, final long last, final Future<Throwable> future) {
+            m_first = first;
+            m_last = last;
+            m_future = future;
+        }
+    }
+}
@@ -51,6 +51,7 @@
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
@@ -74,6 +75,25 @@ public interface DBConnectionFactory {
     Connection getConnection(final CredentialsProvider cp,
         final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException;
 
+    /**
+     * Opens a new connection that is not shared with any other caller, e.g. to write into the database on several
+     * connections in parallel to the one returned by {@link #getConnection(CredentialsProvider,
+     * DatabaseConnectionSettings)}. The default implementation doesn't support this.
+     *
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @return a new {@link Connection} which needs to be closed by the caller
+     * @throws InvalidSettingsException if the settings are invalid
+     * @throws SQLException if the connection can't be opened or the factory doesn't support unshared connections
+     * @throws IOException if opening the connection timed out
+     * @since 4.4
+     */
+    default Connection createUnsharedConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
+        throw new SQLFeatureNotSupportedException(
+            "Connection factory " + getClass().getName() + " does not support unshared connections");
+    }
+
     /**
      * @return the {@link DBDriverFactory} the connection factory uses
      */
@@ -0,0 +1,853 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.ExecuteStatement;
+import org.knime.core.node.port.database.connection.CachedConnectionFactory.ConnectionKey;
+import org.knime.core.node.workflow.CredentialsProvider;
+
+/**
+ * A bounded pool of database connections to the same database, used by
+ * {@link DatabaseConnectionSettings#execute(CredentialsProvider, ExecuteStatement)} if
+ * {@link DatabaseConnectionSettings#CONNECTION_POOL_SIZE} is positive. Other than with the single connection cached
+ * by the {@link CachedConnectionFactory}, concurrent nodes working on the same database don't wait for each other
+ * unless all connections of the pool are in use.
+ *
+ * <p>Connections are handed out as wrappers: closing the wrapper returns the connection to the pool and
+ * {@link Connection#prepareStatement(String)} returns a statement from a per connection cache, whose
+ * {@link PreparedStatement#close()} only resets the statement for its next use. All other statements created via the
+ * wrapper (also via an unwrapped vendor connection) are tracked and closed when the connection is returned, together
+ * with rolling back an open transaction. A connection is validated whenever it is taken from the pool and closed once
+ * it has been idle for longer than the idle timeout.
+ *
+ * <p>The pools of {@link #getPool(CredentialsProvider, DatabaseConnectionSettings)} are closed and forgotten once they
+ * haven't been used for longer than the idle timeout.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class DBConnectionPool {
+
+    /** Opens a new connection for the pool. */
+    @FunctionalInterface
+    public interface ConnectionOpener {
+        /**
+         * @return a new connection
+         * @throws Exception if the connection can't be opened
+         */
+        Connection open() throws Exception;
+    }
+
+    /** Checks whether a connection of the pool can still be used. */
+    @FunctionalInterface
+    public interface ConnectionValidator {
+        /**
+         * @param conn the connection to check
+         * @return <code>true</code> if the connection can be used
+         * @throws SQLException if the check fails
+         */
+        boolean isValid(Connection conn) throws SQLException;
+    }
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DBConnectionPool.class);
+
+    /** Number of prepared statements cached per connection. */
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    /** The pools of {@link #getPool(CredentialsProvider, DatabaseConnectionSettings)} by their connection key. */
+    private static final Map<ConnectionKey, DBConnectionPool> POOLS = new HashMap<>();
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r, "KNIME-DB-Connection-Pool-Evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String m_name;
+
+    private final int m_maxSize;
+
+    private final long m_idleTimeoutMillis;
+
+    private final int m_statementCacheSize;
+
+    private final ConnectionOpener m_opener;
+
+    private final ConnectionValidator m_validator;
+
+    /** One permit per connection that may be handed out. */
+    private final Semaphore m_permits;
+
+    /** Connections not in use, the most recently used first. */
+    private final Deque<PooledConnection> m_idle = new ArrayDeque<>();
+
+    /** Number of open connections, idle or in use. */
+    private int m_open;
+
+    private boolean m_isClosed;
+
+    /** When the pool was last requested, a connection taken or returned. */
+    private long m_lastActive = System.currentTimeMillis();
+
+    /** The periodic eviction of idle connections, <code>null</code> if not scheduled. */
+    private ScheduledFuture<?> m_maintenance;
+
+    /** Set if the opener doesn't support opening connections for a pool. */
+    private volatile SQLFeatureNotSupportedException m_notSupported;
+
+    private final AtomicLong m_createdCount = new AtomicLong();
+
+    private final AtomicLong m_closedCount = new AtomicLong();
+
+    private final AtomicLong m_borrowCount = new AtomicLong();
+
+    private final AtomicLong m_waitCount = new AtomicLong();
+
+    private final AtomicLong m_waitNanos = new AtomicLong();
+
+    private final AtomicLong m_statementCacheHits = new AtomicLong();
+
+    private final AtomicLong m_statementCacheMisses = new AtomicLong();
+
+    /**
+     * Creates a pool that opens connections on demand.
+     *
+     * @param name the name of the pool, used for logging
+     * @param maxSize the maximum number of open connections
+     * @param idleTimeoutMillis time after which an idle connection is closed, non-positive values keep idle
+     *            connections open until the pool is closed
+     * @param statementCacheSize maximum number of prepared statements cached per connection, 0 disables the cache
+     * @param opener opens new connections
+     * @param validator checks connections before they are handed out
+     */
+    public DBConnectionPool(final String name, final int maxSize, final long idleTimeoutMillis,
+        final int statementCacheSize, final ConnectionOpener opener, final ConnectionValidator validator) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+        }
+        m_name = name;
+        m_maxSize = maxSize;
+        m_idleTimeoutMillis = idleTimeoutMillis;
+        m_statementCacheSize = statementCacheSize;
+        m_opener = opener;
+        m_validator = validator;
+        m_permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Returns the pool for the database connection defined by the given settings and credentials, creating it if
+     * necessary. The pool opens its connections via
+     * {@link DBConnectionFactory#createUnsharedConnection(CredentialsProvider, DatabaseConnectionSettings)}.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the connection settings
+     * @return the pool
+     */
+    public static DBConnectionPool getPool(final CredentialsProvider cp, final DatabaseConnectionSettings settings) {
+        final ConnectionKey key = CachedConnectionFactory.createConnectionKey(cp, settings);
+        synchronized (POOLS) {
+            final DBConnectionPool existing = POOLS.get(key);
+            if (existing != null) {
+                // keeps the pool from being expired before the caller takes a connection
+                existing.touch();
+                return existing;
+            }
+            return POOLS.computeIfAbsent(key, k -> {
+                LOGGER.debug("Create connection pool for key: " + k);
+                final long idleTimeoutMillis =
+                    TimeUnit.SECONDS.toMillis(DatabaseConnectionSettings.CONNECTION_POOL_IDLE_TIMEOUT);
+                final DBConnectionPool pool = new DBConnectionPool(k.toString(),
+                    DatabaseConnectionSettings.CONNECTION_POOL_SIZE, idleTimeoutMillis, STATEMENT_CACHE_SIZE,
+                    () -> settings.getUtility().getConnectionFactory().createUnsharedConnection(cp, settings),
+                    conn -> settings.getUtility().isValid(conn));
+                if (idleTimeoutMillis > 0) {
+                    final long period = Math.max(1000, idleTimeoutMillis / 2);
+                    pool.m_maintenance = EVICTOR.scheduleWithFixedDelay(() -> maintain(k, pool), period, period,
+                        TimeUnit.MILLISECONDS);
+                }
+                return pool;
+            });
+        }
+    }
+
+    /** Evicts the idle connections of a shared pool and closes and removes the pool once it is unused. */
+    private static void maintain(final ConnectionKey key, final DBConnectionPool pool) {
+        pool.evictIdleConnections();
+        synchronized (POOLS) {
+            if (pool.expireIfUnused()) {
+                POOLS.remove(key, pool);
+                LOGGER.debug("Closed unused connection pool for key: " + key);
+            }
+        }
+    }
+
+    /**
+     * @return the statistics of all pools created by {@link #getPool(CredentialsProvider, DatabaseConnectionSettings)}
+     *         by their connection key
+     */
+    public static Map<ConnectionKey, Statistics> getAllStatistics() {
+        final Map<ConnectionKey, Statistics> result = new LinkedHashMap<>();
+        synchronized (POOLS) {
+            POOLS.forEach((k, pool) -> result.put(k, pool.getStatistics()));
+        }
+        return result;
+    }
+
+    /**
+     * Takes a valid connection from the pool or opens a new one, waiting for a connection to be returned if the
+     * maximum number of connections is in use. The returned connection must be closed to return it to the pool.
+     *
+     * @return the connection
+     * @throws SQLException if no connection can be opened, the pool is closed or the thread is interrupted while
+     *             waiting; a {@link SQLFeatureNotSupportedException} if the opener doesn't support connections for a
+     *             pool
+     */
+    public Connection getConnection() throws SQLException {
+        if (m_notSupported != null) {
+            throw m_notSupported;
+        }
+        touch();
+        if (!m_permits.tryAcquire()) {
+            m_waitCount.incrementAndGet();
+            final long start = System.nanoTime();
+            try {
+                m_permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection of pool " + m_name, e);
+            } finally {
+                m_waitNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+        try {
+            final PooledConnection pooled = takeIdleOrOpen();
+            m_borrowCount.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            m_permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdleOrOpen() throws SQLException {
+        while (true) {
+            final PooledConnection idle;
+            synchronized (this) {
+                if (m_isClosed) {
+                    throw new SQLException("Database connection pool " + m_name + " is closed");
+                }
+                idle = m_idle.pollFirst();
+                if (idle == null) {
+                    m_open++;
+                    break;
+                }
+            }
+            if (isValid(idle.m_connection)) {
+                return idle;
+            }
+            LOGGER.debug("Closing invalid connection of pool " + m_name);
+            destroy(idle);
+        }
+        try {
+            final Connection conn = m_opener.open();
+            if (conn == null) {
+                throw new SQLException("No database connection opened for pool " + m_name);
+            }
+            m_createdCount.incrementAndGet();
+            return new PooledConnection(conn);
+        } catch (Exception e) {
+            synchronized (this) {
+                m_open--;
+            }
+            if (e instanceof SQLFeatureNotSupportedException) {
+                m_notSupported = (SQLFeatureNotSupportedException)e;
+            }
+            if (e instanceof SQLException) {
+                throw (SQLException)e;
+            }
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private boolean isValid(final Connection conn) {
+        try {
+            return !conn.isClosed() && m_validator.isValid(conn);
+        } catch (Exception e) {
+            LOGGER.debug("Exception: " + e.getMessage() + " during validation of connection of pool " + m_name, e);
+            return false;
+        }
+    }
+
+    private void release(final PooledConnection pooled) {
+        boolean keep;
+        try {
+            pooled.reset();
+            keep = true;
+        } catch (SQLException e) {
+            LOGGER.debug("Closing connection of pool " + m_name + " that couldn't be reset: " + e.getMessage(), e);
+            keep = false;
+        }
+        synchronized (this) {
+            m_lastActive = System.currentTimeMillis();
+            if (keep && !m_isClosed) {
+                pooled.m_lastUsed = m_lastActive;
+                m_idle.addFirst(pooled);
+            } else {
+                keep = false;
+            }
+        }
+        if (!keep) {
+            destroy(pooled);
+        }
+        m_permits.release();
+    }
+
+    private void destroy(final PooledConnection pooled) {
+        pooled.closeConnection();
+        m_closedCount.incrementAndGet();
+        synchronized (this) {
+            m_open--;
+        }
+    }
+
+    /** Closes the connections that have been idle for longer than the idle timeout. */
+    void evictIdleConnections() {
+        if (m_idleTimeoutMillis <= 0) {
+            return;
+        }
+        final long deadline = System.currentTimeMillis() - m_idleTimeoutMillis;
+        final List<PooledConnection> evicted = new ArrayList<>();
+        synchronized (this) {
+            // the least recently used connections are at the end
+            while (!m_idle.isEmpty() && m_idle.peekLast().m_lastUsed <= deadline) {
+                evicted.add(m_idle.pollLast());
+            }
+        }
+        if (!evicted.isEmpty()) {
+            LOGGER.debug("Closing " + evicted.size() + " idle connection(s) of pool " + m_name);
+            evicted.forEach(this::destroy);
+        }
+    }
+
+    private synchronized void touch() {
+        m_lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the pool if it has no open connections and hasn't been used for longer than the idle timeout.
+     *
+     * @return <code>true</code> if the pool has been closed
+     */
+    synchronized boolean expireIfUnused() {
+        if (m_isClosed || m_idleTimeoutMillis <= 0 || m_open > 0
+            || m_lastActive > System.currentTimeMillis() - m_idleTimeoutMillis) {
+            return false;
+        }
+        m_isClosed = true;
+        if (m_maintenance != null) {
+            m_maintenance.cancel(false);
+        }
+        return true;
+    }
+
+    /** Closes all idle connections and the ones in use once they are returned. */
+    public void close() {
+        final List<PooledConnection> idle;
+        synchronized (this) {
+            m_isClosed = true;
+            idle = new ArrayList<>(m_idle);
+            m_idle.clear();
+            if (m_maintenance != null) {
+                m_maintenance.cancel(false);
+            }
+        }
+        idle.forEach(this::destroy);
+    }
+
+    /** @return a snapshot of the pool statistics */
+    public Statistics getStatistics() {
+        final int open;
+        final int idle;
+        synchronized (this) {
+            open = m_open;
+            idle = m_idle.size();
+        }
+        return new Statistics(this, open, idle);
+    }
+
+    /** A physical connection of the pool with its statement cache. */
+    private final class PooledConnection {
+
+        private final Connection m_connection;
+
+        private final boolean m_autoCommit;
+
+        /** Cached statements by their SQL, the least recently used first. */
+        private final LinkedHashMap<String, CachedStatement> m_statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** Statements of the current lease that aren't cached and not yet closed. */
+        private final List<Statement> m_uncachedStatements = new ArrayList<>();
+
+        private long m_lastUsed;
+
+        private PooledConnection(final Connection conn) throws SQLException {
+            m_connection = conn;
+            m_autoCommit = conn.getAutoCommit();
+        }
+
+        private Connection lease() {
+            final ConnectionHandle handle = new ConnectionHandle(this);
+            handle.m_proxy = (Connection)Proxy.newProxyInstance(DBConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handle);
+            return handle.m_proxy;
+        }
+
+        private synchronized PreparedStatement prepareStatement(final String sql, final ConnectionHandle handle)
+            throws SQLException {
+            final CachedStatement cached = m_statements.get(sql);
+            if (cached != null && !cached.m_inUse) {
+                m_statementCacheHits.incrementAndGet();
+                cached.m_inUse = true;
+                return (PreparedStatement)statementProxy(cached.m_statement, PreparedStatement.class, cached, handle);
+            }
+            m_statementCacheMisses.incrementAndGet();
+            final PreparedStatement stmt = m_connection.prepareStatement(sql);
+            if (cached != null || m_statementCacheSize <= 0) {
+                // the cached statement is in use, e.g. by a nested call
+                return (PreparedStatement)trackStatement(stmt, PreparedStatement.class, handle);
+            }
+            final CachedStatement newCached = new CachedStatement(sql, stmt);
+            newCached.m_inUse = true;
+            m_statements.put(sql, newCached);
+            for (Iterator<CachedStatement> it = m_statements.values().iterator();
+                    it.hasNext() && m_statements.size() > m_statementCacheSize;) {
+                final CachedStatement eldest = it.next();
+                if (!eldest.m_inUse) {
+                    it.remove();
+                    closeQuietly(eldest.m_statement);
+                }
+            }
+            return (PreparedStatement)statementProxy(stmt, PreparedStatement.class, newCached, handle);
+        }
+
+        /**
+         * Registers a statement that isn't cached, e.g. one of {@link Connection#createStatement()}, so that it is
+         * closed when the connection is returned.
+         *
+         * @param type the interface of the returned wrapper
+         */
+        private synchronized Statement trackStatement(final Statement stmt, final Class<?> type,
+            final ConnectionHandle handle) {
+            m_uncachedStatements.add(stmt);
+            return statementProxy(stmt, type, null, handle);
+        }
+
+        /** Called when a statement handed out for the current lease is closed. */
+        private synchronized void closeStatement(final Statement stmt, final CachedStatement cached) {
+            if (cached == null) {
+                m_uncachedStatements.remove(stmt);
+                closeQuietly(stmt);
+            } else if (cached.m_inUse) {
+                cached.m_inUse = false;
+                try {
+                    resetStatement(cached.m_statement);
+                } catch (SQLException e) {
+                    LOGGER.debug("Closing cached statement that couldn't be reset: " + e.getMessage(), e);
+                    m_statements.remove(cached.m_sql);
+                    closeQuietly(stmt);
+                }
+            }
+        }
+
+        /**
+         * Releases the statements of the current lease, rolls back the transaction the borrower neither committed nor
+         * rolled back and restores the auto-commit flag.
+         */
+        private synchronized void reset() throws SQLException {
+            m_uncachedStatements.forEach(DBConnectionPool::closeQuietly);
+            m_uncachedStatements.clear();
+            for (CachedStatement cached : new ArrayList<>(m_statements.values())) {
+                if (cached.m_inUse) {
+                    closeStatement(cached.m_statement, cached);
+                }
+            }
+            final boolean autoCommit = m_connection.getAutoCommit();
+            if (!autoCommit) {
+                m_connection.rollback();
+            }
+            if (autoCommit != m_autoCommit) {
+                m_connection.setAutoCommit(m_autoCommit);
+            }
+        }
+
+        private synchronized void closeConnection() {
+            m_statements.values().forEach(c -> closeQuietly(c.m_statement));
+            m_statements.clear();
+            m_uncachedStatements.forEach(DBConnectionPool::closeQuietly);
+            m_uncachedStatements.clear();
+            try {
+                m_connection.close();
+            } catch (SQLException e) {
+                LOGGER.debug("Error closing connection of pool " + m_name + ": " + e.getMessage(), e);
+            }
+        }
+
+        private Statement statementProxy(final Statement stmt, final Class<?> type, final CachedStatement cached,
+            final ConnectionHandle handle) {
+            return (Statement)Proxy.newProxyInstance(DBConnectionPool.class.getClassLoader(), new Class<?>[]{type},
+                new StatementHandle(stmt, cached, handle));
+        }
+    }
+
+    private static void resetStatement(final PreparedStatement stmt) throws SQLException {
+        final ResultSet rs = stmt.getResultSet();
+        if (rs != null) {
+            rs.close();
+        }
+        stmt.clearParameters();
+        stmt.clearBatch();
+    }
+
+    private static void closeQuietly(final Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Error closing statement: " + e.getMessage(), e);
+        }
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** A cached statement and whether it is currently handed out. */
+    private static final class CachedStatement {
+
+        private final String m_sql;
+
+        private final PreparedStatement m_statement;
+
+        private boolean m_inUse;
+
+        private CachedStatement(final String sql, final PreparedStatement statement) {
+            m_sql = sql;
+            m_statement = statement;
+        }
+    }
+
+    /** The connection handed out for one lease, {@link Connection#close()} returns it to the pool. */
+    private final class ConnectionHandle implements InvocationHandler {
+
+        private final PooledConnection m_pooled;
+
+        private Connection m_proxy;
+
+        private volatile boolean m_isClosed;
+
+        private ConnectionHandle(final PooledConnection pooled) {
+            m_pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled connection of " + m_name;
+                case "close":
+                    synchronized (this) {
+                        if (!m_isClosed) {
+                            m_isClosed = true;
+                            release(m_pooled);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return m_isClosed || m_pooled.m_connection.isClosed();
+                default:
+                    break;
+            }
+            checkOpen();
+            if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+                return m_pooled.prepareStatement((String)args[0], this);
+            }
+            if ("unwrap".equals(method.getName())) {
+                return unwrap((Class<?>)args[0]);
+            }
+            return invokeTracked(m_pooled.m_connection, method, args);
+        }
+
+        private void checkOpen() throws SQLException {
+            if (m_isClosed) {
+                throw new SQLException("Connection has been returned to pool " + m_name);
+            }
+        }
+
+        /** Invokes the method on the target, statements it returns are closed when the connection is returned. */
+        private Object invokeTracked(final Object target, final Method method, final Object[] args) throws Throwable {
+            final Object result = DBConnectionPool.invoke(target, method, args);
+            final Class<?> type = method.getReturnType();
+            if (result instanceof Statement && type.isInterface() && Statement.class.isAssignableFrom(type)) {
+                return m_pooled.trackStatement((Statement)result, type, this);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the wrapper itself if it implements the interface, otherwise a wrapper of the vendor connection that
+         * handles the {@link Connection} methods like this wrapper. Vendor classes (not interfaces) can't be wrapped,
+         * their statements are closed with the physical connection only.
+         */
+        private Object unwrap(final Class<?> iface) throws SQLException {
+            if (iface.isInstance(m_proxy)) {
+                return m_proxy;
+            }
+            final Object unwrapped = m_pooled.m_connection.unwrap(iface);
+            if (!iface.isInterface()) {
+                return unwrapped;
+            }
+            final ClassLoader loader =
+                iface.getClassLoader() != null ? iface.getClassLoader() : DBConnectionPool.class.getClassLoader();
+            return Proxy.newProxyInstance(loader, new Class<?>[]{iface}, (proxy, method, args) -> {
+                if (method.getDeclaringClass().isAssignableFrom(Connection.class)) {
+                    return this.invoke(m_proxy, method, args);
+                }
+                checkOpen();
+                return invokeTracked(unwrapped, method, args);
+            });
+        }
+    }
+
+    /**
+     * A statement handed out by a lease, {@link Statement#close()} returns a cached prepared statement to the statement
+     * cache.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+
+        private final Statement m_statement;
+
+        private final CachedStatement m_cached;
+
+        private final ConnectionHandle m_connection;
+
+        private boolean m_isClosed;
+
+        private StatementHandle(final Statement statement, final CachedStatement cached,
+            final ConnectionHandle connection) {
+            m_statement = statement;
+            m_cached = cached;
+            m_connection = connection;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return m_statement.toString();
+                case "close":
+                    synchronized (m_connection.m_pooled) {
+                        if (!m_isClosed && !m_connection.m_isClosed) {
+                            m_connection.m_pooled.closeStatement(m_statement, m_cached);
+                        }
+                        m_isClosed = true;
+                    }
+                    return null;
+                case "isClosed":
+                    return m_isClosed || m_connection.m_isClosed;
+                case "getConnection":
+                    return m_connection.m_proxy;
+                default:
+                    break;
+            }
+            if (m_isClosed || m_connection.m_isClosed) {
+                throw new SQLException("Statement is closed");
+            }
+            if ("unwrap".equals(method.getName()) && ((Class<?>)args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+            return DBConnectionPool.invoke(m_statement, method, args);
+        }
+    }
+
+    /** A snapshot of the statistics of a pool. */
+    public static final class Statistics {
+
+        private final int m_maxSize;
+
+        private final int m_openConnections;
+
+        private final int m_idleConnections;
+
+        private final long m_createdConnections;
+
+        private final long m_closedConnections;
+
+        private final long m_borrowCount;
+
+        private final long m_waitCount;
+
+        private final long m_waitTimeMillis;
+
+        private final long m_statementCacheHits;
+
+        private final long m_statementCacheMisses;
+
+        private Statistics(final DBConnectionPool pool, final int open, final int idle) {
+            m_maxSize = pool.m_maxSize;
+            m_openConnections = open;
+            m_idleConnections = idle;
+            m_createdConnections = pool.m_createdCount.get();
+            m_closedConnections = pool.m_closedCount.get();
+            m_borrowCount = pool.m_borrowCount.get();
+            m_waitCount = pool.m_waitCount.get();
+            m_waitTimeMillis = TimeUnit.NANOSECONDS.toMillis(pool.m_waitNanos.get());
+            m_statementCacheHits = pool.m_statementCacheHits.get();
+            m_statementCacheMisses = pool.m_statementCacheMisses.get();
+        }
+
+        /** @return the maximum number of open connections */
+        public int getMaxSize() {
+            return m_maxSize;
+        }
+
+        /** @return the number of open connections, idle or in use */
+        public int getOpenConnections() {
+            return m_openConnections;
+        }
+
+        /** @return the number of open connections not in use */
+        public int getIdleConnections() {
+            return m_idleConnections;
+        }
+
+        /** @return the number of connections in use */
+        public int getActiveConnections() {
+            return m_openConnections - m_idleConnections;
+        }
+
+        /** @return the number of connections opened so far */
+        public long getCreatedConnections() {
+            return m_createdConnections;
+        }
+
+        /** @return the number of connections closed so far because they were idle, invalid or the pool was closed */
+        public long getClosedConnections() {
+            return m_closedConnections;
+        }
+
+        /** @return the number of connections handed out so far */
+        public long getBorrowCount() {
+            return m_borrowCount;
+        }
+
+        /** @return how often a caller had to wait because all connections were in use */
+        public long getWaitCount() {
+            return m_waitCount;
+        }
+
+        /** @return the total time callers waited for a connection in milliseconds */
+        public long getWaitTimeMillis() {
+            return m_waitTimeMillis;
+        }
+
+        /** @return the number of prepared statements taken from the statement caches */
+        public long getStatementCacheHits() {
+            return m_statementCacheHits;
+        }
+
+        /** @return the number of prepared statements that had to be prepared */
+        public long getStatementCacheMisses() {
+            return m_statementCacheMisses;
+        }
+
+        @Override
+        public String toString() {
+            return "open=" + m_openConnections + "/" + m_maxSize + ", idle=" + m_idleConnections + ", created="
+                + m_createdConnections + ", closed=" + m_closedConnections + ", borrowed=" + m_borrowCount
+                + ", waits=" + m_waitCount + " (" + m_waitTimeMillis + "ms), statement cache hits="
+                + m_statementCacheHits + ", misses=" + m_statementCacheMisses;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+
+/**
+ * Grows the fetch size of a {@link ResultSet} while it is read. The first rows are fetched with the driver's fetch
+ * size, so that they are available quickly. Each time the rows of a fetch have been read, the fetch size is doubled
+ * until about {@value #MAX_CELLS_PER_FETCH} cells are fetched per round trip, which reduces the number of round trips
+ * for large results, but at most {@value #MAX_FETCH_SIZE} rows are fetched at once. The fetch size is not changed if
+ * it was set by the user (see {@link DatabaseConnectionSettings#FETCH_SIZE}), if the driver decides on its own (fetch
+ * size 0) or if the result contains large objects (e.g. BLOBs), whose size isn't bounded by the column count.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @noreference This class is not intended to be referenced by clients.
+ * @since 4.4
+ */
+public final class AdaptiveFetchSize {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(AdaptiveFetchSize.class);
+
+    /** Number of cells (rows times columns) the fetch size is grown to. */
+    static final int MAX_CELLS_PER_FETCH = 1 << 18;
+
+    /** Upper bound of the fetch size, regardless of the number of columns. */
+    static final int MAX_FETCH_SIZE = 10000;
+
+    private final ResultSet m_result;
+
+    private final int m_maxFetchSize;
+
+    private int m_fetchSize;
+
+    private long m_rowCount;
+
+    private long m_nextFetchRow;
+
+    private AdaptiveFetchSize(final ResultSet result, final int fetchSize, final int maxFetchSize) {
+        m_result = result;
+        m_fetchSize = fetchSize;
+        m_maxFetchSize = maxFetchSize;
+        m_nextFetchRow = fetchSize;
+    }
+
+    /**
+     * Creates an instance for the given result set, or returns <code>null</code> if its fetch size should not be
+     * changed.
+     *
+     * @param result the result set to read
+     * @param numColumns the number of columns of the result
+     * @return a new instance, or <code>null</code> if the fetch size is not to be adapted
+     */
+    public static AdaptiveFetchSize create(final ResultSet result, final int numColumns) {
+        if (DatabaseConnectionSettings.FETCH_SIZE != null) {
+            return null;
+        }
+        try {
+            final int fetchSize = result.getFetchSize();
+            final int maxFetchSize = Math.min(MAX_FETCH_SIZE, MAX_CELLS_PER_FETCH / Math.max(1, numColumns));
+            if (fetchSize <= 0 || fetchSize >= maxFetchSize || hasLargeObjects(result.getMetaData())) {
+                return null;
+            }
+            return new AdaptiveFetchSize(result, fetchSize, maxFetchSize);
+        } catch (SQLException ex) {
+            LOGGER.debug("Can't determine fetch size of result set: " + ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    private static boolean hasLargeObjects(final ResultSetMetaData metaData) throws SQLException {
+        if (metaData == null) {
+            return false;
+        }
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            switch (metaData.getColumnType(i)) {
+                case Types.ARRAY:
+                case Types.BLOB:
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.LONGVARBINARY:
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.SQLXML:
+                    return true;
+                default:
+                    // bounded size, keep checking
+            }
+        }
+        return false;
+    }
+
+    /** Notifies that a row has been read from the result set, grows the fetch size if all fetched rows are read. */
+    public void rowRead() {
+        m_rowCount++;
+        if (m_rowCount < m_nextFetchRow || m_fetchSize >= m_maxFetchSize) {
+            return;
+        }
+        final int fetchSize = Math.min(m_maxFetchSize, 2 * m_fetchSize);
+        try {
+            m_result.setFetchSize(fetchSize);
+            m_fetchSize = fetchSize;
+            m_nextFetchRow = m_rowCount + fetchSize;
+        } catch (SQLException ex) {
+            // not supported by the driver, keep the current fetch size
+            LOGGER.debug("Can't change fetch size of result set: " + ex.getMessage(), ex);
+            m_fetchSize = m_maxFetchSize;
+        }
+    }
+
+    /**
+     * @return the current fetch size
+     */
+    int getFetchSize() {
+        return m_fetchSize;
+    }
+}
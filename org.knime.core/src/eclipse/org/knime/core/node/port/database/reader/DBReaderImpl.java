@@ -302,7 +302,11 @@ private DBRowIterator createRowIteratorConnection(final Connection conn, final E
         LOGGER.debug("Reading meta data from database ResultSet...");
         m_spec = createTableSpec(result.getMetaData());
         LOGGER.debug("Parsing database ResultSet...");
-        final RowIterator iterator = createDBRowIterator(m_spec, dbConn, m_blobFactory, useDbRowId, result);
+        RowIterator iterator = createDBRowIterator(m_spec, dbConn, m_blobFactory, useDbRowId, result);
+        if (DatabaseConnectionSettings.PREFETCH) {
+            // read the result set while the rows read so far are written into the table
+            iterator = new PrefetchRowIterator(iterator);
+        }
         return new RowIteratorConnection(conn, stmt, m_spec, iterator);
     }
 
@@ -66,6 +66,7 @@
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -126,6 +127,15 @@ public class DBRowIteratorImpl extends RowIterator {
 
     protected final BinaryObjectCellFactory m_blobFactory;
 
+    /** The reader of each column, resolved from the column and database type when reading the first row. */
+    private final CellReader[] m_cellReaders;
+
+    /** The database type of each column, {@link Types#NULL} until resolved. */
+    private final int[] m_dbTypes;
+
+    /** Grows the fetch size while reading, <code>null</code> if the fetch size is not changed. */
+    private final AdaptiveFetchSize m_adaptiveFetchSize;
+
     /**
      * @param spec {@link DataTableSpec}
      * @param conn {@link DatabaseConnectionSettings}
@@ -156,6 +166,10 @@ protected DBRowIteratorImpl(final DataTableSpec spec, final DatabaseConnectionSe
         m_rowIdsStartWithZero = m_conn.getRowIdsStartWithZero();
         m_useDbRowId = useDbRowId;
         m_rowCounter = startRowId;
+        m_cellReaders = new CellReader[m_spec.getNumColumns()];
+        m_dbTypes = new int[m_spec.getNumColumns()];
+        Arrays.fill(m_dbTypes, Types.NULL);
+        m_adaptiveFetchSize = AdaptiveFetchSize.create(result, m_spec.getNumColumns());
     }
 
     /**
@@ -166,6 +180,9 @@ public boolean hasNext() {
         boolean ret = false;
         try {
             ret = m_result.next();
+            if (ret && m_adaptiveFetchSize != null) {
+                m_adaptiveFetchSize.rowRead();
+            }
         } catch (SQLException sql) {
             ret = false;
         }
@@ -191,113 +208,18 @@ public boolean hasNext() {
     public DataRow next() {
         DataCell[] cells = new DataCell[m_spec.getNumColumns()];
         for (int i = 0; i < cells.length; i++) {
-            DataType type = m_spec.getColumnSpec(i).getType();
-            int dbType = Types.NULL;
-            final DataCell cell;
+            int dbType = m_dbTypes[i];
             try {
-                dbType = m_result.getMetaData().getColumnType(i + 1);
-                if (type.isCompatible(BooleanValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as boolean
-                        case Types.BIT:
-                        case Types.BOOLEAN:
-                            cell = readBoolean(i);
-                            break;
-                        default: cell = readBoolean(i);
-                    }
-                } else if (type.isCompatible(IntValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as integer
-                        case Types.TINYINT:
-                            cell = readByte(i);
-                            break;
-                        case Types.SMALLINT:
-                            cell = readShort(i);
-                            break;
-                        case Types.INTEGER:
-                            cell = readInt(i);
-                            break;
-                        default: cell = readInt(i);
-                    }
-                } else if (type.isCompatible(LongValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as long
-                        case Types.BIGINT:
-                            cell = readLong(i);
-                            break;
-                        default: cell = readLong(i);
-                    }
-                } else if (type.isCompatible(DoubleValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as double
-                        case Types.REAL:
-                            cell = readFloat(i);
-                            break;
-                        default: cell = readDouble(i);
-                    }
-                } else if (type.isCompatible(DateAndTimeValue.class)) {
-                    switch (dbType) {
-                        case Types.DATE:
-                            cell = readDate(i); break;
-                        case Types.TIME:
-                            cell = readTime(i); break;
-                        case Types.TIMESTAMP:
-                            cell = readTimestamp(i); break;
-                        default: cell = readString(i);
-                    }
-                } else if (type.isCompatible(BinaryObjectDataValue.class)) {
-                    switch (dbType) {
-                        case Types.BLOB:
-                            DataCell c = null;
-                            try {
-                                c = readBlob(i);
-                            } catch (SQLException ex) {
-                                // probably not supported (e.g. SQLite), therefore try another method
-                                c = readBytesAsBLOB(i);
-                            }
-                            cell = c;
-                            break;
-                        case Types.LONGVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readAsciiStream(i); break;
-                        case Types.BINARY:
-                        case Types.LONGVARBINARY:
-                        case Types.VARBINARY:
-                            cell = readBinaryStream(i); break;
-                        default: cell = readString(i);
-                    }
-                } else {
-                    switch (dbType) {
-                        case Types.CLOB:
-                            cell = readClob(i); break;
-                        case Types.ARRAY:
-                            cell = readArray(i); break;
-                        case Types.CHAR:
-                        case Types.VARCHAR:
-                        case Types.LONGVARCHAR:
-                            cell = readString(i); break;
-                        case Types.VARBINARY:
-                            cell = readBytesAsString(i); break;
-                        case Types.REF:
-                            cell = readRef(i); break;
-                        case Types.NCHAR:
-                        case Types.NVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readNString(i); break;
-                        case Types.NCLOB:
-                            cell = readNClob(i); break;
-                        case Types.DATALINK:
-                            cell = readURL(i); break;
-                        case Types.STRUCT:
-                        case Types.JAVA_OBJECT:
-                            cell = readObject(i); break;
-                        default:
-                            cell = readObject(i); break;
-
-                    }
+                CellReader reader = m_cellReaders[i];
+                if (reader == null) {
+                    // resolved once per column with the first row
+                    dbType = m_result.getMetaData().getColumnType(i + 1);
+                    reader = createCellReader(m_spec.getColumnSpec(i).getType(), dbType);
+                    m_dbTypes[i] = dbType;
+                    m_cellReaders[i] = reader;
                 }
                 // finally set the new cell into the array of cells
-                cells[i] = cell;
+                cells[i] = reader.read(i);
             } catch (SQLException sqle) {
                 handlerException("SQL Exception reading Object of type \"" + dbType + "\": ", sqle);
                 cells[i] = new MissingCell(sqle.getMessage());
@@ -324,6 +246,99 @@ public DataRow next() {
         return new DefaultRow(RowKey.createRowKey(rowId), cells);
     }
 
+    /**
+     * Returns the reader for a column, which depends on the KNIME type of the column and the type reported by the
+     * database.
+     *
+     * @param type the type of the column in the spec
+     * @param dbType the database type of the column, see {@link Types}
+     * @return the reader creating the cells of the column
+     */
+    private CellReader createCellReader(final DataType type, final int dbType) {
+        if (type.isCompatible(BooleanValue.class)) {
+            // all types that can be interpreted as boolean
+            return this::readBoolean;
+        } else if (type.isCompatible(IntValue.class)) {
+            switch (dbType) {
+                // all types that can be interpreted as integer
+                case Types.TINYINT:
+                    return this::readByte;
+                case Types.SMALLINT:
+                    return this::readShort;
+                default:
+                    return this::readInt;
+            }
+        } else if (type.isCompatible(LongValue.class)) {
+            // all types that can be interpreted as long
+            return this::readLong;
+        } else if (type.isCompatible(DoubleValue.class)) {
+            switch (dbType) {
+                // all types that can be interpreted as double
+                case Types.REAL:
+                    return this::readFloat;
+                default:
+                    return this::readDouble;
+            }
+        } else if (type.isCompatible(DateAndTimeValue.class)) {
+            switch (dbType) {
+                case Types.DATE:
+                    return this::readDate;
+                case Types.TIME:
+                    return this::readTime;
+                case Types.TIMESTAMP:
+                    return this::readTimestamp;
+                default:
+                    return this::readString;
+            }
+        } else if (type.isCompatible(BinaryObjectDataValue.class)) {
+            switch (dbType) {
+                case Types.BLOB:
+                    return i -> {
+                        try {
+                            return readBlob(i);
+                        } catch (SQLException ex) {
+                            // probably not supported (e.g. SQLite), therefore try another method
+                            return readBytesAsBLOB(i);
+                        }
+                    };
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return this::readAsciiStream;
+                case Types.BINARY:
+                case Types.LONGVARBINARY:
+                case Types.VARBINARY:
+                    return this::readBinaryStream;
+                default:
+                    return this::readString;
+            }
+        } else {
+            switch (dbType) {
+                case Types.CLOB:
+                    return this::readClob;
+                case Types.ARRAY:
+                    return this::readArray;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                    return this::readString;
+                case Types.VARBINARY:
+                    return this::readBytesAsString;
+                case Types.REF:
+                    return this::readRef;
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return this::readNString;
+                case Types.NCLOB:
+                    return this::readNClob;
+                case Types.DATALINK:
+                    return this::readURL;
+                default:
+                    return this::readObject;
+            }
+        }
+    }
+
     protected DataCell readClob(final int i)
             throws IOException, SQLException {
         Clob clob = m_result.getClob(i + 1);
@@ -626,4 +641,10 @@ protected void handlerException(final String msg, final Exception ex) {
                 + "and reported on debug level only", ex);
         }
     }
+
+    /** Creates the cell of a column in the current row of the result set. */
+    @FunctionalInterface
+    private interface CellReader {
+        DataCell read(int i) throws SQLException, IOException;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Reads the rows of another iterator in a background thread into batches, so that reading from the database (i.e.
+ * the network I/O of the JDBC driver) overlaps with processing the rows read so far. The source iterator is only
+ * accessed by the background thread, which ends after the last row or when this iterator is closed.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @see DatabaseConnectionSettings#PREFETCH
+ */
+final class PrefetchRowIterator extends CloseableRowIterator {
+
+    /** Number of rows handed over at once. */
+    static final int BATCH_SIZE = 1024;
+
+    /** Number of batches read ahead. */
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final RowIterator m_source;
+
+    private final BlockingQueue<Batch> m_batches = new ArrayBlockingQueue<>(MAX_PENDING_BATCHES);
+
+    private final Thread m_thread;
+
+    private volatile boolean m_isClosed;
+
+    private List<DataRow> m_currentRows = Collections.emptyList();
+
+    private int m_currentIndex;
+
+    private boolean m_isLastBatch;
+
+    private Throwable m_failure;
+
+    /**
+     * Creates the iterator and starts reading from the source in the background.
+     *
+     * @param source the iterator to read from, not to be used by the caller anymore
+     */
+    PrefetchRowIterator(final RowIterator source) {
+        m_source = source;
+        m_thread = ThreadUtils.threadWithContext(this::readAhead,
+            "KNIME-DB-Prefetch-" + THREAD_COUNT.incrementAndGet());
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    /** Runs in the background thread: reads the source and queues the batches. */
+    private void readAhead() {
+        List<DataRow> rows = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!m_isClosed && m_source.hasNext()) {
+                rows.add(m_source.next());
+                if (rows.size() == BATCH_SIZE) {
+                    if (!put(new Batch(rows, false, null))) {
+                        return;
+                    }
+                    rows = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            put(new Batch(rows, true, null));
+        } catch (RuntimeException | Error e) {
+            // handed over to the consumer, which throws it after the rows read before
+            put(new Batch(rows, true, e));
+        }
+    }
+
+    /** Queues the batch, returns false if this iterator was closed in the meantime. */
+    private boolean put(final Batch batch) {
+        try {
+            while (!m_isClosed) {
+                if (m_batches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        while (m_currentIndex >= m_currentRows.size()) {
+            if (m_isLastBatch) {
+                if (m_failure != null) {
+                    final Throwable failure = m_failure;
+                    m_failure = null;
+                    if (failure instanceof Error) {
+                        throw (Error)failure;
+                    }
+                    throw (RuntimeException)failure;
+                }
+                return false;
+            }
+            if (m_isClosed) {
+                return false;
+            }
+            final Batch batch;
+            try {
+                batch = m_batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for rows from the database", e);
+            }
+            m_currentRows = batch.m_rows;
+            m_currentIndex = 0;
+            m_isLastBatch = batch.m_isLast;
+            m_failure = batch.m_failure;
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        return m_currentRows.get(m_currentIndex++);
+    }
+
+    /**
+     * Stops reading from the source and waits for the background thread to finish, so that the result set can be
+     * closed afterwards.
+     */
+    @Override
+    public void close() {
+        m_isClosed = true;
+        m_currentRows = Collections.emptyList();
+        boolean interrupted = false;
+        while (m_thread.isAlive()) {
+            m_batches.clear();
+            try {
+                m_thread.join(100);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        m_batches.clear();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Rows read by the background thread. */
+    private static final class Batch {
+
+        private final List<DataRow> m_rows;
+
+        private final boolean m_isLast;
+
+        private final Throwable m_failure;
+
+        Batch(final List<DataRow> rows, final boolean isLast, final Throwable failure) {
+            m_rows = rows;
+            m_isLast = isLast;
+            m_failure = failure;
+        }
+    }
+}
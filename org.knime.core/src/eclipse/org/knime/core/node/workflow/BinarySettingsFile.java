@@ -0,0 +1,229 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.config.BinaryConfigSerializer;
+
+/**
+ * Binary copy of a settings XML file (node settings or workflow file), see
+ * {@link KNIMEConstants#PROPERTY_BINARY_SETTINGS}. The copy is stored next to the XML file with suffix
+ * {@value #FILE_SUFFIX} and starts with the length and CRC32 checksum of the XML file it was written with; it's only
+ * used as long as the XML file still matches, so the XML file can be changed (e.g. by an older version) without the
+ * copy getting in the way.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BinarySettingsFile {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(BinarySettingsFile.class);
+
+    /** Appended to the name of the XML file. */
+    static final String FILE_SUFFIX = ".bin";
+
+    private static final boolean IS_ENABLED = Boolean.getBoolean(KNIMEConstants.PROPERTY_BINARY_SETTINGS);
+
+    private final File m_xmlFile;
+
+    private final boolean m_isEnabled;
+
+    private final CRC32 m_checksum = new CRC32();
+
+    /** Wraps the stream of a settings XML file, e.g. to cipher or decipher it. */
+    @FunctionalInterface
+    interface StreamWrapper<S> {
+        /**
+         * @param stream the file stream
+         * @return the stream to read or write the XML from or to, possibly the argument itself
+         * @throws IOException if wrapping fails
+         */
+        S wrap(S stream) throws IOException;
+    }
+
+    private BinarySettingsFile(final File xmlFile, final boolean isEnabled) {
+        m_xmlFile = xmlFile;
+        m_isEnabled = isEnabled;
+    }
+
+    /**
+     * Writes the settings to the XML file and, if enabled, the binary copy next to it. Failures writing the copy are
+     * only logged as the XML file is still valid.
+     *
+     * @param settings the settings to write
+     * @param xmlFile the XML file to write
+     * @param cipher wraps the file output stream, e.g. to encrypt the XML of a locked metanode
+     * @throws IOException if writing the XML file fails
+     */
+    static void saveXML(final NodeSettings settings, final File xmlFile, final StreamWrapper<OutputStream> cipher)
+        throws IOException {
+        saveXML(settings, xmlFile, cipher, IS_ENABLED);
+    }
+
+    /** Package-private for tests. */
+    static void saveXML(final NodeSettings settings, final File xmlFile, final StreamWrapper<OutputStream> cipher,
+        final boolean isEnabled) throws IOException {
+        final BinarySettingsFile binarySettings = new BinarySettingsFile(xmlFile, isEnabled);
+        final OutputStream fileOut = binarySettings.trackXMLOutput(new FileOutputStream(xmlFile));
+        final OutputStream out = cipher.wrap(fileOut);
+        settings.saveToXML(out);
+        binarySettings.save(settings, out == fileOut);
+    }
+
+    /**
+     * Reads the settings from the binary copy of the XML file if there is one that matches the XML file, otherwise
+     * from the XML file.
+     *
+     * @param xmlFile the XML file to read
+     * @param decipher wraps the file input stream, e.g. to decrypt the XML of a locked metanode
+     * @return the settings
+     * @throws IOException if reading the XML file fails
+     */
+    static NodeSettingsRO loadXML(final File xmlFile, final StreamWrapper<InputStream> decipher) throws IOException {
+        final NodeSettings settings = load(xmlFile);
+        if (settings != null) {
+            return settings;
+        }
+        return NodeSettings.loadFromXML(new BufferedInputStream(decipher.wrap(new FileInputStream(xmlFile))));
+    }
+
+    /**
+     * Wraps the (not yet ciphered) output stream the XML file is written to in order to determine its checksum.
+     *
+     * @param out the file output stream
+     * @return the stream to write the XML to
+     */
+    private OutputStream trackXMLOutput(final OutputStream out) {
+        return m_isEnabled ? new CheckedOutputStream(out, m_checksum) : out;
+    }
+
+    /**
+     * Writes the binary copy after the XML file has been written and closed. Removes an existing copy instead if binary
+     * settings are disabled or not possible. Failures are only logged as the XML file is still valid.
+     *
+     * @param settings the settings that were written to the XML file
+     * @param isPlainXML whether the XML file was written without cipher, encrypted content is never copied
+     */
+    private void save(final NodeSettings settings, final boolean isPlainXML) {
+        final File binaryFile = getBinaryFile(m_xmlFile);
+        if (!m_isEnabled || !isPlainXML || !BinaryConfigSerializer.isSupported(settings)) {
+            if (binaryFile.exists() && !binaryFile.delete()) {
+                LOGGER.debug("Unable to delete outdated binary settings \"" + binaryFile.getAbsolutePath() + "\"");
+            }
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFile)))) {
+            out.writeLong(m_xmlFile.length());
+            out.writeLong(m_checksum.getValue());
+            BinaryConfigSerializer.save(settings, out);
+        } catch (IOException ioe) {
+            LOGGER.warn("Unable to write binary settings \"" + binaryFile.getAbsolutePath() + "\": "
+                + ioe.getMessage(), ioe);
+            binaryFile.delete();
+        }
+    }
+
+    /**
+     * Reads the binary copy of the given XML file if there is one that matches the XML file. A corrupt copy is
+     * ignored.
+     *
+     * @param xmlFile the XML file
+     * @return the settings or <code>null</code> if the XML file needs to be read
+     */
+    static NodeSettings load(final File xmlFile) {
+        final File binaryFile = getBinaryFile(xmlFile);
+        if (!binaryFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryFile)))) {
+            if (in.readLong() != xmlFile.length() || in.readLong() != checksum(xmlFile)) {
+                LOGGER.debug("Ignoring outdated binary settings \"" + binaryFile.getAbsolutePath() + "\"");
+                return null;
+            }
+            return BinaryConfigSerializer.load(in, NodeSettings::new);
+        } catch (IOException | RuntimeException e) {
+            // runtime exceptions are thrown by the settings for content no valid copy can contain
+            LOGGER.warn("Unable to read binary settings \"" + binaryFile.getAbsolutePath()
+                + "\", reading XML instead: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * @param xmlFile the XML file
+     * @return the file holding the binary copy of the XML file
+     */
+    static File getBinaryFile(final File xmlFile) {
+        return new File(xmlFile.getParentFile(), xmlFile.getName() + FILE_SUFFIX);
+    }
+
+    private static long checksum(final File file) throws IOException {
+        final CRC32 checksum = new CRC32();
+        final byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                checksum.update(buffer, 0, read);
+            }
+        }
+        return checksum.getValue();
+    }
+}
@@ -44,13 +44,8 @@
  */
 package org.knime.core.node.workflow;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -211,10 +206,9 @@ public void preLoadNodeContainer(final WorkflowPersistor parentPersistor, final
         }
         NodeSettingsRO settings;
         try {
-            InputStream in = new FileInputStream(settingsFile);
             // parentPersitor is null for loaded subnode templates
-            in = parentPersistor == null ? in : parentPersistor.decipherInput(in);
-            settings = NodeSettings.loadFromXML(new BufferedInputStream(in));
+            settings = BinarySettingsFile.loadXML(settingsFile,
+                in -> parentPersistor == null ? in : parentPersistor.decipherInput(in));
         } catch (IOException ioe) {
             setDirtyAfterLoad();
             throw ioe;
@@ -616,9 +610,7 @@ protected static String save(final SingleNodeContainer singleNC, final Reference
             FileSubNodeContainerPersistor.save(subnodeNC, settings, exec, nodeDirRef, saveHelper);
         }
         File nodeSettingsXMLFile = new File(nodeDir, settingsDotXML);
-        OutputStream os = new FileOutputStream(nodeSettingsXMLFile);
-        os = singleNC.getDirectNCParent().cipherOutput(os);
-        settings.saveToXML(os);
+        BinarySettingsFile.saveXML(settings, nodeSettingsXMLFile, singleNC.getDirectNCParent()::cipherOutput);
         if (saveHelper.isAutoSave() && sncAutoSaveDirRef == null) {
             sncAutoSaveDirRef = nodeDirRef;
             singleNC.setAutoSaveDirectory(sncAutoSaveDirRef);
@@ -44,15 +44,11 @@
  */
 package org.knime.core.node.workflow;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -67,6 +63,9 @@
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.TableBackend;
 import org.knime.core.internal.ReferencedFile;
@@ -89,6 +88,7 @@
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.LoadVersion;
 import org.knime.core.util.LockFailedException;
+import org.knime.core.util.ThreadPool;
 import org.knime.core.util.workflowalizer.AuthorInformation;
 
 /**
@@ -528,15 +528,10 @@ public void preLoadNodeContainer(final WorkflowPersistor parentPersistor, final
         m_mustWarnOnDataLoadError = loadIfMustWarnOnDataLoadError(parentRef.getFile());
         NodeSettingsRO subWFSettings;
         try {
-            InputStream in = new FileInputStream(nodeFile);
-            if (m_parentPersistor != null) { // real metanode, not a project
-                // the workflow.knime (or template.knime) file is not encrypted
-                // with this metanode's cipher but possibly with a parent
-                // cipher
-                in = m_parentPersistor.decipherInput(in);
-            }
-            in = new BufferedInputStream(in);
-            subWFSettings = NodeSettings.loadFromXML(in);
+            // real metanode, not a project: the workflow.knime (or template.knime) file is not encrypted
+            // with this metanode's cipher but possibly with a parent cipher
+            subWFSettings = BinarySettingsFile.loadXML(nodeFile,
+                in -> m_parentPersistor == null ? in : m_parentPersistor.decipherInput(in));
         } catch (IOException ioe) {
             setDirtyAfterLoad();
             throw ioe;
@@ -1958,18 +1953,23 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
             Collection<NodeContainer> nodes = wm.getNodeContainers();
             double progRatio = 1.0 / (nodes.size() + 1);
 
-            for (NodeContainer nextNode : nodes) {
-                int id = nextNode.getID().getIndex();
-                ExecutionMonitor subExec = execMon.createSubProgress(progRatio);
-                execMon.setMessage(nextNode.getNameWithID());
-                NodeSettingsWO sub = nodesSettings.addNodeSettings("node_" + id);
-                NodeContext.pushContext(nextNode);
-                try {
-                    saveNodeContainer(sub, workflowDirRef, nextNode, subExec, saveHelper);
-                } finally {
-                    NodeContext.removeLastContext();
+            if (saveHelper.getNodeSaveThreadCount() > 1 && nodes.size() > 1) {
+                saveNodeContainersConcurrently(nodesSettings, workflowDirRef, nodes, execMon, progRatio, saveHelper);
+            } else {
+                for (NodeContainer nextNode : nodes) {
+                    execMon.checkCanceled();
+                    int id = nextNode.getID().getIndex();
+                    ExecutionMonitor subExec = execMon.createSubProgress(progRatio);
+                    execMon.setMessage(nextNode.getNameWithID());
+                    NodeSettingsWO sub = nodesSettings.addNodeSettings("node_" + id);
+                    NodeContext.pushContext(nextNode);
+                    try {
+                        saveNodeContainer(sub, workflowDirRef, nextNode, subExec, saveHelper);
+                    } finally {
+                        NodeContext.removeLastContext();
+                    }
+                    subExec.setProgress(1.0);
                 }
-                subExec.setProgress(1.0);
             }
 
             execMon.setMessage("connection information");
@@ -2011,10 +2011,9 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
             String toBeDeletedFileName = Role.Template.equals(r) ? TEMPLATE_FILE : WORKFLOW_FILE;
             new File(workflowDir, toBeDeletedFileName).delete();
             new File(workflowDir, WorkflowCipher.getCipherFileName(toBeDeletedFileName)).delete();
+            new File(workflowDir, toBeDeletedFileName + BinarySettingsFile.FILE_SUFFIX).delete();
 
-            OutputStream os = new FileOutputStream(workflowFile);
-            os = wm.getDirectNCParent().cipherOutput(os);
-            preFilledSettings.saveToXML(os);
+            BinarySettingsFile.saveXML(preFilledSettings, workflowFile, wm.getDirectNCParent()::cipherOutput);
             if (saveHelper.isSaveData()) {
                 File saveWithDataFile = new File(workflowDir, SAVED_WITH_DATA_FILE);
                 BufferedWriter o = new BufferedWriter(new FileWriter(saveWithDataFile));
@@ -2048,6 +2047,87 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
         }
     }
 
+    /**
+     * Saves the node containers of a workflow using up to {@link WorkflowSaveHelper#getNodeSaveThreadCount()} threads.
+     * Native nodes are saved concurrently (each into its own settings object), metanodes and components are saved
+     * by the calling thread as they (recursively) write their own content and acquire their own workflow locks. The
+     * settings are added to <code>nodesSettings</code> in the original node order so that the resulting
+     * workflow.knime is identical to a sequential save. Nodes that are not dirty return immediately (see
+     * {@link FileSingleNodeContainerPersistor#save(SingleNodeContainer, ReferencedFile, ExecutionMonitor,
+     * WorkflowSaveHelper)}), i.e. only changed nodes are written. If saving a node fails or the save is canceled, the
+     * remaining node saves are canceled and the exception of the failing node is rethrown.
+     */
+    private static void saveNodeContainersConcurrently(final NodeSettingsWO nodesSettings,
+        final ReferencedFile workflowDirRef, final Collection<NodeContainer> nodes, final ExecutionMonitor execMon,
+        final double progRatio, final WorkflowSaveHelper saveHelper)
+                throws IOException, CanceledExecutionException, LockFailedException {
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(saveHelper.getNodeSaveThreadCount());
+        final List<NodeSettings> settingsInOrder = new ArrayList<>(nodes.size());
+        final List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (NodeContainer nextNode : nodes) {
+                final NodeSettings sub = new NodeSettings("node_" + nextNode.getID().getIndex());
+                settingsInOrder.add(sub);
+                final ExecutionMonitor subExec = execMon.createSubProgress(progRatio);
+                final Callable<Void> saveCallable = () -> {
+                    subExec.checkCanceled();
+                    NodeContext.pushContext(nextNode);
+                    try {
+                        saveNodeContainer(sub, workflowDirRef, nextNode, subExec, saveHelper);
+                    } finally {
+                        NodeContext.removeLastContext();
+                    }
+                    subExec.setProgress(1.0);
+                    return null;
+                };
+                if (nextNode instanceof NativeNodeContainer) {
+                    futures.add(pool.enqueue(saveCallable));
+                } else {
+                    execMon.setMessage(nextNode.getNameWithID());
+                    saveCallable.call();
+                }
+            }
+            execMon.setMessage("Waiting for " + futures.size() + " node(s) to be written");
+            waitForNodeSaveFutures(futures);
+        } catch (IOException | CanceledExecutionException | LockFailedException | RuntimeException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        } catch (Exception e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IOException("Saving nodes failed: " + e.getMessage(), e);
+        }
+        settingsInOrder.forEach(nodesSettings::addNodeSettings);
+    }
+
+    /** Waits for all futures, unwrapping {@link ExecutionException} into the exception thrown by the save routine.
+     * If the calling thread is itself a pool thread it's made invisible so that it doesn't block a pool slot. */
+    private static void waitForNodeSaveFutures(final List<Future<Void>> futures) throws Exception {
+        final Callable<Void> waitCallable = () -> {
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+            return null;
+        };
+        final ThreadPool currentPool = ThreadPool.currentPool();
+        try {
+            if (currentPool != null) {
+                currentPool.runInvisible(waitCallable);
+            } else {
+                waitCallable.call();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // runInvisible wraps the ExecutionException thrown by Future#get
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw new IOException("Saving nodes failed: " + cause, cause);
+        }
+    }
+
     /** Add version field. */
     static void saveHeader(final NodeSettings settings) {
         settings.addString(WorkflowLoadHelper.CFG_CREATED_BY, KNIMEConstants.VERSION);
@@ -47,6 +47,7 @@
  */
 package org.knime.core.node.workflow;
 
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
 import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkNodeInput;
 
@@ -56,6 +57,12 @@
  */
 public interface LoopStartParallelizeNode extends LoopStartNode {
 
+    /** Number of work units the input is split into per configured chunk if chunks are executed adaptively, see
+     * {@link #getNrChunks(int)}.
+     * @since 4.4
+     */
+    public static final int WORK_UNITS_PER_CHUNK = 4;
+
     /**
      * @param chunkIndex index
      * @return virtual input node for the given chunk
@@ -74,4 +81,41 @@ public interface LoopStartParallelizeNode extends LoopStartNode {
      * @param pccm matching @see{ParallelizedChunkContentMaster}
      */
     public void setChunkMaster(final ParallelizedChunkContentMaster pccm);
+
+    /** Maximum number of remote chunks that are executed at the same time. Only that many copies of the loop body
+     * are created, each copy is reused for the next pending chunk once it has finished its chunk, i.e. fast copies
+     * pick up further chunks while slow ones are still running. The results are still available per chunk and in
+     * chunk order at the end node.
+     *
+     * <p>
+     * The default reads the {@link KNIMEConstants#PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT} system property and
+     * returns {@link #getNrRemoteChunks()} if it's not set (all chunks are started immediately). Implementations may
+     * split the input into many small chunks (see {@link #getNrChunks(int)}) and return a smaller number here.
+     *
+     * @return the maximum number of concurrently executing remote chunks
+     * @since 4.4
+     */
+    public default int getMaxConcurrentRemoteChunks() {
+        final int nrChunks = getNrRemoteChunks();
+        final int max = Integer.getInteger(KNIMEConstants.PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT, nrChunks);
+        return Math.max(1, Math.min(nrChunks, max));
+    }
+
+    /** Number of chunks an implementation should split its input into. Adaptive execution is off by default, the
+     * configured number of chunks is returned then. If the
+     * {@link KNIMEConstants#PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT} system property is set, the input is split into {@value #WORK_UNITS_PER_CHUNK} smaller work units per chunk,
+     * which are executed by at most as many copies of the loop body as the property specifies (see
+     * {@link #getMaxConcurrentRemoteChunks()}), i.e. copies that finish early pick up further units while slow ones
+     * are still running.
+     *
+     * @param nrChunks the configured number of chunks (including the one processed by the node itself)
+     * @return the number of chunks to create
+     * @since 4.4
+     */
+    public static int getNrChunks(final int nrChunks) {
+        if (System.getProperty(KNIMEConstants.PROPERTY_PARALLEL_CHUNKS_MAX_CONCURRENT) == null) {
+            return nrChunks;
+        }
+        return nrChunks * WORK_UNITS_PER_CHUNK;
+    }
 }
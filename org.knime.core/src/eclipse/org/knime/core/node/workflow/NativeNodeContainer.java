@@ -538,6 +538,22 @@ void performLoadModelSettingsFrom(final NodeSettingsRO modelSettings) throws Inv
     /** {@inheritDoc} */
     @Override
     public NodeContainerExecutionStatus performExecuteNode(final PortObject[] inObjects) {
+        return performExecuteNode(inObjects, null);
+    }
+
+    /**
+     * Same as {@link #performExecuteNode(PortObject[])} but the node model's output is computed by the given delegate,
+     * see {@link Node#execute(PortObject[], ExecutionEnvironment, ExecutionContext, Node.ExecuteDelegate)}.
+     *
+     * @param inObjects the input data, including flow variable port
+     * @param executeDelegate computes the output in place of the node model's execute method, may be
+     *            <code>null</code>
+     * @return the execution status
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public NodeContainerExecutionStatus performExecuteNode(final PortObject[] inObjects,
+        final Node.ExecuteDelegate executeDelegate) {
         ExecutionContext ec = createExecutionContext();
         m_node.openFileStoreHandler(ec);
 
@@ -553,10 +569,13 @@ public NodeContainerExecutionStatus performExecuteNode(final PortObject[] inObje
             success = false;
         }
         NodeContext.pushContext(this);
+        final NodeTimer nodeTimer = getNodeTimer();
+        nodeTimer.startProfiling();
         try {
             // execute node outside any synchronization!
-            success = success && m_node.execute(inObjects, ev, ec);
+            success = success && m_node.execute(inObjects, ev, ec, executeDelegate);
         } finally {
+            nodeTimer.endProfiling(inObjects, success ? getNodeOutputObjects() : null);
             NodeContext.removeLastContext();
         }
         if (success) {
@@ -571,6 +590,15 @@ public NodeContainerExecutionStatus performExecuteNode(final PortObject[] inObje
     }
 
 
+    /** @return the output objects of the node, including the flow variable port (elements may be null). */
+    private PortObject[] getNodeOutputObjects() {
+        PortObject[] result = new PortObject[m_node.getNrOutPorts()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m_node.getOutputObject(i);
+        }
+        return result;
+    }
+
     /* ----------- Reset and Port handling ------------- */
 
     /** {@inheritDoc} */
@@ -194,6 +194,16 @@ public boolean executionInProgress() {
     private final CopyOnWriteArraySet<NodeProgressListener>
         m_progressListeners = new CopyOnWriteArraySet<NodeProgressListener>();
 
+    /** Listeners notified via the {@link NodeEventDispatcher} of the workflow. */
+    private final CopyOnWriteArraySet<NodeStateChangeListener> m_asyncStateChangeListeners =
+        new CopyOnWriteArraySet<NodeStateChangeListener>();
+
+    private final CopyOnWriteArraySet<NodeMessageListener> m_asyncMessageListeners =
+        new CopyOnWriteArraySet<NodeMessageListener>();
+
+    private final CopyOnWriteArraySet<NodeProgressListener> m_asyncProgressListeners =
+        new CopyOnWriteArraySet<NodeProgressListener>();
+
     private final CopyOnWriteArraySet<NodeUIInformationListener> m_uiListeners =
         new CopyOnWriteArraySet<NodeUIInformationListener>();
 
@@ -553,6 +563,9 @@ void performShutdown() {
         m_stateChangeListeners.clear();
         m_messageListeners.clear();
         m_progressListeners.clear();
+        m_asyncStateChangeListeners.clear();
+        m_asyncMessageListeners.clear();
+        m_asyncProgressListeners.clear();
         m_uiListeners.clear();
         m_nodePropertyChangedListeners.clear();
     }
@@ -745,10 +758,15 @@ public NodeProgressMonitor getProgressMonitor() {
      */
     @Override
     public void progressChanged(final NodeProgressEvent pe) {
-        // set our ID as source ID
-        NodeProgressEvent event = new NodeProgressEvent(getID(), pe.getNodeProgress());
-        // forward the event
-        notifyProgressListeners(event);
+        if (!m_progressListeners.isEmpty()) {
+            // set our ID as source ID
+            NodeProgressEvent event = new NodeProgressEvent(getID(), pe.getNodeProgress());
+            // forward the event
+            notifyProgressListeners(event);
+        }
+        if (!m_asyncProgressListeners.isEmpty()) {
+            getNodeEventDispatcher().postProgress(this, pe.getNodeProgress());
+        }
     }
 
     /**
@@ -775,6 +793,38 @@ public boolean removeNodeProgressListener(final NodeProgressListener listener) {
        return m_progressListeners.remove(listener);
    }
 
+   /**
+    * Adds a listener that is notified asynchronously by a dispatcher thread of the workflow. Progress updates are
+    * coalesced, i.e. the listener may only see the latest of a series of quick updates.
+    *
+    * @param listener listener to the node progress
+    * @return true if the listener was not already registered before, false otherwise
+    * @since 4.4
+    */
+   public boolean addAsyncProgressListener(final NodeProgressListener listener) {
+       if (listener == null) {
+           throw new NullPointerException("Node progress listener must not be null");
+       }
+       return m_asyncProgressListeners.add(listener);
+   }
+
+   /**
+    * @param listener existing asynchronous listener to the node progress
+    * @return true if the listener was successfully removed, false if it was not registered
+    * @since 4.4
+    */
+   public boolean removeAsyncProgressListener(final NodeProgressListener listener) {
+       return m_asyncProgressListeners.remove(listener);
+   }
+
+   /** Called by the {@link NodeEventDispatcher}.
+    * @param e the (latest) progress event */
+   final void deliverAsyncProgressEvent(final NodeProgressEvent e) {
+       for (NodeProgressListener l : m_asyncProgressListeners) {
+           l.progressChanged(e);
+       }
+   }
+
    /**
     * Notifies all registered {@link NodeProgressListener}s about the new
     * progress.
@@ -812,6 +862,37 @@ public boolean removeNodeMessageListener(final NodeMessageListener listener) {
        return m_messageListeners.remove(listener);
    }
 
+   /**
+    * Adds a listener that is notified asynchronously (but in order) by a dispatcher thread of the workflow.
+    *
+    * @param listener listener to the node messages (warnings and errors)
+    * @return true if the listener was not already registered, false otherwise
+    * @since 4.4
+    */
+   public boolean addAsyncNodeMessageListener(final NodeMessageListener listener) {
+       if (listener == null) {
+           throw new NullPointerException("Node message listener must not be null!");
+       }
+       return m_asyncMessageListeners.add(listener);
+   }
+
+   /**
+    * @param listener existing asynchronous listener to the node messages
+    * @return true if the listener was successfully removed, false if it was not registered
+    * @since 4.4
+    */
+   public boolean removeAsyncNodeMessageListener(final NodeMessageListener listener) {
+       return m_asyncMessageListeners.remove(listener);
+   }
+
+   /** Called by the {@link NodeEventDispatcher}.
+    * @param e the message event */
+   final void deliverAsyncMessageEvent(final NodeMessageEvent e) {
+       for (NodeMessageListener l : m_asyncMessageListeners) {
+           l.messageChanged(e);
+       }
+   }
+
    /** Get the message to be displayed to the user.
     * @return the node message consisting of type and message, never null. */
    public final NodeMessage getNodeMessage() {
@@ -839,6 +920,9 @@ protected final void notifyMessageListeners(final NodeMessageEvent e) {
        for (NodeMessageListener l : m_messageListeners) {
            l.messageChanged(e);
        }
+       if (!m_asyncMessageListeners.isEmpty()) {
+           getNodeEventDispatcher().postMessageEvent(this, e);
+       }
    }
 
    /* ---------------- UI -----------------*/
@@ -898,6 +982,9 @@ protected void notifyStateChangeListeners(final NodeStateEvent e) {
         for (NodeStateChangeListener l : m_stateChangeListeners) {
             l.stateChanged(e);
         }
+        if (!m_asyncStateChangeListeners.isEmpty()) {
+            getNodeEventDispatcher().postStateEvent(this, e);
+        }
         findChangesTracker().ifPresent(ChangesTracker::nodeStateChange);
     }
 
@@ -916,6 +1003,45 @@ public boolean removeNodeStateChangeListener(final NodeStateChangeListener liste
         return m_stateChangeListeners.remove(listener);
     }
 
+    /**
+     * Adds a listener that is notified asynchronously by a dispatcher thread of the workflow. State changes are
+     * delivered in the order they happened but the state of the node may have changed again when the listener is
+     * called. Use this for listeners that are slow or not needed to keep up with execution (e.g. views).
+     *
+     * @param listener the listener
+     * @return true if the listener was not already registered, false otherwise
+     * @since 4.4
+     */
+    public boolean addAsyncNodeStateChangeListener(final NodeStateChangeListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("Node state change listener must not be null!");
+        }
+        return m_asyncStateChangeListeners.add(listener);
+    }
+
+    /**
+     * @param listener existing asynchronous state listener
+     * @return true if the listener was successfully removed, false if it was not registered
+     * @since 4.4
+     */
+    public boolean removeAsyncNodeStateChangeListener(final NodeStateChangeListener listener) {
+        return m_asyncStateChangeListeners.remove(listener);
+    }
+
+    /** Called by the {@link NodeEventDispatcher}.
+     * @param e the state event */
+    final void deliverAsyncStateEvent(final NodeStateEvent e) {
+        for (NodeStateChangeListener l : m_asyncStateChangeListeners) {
+            l.stateChanged(e);
+        }
+    }
+
+    /** @return the dispatcher of the workflow this node is part of, used for asynchronous listeners. */
+    NodeEventDispatcher getNodeEventDispatcher() {
+        WorkflowManager parent = getParent();
+        return parent == null ? NodeEventDispatcher.getFallbackInstance() : parent.getNodeEventDispatcher();
+    }
+
     /** {@inheritDoc}
      * @since 2.8 */
     @Override
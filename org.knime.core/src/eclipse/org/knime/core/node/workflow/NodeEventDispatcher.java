@@ -0,0 +1,217 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Delivers node state, message and progress events to the asynchronous listeners of the nodes of one workflow
+ * project (see e.g. {@link NodeContainer#addAsyncNodeStateChangeListener(NodeStateChangeListener)}). Events are
+ * queued by the notifying (usually executing) thread and delivered in batches by a dispatcher thread, which means
+ * slow listeners don't delay node execution.
+ *
+ * <p>
+ * State and message events are delivered in the order they were posted. Progress events are coalesced per node:
+ * only the latest progress of a node is kept and the progress of all nodes is delivered by a single drain task,
+ * queued with the first progress after the previous drain. Posting a progress therefore doesn't allocate anything
+ * while a progress of the node is pending. The dispatcher is only used for listener notifications; state propagation
+ * within the workflow (e.g. to the end node of a parallel chunk loop) uses the synchronous listeners.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NodeEventDispatcher {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(NodeEventDispatcher.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /** Shared threads running the dispatch loops of all instances; an instance uses at most one at a time. */
+    private static final Executor DISPATCH_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "KNIME-Node-Event-Dispatcher-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Used for nodes that are not (yet) part of a workflow. */
+    private static final NodeEventDispatcher FALLBACK_INSTANCE = new NodeEventDispatcher();
+
+    private final Queue<Runnable> m_queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean m_isScheduled = new AtomicBoolean();
+
+    private final Coalescer<NodeContainer, NodeProgress> m_progress =
+        createCoalescer((nc, progress) -> nc.deliverAsyncProgressEvent(new NodeProgressEvent(nc.getID(), progress)));
+
+    /** @return instance used for nodes without parent. */
+    static NodeEventDispatcher getFallbackInstance() {
+        return FALLBACK_INSTANCE;
+    }
+
+    /** Queues a state event for the asynchronous state listeners of the argument node.
+     * @param nc the source node
+     * @param event the event
+     */
+    void postStateEvent(final NodeContainer nc, final NodeStateEvent event) {
+        post(() -> nc.deliverAsyncStateEvent(event));
+    }
+
+    /** Queues a message event for the asynchronous message listeners of the argument node.
+     * @param nc the source node
+     * @param event the event
+     */
+    void postMessageEvent(final NodeContainer nc, final NodeMessageEvent event) {
+        post(() -> nc.deliverAsyncMessageEvent(event));
+    }
+
+    /** Records the new progress of the argument node. A previous progress that was not yet delivered is replaced;
+     * the event object is only created on delivery.
+     * @param nc the source node
+     * @param progress the new progress
+     */
+    void postProgress(final NodeContainer nc, final NodeProgress progress) {
+        m_progress.post(nc, progress);
+    }
+
+    /** Queues a notification, notifications are run in the order they were posted.
+     * @param notification the notification to run by the dispatcher thread
+     */
+    void post(final Runnable notification) {
+        m_queue.add(notification);
+        scheduleDispatch();
+    }
+
+    /** Creates a coalescer whose values are delivered by the dispatcher thread of this instance.
+     * @param consumer called with each key and its latest value
+     * @return a new coalescer
+     */
+    <K, V> Coalescer<K, V> createCoalescer(final BiConsumer<K, V> consumer) {
+        return new Coalescer<>(consumer);
+    }
+
+    private void scheduleDispatch() {
+        if (m_isScheduled.compareAndSet(false, true)) {
+            DISPATCH_EXECUTOR.execute(this::dispatch);
+        }
+    }
+
+    /** Delivers all queued events; runs in at most one thread at a time. */
+    private void dispatch() {
+        do {
+            Runnable task;
+            while ((task = m_queue.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable t) { // NOSONAR listeners must not stop the dispatcher
+                    logListenerFailure(t);
+                }
+            }
+            m_isScheduled.set(false);
+            // events posted after the queue was drained but before the flag was reset must not be lost
+        } while (!m_queue.isEmpty() && m_isScheduled.compareAndSet(false, true));
+    }
+
+    private static void logListenerFailure(final Throwable t) {
+        LOGGER.error("Node event listener threw " + t.getClass().getSimpleName() + ": " + t.getMessage(), t);
+    }
+
+    /**
+     * Keeps the latest undelivered value per key. The values of all keys are delivered by one drain task, which is
+     * queued when a value is posted while no drain is pending.
+     *
+     * @param <K> the key type, e.g. the source node
+     * @param <V> the value type
+     */
+    final class Coalescer<K, V> {
+
+        private final Map<K, V> m_latest = new ConcurrentHashMap<>();
+
+        private final AtomicBoolean m_isDrainQueued = new AtomicBoolean();
+
+        private final BiConsumer<K, V> m_consumer;
+
+        private final Runnable m_drain = this::drain;
+
+        private Coalescer(final BiConsumer<K, V> consumer) {
+            m_consumer = consumer;
+        }
+
+        /** Records the value, replacing an undelivered value of the key.
+         * @param key the key
+         * @param value the new value
+         */
+        void post(final K key, final V value) {
+            if (m_latest.put(key, value) == null && m_isDrainQueued.compareAndSet(false, true)) {
+                NodeEventDispatcher.this.post(m_drain);
+            }
+        }
+
+        private void drain() {
+            // values posted from now on either are seen below or queue another drain
+            m_isDrainQueued.set(false);
+            for (final K key : m_latest.keySet()) {
+                final V value = m_latest.remove(key);
+                if (value != null) {
+                    try {
+                        m_consumer.accept(key, value);
+                    } catch (Throwable t) { // NOSONAR listeners must not stop the dispatcher
+                        logListenerFailure(t);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -53,13 +53,20 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
 import java.net.URLEncoder;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.json.Json;
 import javax.json.JsonArray;
@@ -81,6 +88,7 @@
 import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
@@ -97,7 +105,9 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
 import org.knime.core.util.EclipseUtil;
+import org.knime.core.util.ThreadUtils;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
@@ -110,6 +120,13 @@
  * Holds execution timing information about a specific node. It also defines a static global
  * member that is used to collect node stats for this KNIME instance.
  *
+ * <p>For native nodes the timer also records a resource profile of the last execution
+ * ({@link #getLastExecutionProfile()}): CPU time and allocated bytes of the executing thread and, separately, of the
+ * tasks the node ran in worker threads, rows per input and output port, bytes written and read by table buffers, the
+ * number of buffers spilled to disk and the time spent waiting for the workflow lock. Profiles of many nodes can be
+ * summarized in a table ({@link #createProfileTable(Collection, ExecutionContext)}) or as JSON
+ * ({@link #createProfileJSON(Collection)}).
+ *
  * @noreference This class is not intended to be referenced by clients.
  * @author Michael Berthold
  * @since 2.12
@@ -134,6 +151,16 @@ public final class NodeTimer {
     private int m_numberOfExecutionsSinceReset;
     private int m_numberOfExecutionsOverall;
 
+    /** Profile of the last completed execution, null if not profiled yet. */
+    private volatile ExecutionProfile m_lastExecutionProfile;
+    /** Counters of the currently running (profiled) execution, null if none. */
+    private ResourceUsage m_currentUsage;
+    /** Counters that were current in the executing thread before profiling started (nested execution), or null. */
+    private ResourceUsage m_previousUsage;
+    private long m_profileStartNanos;
+    private long m_profileStartCpuNanos;
+    private long m_profileStartAllocatedBytes;
+
     /**
      * Container holding stats for the entire instance and all nodes that have been used/timed.
      */
@@ -720,6 +747,358 @@ private Integer compareVersionString(final String str1, final String str2)
 
     public static final GlobalNodeStats GLOBAL_TIMER = new GlobalNodeStats();
 
+    /**
+     * Thread-safe counters collected while a node executes. The instance of the executing thread is available via
+     * {@link #current()}; objects that do work on behalf of a node in other threads (e.g. asynchronous table writes)
+     * keep a reference to the instance that was current when they were created. Tasks submitted via {@link ThreadUtils}
+     * (which includes the {@link KNIMEConstants#GLOBAL_THREAD_POOL}) run with the counters of the submitting node
+     * installed and add their CPU time and allocated bytes to it, see {@link #startWorker(ResourceUsage)}.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public static final class ResourceUsage {
+
+        private static final ThreadLocal<ResourceUsage> CURRENT = new ThreadLocal<>();
+
+        private final LongAdder m_bytesWritten = new LongAdder();
+        private final LongAdder m_bytesRead = new LongAdder();
+        private final LongAdder m_spillCount = new LongAdder();
+        private final LongAdder m_lockWaitNanos = new LongAdder();
+        private final LongAdder m_workerCpuNanos = new LongAdder();
+        private final LongAdder m_workerAllocatedBytes = new LongAdder();
+
+        ResourceUsage() {
+        }
+
+        /**
+         * Installs the argument counters as the current ones of the calling (worker) thread until the returned scope
+         * is closed. Closing the scope adds the CPU time and the bytes allocated by the thread in the meantime to the
+         * counters and restores the previous ones.
+         *
+         * @param usage the counters of the node that submitted the task, may be null
+         * @return the scope to close when the task is done, or null if there is nothing to record (no counters or
+         *         the task runs in the thread that executes the node)
+         */
+        public static WorkerScope startWorker(final ResourceUsage usage) {
+            final ResourceUsage previous = CURRENT.get();
+            if (usage == null || usage == previous) {
+                return null;
+            }
+            final WorkerScope scope = new WorkerScope(usage, previous);
+            CURRENT.set(usage);
+            return scope;
+        }
+
+        /** @return the counters of the node executing in the current thread or null if none is profiled. */
+        public static ResourceUsage current() {
+            return CURRENT.get();
+        }
+
+        /** @param bytes number of bytes written to disk on behalf of the node */
+        public void addBytesWritten(final long bytes) {
+            m_bytesWritten.add(bytes);
+        }
+
+        /** @param bytes number of bytes read from disk on behalf of the node */
+        public void addBytesRead(final long bytes) {
+            m_bytesRead.add(bytes);
+        }
+
+        /** Records that an in-memory table had to be written to disk. */
+        public void addSpill() {
+            m_spillCount.increment();
+        }
+
+        /** @param nanos time spent waiting for a lock */
+        public void addLockWaitNanos(final long nanos) {
+            m_lockWaitNanos.add(nanos);
+        }
+
+        /** A task running on behalf of a node in a worker thread, see {@link #startWorker(ResourceUsage)}. */
+        public static final class WorkerScope implements AutoCloseable {
+
+            private final ResourceUsage m_usage;
+            private final ResourceUsage m_previous;
+            private final long m_startCpuNanos;
+            private final long m_startAllocatedBytes;
+
+            private WorkerScope(final ResourceUsage usage, final ResourceUsage previous) {
+                m_usage = usage;
+                m_previous = previous;
+                m_startCpuNanos = getCurrentThreadCpuTime();
+                m_startAllocatedBytes = getCurrentThreadAllocatedBytes();
+            }
+
+            @Override
+            public void close() {
+                final long cpuNanos = delta(m_startCpuNanos, getCurrentThreadCpuTime());
+                final long allocatedBytes = delta(m_startAllocatedBytes, getCurrentThreadAllocatedBytes());
+                if (cpuNanos >= 0) {
+                    m_usage.m_workerCpuNanos.add(cpuNanos);
+                }
+                if (allocatedBytes >= 0) {
+                    m_usage.m_workerAllocatedBytes.add(allocatedBytes);
+                }
+                if (m_previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(m_previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resource profile of a single node execution. Values that could not be determined (e.g. CPU time if not
+     * supported by the JVM) are -1.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public static final class ExecutionProfile {
+
+        private final long m_startTime;
+        private final long m_wallTimeNanos;
+        private final long m_cpuTimeNanos;
+        private final long m_allocatedBytes;
+        private final long m_workerCpuTimeNanos;
+        private final long m_workerAllocatedBytes;
+        private final long[] m_rowsIn;
+        private final long[] m_rowsOut;
+        private final long m_bytesWritten;
+        private final long m_bytesRead;
+        private final long m_spillCount;
+        private final long m_lockWaitNanos;
+
+        ExecutionProfile(final long startTime, final long wallTimeNanos, final long cpuTimeNanos,
+            final long allocatedBytes, final long[] rowsIn, final long[] rowsOut, final ResourceUsage usage) {
+            m_startTime = startTime;
+            m_wallTimeNanos = wallTimeNanos;
+            m_cpuTimeNanos = cpuTimeNanos;
+            m_allocatedBytes = allocatedBytes;
+            m_rowsIn = rowsIn;
+            m_rowsOut = rowsOut;
+            m_bytesWritten = usage.m_bytesWritten.sum();
+            m_bytesRead = usage.m_bytesRead.sum();
+            m_spillCount = usage.m_spillCount.sum();
+            m_lockWaitNanos = usage.m_lockWaitNanos.sum();
+            m_workerCpuTimeNanos = usage.m_workerCpuNanos.sum();
+            m_workerAllocatedBytes = usage.m_workerAllocatedBytes.sum();
+        }
+
+        /** @return start of the execution as per {@link System#currentTimeMillis()} */
+        public long getStartTime() {
+            return m_startTime;
+        }
+
+        /** @return elapsed time of the execution in nanoseconds */
+        public long getWallTimeNanos() {
+            return m_wallTimeNanos;
+        }
+
+        /** @return CPU time consumed by the executing thread in nanoseconds (without worker threads), or -1 */
+        public long getCpuTimeNanos() {
+            return m_cpuTimeNanos;
+        }
+
+        /** @return bytes allocated by the executing thread (without worker threads), or -1 */
+        public long getAllocatedBytes() {
+            return m_allocatedBytes;
+        }
+
+        /**
+         * @return CPU time in nanoseconds consumed by tasks the node submitted to other threads via {@link ThreadUtils}
+         *         (e.g. the global thread pool) and that completed before the execution ended; work in threads created
+         *         otherwise is not included
+         */
+        public long getWorkerCpuTimeNanos() {
+            return m_workerCpuTimeNanos;
+        }
+
+        /** @return bytes allocated by the tasks counted in {@link #getWorkerCpuTimeNanos()} */
+        public long getWorkerAllocatedBytes() {
+            return m_workerAllocatedBytes;
+        }
+
+        /** @return number of rows per input port (index 0 is the flow variable port), -1 for non-table ports */
+        public long[] getRowsIn() {
+            return m_rowsIn.clone();
+        }
+
+        /** @return number of rows per output port (index 0 is the flow variable port), -1 for non-table ports */
+        public long[] getRowsOut() {
+            return m_rowsOut.clone();
+        }
+
+        /** @return number of rows summed over all input tables */
+        public long getTotalRowsIn() {
+            return sumRows(m_rowsIn);
+        }
+
+        /** @return number of rows summed over all output tables */
+        public long getTotalRowsOut() {
+            return sumRows(m_rowsOut);
+        }
+
+        /** @return bytes written to disk by tables created during the execution */
+        public long getBytesWritten() {
+            return m_bytesWritten;
+        }
+
+        /** @return bytes read from disk by table iterators opened during the execution */
+        public long getBytesRead() {
+            return m_bytesRead;
+        }
+
+        /** @return number of tables that had to be moved from memory to disk while being written */
+        public long getSpillCount() {
+            return m_spillCount;
+        }
+
+        /** @return time the executing thread waited for the workflow lock in nanoseconds */
+        public long getLockWaitNanos() {
+            return m_lockWaitNanos;
+        }
+
+        /** @return the profile as JSON object */
+        public JsonObject toJSON() {
+            JsonArrayBuilder rowsIn = Json.createArrayBuilder();
+            Arrays.stream(m_rowsIn).forEach(rowsIn::add);
+            JsonArrayBuilder rowsOut = Json.createArrayBuilder();
+            Arrays.stream(m_rowsOut).forEach(rowsOut::add);
+            return Json.createObjectBuilder() //
+                .add("startTime", m_startTime) //
+                .add("wallTimeNanos", m_wallTimeNanos) //
+                .add("cpuTimeNanos", m_cpuTimeNanos) //
+                .add("allocatedBytes", m_allocatedBytes) //
+                .add("workerCpuTimeNanos", m_workerCpuTimeNanos) //
+                .add("workerAllocatedBytes", m_workerAllocatedBytes) //
+                .add("rowsIn", rowsIn) //
+                .add("rowsOut", rowsOut) //
+                .add("bytesWritten", m_bytesWritten) //
+                .add("bytesRead", m_bytesRead) //
+                .add("spills", m_spillCount) //
+                .add("lockWaitNanos", m_lockWaitNanos) //
+                .build();
+        }
+
+        private static long sumRows(final long[] rows) {
+            return Arrays.stream(rows).filter(r -> r > 0).sum();
+        }
+    }
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    /** com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long), looked up reflectively as it's not part of
+     * the public API (and the package is not necessarily visible to this bundle); null if not available. */
+    private static final Method GET_THREAD_ALLOCATED_BYTES = findGetThreadAllocatedBytesMethod();
+
+    private static Method findGetThreadAllocatedBytesMethod() {
+        for (Class<?> cl : THREAD_MX_BEAN.getClass().getInterfaces()) {
+            try {
+                return cl.getMethod("getThreadAllocatedBytes", long.class);
+            } catch (NoSuchMethodException | SecurityException e) { // NOSONAR
+                // try next interface
+            }
+        }
+        return null;
+    }
+
+    private static long getCurrentThreadCpuTime() {
+        try {
+            return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+        } catch (UnsupportedOperationException e) { // NOSONAR
+            return -1;
+        }
+    }
+
+    private static long getCurrentThreadAllocatedBytes() {
+        if (GET_THREAD_ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            return (Long)GET_THREAD_ALLOCATED_BYTES.invoke(THREAD_MX_BEAN, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | RuntimeException e) { // NOSONAR
+            return -1;
+        }
+    }
+
+    /**
+     * @return the spec of the table created by {@link #createProfileTable(Collection, ExecutionContext)}
+     * @since 4.4
+     */
+    public static DataTableSpec getProfileTableSpec() {
+        return new DataTableSpecCreator().addColumns(
+            new DataColumnSpecCreator("Node ID", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Node Name", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Wall Time (ms)", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("CPU Time (ms)", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Allocated Bytes", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Worker CPU Time (ms)", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Worker Allocated Bytes", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows In", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows Out", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Bytes Written", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Bytes Read", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Spills", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Lock Wait (ms)", LongCell.TYPE).createSpec()).createSpec();
+    }
+
+    /**
+     * Creates a table with one row per profiled node, containing the profile of its last execution. Nodes that
+     * were not profiled (yet) are skipped.
+     *
+     * @param nodes the nodes to summarize
+     * @param exec to create the table
+     * @return a new table with spec {@link #getProfileTableSpec()}
+     * @since 4.4
+     */
+    public static BufferedDataTable createProfileTable(final Collection<? extends NodeContainer> nodes,
+        final ExecutionContext exec) {
+        BufferedDataContainer result = exec.createDataContainer(getProfileTableSpec());
+        for (NodeContainer nc : nodes) {
+            ExecutionProfile p = nc.getNodeTimer().getLastExecutionProfile();
+            if (p != null) {
+                result.addRowToTable(new DefaultRow(RowKey.createRowKey(result.size()),
+                    new StringCell(nc.getID().toString()), new StringCell(nc.getName()),
+                    toLongCell(TimeUnit.NANOSECONDS.toMillis(p.getWallTimeNanos())),
+                    toLongCell(p.getCpuTimeNanos() < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(p.getCpuTimeNanos())),
+                    toLongCell(p.getAllocatedBytes()),
+                    toLongCell(TimeUnit.NANOSECONDS.toMillis(p.getWorkerCpuTimeNanos())),
+                    toLongCell(p.getWorkerAllocatedBytes()), toLongCell(p.getTotalRowsIn()),
+                    toLongCell(p.getTotalRowsOut()), toLongCell(p.getBytesWritten()), toLongCell(p.getBytesRead()),
+                    toLongCell(p.getSpillCount()), toLongCell(TimeUnit.NANOSECONDS.toMillis(p.getLockWaitNanos()))));
+            }
+        }
+        result.close();
+        return result.getTable();
+    }
+
+    private static DataCell toLongCell(final long value) {
+        return value < 0 ? DataType.getMissingCell() : new LongCell(value);
+    }
+
+    /**
+     * Creates a JSON object with the profiles of the last execution of the argument nodes, keyed by node ID.
+     * Nodes that were not profiled (yet) are skipped.
+     *
+     * @param nodes the nodes to summarize
+     * @return a new JSON object
+     * @since 4.4
+     */
+    public static JsonObject createProfileJSON(final Collection<? extends NodeContainer> nodes) {
+        JsonObjectBuilder job = Json.createObjectBuilder();
+        for (NodeContainer nc : nodes) {
+            ExecutionProfile p = nc.getNodeTimer().getLastExecutionProfile();
+            if (p != null) {
+                job.add(nc.getID().toString(),
+                    Json.createObjectBuilder().add("name", nc.getName()).add("profile", p.toJSON()));
+            }
+        }
+        return job.build();
+    }
+
     private static String getCanonicalName(final NodeContainer nc) {
         String cname = "NodeContainer";
         if (nc instanceof NativeNodeContainer) {
@@ -784,6 +1163,66 @@ private void initialize() {
         m_executionDurationOverall = 0;
     }
 
+    /**
+     * @return the resource profile of the last execution or null if the node wasn't profiled (yet). Only native nodes
+     *         are profiled.
+     * @since 4.4
+     */
+    public ExecutionProfile getLastExecutionProfile() {
+        return m_lastExecutionProfile;
+    }
+
+    /** Starts profiling; to be called by the thread executing the node, followed by
+     * {@link #endProfiling(PortObject[], PortObject[])} in the same thread. If another node is profiled in the same
+     * thread (a node executing other nodes synchronously), its counters are restored when profiling ends. */
+    void startProfiling() {
+        m_previousUsage = ResourceUsage.CURRENT.get();
+        m_currentUsage = new ResourceUsage();
+        ResourceUsage.CURRENT.set(m_currentUsage);
+        m_profileStartAllocatedBytes = getCurrentThreadAllocatedBytes();
+        m_profileStartCpuNanos = getCurrentThreadCpuTime();
+        m_profileStartNanos = System.nanoTime();
+    }
+
+    /** Ends profiling started by {@link #startProfiling()} and publishes the profile.
+     * @param inObjects the input of the node (elements may be null)
+     * @param outObjects the output of the node (null or elements null if execution failed)
+     */
+    void endProfiling(final PortObject[] inObjects, final PortObject[] outObjects) {
+        final long wallTime = System.nanoTime() - m_profileStartNanos;
+        final long cpuTime = getCurrentThreadCpuTime();
+        final long allocatedBytes = getCurrentThreadAllocatedBytes();
+        if (m_previousUsage == null) {
+            ResourceUsage.CURRENT.remove();
+        } else {
+            ResourceUsage.CURRENT.set(m_previousUsage);
+            m_previousUsage = null;
+        }
+        if (m_currentUsage == null) {
+            return;
+        }
+        m_lastExecutionProfile = new ExecutionProfile(System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(
+            wallTime), wallTime, delta(m_profileStartCpuNanos, cpuTime),
+            delta(m_profileStartAllocatedBytes, allocatedBytes), rowCounts(inObjects), rowCounts(outObjects),
+            m_currentUsage);
+        m_currentUsage = null;
+    }
+
+    private static long delta(final long start, final long end) {
+        return start < 0 || end < 0 ? -1 : end - start;
+    }
+
+    private static long[] rowCounts(final PortObject[] objects) {
+        if (objects == null) {
+            return new long[0];
+        }
+        long[] result = new long[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            result[i] = objects[i] instanceof BufferedDataTable ? ((BufferedDataTable)objects[i]).size() : -1;
+        }
+        return result;
+    }
+
     public void resetNode() {
         m_numberOfExecutionsSinceReset = 0;
         m_executionDurationSinceReset = 0;
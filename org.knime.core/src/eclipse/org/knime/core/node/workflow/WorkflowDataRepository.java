@@ -60,6 +60,7 @@
 
 import org.knime.core.data.IDataRepository;
 import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.filestore.internal.ContentDeduplicationIndex;
 import org.knime.core.data.filestore.internal.IFileStoreHandler;
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 import org.knime.core.node.BufferedDataTable;
@@ -89,6 +90,9 @@ public class WorkflowDataRepository implements IDataRepository {
 
     private final ConcurrentHashMap<UUID, IWriteFileStoreHandler> m_handlerMap;
 
+    /** Workflow-wide index of file store content, null if deduplication is disabled. */
+    private final ContentDeduplicationIndex m_contentDeduplicationIndex;
+
     /**
      * internal ID for any generated buffered data table.
      */
@@ -99,6 +103,8 @@ public class WorkflowDataRepository implements IDataRepository {
         // (problems with GroupLoop start "forgetting" its sorted table)
         m_globalTableRepository = Collections.synchronizedMap(new HashMap<Integer, ContainerTable>());
         m_handlerMap = new ConcurrentHashMap<UUID, IWriteFileStoreHandler>();
+        m_contentDeduplicationIndex =
+            ContentDeduplicationIndex.isEnabled() ? new ContentDeduplicationIndex() : null;
     }
 
     /**
@@ -204,6 +210,12 @@ public void printValidFileStoreHandlersToLogDebug() {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Optional<ContentDeduplicationIndex> getContentDeduplicationIndex() {
+        return Optional.ofNullable(m_contentDeduplicationIndex);
+    }
+
     public Collection<IWriteFileStoreHandler> getWriteFileStoreHandlers() {
         return m_handlerMap.values();
     }
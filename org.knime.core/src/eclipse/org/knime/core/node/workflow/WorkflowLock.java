@@ -119,7 +119,14 @@ boolean isHeldByCurrentThread() {
      * @return this.
      */
     public WorkflowLock lock() {
-        m_reentrantLock.lock();
+        if (!m_reentrantLock.tryLock()) {
+            final NodeTimer.ResourceUsage usage = NodeTimer.ResourceUsage.current();
+            final long start = usage != null ? System.nanoTime() : 0L;
+            m_reentrantLock.lock();
+            if (usage != null) {
+                usage.addLockWaitNanos(System.nanoTime() - start);
+            }
+        }
         if (KNIMEConstants.ASSERTIONS_ENABLED) {
             hasNoChildLocked();
         }
@@ -96,6 +96,7 @@
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
@@ -227,6 +228,9 @@ public final class WorkflowManager extends NodeContainer
      */
     private String m_name;
 
+    /** Dispatcher for asynchronous node event listeners, lazily created (only used in project workflows). */
+    private final AtomicReference<NodeEventDispatcher> m_nodeEventDispatcher = new AtomicReference<>();
+
     /** Executor for asynchronous event notification. */
     private static final Executor WORKFLOW_NOTIFIER = Executors.newSingleThreadExecutor(new ThreadFactory() {
         /** {@inheritDoc} */
@@ -1058,6 +1062,21 @@ private WorkflowManager createAndAddSubWorkflow(final PortType[] inPorts, final
         return wfm;
     }
 
+    /** {@inheritDoc} One dispatcher is shared by all nodes of a project. */
+    @Override
+    NodeEventDispatcher getNodeEventDispatcher() {
+        final WorkflowManager parent = getParent();
+        if (parent != null && !isProject()) {
+            return parent.getNodeEventDispatcher();
+        }
+        NodeEventDispatcher dispatcher = m_nodeEventDispatcher.get();
+        if (dispatcher == null) {
+            m_nodeEventDispatcher.compareAndSet(null, new NodeEventDispatcher());
+            dispatcher = m_nodeEventDispatcher.get();
+        }
+        return dispatcher;
+    }
+
     /**
      * Returns true if this workflow manager is a project (which usually means that the parent is {@link #ROOT}). It
      * returns false if this workflow is only a metanode in another metanode or project.
@@ -3633,14 +3652,20 @@ private void parallelizeLoop(final NodeID startID) throws IllegalLoopException {
                     }
                 }
             }
-            ParallelizedChunkContentMaster pccm =
-                new ParallelizedChunkContentMaster(subwfm, endNode, startNode.getNrRemoteChunks());
-            for (int i = 0; i < startNode.getNrRemoteChunks(); i++) {
+            // results of chunks whose loop body copy is reused are taken over by the start node, i.e. their tables
+            // and file stores are disposed when the start node is reset (after the end node consumed them)
+            final Node startNodeInstance = ((NativeNodeContainer)getNodeContainer(startID)).getNode();
+            ParallelizedChunkContentMaster pccm = new ParallelizedChunkContentMaster(subwfm, endNode,
+                startNode.getNrRemoteChunks(), startNode.getMaxConcurrentRemoteChunks(),
+                startNode::getVirtualNodeInput, (content, owners) -> startNodeInstance.takeOverResults(content,
+                    owners, getWorkflowDataRepository()));
+            for (int i = 0; i < pccm.nrBodyCopies(); i++) {
                 ParallelizedChunkContent copiedNodes =
                     duplicateLoopBodyInSubWFMandAttach(subwfm, extInConnections, startID, endID, loopNodes, i);
-                copiedNodes.executeChunk();
                 pccm.addParallelChunk(i, copiedNodes);
             }
+            // starts all body copies; if limited the remaining chunks follow as copies finish
+            pccm.executeChunks();
             // make sure head knows his chunk master (for potential cleanup)
             startNode.setChunkMaster(pccm);
         }
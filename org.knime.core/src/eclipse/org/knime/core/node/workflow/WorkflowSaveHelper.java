@@ -51,6 +51,8 @@
 import java.io.File;
 
 import org.knime.core.internal.ReferencedFile;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.util.CheckUtils;
 
 /**
  * Helper object to specify options when workflow gets saved.
@@ -59,9 +61,14 @@
  */
 public final class WorkflowSaveHelper {
 
+    /** Default for {@link #getNodeSaveThreadCount()}, see {@link KNIMEConstants#PROPERTY_WORKFLOW_SAVE_THREADS}. */
+    private static final int DEFAULT_NODE_SAVE_THREAD_COUNT =
+        Math.max(1, Integer.getInteger(KNIMEConstants.PROPERTY_WORKFLOW_SAVE_THREADS, 1));
+
     private boolean m_saveData;
     private boolean m_isAutoSave;
     private boolean m_isSaveWizardController;
+    private int m_nodeSaveThreadCount;
 
     /**
      * @param saveData ...
@@ -71,6 +78,7 @@ public WorkflowSaveHelper(final boolean saveData, final boolean isAutoSave) {
         m_saveData = saveData;
         m_isAutoSave = isAutoSave;
         m_isSaveWizardController = false;
+        m_nodeSaveThreadCount = DEFAULT_NODE_SAVE_THREAD_COUNT;
     }
 
     /** @return the saveData */
@@ -106,6 +114,23 @@ public WorkflowSaveHelper setSaveWizardController(final boolean value) {
         return this;
     }
 
+    /** @return the number of threads used to save the (dirty) native nodes of a workflow, 1 if saved sequentially;
+     * defaults to the value of {@link KNIMEConstants#PROPERTY_WORKFLOW_SAVE_THREADS} (1 if not set)
+     * @since 4.4 */
+    public int getNodeSaveThreadCount() {
+        return m_nodeSaveThreadCount;
+    }
+    /** Sets the number of threads used to save native nodes concurrently. Only nodes whose directory is dirty are
+     * actually written (incremental save), metanodes and components are always saved by the calling thread.
+     * @param threadCount the number of threads, must be &gt;= 1 (1 = sequential save)
+     * @return this (for method chaining).
+     * @since 4.4 */
+    public WorkflowSaveHelper setNodeSaveThreadCount(final int threadCount) {
+        CheckUtils.checkArgument(threadCount >= 1, "Thread count must be >= 1: %d", threadCount);
+        m_nodeSaveThreadCount = threadCount;
+        return this;
+    }
+
     public static File getAutoSaveDirectory(final ReferencedFile workflowDir) {
         File f = workflowDir.getFile();
         return new File(f.getParentFile(), "." + f.getName() + ".autoSave");
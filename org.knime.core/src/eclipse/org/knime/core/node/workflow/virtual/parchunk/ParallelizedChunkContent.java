@@ -48,8 +48,15 @@
  */
 package org.knime.core.node.workflow.virtual.parchunk;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.knime.core.node.Node;
 import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
 import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.SubNodeContainer;
 import org.knime.core.node.workflow.WorkflowManager;
 
 /**
@@ -63,6 +70,9 @@ public final class ParallelizedChunkContent {
 	private final NodeID m_virtualInputID;
 	private final NodeID m_virtualOutputID;
 	private final NodeID[] m_copiedLoopContent;
+	/** Results of a chunk whose loop body copy was reused for another chunk, see {@link #retained(PortObject[])}. */
+	private final PortObject[] m_retainedContent;
+	private final boolean m_isRetained;
 
 	/**
 	 * @param manager
@@ -84,6 +94,68 @@ public ParallelizedChunkContent(final WorkflowManager manager,
 		m_virtualInputID = virtualInputID;
 		m_virtualOutputID = virtualOutputID;
 		m_copiedLoopContent = copiedLoopContent;
+		m_retainedContent = null;
+		m_isRetained = false;
+	}
+
+	private ParallelizedChunkContent(final PortObject[] retainedContent) {
+		m_manager = null;
+		m_virtualInputID = null;
+		m_virtualOutputID = null;
+		m_copiedLoopContent = new NodeID[0];
+		m_retainedContent = retainedContent;
+		m_isRetained = true;
+	}
+
+	/**
+	 * Creates the content of a finished chunk that is no longer backed by nodes (its loop body copy is reused for
+	 * another chunk).
+	 *
+	 * @param content the (taken over) results of the chunk or <code>null</code> if the chunk failed
+	 * @return a new chunk content that is executed (or failed)
+	 */
+	static ParallelizedChunkContent retained(final PortObject[] content) {
+		return new ParallelizedChunkContent(content);
+	}
+
+	/**
+	 * Resets the nodes of this chunk and sets the input of another chunk so that the loop body copy can be executed
+	 * again (see {@link #executeChunk()}).
+	 *
+	 * @param input the input of the chunk to process next
+	 */
+	void resetForReuse(final VirtualParallelizedChunkNodeInput input) {
+		m_manager.resetAndConfigureNode(m_virtualInputID);
+		m_manager.castNodeModel(m_virtualInputID, VirtualParallelizedChunkPortObjectInNodeModel.class)
+				.setVirtualNodeInput(input);
+	}
+
+	/**
+	 * @return the nodes of this chunk, including the ones in metanodes and components (empty if the chunk is no
+	 *         longer backed by nodes)
+	 */
+	Set<Node> getNodes() {
+		final Set<Node> nodes = new HashSet<>();
+		if (m_manager != null) {
+			collectNodes(m_manager.getNodeContainer(m_virtualInputID), nodes);
+			for (NodeID id : m_copiedLoopContent) {
+				collectNodes(m_manager.getNodeContainer(id), nodes);
+			}
+			collectNodes(m_manager.getNodeContainer(m_virtualOutputID), nodes);
+		}
+		return nodes;
+	}
+
+	private static void collectNodes(final NodeContainer nc, final Set<Node> nodes) {
+		if (nc instanceof NativeNodeContainer) {
+			nodes.add(((NativeNodeContainer)nc).getNode());
+		} else if (nc instanceof SubNodeContainer) {
+			collectNodes(((SubNodeContainer)nc).getWorkflowManager(), nodes);
+		} else if (nc instanceof WorkflowManager) {
+			for (NodeContainer child : ((WorkflowManager)nc).getNodeContainers()) {
+				collectNodes(child, nodes);
+			}
+		}
 	}
 
 	/**
@@ -144,6 +216,9 @@ public void removeAllNodesFromWorkflow() {
      * @return true if chunk is completely executed.
      */
     public boolean isExecuted() {
+        if (m_isRetained) {
+            return m_retainedContent != null;
+        }
         return m_manager.getNodeContainer(m_virtualOutputID).getNodeContainerState().isExecuted();
     }
 
@@ -151,6 +226,9 @@ public boolean isExecuted() {
      * @return true if chunk is still being executed (or waiting to be...)
      */
     public boolean executionInProgress() {
+        if (m_isRetained) {
+            return false;
+        }
         return m_manager.getNodeContainer(m_virtualOutputID).getNodeContainerState().isExecutionInProgress();
     }
 
@@ -158,6 +236,9 @@ public boolean executionInProgress() {
      * Cancel execution.
      */
     public void cancelExecution() {
+        if (m_isRetained) {
+            return;
+        }
         m_manager.cancelExecution(m_manager.getNodeContainer(m_virtualInputID));
         for (NodeID id : m_copiedLoopContent) {
             m_manager.cancelExecution(m_manager.getNodeContainer(id));
@@ -170,6 +251,9 @@ public void cancelExecution() {
      * @return array with PortObjects at the end node of this chunk.
      */
     public PortObject[] getOutportContent() {
+        if (m_isRetained) {
+            return m_retainedContent;
+        }
         VirtualParallelizedChunkPortObjectOutNodeModel vpoonm = m_manager.castNodeModel(
                 m_virtualOutputID, VirtualParallelizedChunkPortObjectOutNodeModel.class);
         return vpoonm.getOutObjects();
@@ -48,6 +48,19 @@
  */
 package org.knime.core.node.workflow.virtual.parchunk;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.LoopEndParallelizeNode;
 import org.knime.core.node.workflow.NodeContainer;
 import org.knime.core.node.workflow.NodeStateChangeListener;
@@ -57,12 +70,48 @@
 /**
  * Represents all parallel chunks ({@link ParallelizedChunkContent}) together and also encapsulating metanode.
  *
+ * <p>
+ * The number of chunks executing at the same time can be limited (see
+ * {@link #ParallelizedChunkContentMaster(WorkflowManager, LoopEndParallelizeNode, int, int, IntFunction,
+ * ContentRetainer)}). In that case only that many copies of the loop body are created ({@link #nrBodyCopies()}).
+ * Whenever a copy has finished its chunk, the chunk's results are retained (taken over by another node, not copied)
+ * and the copy is reset and executed on the next pending chunk, i.e. fast copies pull the next chunk while slow ones
+ * are still running.
+ *
  * @author M. Berthold, University of Konstanz
  */
 public class ParallelizedChunkContentMaster implements NodeStateChangeListener {
 
-    /** Individual chunks. */
-    private ParallelizedChunkContent[] m_chunks;
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ParallelizedChunkContentMaster.class);
+
+    /**
+     * Retains the results of a chunk so that they are still available after the loop body copy that computed them
+     * has been reset, including the file stores referenced by them.
+     *
+     * @since 4.4
+     */
+    @FunctionalInterface
+    public interface ContentRetainer {
+
+        /**
+         * @param content the results of the chunk (as per {@link ParallelizedChunkContent#getOutportContent()})
+         * @param owners the nodes of the loop body copy that created the results
+         * @throws Exception if the results can't be retained
+         */
+        void retain(PortObject[] content, Set<Node> owners) throws Exception;
+    }
+
+    /** Individual chunks, in order (the content of a finished chunk is replaced once its body copy is reused). */
+    private final AtomicReferenceArray<ParallelizedChunkContent> m_chunks;
+
+    /** Copies of the loop body, at most as many as chunks. */
+    private final ParallelizedChunkContent[] m_bodies;
+
+    /** Index of the chunk each body copy is currently assigned to - guarded by m_pendingChunks. */
+    private final int[] m_bodyChunks;
+
+    /** Chunks not yet assigned to a body copy, in chunk order - also used as lock for dispatching. */
+    private final Deque<Integer> m_pendingChunks = new ArrayDeque<>();
 
     /** metanode container for all chunks. */
     private WorkflowManager m_manager;
@@ -70,6 +119,32 @@ public class ParallelizedChunkContentMaster implements NodeStateChangeListener {
     /** end node waiting for chunks. */
     private LoopEndParallelizeNode m_endNode;
 
+    /** Provides the input of a chunk when a body copy is reused, null if copies are not reused. */
+    private final IntFunction<VirtualParallelizedChunkNodeInput> m_chunkInputs;
+
+    /** Retains the results of a chunk before its body copy is reused, null if copies are not reused. */
+    private final ContentRetainer m_contentRetainer;
+
+    /** Chunk not started yet. */
+    private static final int PENDING = 0;
+
+    /** Chunk about to be started (executeChunk not yet returned). */
+    private static final int STARTING = 1;
+
+    /** Chunk was started, its state is determined by its content. */
+    private static final int STARTED = 2;
+
+    /** Chunk was never started due to cancelation (or its body copy could not be reused). */
+    private static final int SKIPPED = 3;
+
+    /** Dispatch state of each chunk, one of the constants above. */
+    private final AtomicIntegerArray m_dispatchStates;
+
+    private volatile boolean m_isCanceled;
+
+    /** Whether a task reusing idle body copies is queued but not started yet. */
+    private final AtomicBoolean m_isDispatchScheduled = new AtomicBoolean();
+
     /** Create new chunk object master - also knows Workflowmanager
      * the chunks are located in.
      *
@@ -79,22 +154,55 @@ public class ParallelizedChunkContentMaster implements NodeStateChangeListener {
      */
     public ParallelizedChunkContentMaster(final WorkflowManager wfm,
             final LoopEndParallelizeNode endNode, final int chunkCount) {
+        this(wfm, endNode, chunkCount, chunkCount, null, null);
+    }
+
+    /** Create new chunk object master that executes at most <code>maxConcurrentChunks</code> chunks at a time,
+     * using as many copies of the loop body.
+     *
+     * @param wfm the workflowmanager holding the chunks - can be <code>null</code> if no 'remote' chunks are available
+     * @param endNode corresponding end node of the loop
+     * @param chunkCount the number of chunks.
+     * @param maxConcurrentChunks the maximum number of chunks being executed at the same time (values smaller 1 are
+     *            treated as 1)
+     * @param chunkInputs provides the input of a chunk when a body copy is reused, may only be <code>null</code> if
+     *            <code>maxConcurrentChunks</code> is not smaller than <code>chunkCount</code>
+     * @param contentRetainer retains the results of a chunk before its body copy is reused, may only be
+     *            <code>null</code> if <code>maxConcurrentChunks</code> is not smaller than <code>chunkCount</code>
+     * @since 4.4
+     */
+    public ParallelizedChunkContentMaster(final WorkflowManager wfm, final LoopEndParallelizeNode endNode,
+        final int chunkCount, final int maxConcurrentChunks,
+        final IntFunction<VirtualParallelizedChunkNodeInput> chunkInputs, final ContentRetainer contentRetainer) {
+        final int bodyCount = Math.min(chunkCount, Math.max(1, maxConcurrentChunks));
+        CheckUtils.checkArgument(bodyCount == chunkCount || (chunkInputs != null && contentRetainer != null),
+            "Chunk inputs and content retainer must be set if loop body copies are reused");
         m_manager = wfm;
         m_endNode = endNode;
-        m_chunks = new ParallelizedChunkContent[chunkCount];
+        m_chunks = new AtomicReferenceArray<>(chunkCount);
+        m_bodies = new ParallelizedChunkContent[bodyCount];
+        m_bodyChunks = new int[bodyCount];
+        for (int i = bodyCount; i < chunkCount; i++) {
+            m_pendingChunks.add(i);
+        }
+        m_chunkInputs = chunkInputs;
+        m_contentRetainer = contentRetainer;
+        m_dispatchStates = new AtomicIntegerArray(chunkCount);
         m_endNode.setParallelChunkMaster(this);
     }
 
-    /** Add a new chunk to the list.
+    /** Add a new loop body copy, which processes the chunk of the same index first.
      *
-     * @param index of chunk
+     * @param index of chunk (smaller than {@link #nrBodyCopies()})
      * @param pcc content of chunk
      */
     public void addParallelChunk(final int index, final ParallelizedChunkContent pcc) {
-        if (m_chunks[index] != null) {
+        if (m_bodies[index] != null) {
             throw new IllegalArgumentException("Duplicate chunk index: " + index);
         }
-        m_chunks[index] = pcc;
+        m_bodies[index] = pcc;
+        m_bodyChunks[index] = index;
+        m_chunks.set(index, pcc);
         pcc.registerLoopEndStateChangeListener(this);
     }
 
@@ -102,29 +210,128 @@ public void addParallelChunk(final int index, final ParallelizedChunkContent pcc
      * @return number of chunks
      */
     public int nrChunks() {
-        return m_chunks.length;
+        return m_chunks.length();
+    }
+
+    /**
+     * @return the number of loop body copies to create and add via
+     *         {@link #addParallelChunk(int, ParallelizedChunkContent)}, i.e. the maximum number of chunks executing
+     *         at the same time
+     * @since 4.4
+     */
+    public int nrBodyCopies() {
+        return m_bodies.length;
     }
 
     /**
      * @param i index
-     * @return chunk of given index
+     * @return chunk of given index, <code>null</code> if not started yet
      */
     public ParallelizedChunkContent getChunk(final int i) {
-        return m_chunks[i];
+        return m_chunks.get(i);
     }
 
     /**
-     * Start execution of all chunks.
+     * Start execution of all loop body copies; the remaining chunks are started as soon as copies finish.
      */
     public void executeChunks() {
-        for (int i = 0; i < m_chunks.length; i++) {
-            ParallelizedChunkContent pcc = m_chunks[i];
-            if (pcc != null) {
-                pcc.executeChunk();
-            } else {
+        for (int i = 0; i < m_bodies.length; i++) {
+            if (m_bodies[i] == null) {
                 throw new NullPointerException("Chunk " + i + " not set!");
             }
         }
+        for (int i = 0; i < m_bodies.length; i++) {
+            m_dispatchStates.set(i, STARTING);
+            try {
+                m_bodies[i].executeChunk();
+            } finally {
+                m_dispatchStates.set(i, STARTED);
+            }
+        }
+        // chunks may have finished while others were started
+        dispatchPendingChunks();
+    }
+
+    /** Assigns pending chunks to idle body copies in a separate task; state changes are notified by the thread that
+     * changes the state, which must not reset and execute other nodes. Several requests are coalesced into one task.
+     */
+    private void scheduleDispatch() {
+        if (m_isDispatchScheduled.compareAndSet(false, true)) {
+            KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(() -> {
+                m_isDispatchScheduled.set(false);
+                dispatchPendingChunks();
+            });
+        }
+    }
+
+    /** Assigns pending chunks to idle body copies. The copies are reset and started outside the synchronized block
+     * as this acquires the workflow lock, which other threads may hold while notifying
+     * {@link #stateChanged(NodeStateEvent)}. */
+    private void dispatchPendingChunks() {
+        while (true) {
+            final int body;
+            final int previousChunk;
+            final int nextChunk;
+            synchronized (m_pendingChunks) {
+                if (m_pendingChunks.isEmpty()) {
+                    return;
+                }
+                body = findIdleBody();
+                if (body < 0) {
+                    return;
+                }
+                previousChunk = m_bodyChunks[body];
+                nextChunk = m_pendingChunks.poll();
+                m_bodyChunks[body] = nextChunk;
+                m_dispatchStates.set(nextChunk, STARTING);
+            }
+            reuseBody(body, previousChunk, nextChunk);
+        }
+    }
+
+    /** @return index of a body copy whose chunk is started and no longer executing, -1 if none */
+    private int findIdleBody() {
+        for (int b = 0; b < m_bodies.length; b++) {
+            final ParallelizedChunkContent pcc = m_bodies[b];
+            if (pcc != null && m_dispatchStates.get(m_bodyChunks[b]) == STARTED && !pcc.executionInProgress()) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private void reuseBody(final int body, final int previousChunk, final int nextChunk) {
+        final ParallelizedChunkContent pcc = m_bodies[body];
+        m_chunks.set(previousChunk, ParallelizedChunkContent.retained(retainContent(pcc, previousChunk)));
+        int state = SKIPPED;
+        try {
+            pcc.resetForReuse(m_chunkInputs.apply(nextChunk));
+            m_chunks.set(nextChunk, pcc);
+            pcc.executeChunk();
+            state = STARTED;
+            if (m_isCanceled) {
+                pcc.cancelExecution();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to execute chunk " + nextChunk + ": " + e.getMessage(), e);
+        } finally {
+            // a skipped chunk counts as failed; its body copy is not used any further
+            m_dispatchStates.set(nextChunk, state);
+        }
+    }
+
+    private PortObject[] retainContent(final ParallelizedChunkContent pcc, final int chunk) {
+        if (!pcc.isExecuted()) {
+            return null;
+        }
+        try {
+            final PortObject[] content = pcc.getOutportContent();
+            m_contentRetainer.retain(content, pcc.getNodes());
+            return content;
+        } catch (Exception e) {
+            LOGGER.error("Unable to retain results of chunk " + chunk + ": " + e.getMessage(), e);
+            return null;
+        }
     }
 
     /**
@@ -132,9 +339,9 @@ public void executeChunks() {
      */
     public int nrExecutedChunks() {
         int count = 0;
-        for (int i = 0; i < m_chunks.length; i++) {
-            ParallelizedChunkContent pcc = m_chunks[i];
-            if (pcc.isExecuted()) {
+        for (int i = 0; i < m_chunks.length(); i++) {
+            ParallelizedChunkContent pcc = m_chunks.get(i);
+            if (m_dispatchStates.get(i) == STARTED && pcc != null && pcc.isExecuted()) {
                 count++;
             }
         }
@@ -142,13 +349,14 @@ public int nrExecutedChunks() {
     }
 
     /**
-     * @return number of executing chunks
+     * @return number of executing chunks (including the ones waiting to be started)
      */
     public int nrExecutingChunks() {
         int count = 0;
-        for (int i = 0; i < m_chunks.length; i++) {
-            ParallelizedChunkContent pcc = m_chunks[i];
-            if (pcc.executionInProgress()) {
+        for (int i = 0; i < m_chunks.length(); i++) {
+            ParallelizedChunkContent pcc = m_chunks.get(i);
+            final int state = m_dispatchStates.get(i);
+            if (state == PENDING || state == STARTING || (pcc != null && pcc.executionInProgress())) {
                 count++;
             }
         }
@@ -156,27 +364,41 @@ public int nrExecutingChunks() {
     }
 
     /**
-     * @return number of failed (==IDLE) chunks
+     * @return number of failed (==IDLE) chunks, including the ones skipped due to cancelation
      */
     public int nrFailedChunks() {
         int count = 0;
-        for (int i = 0; i < m_chunks.length; i++) {
-            ParallelizedChunkContent pcc = m_chunks[i];
-            if ((!pcc.executionInProgress()) && (!pcc.isExecuted())) {
+        for (int i = 0; i < m_chunks.length(); i++) {
+            ParallelizedChunkContent pcc = m_chunks.get(i);
+            final int state = m_dispatchStates.get(i);
+            if (state == SKIPPED || (state == STARTED
+                && (pcc == null || ((!pcc.executionInProgress()) && (!pcc.isExecuted()))))) {
                 count++;
             }
         }
         return count;
     }
 
+    /** Marks all pending chunks as skipped. */
+    private void skipPendingChunks() {
+        synchronized (m_pendingChunks) {
+            for (Integer chunk : m_pendingChunks) {
+                m_dispatchStates.set(chunk, SKIPPED);
+            }
+            m_pendingChunks.clear();
+        }
+    }
+
     /**
      * Trigger cancelation of chunk execution
      */
     public void cancelChunkExecution() {
-        synchronized (m_chunks) {
-            for (int i = 0; i < m_chunks.length; i++) {
-                ParallelizedChunkContent pbc = m_chunks[i];
-                if (pbc.executionInProgress()) {
+        m_isCanceled = true;
+        skipPendingChunks();
+        synchronized (m_bodies) {
+            for (int i = 0; i < m_bodies.length; i++) {
+                ParallelizedChunkContent pbc = m_bodies[i];
+                if (pbc != null && pbc.executionInProgress()) {
                     pbc.cancelExecution();
                 }
             }
@@ -187,14 +409,18 @@ public void cancelChunkExecution() {
      * Clean up chunks (and containing WFM).
      */
     public void cleanupChunks() {
-        synchronized (m_chunks) {
-            for (int i = 0; i < m_chunks.length; i++) {
-                ParallelizedChunkContent pbc = m_chunks[i];
+        skipPendingChunks();
+        synchronized (m_bodies) {
+            for (int i = 0; i < m_bodies.length; i++) {
+                ParallelizedChunkContent pbc = m_bodies[i];
                 if (pbc != null) {
                     pbc.removeLoopEndStateChangeListener(this);
-                    m_chunks[i] = null;
+                    m_bodies[i] = null;
                 }
             }
+            for (int i = 0; i < m_chunks.length(); i++) {
+                m_chunks.set(i, null);
+            }
             if ((m_manager != null) && m_manager.getParent().containsNodeContainer(m_manager.getID())) {
                 WorkflowManager parent = m_manager.getParent();
                 NodeContainer nc = parent.getNodeContainer(m_manager.getID());
@@ -214,6 +440,10 @@ public void cleanupChunks() {
      */
     @Override
     public void stateChanged(final NodeStateEvent state) {
+        // a finished chunk frees its body copy for the next pending one
+        if (m_bodies.length < m_chunks.length()) {
+            scheduleDispatch();
+        }
         // notify end node about new status
         m_endNode.updateStatus();
     }
@@ -59,10 +59,13 @@
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
 
+import org.knime.core.data.RowKey;
 import org.knime.core.node.KNIMEConstants;
 
 /**
@@ -188,6 +191,18 @@ public boolean dispose() {
 
     private List<Chunk> m_storedChunks = new ArrayList<Chunk>();
 
+    /** Prefix of the keys tracked in {@link #m_sequenceRanges}, null until the first key of the form prefix + index. */
+    private String m_sequencePrefix;
+
+    /** Disjoint, non-adjacent index ranges of added keys with prefix {@link #m_sequencePrefix}: start to {start, end}. */
+    private final TreeMap<Long, long[]> m_sequenceRanges = new TreeMap<>();
+
+    /** The range modified last, allows to add strictly sequential keys without map look-up. */
+    private long[] m_lastSequenceRange;
+
+    /** Whether the number of ranges hit its limit, see {@link #addSequenceIndex(long, RowKey)}. */
+    private boolean m_sequenceRangesFrozen;
+
     private static final boolean DISABLE_DUPLICATE_CHECK =
         Boolean.getBoolean(KNIMEConstants.PROPERTY_DISABLE_ROWID_DUPLICATE_CHECK);
 
@@ -249,9 +264,82 @@ public DuplicateChecker(final int maxChunkSize, final int maxStreams) {
      * @throws IOException if an I/O error occurs while writing the chunk to disk
      */
     public synchronized void addKey(final String s) throws DuplicateKeyException, IOException {
+        addKey(new RowKey(s));
+    }
+
+    /**
+     * Adds a new row key to the duplicate checker. Keys of the form <i>prefix + index</i> (see
+     * {@link RowKey#getSequenceIndex()}) sharing the prefix of the first such key are tracked as index ranges, which
+     * are checked immediately and are never written to disk; for sequential keys such as <code>Row0, Row1, ...</code>
+     * (also if added in shuffled batches) this takes constant memory.
+     *
+     * @param key the key
+     * @throws DuplicateKeyException if a duplicate within the current chunk has been detected
+     * @throws IOException if an I/O error occurs while writing the chunk to disk
+     * @since 4.4
+     */
+    public synchronized void addKey(final RowKey key) throws DuplicateKeyException, IOException {
         if (DISABLE_DUPLICATE_CHECK) {
             return;
         }
+        final long index = key.getSequenceIndex();
+        if (index >= 0) {
+            final String prefix = key.getSequencePrefix();
+            if (m_sequencePrefix == null) {
+                m_sequencePrefix = prefix;
+            }
+            if (prefix.equals(m_sequencePrefix) && addSequenceIndex(index, key)) {
+                return;
+            }
+        }
+        addStringKey(key.getString());
+    }
+
+    /**
+     * Adds the index of a key with prefix {@link #m_sequencePrefix} to the ranges. Once the number of ranges hits its
+     * limit the ranges are no longer modified (a key that went into the chunks must not be covered by a range later on)
+     * but only used for look-ups.
+     *
+     * @return true if the index was added, false if it needs to be added to the chunks
+     */
+    private boolean addSequenceIndex(final long index, final RowKey key) throws DuplicateKeyException {
+        final long[] last = m_lastSequenceRange;
+        if (!m_sequenceRangesFrozen && last != null && index == last[1] + 1 && m_sequenceRanges.size() == 1) {
+            last[1] = index;
+            return true;
+        }
+        final Map.Entry<Long, long[]> floor = m_sequenceRanges.floorEntry(index);
+        if (floor != null && floor.getValue()[1] >= index) {
+            throw new DuplicateKeyException(key.getString());
+        }
+        if (m_sequenceRangesFrozen) {
+            return false;
+        }
+        final Map.Entry<Long, long[]> higher = m_sequenceRanges.higherEntry(index);
+        final boolean joinsFloor = floor != null && floor.getValue()[1] == index - 1;
+        final boolean joinsHigher = higher != null && higher.getKey() == index + 1;
+        if (joinsFloor && joinsHigher) {
+            floor.getValue()[1] = higher.getValue()[1];
+            m_sequenceRanges.remove(higher.getKey());
+            m_lastSequenceRange = floor.getValue();
+        } else if (joinsFloor) {
+            floor.getValue()[1] = index;
+            m_lastSequenceRange = floor.getValue();
+        } else if (joinsHigher) {
+            final long[] range = m_sequenceRanges.remove(higher.getKey());
+            range[0] = index;
+            m_sequenceRanges.put(index, range);
+            m_lastSequenceRange = range;
+        } else {
+            final long[] range = new long[]{index, index};
+            m_sequenceRanges.put(index, range);
+            m_lastSequenceRange = range;
+            m_sequenceRangesFrozen = m_sequenceRanges.size() >= Math.min(m_maxChunkSize, MAX_CHUNK_SIZE);
+        }
+        return true;
+    }
+
+    private void addStringKey(final String s) throws DuplicateKeyException, IOException {
         // bug fix #1737: keys may be just wrappers of very large strings ...
         // we make a copy, which consist of the important characters only
         if (!m_currentChunk.add(new String(s))) {
@@ -304,6 +392,10 @@ public synchronized void clear() {
         }
         m_storedChunks.clear();
         m_currentChunk.clear();
+        m_sequencePrefix = null;
+        m_sequenceRanges.clear();
+        m_lastSequenceRange = null;
+        m_sequenceRangesFrozen = false;
     }
 
     /**
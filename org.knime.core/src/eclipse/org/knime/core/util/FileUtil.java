@@ -415,7 +415,8 @@ private static boolean deleteRecursively(final File dir, final boolean removeFro
      * file. Recursively adds all files contained in directories. Files in the
      * include list are placed in the root of the archive. Files and directories
      * in the include list must not have the same (simple) name - otherwise an
-     * I/O Exception is thrown.
+     * I/O Exception is thrown. The files are compressed concurrently, see
+     * {@link ParallelZipOutputStream}.
      *
      * @param zipFile the zip file that should be created. If it exists it will
      *            be overwritten.
@@ -447,7 +448,7 @@ public static boolean zipDir(final File zipFile,
             final ZipFileFilter filter, final ExecutionMonitor exec)
             throws IOException, CanceledExecutionException {
         ZipOutputStream zout =
-                new ZipOutputStream(new BufferedOutputStream(
+                new ParallelZipOutputStream(new BufferedOutputStream(
                         new FileOutputStream(zipFile)));
         zout.setLevel(compressionLevel);
         try {
@@ -0,0 +1,857 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * A {@link ZipOutputStream} that compresses the data of its entries concurrently. The data of each entry is cut into
+ * blocks of {@value #BLOCK_SIZE} bytes, which are deflated independently on a sub pool of the
+ * {@link KNIMEConstants#GLOBAL_THREAD_POOL global thread pool} (each block using the end of its predecessor as
+ * dictionary) and written to the underlying stream in order, as is done by <i>pigz</i>. The result is a single
+ * standard deflate stream per entry, the archive can be read by any zip implementation. Many small entries (as in a
+ * workflow folder) are compressed concurrently as well.
+ *
+ * <p>
+ * Entries whose name indicates already compressed content (e.g. <code>.zip</code>, <code>.gz</code>,
+ * <code>.snappy</code>, <code>.png</code>) are written without compression (deflate level
+ * {@link Deflater#NO_COMPRESSION}) rather than compressed again. {@link ZipEntry#STORED} entries are supported if their
+ * size and CRC are set before {@link #putNextEntry(ZipEntry)}, as with the standard implementation. Entry comments
+ * and extra fields are not written.
+ *
+ * <p>
+ * Memory use is bounded by the number of blocks that are compressed but not yet written, which is proportional to
+ * the number of threads. The first block of an entry is sized to the entry (if its size is set) or grows with the
+ * data written, so small entries don't occupy a full block; full blocks and their compression buffers are reused
+ * once written.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public class ParallelZipOutputStream extends ZipOutputStream {
+
+    /** Size of the blocks compressed independently. */
+    static final int BLOCK_SIZE = 1 << 19;
+
+    /** Initial size of the first block of an entry whose size is not known in advance. */
+    private static final int INITIAL_BLOCK_SIZE = 1 << 13;
+
+    /** Size of the buffer a full block is compressed into, incompressible data grows by a few bytes per 16kB. */
+    private static final int DEFLATE_BUFFER_SIZE = BLOCK_SIZE + (BLOCK_SIZE >> 8) + 64;
+
+    /** Size of the deflate window, used as dictionary size for subsequent blocks. */
+    private static final int DICTIONARY_SIZE = 1 << 15;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+
+    private static final int FLAG_UTF8 = 0x800;
+
+    /** File name suffixes of content that is not worth compressing (again). */
+    private static final Set<String> COMPRESSED_SUFFIXES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "zip", "gz", "gzip", "snappy", "bz2", "xz", "lz4", "zst", "7z", "jar", "knwf", "knar", "png", "jpg", "jpeg",
+        "gif", "webp", "mp3", "mp4")));
+
+    private final OutputStream m_out;
+
+    private final ThreadPool m_pool;
+
+    /** Maximum number of pending writes before the writing thread waits for the oldest one. */
+    private final int m_maxPending;
+
+    private final Deque<PendingWrite> m_pending = new ArrayDeque<>();
+
+    private final List<Entry> m_entries = new ArrayList<>();
+
+    private final Set<String> m_names = new HashSet<>();
+
+    /** Full size blocks that are written and no longer needed as dictionary, for reuse. */
+    private final Deque<byte[]> m_freeBlocks = new ArrayDeque<>();
+
+    /** Buffers of size {@link #DEFLATE_BUFFER_SIZE} whose content is written, for reuse. */
+    private final Deque<byte[]> m_freeDeflateBuffers = new ArrayDeque<>();
+
+    private long m_written;
+
+    private int m_method = DEFLATED;
+
+    private int m_level = Deflater.DEFAULT_COMPRESSION;
+
+    private byte[] m_comment;
+
+    /** The entry currently written, null if none. */
+    private Entry m_current;
+
+    /** The block that is currently filled, handed over to a compression task when full, null if no entry is open. */
+    private byte[] m_block;
+
+    private int m_blockLength;
+
+    /** The previous (full) block of the current entry, null if none. */
+    private byte[] m_previousBlock;
+
+    private boolean m_isFinished;
+
+    private boolean m_isClosed;
+
+    private boolean m_hasFailed;
+
+    /**
+     * Creates a new stream that compresses using as many threads as there are processors.
+     *
+     * @param out the stream the archive is written to, should be buffered
+     */
+    public ParallelZipOutputStream(final OutputStream out) {
+        this(out, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new stream.
+     *
+     * @param out the stream the archive is written to, should be buffered
+     * @param maxThreads the maximum number of threads used to compress
+     */
+    public ParallelZipOutputStream(final OutputStream out, final int maxThreads) {
+        super(new NullOutputStream());
+        m_out = out;
+        final int threads = Math.max(1, maxThreads);
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(threads);
+        m_maxPending = 2 * threads + 2;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setComment(final String comment) {
+        m_comment = comment == null ? null : comment.getBytes(StandardCharsets.UTF_8);
+        if (m_comment != null && m_comment.length > 0xFFFF) {
+            throw new IllegalArgumentException("ZIP file comment too long.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setMethod(final int method) {
+        if (method != DEFLATED && method != STORED) {
+            throw new IllegalArgumentException("invalid compression method");
+        }
+        m_method = method;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setLevel(final int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level");
+        }
+        m_level = level;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void putNextEntry(final ZipEntry e) throws IOException {
+        ensureOpen();
+        closeEntry();
+        final String name = e.getName();
+        if (!m_names.add(name)) {
+            throw new ZipException("duplicate entry: " + name);
+        }
+        final int method = e.getMethod() == -1 ? m_method : e.getMethod();
+        final long time = e.getTime() == -1 ? System.currentTimeMillis() : e.getTime();
+        final Entry entry = new Entry(name.getBytes(StandardCharsets.UTF_8), method, javaToDosTime(time));
+        if (method == STORED) {
+            if (e.getSize() == -1 || e.getCrc() == -1) {
+                throw new ZipException("STORED entry missing size, compressed size, or crc-32");
+            }
+            if (e.getCompressedSize() != -1 && e.getCompressedSize() != e.getSize()) {
+                throw new ZipException("STORED entry where compressed != uncompressed size");
+            }
+            entry.m_crc = e.getCrc();
+            entry.m_size = e.getSize();
+            entry.m_compressedSize = e.getSize();
+            entry.m_storedCrc = new CRC32();
+        } else {
+            entry.m_level = isCompressedFileName(name) ? Deflater.NO_COMPRESSION : m_level;
+        }
+        m_current = entry;
+        final long size = e.getSize();
+        m_block = size >= BLOCK_SIZE ? takeBlock() : new byte[size >= 0 ? (int)size : INITIAL_BLOCK_SIZE];
+        m_pending.add(new PendingWrite(() -> {
+            entry.m_offset = m_written;
+            writeBytes(entry.createLocalHeader());
+        }));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void closeEntry() throws IOException {
+        ensureOpen();
+        final Entry entry = m_current;
+        if (entry == null) {
+            return;
+        }
+        if (entry.m_method == STORED) {
+            if (m_blockLength == 0) {
+                releaseBlock(m_block);
+            } else {
+                submitStoredBlock();
+            }
+            if (entry.m_storedSize != entry.m_size) {
+                throw new ZipException("invalid entry size (expected " + entry.m_size + " but got "
+                    + entry.m_storedSize + " bytes)");
+            }
+            if (entry.m_storedCrc.getValue() != entry.m_crc) {
+                throw new ZipException("invalid entry crc-32 (expected 0x" + Long.toHexString(entry.m_crc)
+                    + " but got 0x" + Long.toHexString(entry.m_storedCrc.getValue()) + ")");
+            }
+        } else {
+            submitDeflateBlock(true);
+            m_pending.add(new PendingWrite(() -> writeBytes(entry.createDataDescriptor())));
+        }
+        m_entries.add(entry);
+        m_current = null;
+        m_block = null;
+        m_previousBlock = null;
+        writePending(false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{(byte)b}, 0, 1);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (m_current == null) {
+            throw new ZipException("no current ZIP entry");
+        }
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (m_blockLength == m_block.length) {
+                growBlock(m_blockLength + remaining);
+            }
+            final int length = Math.min(remaining, m_block.length - m_blockLength);
+            System.arraycopy(b, offset, m_block, m_blockLength, length);
+            m_blockLength += length;
+            offset += length;
+            remaining -= length;
+            if (m_blockLength == BLOCK_SIZE) {
+                if (m_current.m_method == STORED) {
+                    submitStoredBlock();
+                } else {
+                    submitDeflateBlock(false);
+                }
+            }
+        }
+    }
+
+    /** Writes all blocks that are already compressed to the underlying stream and flushes it. */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writePending(false);
+        m_out.flush();
+    }
+
+    /**
+     * Closes the current entry, waits for all blocks to be compressed and written, and writes the central directory.
+     * The underlying stream is not closed.
+     */
+    @Override
+    public void finish() throws IOException {
+        ensureOpen();
+        if (m_isFinished) {
+            return;
+        }
+        closeEntry();
+        writePending(true);
+        final long directoryOffset = m_written;
+        for (Entry entry : m_entries) {
+            writeBytes(entry.createCentralDirectoryHeader());
+        }
+        final long directorySize = m_written - directoryOffset;
+        writeEnd(directoryOffset, directorySize);
+        m_out.flush();
+        m_isFinished = true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        try {
+            if (!m_hasFailed) {
+                finish();
+            }
+        } finally {
+            m_isClosed = true;
+            cancelPending();
+            // the (unused) deflater of the super class, super.close() would call finish() again
+            def.end();
+            m_out.close();
+        }
+    }
+
+    /**
+     * @param name the name of a file or zip entry
+     * @return whether the name's suffix indicates content that is already compressed
+     */
+    static boolean isCompressedFileName(final String name) {
+        final int dot = name.lastIndexOf('.');
+        return dot >= 0 && dot > name.lastIndexOf('/')
+            && COMPRESSED_SUFFIXES.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private void ensureOpen() throws IOException {
+        if (m_isClosed) {
+            throw new IOException("Stream closed");
+        }
+        if (m_hasFailed) {
+            throw new IOException("Stream not usable after previous failure");
+        }
+    }
+
+    /**
+     * Replaces the current (full) block of an entry by a larger one, up to {@link #BLOCK_SIZE}.
+     *
+     * @param minLength the number of bytes the entry is known to have at least
+     */
+    private void growBlock(final int minLength) {
+        final byte[] block;
+        final int length = Math.max(minLength, 2 * m_block.length);
+        if (length >= BLOCK_SIZE || length < 0) {
+            block = takeBlock();
+        } else {
+            block = new byte[Math.max(length, INITIAL_BLOCK_SIZE)];
+        }
+        System.arraycopy(m_block, 0, block, 0, m_blockLength);
+        m_block = block;
+    }
+
+    /** @return a block of size {@link #BLOCK_SIZE}, reused if possible */
+    private byte[] takeBlock() {
+        final byte[] block = m_freeBlocks.pollFirst();
+        return block != null ? block : new byte[BLOCK_SIZE];
+    }
+
+    /** @param block a block that is no longer used (may be null or smaller than {@link #BLOCK_SIZE}) */
+    private void releaseBlock(final byte[] block) {
+        if (block != null && block.length == BLOCK_SIZE && m_freeBlocks.size() < m_maxPending) {
+            m_freeBlocks.addFirst(block);
+        }
+    }
+
+    private void submitDeflateBlock(final boolean isLast) throws IOException {
+        final byte[] block = m_block;
+        final int length = m_blockLength;
+        final byte[] dictionary = m_previousBlock;
+        final int level = m_current.m_level;
+        final byte[] deflateBuffer = length == BLOCK_SIZE ? takeDeflateBuffer() : null;
+        final Future<DeflatedBlock> future = m_pool.enqueue(
+            () -> DeflatedBlock.deflate(block, length, dictionary, level, isLast, deflateBuffer));
+        final Entry entry = m_current;
+        m_pending.add(new PendingWrite(future, () -> {
+            final DeflatedBlock deflated = waitFor(future);
+            writeBytes(deflated.m_data, deflated.m_dataLength);
+            entry.m_crc = crc32Combine(entry.m_crc, deflated.m_crc, deflated.m_length);
+            entry.m_size += deflated.m_length;
+            entry.m_compressedSize += deflated.m_dataLength;
+            // the compression of this block is done and used the previous block as dictionary
+            releaseDeflateBuffer(deflated.m_data);
+            releaseBlock(dictionary);
+            if (isLast) {
+                releaseBlock(block);
+            }
+        }));
+        m_previousBlock = isLast ? null : block;
+        m_block = isLast ? null : takeBlock();
+        m_blockLength = 0;
+        writePending(false);
+    }
+
+    /** @return a buffer of size {@link #DEFLATE_BUFFER_SIZE}, reused if possible */
+    private byte[] takeDeflateBuffer() {
+        final byte[] buffer = m_freeDeflateBuffers.pollFirst();
+        return buffer != null ? buffer : new byte[DEFLATE_BUFFER_SIZE];
+    }
+
+    private void releaseDeflateBuffer(final byte[] buffer) {
+        if (buffer.length == DEFLATE_BUFFER_SIZE && m_freeDeflateBuffers.size() < m_maxPending) {
+            m_freeDeflateBuffers.addFirst(buffer);
+        }
+    }
+
+    private void submitStoredBlock() throws IOException {
+        if (m_blockLength == 0) {
+            return;
+        }
+        final byte[] block = m_block;
+        final int length = m_blockLength;
+        m_current.m_storedCrc.update(block, 0, length);
+        m_current.m_storedSize += length;
+        m_pending.add(new PendingWrite(() -> {
+            writeBytes(block, length);
+            releaseBlock(block);
+        }));
+        m_block = takeBlock();
+        m_blockLength = 0;
+        writePending(false);
+    }
+
+    /**
+     * Writes the pending writes that are ready (blocks that are compressed) in order.
+     *
+     * @param all whether to wait for and write all pending writes, otherwise only waits while there are too many
+     */
+    private void writePending(final boolean all) throws IOException {
+        try {
+            while (!m_pending.isEmpty()
+                && (all || m_pending.size() > m_maxPending || m_pending.peekFirst().isDone())) {
+                m_pending.pollFirst().m_write.run();
+            }
+        } catch (IOException | RuntimeException e) {
+            m_hasFailed = true;
+            cancelPending();
+            throw e;
+        }
+    }
+
+    private void cancelPending() {
+        for (PendingWrite pending : m_pending) {
+            if (pending.m_future != null) {
+                pending.m_future.cancel(true);
+            }
+        }
+        m_pending.clear();
+    }
+
+    private void writeBytes(final byte[] bytes) throws IOException {
+        writeBytes(bytes, bytes.length);
+    }
+
+    private void writeBytes(final byte[] bytes, final int length) throws IOException {
+        m_out.write(bytes, 0, length);
+        m_written += length;
+    }
+
+    private void writeEnd(final long directoryOffset, final long directorySize) throws IOException {
+        final int count = m_entries.size();
+        final boolean isZip64 =
+            count >= ZIP64_MAGIC_COUNT || directoryOffset >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC;
+        if (isZip64) {
+            final long zip64EndOffset = m_written;
+            final ByteBuffer end = newBuffer(56 + 20);
+            end.putInt(0x06064b50); // zip64 end of central directory record
+            end.putLong(44); // size of remaining record
+            end.putShort((short)45); // version made by
+            end.putShort((short)45); // version needed to extract
+            end.putInt(0); // number of this disk
+            end.putInt(0); // disk with the start of the central directory
+            end.putLong(count); // entries on this disk
+            end.putLong(count); // total entries
+            end.putLong(directorySize);
+            end.putLong(directoryOffset);
+            end.putInt(0x07064b50); // zip64 end of central directory locator
+            end.putInt(0); // disk with the zip64 end record
+            end.putLong(zip64EndOffset);
+            end.putInt(1); // total number of disks
+            writeBytes(end.array());
+        }
+        final byte[] comment = m_comment == null ? new byte[0] : m_comment;
+        final ByteBuffer end = newBuffer(22 + comment.length);
+        end.putInt(0x06054b50); // end of central directory record
+        end.putShort((short)0); // number of this disk
+        end.putShort((short)0); // disk with the start of the central directory
+        end.putShort((short)Math.min(count, ZIP64_MAGIC_COUNT));
+        end.putShort((short)Math.min(count, ZIP64_MAGIC_COUNT));
+        end.putInt((int)Math.min(directorySize, ZIP64_MAGIC));
+        end.putInt((int)Math.min(directoryOffset, ZIP64_MAGIC));
+        end.putShort((short)comment.length);
+        end.put(comment);
+        writeBytes(end.array());
+    }
+
+    /** Waits for the compression of a block, the waiting thread doesn't occupy a slot of the global pool. */
+    private static <T> T waitFor(final Future<T> future) throws IOException {
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null && !future.isDone()) {
+                return currentPool.runInvisible(future::get);
+            }
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing zip entry");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // runInvisible wraps the ExecutionException thrown by Future#get
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while compressing zip entry");
+            }
+            throw new IOException("Compressing zip entry failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static ByteBuffer newBuffer(final int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long javaToDosTime(final long time) {
+        final LocalDateTime d = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        final int year = d.getYear();
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long)(year - 1980) << 25) | (d.getMonthValue() << 21) | (d.getDayOfMonth() << 16)
+            | (d.getHour() << 11) | (d.getMinute() << 5) | (d.getSecond() >> 1);
+    }
+
+    /**
+     * Combines the CRC-32 of two consecutive byte sequences, ported from zlib's <code>crc32_combine</code>.
+     *
+     * @param crc1 the CRC of the first sequence
+     * @param crc2 the CRC of the second sequence
+     * @param length2 the length of the second sequence
+     * @return the CRC of the concatenation
+     */
+    static long crc32Combine(final long crc1, final long crc2, final long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        final long[] even = new long[32];
+        final long[] odd = new long[32];
+        // operator for one zero bit
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // operators for two and four zero bits
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        // apply length2 zeros to crc1, the first squaring yields the operator for one zero byte
+        long crc = crc1;
+        long length = length2;
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length & 1) != 0) {
+                crc = gf2MatrixTimes(even, crc);
+            }
+            length >>= 1;
+            if (length == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((length & 1) != 0) {
+                crc = gf2MatrixTimes(odd, crc);
+            }
+            length >>= 1;
+        } while (length != 0);
+        return crc ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(final long[] matrix, final long vector) {
+        long sum = 0;
+        long vec = vector;
+        for (int i = 0; vec != 0; i++, vec >>>= 1) {
+            if ((vec & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(final long[] square, final long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
+    /** A write to the underlying stream, possibly waiting for a compression task. */
+    private static final class PendingWrite {
+
+        private final Future<?> m_future;
+
+        private final IORunnable m_write;
+
+        PendingWrite(final IORunnable write) {
+            this(null, write);
+        }
+
+        PendingWrite(final Future<?> future, final IORunnable write) {
+            m_future = future;
+            m_write = write;
+        }
+
+        boolean isDone() {
+            return m_future == null || m_future.isDone();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IORunnable {
+        void run() throws IOException;
+    }
+
+    /** The deflated data of one block. */
+    private static final class DeflatedBlock {
+
+        private final byte[] m_data;
+
+        private final int m_dataLength;
+
+        private final long m_crc;
+
+        private final int m_length;
+
+        private DeflatedBlock(final byte[] data, final int dataLength, final long crc, final int length) {
+            m_data = data;
+            m_dataLength = dataLength;
+            m_crc = crc;
+            m_length = length;
+        }
+
+        /**
+         * Deflates a block as raw deflate data. All but the last block of an entry end with a sync flush (at a byte
+         * boundary, without the final bit) so that the blocks can be concatenated to a single deflate stream.
+         *
+         * @param buffer the buffer to deflate into (replaced if too small), or null to allocate one
+         */
+        static DeflatedBlock deflate(final byte[] block, final int length, final byte[] dictionary, final int level,
+            final boolean isLast, final byte[] buffer) {
+            final CRC32 crc = new CRC32();
+            crc.update(block, 0, length);
+            final Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary, BLOCK_SIZE - DICTIONARY_SIZE, DICTIONARY_SIZE);
+                }
+                deflater.setInput(block, 0, length);
+                if (isLast) {
+                    deflater.finish();
+                }
+                // incompressible data grows by a few bytes per 16kB stored block
+                byte[] out = buffer != null ? buffer : new byte[length + (length >> 8) + 64];
+                int outLength = 0;
+                while (true) {
+                    final int n = deflater.deflate(out, outLength, out.length - outLength,
+                        isLast ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                    outLength += n;
+                    final boolean isDone = isLast ? deflater.finished() : outLength < out.length;
+                    if (isDone) {
+                        break;
+                    }
+                    if (outLength == out.length) {
+                        out = Arrays.copyOf(out, 2 * out.length);
+                    }
+                }
+                return new DeflatedBlock(out, outLength, crc.getValue(), length);
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /** Meta data of an entry, completed as its blocks are written. */
+    private static final class Entry {
+
+        private final byte[] m_name;
+
+        private final int m_method;
+
+        private final long m_dosTime;
+
+        private int m_level;
+
+        private long m_crc;
+
+        private long m_size;
+
+        private long m_compressedSize;
+
+        private long m_offset;
+
+        /** CRC and size of the data written to a stored entry, to be validated against the declared ones. */
+        private CRC32 m_storedCrc;
+
+        private long m_storedSize;
+
+        Entry(final byte[] name, final int method, final long dosTime) {
+            m_name = name;
+            m_method = method;
+            m_dosTime = dosTime;
+        }
+
+        private int getFlag() {
+            return m_method == DEFLATED ? (FLAG_UTF8 | FLAG_DATA_DESCRIPTOR) : FLAG_UTF8;
+        }
+
+        private int getVersion(final boolean isZip64) {
+            return isZip64 ? 45 : (m_method == DEFLATED ? 20 : 10);
+        }
+
+        byte[] createLocalHeader() {
+            // sizes of deflated entries follow in the data descriptor
+            final boolean isZip64 = m_method == STORED && m_size >= ZIP64_MAGIC;
+            final ByteBuffer header = newBuffer(30 + m_name.length + (isZip64 ? 20 : 0));
+            header.putInt(0x04034b50);
+            header.putShort((short)getVersion(isZip64));
+            header.putShort((short)getFlag());
+            header.putShort((short)m_method);
+            header.putInt((int)m_dosTime);
+            if (m_method == DEFLATED) {
+                header.putInt(0).putInt(0).putInt(0);
+            } else {
+                header.putInt((int)m_crc);
+                header.putInt((int)Math.min(m_compressedSize, ZIP64_MAGIC));
+                header.putInt((int)Math.min(m_size, ZIP64_MAGIC));
+            }
+            header.putShort((short)m_name.length);
+            header.putShort((short)(isZip64 ? 20 : 0));
+            header.put(m_name);
+            if (isZip64) {
+                header.putShort((short)0x0001).putShort((short)16);
+                header.putLong(m_size).putLong(m_compressedSize);
+            }
+            return header.array();
+        }
+
+        byte[] createDataDescriptor() {
+            final boolean isZip64 = m_compressedSize >= ZIP64_MAGIC || m_size >= ZIP64_MAGIC;
+            final ByteBuffer descriptor = newBuffer(isZip64 ? 24 : 16);
+            descriptor.putInt(0x08074b50);
+            descriptor.putInt((int)m_crc);
+            if (isZip64) {
+                descriptor.putLong(m_compressedSize).putLong(m_size);
+            } else {
+                descriptor.putInt((int)m_compressedSize).putInt((int)m_size);
+            }
+            return descriptor.array();
+        }
+
+        byte[] createCentralDirectoryHeader() {
+            final boolean isSizeZip64 = m_size >= ZIP64_MAGIC;
+            final boolean isCompressedSizeZip64 = m_compressedSize >= ZIP64_MAGIC;
+            final boolean isOffsetZip64 = m_offset >= ZIP64_MAGIC;
+            final int extraLength = (isSizeZip64 ? 8 : 0) + (isCompressedSizeZip64 ? 8 : 0) + (isOffsetZip64 ? 8 : 0);
+            final boolean isZip64 = extraLength > 0;
+            final ByteBuffer header = newBuffer(46 + m_name.length + (isZip64 ? 4 + extraLength : 0));
+            header.putInt(0x02014b50);
+            header.putShort((short)getVersion(isZip64)); // version made by
+            header.putShort((short)getVersion(isZip64)); // version needed to extract
+            header.putShort((short)getFlag());
+            header.putShort((short)m_method);
+            header.putInt((int)m_dosTime);
+            header.putInt((int)m_crc);
+            header.putInt((int)Math.min(m_compressedSize, ZIP64_MAGIC));
+            header.putInt((int)Math.min(m_size, ZIP64_MAGIC));
+            header.putShort((short)m_name.length);
+            header.putShort((short)(isZip64 ? 4 + extraLength : 0));
+            header.putShort((short)0); // comment length
+            header.putShort((short)0); // disk number start
+            header.putShort((short)0); // internal attributes
+            header.putInt(0); // external attributes
+            header.putInt((int)Math.min(m_offset, ZIP64_MAGIC));
+            header.put(m_name);
+            if (isZip64) {
+                header.putShort((short)0x0001).putShort((short)extraLength);
+                if (isSizeZip64) {
+                    header.putLong(m_size);
+                }
+                if (isCompressedSizeZip64) {
+                    header.putLong(m_compressedSize);
+                }
+                if (isOffsetZip64) {
+                    header.putLong(m_offset);
+                }
+            }
+            return header.array();
+        }
+    }
+}
@@ -64,10 +64,13 @@
 
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeTimer.ResourceUsage;
+import org.knime.core.node.workflow.NodeTimer.ResourceUsage.WorkerScope;
 
 /**
  * This class contains utility methods for handling {@link NodeContext}s with new threads
- * and other useful threading related functionality.
+ * and other useful threading related functionality. The wrappers also charge the CPU time and memory
+ * allocations of the wrapped task to the node that created it, if that node is profiled (see {@link ResourceUsage}).
  *
  * @author Thorsten Meinl, KNIME AG, Zurich, Switzerland
  * @since 2.8
@@ -189,6 +192,8 @@ private static final class UnnecessaryCallException extends Exception {
     public abstract static class RunnableWithContext implements Runnable {
         private final NodeContext m_nodeContext;
 
+        private final ResourceUsage m_resourceUsage = ResourceUsage.current();
+
         /**
          * Default constructor.
          */
@@ -206,7 +211,7 @@ protected RunnableWithContext() {
         @Override
         public final void run() {
             NodeContext.pushContext(m_nodeContext);
-            try {
+            try (WorkerScope workerScope = ResourceUsage.startWorker(m_resourceUsage)) {
                 runWithContext();
             } finally {
                 NodeContext.removeLastContext();
@@ -229,6 +234,8 @@ public final void run() {
     public abstract static class CallableWithContext<V> implements Callable<V> {
         private final NodeContext m_nodeContext;
 
+        private final ResourceUsage m_resourceUsage = ResourceUsage.current();
+
         /**
          * Default constructor.
          */
@@ -246,7 +253,7 @@ protected CallableWithContext() {
         @Override
         public final V call() throws Exception {
             NodeContext.pushContext(m_nodeContext);
-            try {
+            try (WorkerScope workerScope = ResourceUsage.startWorker(m_resourceUsage)) {
                 return callWithContext();
             } finally {
                 NodeContext.removeLastContext();
@@ -272,6 +279,8 @@ public final V call() throws Exception {
     public abstract static class ThreadWithContext extends Thread {
         private final NodeContext m_nodeContext;
 
+        private final ResourceUsage m_resourceUsage = ResourceUsage.current();
+
         /**
          * Creates a new thread.
          *
@@ -306,7 +315,7 @@ protected ThreadWithContext(final String name) {
         @Override
         public final void run() {
             NodeContext.pushContext(m_nodeContext);
-            try {
+            try (WorkerScope workerScope = ResourceUsage.startWorker(m_resourceUsage)) {
                 runWithContext();
             } finally {
                 NodeContext.removeLastContext();
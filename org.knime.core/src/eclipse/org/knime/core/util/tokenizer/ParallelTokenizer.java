@@ -0,0 +1,398 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.util.tokenizer;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Tokenizes chunks of lines concurrently on behalf of a {@link Tokenizer} and hands the tokens back to it in the
+ * order of the stream. The source is split after line feeds, each chunk is tokenized by its own tokenizer in the
+ * global thread pool. This only produces the same tokens as the sequential tokenizer if a line feed always terminates
+ * a token, see {@link #supports(TokenizerSettings)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelTokenizer {
+
+    /** Number of characters in a chunk (unless a single line is longer). */
+    private static final int CHUNK_LENGTH = 1 << 20;
+
+    private static final char LF = '\n';
+
+    private static final char CR = '\r';
+
+    private final Tokenizer m_tokenizer;
+
+    private final Reader m_source;
+
+    /** Settings of the chunk tokenizers - the ones of the tokenizer without lines to skip. */
+    private final TokenizerSettings m_chunkSettings;
+
+    /** The escape characters of all quotes, a line feed following one of them doesn't split a chunk. */
+    private final char[] m_escapeChars;
+
+    private final ThreadPool m_pool;
+
+    private final int m_maxPendingChunks;
+
+    private final Deque<Future<Chunk>> m_pendingChunks = new ArrayDeque<>();
+
+    /** Characters read from the source but not yet submitted, i.e. the (incomplete) last line. */
+    private char[] m_buffer;
+
+    private int m_bufferLength;
+
+    private boolean m_isSourceExhausted;
+
+    private boolean m_isChunkSubmitted;
+
+    private boolean m_isFinished;
+
+    /** Line number and read bytes at the beginning of the next chunk to submit. */
+    private int m_nextLineNo;
+
+    private long m_nextReadBytes;
+
+    private Chunk m_currentChunk;
+
+    private int m_currentTokenIdx;
+
+    /**
+     * @param tokenizer the tokenizer to tokenize for, its line number and read bytes are taken as start values
+     * @param source the source to read from
+     * @param readAhead characters the tokenizer read from the source but didn't consume
+     */
+    ParallelTokenizer(final Tokenizer tokenizer, final Reader source, final char[] readAhead) {
+        m_tokenizer = tokenizer;
+        m_source = source;
+        m_chunkSettings = tokenizer.getSettings();
+        m_chunkSettings.setSkipFirstLines(0);
+        m_escapeChars = m_chunkSettings.getAllQuotes().stream().filter(Quote::hasEscapeChar)
+            .map(q -> String.valueOf(q.getEscape())).reduce("", String::concat).toCharArray();
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(threads);
+        m_maxPendingChunks = 2 * threads;
+        m_buffer = Arrays.copyOf(readAhead, Math.max(CHUNK_LENGTH, readAhead.length));
+        m_bufferLength = readAhead.length;
+        m_nextLineNo = tokenizer.getLineNumber();
+        m_nextReadBytes = tokenizer.getReadBytes();
+    }
+
+    /**
+     * Checks whether a line feed always terminates a token with the given settings, which is the precondition for
+     * tokenizing chunks of lines independently.
+     *
+     * @param settings the tokenizer settings
+     * @return true if the source can be split at line feeds
+     */
+    static boolean supports(final TokenizerSettings settings) {
+        if (settings.allowLFinQuotes() || settings.getCombineMultipleDelimiters()
+            || settings.getLineContinuationCharacter() != null || !settings.getAllComments().isEmpty()) {
+            return false;
+        }
+        boolean hasLineFeedDelimiter = false;
+        for (Delimiter delim : settings.getAllDelimiters()) {
+            if (delim.getDelimiter().indexOf(LF) >= 0) {
+                if (!delim.getDelimiter().equals(Tokenizer.LF_STR) || delim.combineConsecutiveDelims()) {
+                    return false;
+                }
+                hasLineFeedDelimiter = true;
+            }
+        }
+        for (Quote quote : settings.getAllQuotes()) {
+            if (quote.getLeft().indexOf(LF) >= 0 || quote.getRight().indexOf(LF) >= 0
+                || (quote.hasEscapeChar() && quote.getEscape() == LF)) {
+                return false;
+            }
+        }
+        return hasLineFeedDelimiter;
+    }
+
+    /**
+     * Sets the next token (and the corresponding state) in the tokenizer.
+     *
+     * @return the next token or null at the end of the stream
+     * @throws TokenizerException if the chunk tokenizer failed at this position
+     */
+    String nextToken() {
+        while (!m_isFinished) {
+            if (m_currentChunk != null && m_currentTokenIdx < m_currentChunk.m_tokens.size()) {
+                final TokenEntry entry = m_currentChunk.m_tokens.get(m_currentTokenIdx++);
+                m_tokenizer.setLastToken(entry.m_token, entry.m_quotes, entry.m_wasDelimiter, entry.m_wasDelimited,
+                    entry.m_lineNo, entry.m_readBytes);
+                if (entry.m_error != null) {
+                    throw entry.m_error;
+                }
+                return entry.m_token;
+            }
+            while (m_pendingChunks.size() < m_maxPendingChunks && submitNextChunk()) {
+                // fill the pipeline
+            }
+            if (m_pendingChunks.isEmpty()) {
+                m_isFinished = true;
+                closeSource();
+                if (m_currentChunk != null) {
+                    // state at the end of the stream, as read by the last chunk's tokenizer
+                    m_tokenizer.setLastToken(null, null, false, false, m_currentChunk.m_endLineNo,
+                        m_currentChunk.m_endReadBytes);
+                }
+            } else {
+                m_currentChunk = waitFor(m_pendingChunks.poll());
+                m_currentTokenIdx = 0;
+            }
+        }
+        return null;
+    }
+
+    /** Cancels the tokenization of all pending chunks, the next call to {@link #nextToken()} returns null. */
+    void cancel() {
+        m_isFinished = true;
+        m_pendingChunks.forEach(f -> f.cancel(true));
+        m_pendingChunks.clear();
+        m_currentChunk = null;
+    }
+
+    /**
+     * Reads the next chunk of complete lines and submits its tokenization.
+     *
+     * @return false if there was nothing left to submit
+     */
+    private boolean submitNextChunk() {
+        int split = -1;
+        while (split < 0) {
+            fillBuffer();
+            if (m_isSourceExhausted) {
+                if (m_bufferLength == 0 && m_isChunkSubmitted) {
+                    return false;
+                }
+                split = m_bufferLength;
+            } else {
+                split = findSplit();
+                if (split < 0) {
+                    // a line longer than the buffer
+                    m_buffer = Arrays.copyOf(m_buffer, 2 * m_buffer.length);
+                }
+            }
+        }
+        final char[] chunk = m_buffer;
+        final int length = split;
+        final int remaining = m_bufferLength - split;
+        m_buffer = new char[Math.max(CHUNK_LENGTH, remaining)];
+        System.arraycopy(chunk, split, m_buffer, 0, remaining);
+        m_bufferLength = remaining;
+
+        final int lineNo = m_nextLineNo;
+        final long readBytes = m_nextReadBytes;
+        m_pendingChunks.add(m_pool.enqueue(() -> tokenize(chunk, length, lineNo, readBytes)));
+        m_isChunkSubmitted = true;
+        for (int i = 0; i < split; i++) {
+            if (chunk[i] == LF) {
+                m_nextLineNo++;
+            }
+        }
+        m_nextReadBytes += split;
+        return true;
+    }
+
+    /** Reads from the source until the buffer is full or the source is exhausted. */
+    private void fillBuffer() {
+        while (!m_isSourceExhausted && m_bufferLength < m_buffer.length) {
+            int read;
+            try {
+                read = m_source.read(m_buffer, m_bufferLength, m_buffer.length - m_bufferLength);
+            } catch (IOException ioe) {
+                // same as the sequential tokenizer: treat it as the end of the stream
+                read = -1;
+            }
+            if (read < 0) {
+                m_isSourceExhausted = true;
+            } else {
+                m_bufferLength += read;
+            }
+        }
+    }
+
+    /**
+     * @return the index after the last line feed in the buffer which isn't preceded by an escape character (which
+     *         could make it part of a quoted string), or -1 if there is no such line feed
+     */
+    private int findSplit() {
+        for (int i = m_bufferLength - 1; i >= 0; i--) {
+            if (m_buffer[i] != LF) {
+                continue;
+            }
+            int prev = i - 1;
+            if (prev >= 0 && m_buffer[prev] == CR) {
+                prev--;
+            }
+            if (prev < 0 || !isEscapeChar(m_buffer[prev])) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isEscapeChar(final char c) {
+        for (char esc : m_escapeChars) {
+            if (esc == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Tokenizes a chunk, runs in the thread pool. */
+    private Chunk tokenize(final char[] chars, final int length, final int lineNo, final long readBytes) {
+        final Tokenizer tokenizer = new Tokenizer(new CharArrayReader(chars, 0, length), true);
+        tokenizer.setSettings(m_chunkSettings);
+        tokenizer.setLineNumber(lineNo);
+        final Chunk chunk = new Chunk();
+        while (true) {
+            final String token;
+            try {
+                token = tokenizer.nextToken();
+            } catch (TokenizerException e) {
+                chunk.m_tokens.add(new TokenEntry(null, null, false, false, tokenizer.getLineNumber(),
+                    readBytes + tokenizer.getReadBytes(), e));
+                continue;
+            }
+            if (token == null) {
+                break;
+            }
+            chunk.m_tokens.add(new TokenEntry(token, tokenizer.getLastQuotes(), tokenizer.lastTokenWasDelimiter(),
+                tokenizer.lastTokenWasDelimited(), tokenizer.getLineNumber(), readBytes + tokenizer.getReadBytes(),
+                null));
+        }
+        chunk.m_endLineNo = tokenizer.getLineNumber();
+        chunk.m_endReadBytes = readBytes + tokenizer.getReadBytes();
+        return chunk;
+    }
+
+    private void closeSource() {
+        try {
+            m_source.close();
+        } catch (IOException ioe) {
+            // empty, as in the sequential tokenizer
+        }
+    }
+
+    private static Chunk waitFor(final Future<Chunk> future) {
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null && !future.isDone()) {
+                return currentPool.runInvisible(future::get);
+            }
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenizerException("Interrupted while tokenizing.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // runInvisible wraps the ExecutionException thrown by Future#get
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new TokenizerException("Tokenizing failed: " + cause.getMessage());
+        }
+    }
+
+    /** The tokens of a chunk and the state of its tokenizer at the end. */
+    private static final class Chunk {
+
+        private final List<TokenEntry> m_tokens = new ArrayList<>();
+
+        private int m_endLineNo;
+
+        private long m_endReadBytes;
+    }
+
+    /** A token and the tokenizer state after reading it, or the exception thrown instead. */
+    private static final class TokenEntry {
+
+        private final String m_token;
+
+        private final Quote m_quotes;
+
+        private final boolean m_wasDelimiter;
+
+        private final boolean m_wasDelimited;
+
+        private final int m_lineNo;
+
+        private final long m_readBytes;
+
+        private final TokenizerException m_error;
+
+        TokenEntry(final String token, final Quote quotes, final boolean wasDelimiter, final boolean wasDelimited,
+            final int lineNo, final long readBytes, final TokenizerException error) {
+            m_token = token;
+            m_quotes = quotes;
+            m_wasDelimiter = wasDelimiter;
+            m_wasDelimited = wasDelimited;
+            m_lineNo = lineNo;
+            m_readBytes = readBytes;
+            m_error = error;
+        }
+    }
+}
@@ -46,6 +46,7 @@
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 import java.util.Vector;
 
 /**
@@ -76,6 +77,14 @@
  * inside a token or quoted string.
  * <p>
  * You can push back one (the last) token.
+ * <p>
+ * By default the source is read character by character, i.e. the tokenizer
+ * doesn't read beyond the last character it needs and the source can be
+ * read further by the caller. If created with
+ * {@link #Tokenizer(Reader, boolean) read ahead} enabled, the source is read
+ * in blocks, which is faster but consumes the stream. If enabled via
+ * {@link #setParallelTokenization(boolean)}, chunks of lines are tokenized
+ * concurrently (if the settings permit).
  *
  * @author Peter Ohl, University of Konstanz
  */
@@ -164,8 +173,47 @@ public class Tokenizer {
     /* end-of-buffer: the last index in the read (ring) buffer */
     private int m_eobIdx;
 
+    /* size of the blocks read from the source */
+    private static final int BLOCK_LENGTH = 1 << 16;
+
+    /* whether the source is read in blocks, otherwise char by char */
+    private final boolean m_readAhead;
+
+    /* characters read from the source but not yet returned by getNextChar */
+    private final char[] m_block;
+
+    /* the index of the next character in the block */
+    private int m_blockPos;
+
+    /* the number of valid characters in the block */
+    private int m_blockLimit;
+
+    /*
+     * Per character: the single character delimiter, quote and comment
+     * pattern (if any) - such a pattern always matches before any longer
+     * pattern starting with the same character.
+     */
+    private final Delimiter[] m_singleCharDelims;
+
+    private final Quote[] m_singleCharQuotes;
+
+    private final Comment[] m_singleCharComments;
+
+    /* the begin patterns in the order of the pattern vectors, see matchPattern */
+    private String[] m_delimBegins;
+
+    private String[] m_quoteBegins;
+
+    private String[] m_commentBegins;
+
+    /* whether chunks of lines are to be tokenized concurrently, if possible */
+    private boolean m_parallelTokenization;
+
+    /* tokenizes and returns the chunks if in parallel mode, null otherwise */
+    private ParallelTokenizer m_parallelTokenizer;
+
     /* we build the token in here */
-    private StringBuffer m_newToken;
+    private StringBuilder m_newToken;
 
     /* the token returned by the last call to next() */
     private String m_lastToken;
@@ -214,16 +262,41 @@ public class Tokenizer {
      * @see #resetToDefault() for what's the default behaviour.
      */
     public Tokenizer(final Reader source) {
+        this(source, false);
+    }
+
+    /**
+     * Creates a new tokenizer with the default behaviour.
+     *
+     * @param source A reader the tokens are read from.
+     * @param readAhead whether the source is read in blocks. This is faster,
+     *            in particular for readers that don't buffer, but the
+     *            tokenizer then reads (and consumes) characters beyond the
+     *            last token it returned. Only set it if the source isn't read
+     *            by anyone else and its read position (e.g. for progress
+     *            reporting) is not relevant.
+     *
+     * @see #resetToDefault() for what's the default behaviour.
+     * @since 4.4
+     */
+    public Tokenizer(final Reader source, final boolean readAhead) {
 
         m_source = source;
+        m_readAhead = readAhead;
         m_readBuffer = new int[BUFFER_LENGTH];
         m_currIdx = 0;
         m_eobIdx = 0;
+        m_block = new char[readAhead ? BLOCK_LENGTH : 0];
+        m_blockPos = 0;
+        m_blockLimit = 0;
 
         m_lineNo = 1;
         m_readBytes = 0;
 
         m_charType = new int[MAX_CHAR + 1];
+        m_singleCharDelims = new Delimiter[MAX_CHAR + 1];
+        m_singleCharQuotes = new Quote[MAX_CHAR + 1];
+        m_singleCharComments = new Comment[MAX_CHAR + 1];
 
         m_delimPatterns = new Vector<Delimiter>();
         m_quotePatterns = new Vector<Quote>();
@@ -235,7 +308,7 @@ public Tokenizer(final Reader source) {
         m_linesSkipped = 0;
         m_allowLFinQuotes = false;
 
-        m_newToken = new StringBuffer();
+        m_newToken = new StringBuilder();
         m_lastToken = null;
         m_pushedBack = false;
         m_lastQuotes = null;
@@ -275,6 +348,44 @@ public void resetToDefault() {
         m_combineMultipleDelimiters = false;
         m_linesToSkip = 0;
         m_allowLFinQuotes = false;
+        updatePatternTables();
+    }
+
+    /*
+     * Fills the lookup tables for the single character patterns and the arrays
+     * of begin patterns from the pattern vectors.
+     */
+    private void updatePatternTables() {
+        Arrays.fill(m_singleCharDelims, null);
+        Arrays.fill(m_singleCharQuotes, null);
+        Arrays.fill(m_singleCharComments, null);
+        m_delimBegins = new String[m_delimPatterns.size()];
+        for (int i = 0; i < m_delimBegins.length; i++) {
+            Delimiter delim = m_delimPatterns.get(i);
+            m_delimBegins[i] = delim.getDelimiter();
+            if (m_delimBegins[i].length() == 1 && delim.getFirstChar() <= MAX_CHAR
+                    && m_singleCharDelims[delim.getFirstChar()] == null) {
+                m_singleCharDelims[delim.getFirstChar()] = delim;
+            }
+        }
+        m_quoteBegins = new String[m_quotePatterns.size()];
+        for (int i = 0; i < m_quoteBegins.length; i++) {
+            Quote quote = m_quotePatterns.get(i);
+            m_quoteBegins[i] = quote.getLeft();
+            if (m_quoteBegins[i].length() == 1 && quote.getFirstCharOfLeft() <= MAX_CHAR
+                    && m_singleCharQuotes[quote.getFirstCharOfLeft()] == null) {
+                m_singleCharQuotes[quote.getFirstCharOfLeft()] = quote;
+            }
+        }
+        m_commentBegins = new String[m_commentPatterns.size()];
+        for (int i = 0; i < m_commentBegins.length; i++) {
+            Comment comment = m_commentPatterns.get(i);
+            m_commentBegins[i] = comment.getBegin();
+            if (m_commentBegins[i].length() == 1 && comment.getFirstCharOfBegin() <= MAX_CHAR
+                    && m_singleCharComments[comment.getFirstCharOfBegin()] == null) {
+                m_singleCharComments[comment.getFirstCharOfBegin()] = comment;
+            }
+        }
     }
 
     /**
@@ -330,6 +441,18 @@ public String nextToken() throws TokenizerException {
                 m_linesSkipped++;
             }
         }
+        if (m_parallelTokenization) {
+            // decided once, with the first token (unless the stream ended
+            // while skipping lines)
+            m_parallelTokenization = false;
+            if (m_linesSkipped >= m_linesToSkip
+                    && ParallelTokenizer.supports(getSettings())) {
+                m_parallelTokenizer = new ParallelTokenizer(this, m_source, takeReadAhead());
+            }
+        }
+        if (m_parallelTokenizer != null) {
+            return m_parallelTokenizer.nextToken();
+        }
         m_lastToken = null;
         m_newToken.setLength(0);
         m_lastQuotes = null;
@@ -340,12 +463,16 @@ public String nextToken() throws TokenizerException {
         int c = getNextChar();
         while (c != EOF) {
             int ctype = 0;
-            if (ctype <= MAX_CHAR) {
-                ctype = m_charType[c & MAX_CHAR];
+            if (c <= MAX_CHAR) {
+                ctype = m_charType[c];
             }
             if (ctype == 0) {
                 // it's an ordinary character - just add it to the result
                 m_newToken.append((char)c);
+                if (m_currIdx == m_eobIdx) {
+                    // nothing pushed back: take all following ordinary chars
+                    appendOrdinaryChars();
+                }
                 c = getNextChar();
                 continue;
             }
@@ -367,7 +494,7 @@ public String nextToken() throws TokenizerException {
                 // this character COULD start a comment. There is at least one
                 // CommentBegin pattern that starts with this character.
                 putBackChar(c);
-                if ((commentPattern = isCommentPattern()) != null) {
+                if ((commentPattern = isCommentPattern(c)) != null) {
                     // a comment started here.
                     if (commentPattern.returnAsSeparateToken()) {
                         if (m_newToken.length() == 0) {
@@ -396,7 +523,7 @@ public String nextToken() throws TokenizerException {
                 Delimiter delimPattern;
                 // it could start a token delimiter.
                 putBackChar(c);
-                if ((delimPattern = isDelimiterPattern()) != null) {
+                if ((delimPattern = isDelimiterPattern(c)) != null) {
                     // readDelimiter will read as many delimiters as necessary
                     // will save them and/or return them to include into the
                     // current token.
@@ -419,7 +546,7 @@ public String nextToken() throws TokenizerException {
                 // one QuoteBegin pattern that starts with this character.
                 Quote quotePattern; // the begin/end pattern and esc char
                 putBackChar(c);
-                if ((quotePattern = isQuotePattern()) != null) {
+                if ((quotePattern = isQuotePattern(c)) != null) {
                     // a quoted string actually started here.
                     try {
                         m_newToken.append(readQuotedString(quotePattern));
@@ -484,7 +611,7 @@ private int getNextChar() {
             // m_currIdx points to the last char read from the buffer
             if (m_eobIdx == m_currIdx) {
                 // we need to read a new character from the stream
-                if ((m_readBuffer[m_currIdx] = m_source.read()) == -1) {
+                if ((m_readBuffer[m_currIdx] = readSourceChar()) == -1) {
                     // seen the EOF. Any further read will cause IOException.
                     m_source.close();
                 }
@@ -492,7 +619,7 @@ private int getNextChar() {
                 if (m_readBuffer[m_currIdx] == CR) {
                     // read the next char to see if we need to swallow the CR
                     m_eobIdx = (m_eobIdx + 1) % BUFFER_LENGTH;
-                    if ((m_readBuffer[m_eobIdx] = m_source.read()) == LF) {
+                    if ((m_readBuffer[m_eobIdx] = readSourceChar()) == LF) {
                         m_currIdx = m_eobIdx;
                         // incr currIdx as well, which makes them equal again...
                     }
@@ -511,6 +638,69 @@ private int getNextChar() {
         }
     }
 
+    /*
+     * Returns the next character from the source, reading the next block if
+     * the current one is exhausted. @return The next character or -1 at EOF.
+     */
+    private int readSourceChar() throws IOException {
+        if (!m_readAhead) {
+            return m_source.read();
+        }
+        while (m_blockPos == m_blockLimit) {
+            int read = m_source.read(m_block, 0, m_block.length);
+            if (read < 0) {
+                return -1;
+            }
+            m_blockPos = 0;
+            m_blockLimit = read;
+        }
+        return m_block[m_blockPos++];
+    }
+
+    /*
+     * Appends the characters of the current block to the new token as long as
+     * they are of no special type (and are no line breaks). Must only be called
+     * if the read buffer holds no pushed back characters.
+     */
+    private void appendOrdinaryChars() {
+        final int start = m_blockPos;
+        int pos = start;
+        while (pos < m_blockLimit) {
+            char c = m_block[pos];
+            if (c <= MAX_CHAR && (m_charType[c] != 0 || c == LF || c == CR)) {
+                break;
+            }
+            pos++;
+        }
+        if (pos > start) {
+            m_newToken.append(m_block, start, pos - start);
+            m_readBytes += pos - start;
+            m_blockPos = pos;
+        }
+    }
+
+    /*
+     * Returns all characters read from the source but not yet consumed and
+     * discards them here. The number of bytes read is reduced accordingly, as
+     * they will be counted again by the parallel tokenizer.
+     */
+    private char[] takeReadAhead() {
+        char[] result = new char[BUFFER_LENGTH + m_blockLimit - m_blockPos];
+        int length = 0;
+        while (m_currIdx != m_eobIdx) {
+            m_currIdx = (m_currIdx + 1) % BUFFER_LENGTH;
+            m_readBytes--;
+            if (m_readBuffer[m_currIdx] != EOF) {
+                result[length++] = (char)m_readBuffer[m_currIdx];
+            }
+        }
+        System.arraycopy(m_block, m_blockPos, result, length, m_blockLimit - m_blockPos);
+        length += m_blockLimit - m_blockPos;
+        m_blockPos = 0;
+        m_blockLimit = 0;
+        return Arrays.copyOf(result, length);
+    }
+
     /*
      * Stores the character in c in the read buffer. The next call to <code>
      * getNextChar() </code> will return it then. Can be called several times -
@@ -569,12 +759,7 @@ private int readWhiteSpaces() {
      *         of whitespaces.
      */
     public boolean isWhiteSpace(final char c) {
-        for (int w = 0; w < m_whiteSpaces.size(); w++) {
-            if (m_whiteSpaces.get(w).charAt(0) == c) {
-                return true;
-            }
-        }
-        return false;
+        return c <= MAX_CHAR && (m_charType[c] & WSCHAR) != 0;
     }
 
     /**
@@ -585,7 +770,7 @@ public boolean isWhiteSpace(final char c) {
      * @param str the stringbuffer to modify
      * @param index the lowest index we may modify
      */
-    private void cutOffWhiteSpaces(final StringBuffer str, final int index) {
+    private void cutOffWhiteSpaces(final StringBuilder str, final int index) {
 
         if (str.length() == 0) {
             return;
@@ -616,15 +801,19 @@ private void cutOffWhiteSpaces(final StringBuffer str, final int index) {
      * corresponding Comment object. (That is the reason why no begin pattern
      * can be a prefix of any other begin pattern.) @return After its work is
      * done it pushes back all characters read so far. It returns <code> null
-     * </code> if no matching pattern exists.
+     * </code> if no matching pattern exists. @param c The next character in the
+     * stream, which the caller has already pushed back.
      */
-    private Comment isCommentPattern() {
-        String[] patterns = new String[m_commentPatterns.size()];
-        for (int i = 0; i < patterns.length; i++) {
-            patterns[i] = m_commentPatterns.get(i).getBegin();
+    private Comment isCommentPattern(final int c) {
+        if (c <= MAX_CHAR) {
+            if (m_singleCharComments[c] != null) {
+                return m_singleCharComments[c];
+            }
+            if ((m_charType[c] & COMMENT) == 0) {
+                return null;
+            }
         }
-
-        int index = matchPattern(patterns);
+        int index = matchPattern(m_commentBegins.clone());
         if (index >= 0) {
             return m_commentPatterns.get(index);
         } else {
@@ -633,15 +822,34 @@ private Comment isCommentPattern() {
     }
 
     /*
-     * @see #isCommentPattern
+     * Same as isDelimiterPattern(int), but reads (and pushes back) the next
+     * character itself.
      */
     private Delimiter isDelimiterPattern() {
-        String[] patterns = new String[m_delimPatterns.size()];
-        for (int i = 0; i < patterns.length; i++) {
-            patterns[i] = m_delimPatterns.get(i).getDelimiter();
+        if (m_delimBegins.length == 0) {
+            return null;
         }
+        int c = getNextChar();
+        if (c == EOF) {
+            return null;
+        }
+        putBackChar(c);
+        return isDelimiterPattern(c);
+    }
 
-        int index = matchPattern(patterns);
+    /*
+     * @see #isCommentPattern
+     */
+    private Delimiter isDelimiterPattern(final int c) {
+        if (c <= MAX_CHAR) {
+            if (m_singleCharDelims[c] != null) {
+                return m_singleCharDelims[c];
+            }
+            if ((m_charType[c] & DELIM) == 0) {
+                return null;
+            }
+        }
+        int index = matchPattern(m_delimBegins.clone());
         if (index >= 0) {
             return m_delimPatterns.get(index);
         } else {
@@ -653,13 +861,16 @@ private Delimiter isDelimiterPattern() {
     /*
      * @see #isCommentPattern
      */
-    private Quote isQuotePattern() {
-        String[] patterns = new String[m_quotePatterns.size()];
-        for (int i = 0; i < patterns.length; i++) {
-            patterns[i] = m_quotePatterns.get(i).getLeft();
+    private Quote isQuotePattern(final int c) {
+        if (c <= MAX_CHAR) {
+            if (m_singleCharQuotes[c] != null) {
+                return m_singleCharQuotes[c];
+            }
+            if ((m_charType[c] & QUOTE) == 0) {
+                return null;
+            }
         }
-
-        int index = matchPattern(patterns);
+        int index = matchPattern(m_quoteBegins.clone());
         if (index >= 0) {
             return m_quotePatterns.get(index);
         } else {
@@ -681,7 +892,7 @@ private int matchPattern(final String[] patterns) {
         int possibleMatches = patterns.length;
         int charPos;
         int nextChar;
-        StringBuffer buffer = new StringBuffer();
+        StringBuilder buffer = new StringBuilder();
         int result;
         /*
          * Here is what we do: We read one char after each other. With each new
@@ -744,7 +955,7 @@ private int matchPattern(final String[] patterns) {
      * comment begin pattern. Otherwise an assertion will go off. <br>
      */
     private String readComment(final Comment comment) {
-        StringBuffer result = new StringBuffer();
+        StringBuilder result = new StringBuilder();
         String endPattern = comment.getEnd();
         int nextChar;
         int patternLength;
@@ -837,7 +1048,7 @@ private String readDelimiter(final Delimiter delim) {
             // if we are not supposed to combine different delims - we still
             // need to check if we should combine delims of this kind
             if (delim.combineConsecutiveDelims()) {
-                StringBuffer buffer = new StringBuffer();
+                StringBuilder buffer = new StringBuilder();
                 int index = 0;
                 while ((nextChar = getNextChar()) != EOF) {
 
@@ -1113,6 +1324,36 @@ public int getLineNumber() {
         return m_lineNo;
     }
 
+    /*
+     * Sets the line number of the first line in the stream. Used for the
+     * tokenizers of the chunks in parallel mode.
+     */
+    void setLineNumber(final int lineNo) {
+        m_lineNo = lineNo;
+    }
+
+    /*
+     * @return the quote pattern of the last token, or null
+     */
+    Quote getLastQuotes() {
+        return m_lastQuotes;
+    }
+
+    /*
+     * Sets the state after reading a token - called by the parallel tokenizer
+     * for each token it returns.
+     */
+    void setLastToken(final String token, final Quote quotes,
+            final boolean wasDelimiter, final boolean wasDelimited,
+            final int lineNo, final long readBytes) {
+        m_lastToken = token;
+        m_lastQuotes = quotes;
+        m_tokenWasDelimiter = wasDelimiter;
+        m_lastTokenWasDelimited = wasDelimited;
+        m_lineNo = lineNo;
+        m_readBytes = readBytes;
+    }
+
     /**
      * Returns the number of bytes returned so far. Due to the buffering the
      * number of bytes read from the disk and the number of bytes returned by
@@ -1132,8 +1373,13 @@ public long getReadBytes() {
      * <code>null</code> (indicating the end of the file).
      */
     public void closeSourceStream() {
-        // discard any characters pushed back.
+        // discard any characters pushed back or read ahead.
         clearReadBuffer();
+        m_blockPos = 0;
+        m_blockLimit = 0;
+        if (m_parallelTokenizer != null) {
+            m_parallelTokenizer.cancel();
+        }
         try {
             m_source.close();
         } catch (IOException ioe) {
@@ -1141,6 +1387,33 @@ public void closeSourceStream() {
         }
     }
 
+    /**
+     * Enables or disables the concurrent tokenization of chunks of lines. If
+     * enabled, and if the settings guarantee that a token never spans a line
+     * break (no comments, no line continuation character, no line breaks in
+     * quotes, a line feed delimiter that doesn't combine consecutive
+     * delimiters and no other pattern containing a line feed), the source is
+     * split at line breaks and the chunks are tokenized in the global thread
+     * pool. Tokens, line numbers and read bytes are the same as in sequential
+     * mode. Otherwise this setting has no effect. Default is disabled.
+     * <p>
+     * Note that in parallel mode the source is read in blocks (consumed beyond
+     * the last token returned), independent of the read ahead option passed to
+     * the constructor.
+     *
+     * @param parallel true to tokenize chunks concurrently (if possible)
+     * @throws IllegalStateException if the tokenizer already read from the
+     *             stream
+     * @since 4.4
+     */
+    public void setParallelTokenization(final boolean parallel) {
+        if (m_settingsLocked) {
+            throw new IllegalStateException("Don't change tokenizer settings"
+                    + " after reading from it.");
+        }
+        m_parallelTokenization = parallel;
+    }
+
     /**
      * Set new user settings in this tokenizer. The only way to configure this
      * tokenizer is to create an instance of the
@@ -1208,6 +1481,7 @@ public void setSettings(final TokenizerSettings ftSettings) {
         m_linesToSkip = ftSettings.getSkipFirstLines();
         // the flag to allow new lines in quoted strings
         m_allowLFinQuotes = ftSettings.allowLFinQuotes();
+        updatePatternTables();
     }
 
     /**